@@ -0,0 +1,59 @@
+package com.project.back_end.bench;
+
+import com.project.back_end.models.Doctor;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DoctorService hot paths: AM/PM slot filtering and per-day availability.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DoctorServiceBenchmark {
+
+	@Param({ "50", "500" })
+	int doctors;
+
+	ServiceFixture fixture;
+	List<Doctor> allDoctors;
+	LocalDate date;
+
+	@Setup
+	public void setup() {
+		fixture = new ServiceFixture(doctors, 1000, doctors * 20, 14);
+		allDoctors = fixture.repos.doctorRepository.findAll();
+		date = fixture.repos.startDate;
+	}
+
+	@Benchmark
+	public List<Doctor> filterDoctorByTimeAm() {
+		return fixture.doctorService.filterDoctorByTime(allDoctors, "AM");
+	}
+
+	@Benchmark
+	public List<Doctor> filterDoctorByTimePm() {
+		return fixture.doctorService.filterDoctorByTime(allDoctors, "PM");
+	}
+
+	@Benchmark
+	public List<String> getDoctorAvailability() {
+		return fixture.doctorService.getDoctorAvailability(1L, date);
+	}
+
+}
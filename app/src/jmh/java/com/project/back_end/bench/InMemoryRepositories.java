@@ -0,0 +1,160 @@
+package com.project.back_end.bench;
+
+import com.project.back_end.models.Admin;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AdminRepository;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.ArchivedAppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.repo.PrescriptionRepository;
+import com.project.back_end.repo.ScheduleOverrideRepository;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * In-memory stand-ins for the Spring Data repositories, so the services can be benchmarked
+ * without a database. Only the query methods the benchmarked code paths call are implemented;
+ * anything else throws UnsupportedOperationException.
+ */
+public final class InMemoryRepositories {
+
+	static final String[] SPECIALTIES = { "Cardiology", "Dermatology", "Neurology", "Pediatrics", "Orthopedics" };
+	static final String[] SLOTS = { "09:00-10:00", "10:00-11:00", "11:00-12:00", "12:00-13:00",
+			"14:00-15:00", "15:00-16:00", "16:00-17:00", "17:00-18:00" };
+
+	final List<Admin> admins = new ArrayList<>();
+	final List<Doctor> doctors = new ArrayList<>();
+	final List<Patient> patients = new ArrayList<>();
+	final List<Appointment> appointments = new ArrayList<>();
+	final LocalDate startDate = LocalDate.now().plusDays(1);
+
+	final AdminRepository adminRepository;
+	final DoctorRepository doctorRepository;
+	final PatientRepository patientRepository;
+	final AppointmentRepository appointmentRepository;
+	final ArchivedAppointmentRepository archivedAppointmentRepository;
+	final ScheduleOverrideRepository scheduleOverrideRepository;
+	final PrescriptionRepository prescriptionRepository;
+
+	/**
+	 * Seed a deterministic data set: doctors with eight slots each, patients, and
+	 * appointments spread over the next days starting tomorrow.
+	 */
+	public InMemoryRepositories(int doctorCount, int patientCount, int appointmentCount, int days) {
+		Random rnd = new Random(42);
+		Admin admin = new Admin("admin", "admin123");
+		admin.setId(1L);
+		admins.add(admin);
+
+		for (long i = 1; i <= doctorCount; i++) {
+			Doctor d = new Doctor();
+			d.setId(i);
+			d.setName("Doctor " + i);
+			d.setEmail("doctor" + i + "@clinic.test");
+			d.setPassword("secret" + i);
+			d.setPhone(String.format("%010d", i));
+			d.setSpecialty(SPECIALTIES[(int) (i % SPECIALTIES.length)]);
+			// half the doctors work mornings only, the rest all day
+			d.setAvailableTimes(new ArrayList<>(List.of(i % 2 == 0 ? java.util.Arrays.copyOf(SLOTS, 3) : SLOTS)));
+			doctors.add(d);
+		}
+		for (long i = 1; i <= patientCount; i++) {
+			Patient p = new Patient();
+			p.setId(i);
+			p.setName("Patient " + i);
+			p.setEmail("patient" + i + "@mail.test");
+			p.setPassword("secret" + i);
+			p.setPhone(String.format("9%09d", i));
+			p.setAddress(i + " Main Street");
+			patients.add(p);
+		}
+		for (long i = 1; i <= appointmentCount; i++) {
+			Doctor d = doctors.get(rnd.nextInt(doctors.size()));
+			Patient p = patients.get(rnd.nextInt(patients.size()));
+			String slot = d.getAvailableTimes().get(rnd.nextInt(d.getAvailableTimes().size()));
+			LocalDateTime time = startDate.plusDays(rnd.nextInt(days)).atTime(java.time.LocalTime.parse(slot.substring(0, 5)));
+			appointments.add(new Appointment(i, d, p, time, 0));
+		}
+
+		adminRepository = proxy(AdminRepository.class, Map.of(
+				"findByUsername", args -> first(admins, a -> a.getUsername().equals(args[0]))));
+
+		doctorRepository = proxy(DoctorRepository.class, Map.of(
+				"findById", args -> Optional.ofNullable(first(doctors, d -> d.getId().equals(args[0]))),
+				"findAll", args -> new ArrayList<>(doctors),
+				"findByEmail", args -> first(doctors, d -> d.getEmail().equals(args[0])),
+				"findBySpecialtyIgnoreCase", args -> all(doctors, d -> d.getSpecialty().equalsIgnoreCase((String) args[0]))));
+
+		patientRepository = proxy(PatientRepository.class, Map.of(
+				"findByEmail", args -> first(patients, p -> p.getEmail().equals(args[0])),
+				"findById", args -> Optional.ofNullable(first(patients, p -> p.getId().equals(args[0])))));
+
+		Map<String, Function<Object[], Object>> appointmentMethods = new HashMap<>();
+		appointmentMethods.put("findByDoctorIdAndAppointmentTimeBetween", args -> all(appointments, a ->
+				a.getDoctor().getId().equals(args[0])
+						&& !a.getAppointmentTime().isBefore((LocalDateTime) args[1])
+						&& !a.getAppointmentTime().isAfter((LocalDateTime) args[2])));
+		appointmentMethods.put("findByPatientId", args -> all(appointments, a -> a.getPatient().getId().equals(args[0])));
+		appointmentMethods.put("findByPatient_IdAndAppointmentTimeGreaterThanEqualOrderByAppointmentTimeAsc", args -> sortedByTime(
+				all(appointments, a -> a.getPatient().getId().equals(args[0]) && !a.getAppointmentTime().isBefore((LocalDateTime) args[1]))));
+		appointmentMethods.put("findByPatient_IdAndAppointmentTimeBetweenOrderByAppointmentTimeAsc", args -> sortedByTime(
+				all(appointments, a -> a.getPatient().getId().equals(args[0])
+						&& !a.getAppointmentTime().isBefore((LocalDateTime) args[1])
+						&& !a.getAppointmentTime().isAfter((LocalDateTime) args[2]))));
+		appointmentMethods.put("findById", args -> Optional.ofNullable(first(appointments, a -> a.getId().equals(args[0]))));
+		appointmentRepository = proxy(AppointmentRepository.class, appointmentMethods);
+
+		archivedAppointmentRepository = proxy(ArchivedAppointmentRepository.class, Map.of(
+				"findByPatientIdOrderByAppointmentTimeAscIdAsc", args -> new ArrayList<>()));
+
+		// no schedule exceptions: every day uses availableTimes
+		scheduleOverrideRepository = proxy(ScheduleOverrideRepository.class, Map.of(
+				"findByDoctorId", args -> new ArrayList<>(),
+				"findByDoctorIdIn", args -> new ArrayList<>()));
+
+		prescriptionRepository = proxy(PrescriptionRepository.class, Map.of(
+				"deleteByAppointmentIdIn", args -> 0L));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (p, m, args) -> {
+			Function<Object[], Object> impl = methods.get(m.getName());
+			if (impl != null) return impl.apply(args);
+			switch (m.getName()) {
+				case "toString": return type.getSimpleName() + "(in-memory)";
+				case "hashCode": return System.identityHashCode(p);
+				case "equals": return p == args[0];
+				default: throw new UnsupportedOperationException(type.getSimpleName() + "." + m.getName());
+			}
+		});
+	}
+
+	private static <T> T first(List<T> list, java.util.function.Predicate<T> test) {
+		for (T t : list) if (test.test(t)) return t;
+		return null;
+	}
+
+	private static List<Appointment> sortedByTime(List<Appointment> list) {
+		list.sort(java.util.Comparator.comparing(Appointment::getAppointmentTime));
+		return list;
+	}
+
+	private static <T> List<T> all(List<T> list, java.util.function.Predicate<T> test) {
+		List<T> out = new ArrayList<>();
+		for (T t : list) if (test.test(t)) out.add(t);
+		return out;
+	}
+
+}
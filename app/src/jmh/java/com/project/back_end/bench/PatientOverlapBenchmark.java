@@ -0,0 +1,53 @@
+package com.project.back_end.bench;
+
+import com.project.back_end.services.EntityVersions;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The patient-side overlap check a booking adds: answered from the cached upcoming appointments,
+ * and after a change to the patient's appointments, when the cache is rebuilt first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientOverlapBenchmark {
+
+	ServiceFixture fixture;
+	long patientId;
+	LocalDateTime start;
+
+	@Setup
+	public void setup() {
+		// roughly 50 upcoming appointments per patient, as in PatientServiceBenchmark
+		fixture = new ServiceFixture(50, 20, 1000, 60);
+		patientId = 1L;
+		start = fixture.repos.startDate.plusDays(30).atTime(13, 0);
+		fixture.patientIntervals.overlaps(patientId, start, start.plusHours(1), null);
+	}
+
+	@Benchmark
+	public boolean cachedCheck() {
+		return fixture.patientIntervals.overlaps(patientId, start, start.plusHours(1), null);
+	}
+
+	@Benchmark
+	public boolean checkAfterChange() {
+		fixture.versions.bump(EntityVersions.patientAppointments(patientId));
+		return fixture.patientIntervals.overlaps(patientId, start, start.plusHours(1), null);
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.project.back_end.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.DTO.AppointmentDTO;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * PatientService entity-to-DTO mapping and Jackson serialization of the resulting AppointmentDTO list.
+ * The ObjectMapper is built the same way Spring Boot builds the application one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientServiceBenchmark {
+
+	ServiceFixture fixture;
+	ObjectMapper objectMapper;
+	List<AppointmentDTO> dtos;
+	long patientId;
+
+	@Setup
+	public void setup() {
+		// few patients, many appointments: roughly 50 appointments per patient
+		fixture = new ServiceFixture(50, 20, 1000, 60);
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		patientId = 1L;
+		dtos = fixture.patientService.getPatientAppointments(patientId);
+	}
+
+	@Benchmark
+	public List<AppointmentDTO> getPatientAppointments() {
+		return fixture.patientService.getPatientAppointments(patientId);
+	}
+
+	@Benchmark
+	public byte[] serializeAppointmentDtos() throws Exception {
+		return objectMapper.writeValueAsBytes(dtos);
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.project.back_end.bench;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Service.validateAppointment: slot-membership check for a requested time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceBenchmark {
+
+	ServiceFixture fixture;
+	LocalDateTime offeredSlot;
+	LocalDateTime missingSlot;
+
+	@Setup
+	public void setup() {
+		fixture = new ServiceFixture(100, 100, 0, 1);
+		offeredSlot = fixture.repos.startDate.atTime(16, 0);
+		missingSlot = fixture.repos.startDate.atTime(19, 30);
+	}
+
+	@Benchmark
+	public int validateAppointmentHit() {
+		return fixture.service.validateAppointment(1L, offeredSlot);
+	}
+
+	@Benchmark
+	public int validateAppointmentMiss() {
+		return fixture.service.validateAppointment(1L, missingSlot);
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.project.back_end.bench;
+
+import com.project.back_end.services.AppointmentIntervals;
+import com.project.back_end.services.AppointmentShards;
+import com.project.back_end.services.DoctorDeletions;
+import com.project.back_end.services.DoctorService;
+import com.project.back_end.services.DoctorSlots;
+import com.project.back_end.services.EntityVersions;
+import com.project.back_end.services.PatientIntervals;
+import com.project.back_end.services.PatientService;
+import com.project.back_end.services.Service;
+import com.project.back_end.services.TokenService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Wires the real services by hand on top of InMemoryRepositories, mirroring the constructor
+ * injection Spring does at runtime.
+ */
+final class ServiceFixture {
+
+	static final String JWT_SECRET = "$!@#$^%$$$%####$DDCPN0234FCFDPD8670M";
+
+	final InMemoryRepositories repos;
+	final EntityVersions versions;
+	final TokenService tokenService;
+	final DoctorService doctorService;
+	final PatientService patientService;
+	final Service service;
+	final PatientIntervals patientIntervals;
+
+	ServiceFixture(int doctors, int patients, int appointments, int days) {
+		repos = new InMemoryRepositories(doctors, patients, appointments, days);
+		versions = new EntityVersions();
+		AppointmentShards shards = AppointmentShards.unsharded();
+		tokenService = new TokenService(repos.adminRepository, repos.doctorRepository, repos.patientRepository, 15, 7);
+		ReflectionTestUtils.setField(tokenService, "jwtSecret", JWT_SECRET);
+		AppointmentIntervals intervals = new AppointmentIntervals(repos.appointmentRepository, versions, 10_000);
+		DoctorSlots doctorSlots = new DoctorSlots(repos.doctorRepository, repos.scheduleOverrideRepository, versions);
+		DoctorDeletions deletions = new DoctorDeletions(repos.appointmentRepository, repos.prescriptionRepository, shards, 1000);
+		doctorService = new DoctorService(repos.doctorRepository, tokenService, versions, shards, intervals, doctorSlots,
+				repos.scheduleOverrideRepository, deletions);
+		patientService = new PatientService(repos.patientRepository, repos.appointmentRepository, tokenService, versions, shards,
+				repos.archivedAppointmentRepository);
+		patientIntervals = new PatientIntervals(repos.appointmentRepository, shards, versions, 10_000);
+		service = new Service(tokenService, repos.adminRepository, repos.doctorRepository, repos.patientRepository,
+				doctorService, patientService);
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.project.back_end.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TokenService: signing, parsing and role validation of JWTs; validation touches no repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenServiceBenchmark {
+
+	ServiceFixture fixture;
+	String doctorToken;
+
+	@Setup
+	public void setup() {
+		fixture = new ServiceFixture(100, 1000, 0, 1);
+		doctorToken = fixture.tokenService.generateToken("doctor", 7L, "doctor7@clinic.test");
+	}
+
+	@Benchmark
+	public String generateToken() {
+		return fixture.tokenService.generateToken("doctor", 7L, "doctor7@clinic.test");
+	}
+
+	@Benchmark
+	public String extractIdentifier() {
+		return fixture.tokenService.extractIdentifier(doctorToken);
+	}
+
+	@Benchmark
+	public boolean validateToken() {
+		return fixture.tokenService.validateToken(doctorToken, "doctor");
+	}
+
+}
@@ -14,6 +14,7 @@ public class AppointmentDTO {
 	private String patientAddress;
 	private LocalDateTime appointmentTime;
 	private int status;
+	private int durationMinutes;
 
 	// Derived fields
 	private LocalDate appointmentDate;
@@ -21,7 +22,7 @@ public class AppointmentDTO {
 	private LocalDateTime endTime;
 
 	/**
-	 * Constructor accepts core fields and computes derived date/time fields.
+	 * Constructor accepts core fields and computes derived date/time fields (an hour long).
 	 */
 	public AppointmentDTO(Long id,
 						  Long doctorId,
@@ -33,6 +34,23 @@ public class AppointmentDTO {
 						  String patientAddress,
 						  LocalDateTime appointmentTime,
 						  int status) {
+		this(id, doctorId, doctorName, patientId, patientName, patientEmail, patientPhone, patientAddress, appointmentTime, status, 60);
+	}
+
+	/**
+	 * Same, for an appointment of the given length.
+	 */
+	public AppointmentDTO(Long id,
+						  Long doctorId,
+						  String doctorName,
+						  Long patientId,
+						  String patientName,
+						  String patientEmail,
+						  String patientPhone,
+						  String patientAddress,
+						  LocalDateTime appointmentTime,
+						  int status,
+						  int durationMinutes) {
 		this.id = id;
 		this.doctorId = doctorId;
 		this.doctorName = doctorName;
@@ -43,11 +61,12 @@ public class AppointmentDTO {
 		this.patientAddress = patientAddress;
 		this.appointmentTime = appointmentTime;
 		this.status = status;
+		this.durationMinutes = durationMinutes;
 
 		if (this.appointmentTime != null) {
 			this.appointmentDate = this.appointmentTime.toLocalDate();
 			this.appointmentTimeOnly = this.appointmentTime.toLocalTime();
-			this.endTime = this.appointmentTime.plusHours(1);
+			this.endTime = this.appointmentTime.plusMinutes(durationMinutes);
 		}
 	}
 
@@ -92,6 +111,10 @@ public class AppointmentDTO {
 		return status;
 	}
 
+	public int getDurationMinutes() {
+		return durationMinutes;
+	}
+
 	public LocalDate getAppointmentDate() {
 		return appointmentDate;
 	}
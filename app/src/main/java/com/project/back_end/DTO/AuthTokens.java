@@ -0,0 +1,29 @@
+package com.project.back_end.DTO;
+
+/**
+ * Tokens handed out on login or refresh: a short-lived access token, the refresh token that buys
+ * the next pair, and the access token's lifetime in seconds.
+ */
+public class AuthTokens {
+	private final String token;
+	private final String refreshToken;
+	private final long expiresIn;
+
+	public AuthTokens(String token, String refreshToken, long expiresIn) {
+		this.token = token;
+		this.refreshToken = refreshToken;
+		this.expiresIn = expiresIn;
+	}
+
+	public String getToken() {
+		return token;
+	}
+
+	public String getRefreshToken() {
+		return refreshToken;
+	}
+
+	public long getExpiresIn() {
+		return expiresIn;
+	}
+}
@@ -0,0 +1,36 @@
+package com.project.back_end.DTO;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A doctor's schedule exceptions as sent and returned by /doctor/schedule: slots per weekday
+ * replacing availableTimes on that weekday, and slots per date replacing both (an empty list is
+ * a day off). Weekdays and dates not listed keep availableTimes.
+ */
+public class DoctorSchedule {
+	private Map<DayOfWeek, List<String>> weekly = new TreeMap<>();
+	private Map<LocalDate, List<String>> dates = new TreeMap<>();
+
+	public DoctorSchedule() {
+	}
+
+	public Map<DayOfWeek, List<String>> getWeekly() {
+		return weekly;
+	}
+
+	public void setWeekly(Map<DayOfWeek, List<String>> weekly) {
+		this.weekly = weekly == null ? new TreeMap<>() : new TreeMap<>(weekly);
+	}
+
+	public Map<LocalDate, List<String>> getDates() {
+		return dates;
+	}
+
+	public void setDates(Map<LocalDate, List<String>> dates) {
+		this.dates = dates == null ? new TreeMap<>() : new TreeMap<>(dates);
+	}
+}
@@ -0,0 +1,28 @@
+package com.project.back_end.DTO;
+
+/**
+ * A search-as-you-type match: just enough of a doctor to show in a suggestion list.
+ */
+public class DoctorSuggestion {
+	private final Long id;
+	private final String name;
+	private final String specialty;
+
+	public DoctorSuggestion(Long id, String name, String specialty) {
+		this.id = id;
+		this.name = name;
+		this.specialty = specialty;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getSpecialty() {
+		return specialty;
+	}
+}
@@ -0,0 +1,43 @@
+package com.project.back_end.DTO;
+
+import java.time.LocalDateTime;
+
+/**
+ * A bookable slot found by the next-available search: the doctor, the slot as listed in their
+ * available times, and when it starts on the day found.
+ */
+public class FreeSlot {
+	private final Long doctorId;
+	private final String doctorName;
+	private final String specialty;
+	private final String slot;
+	private final LocalDateTime start;
+
+	public FreeSlot(Long doctorId, String doctorName, String specialty, String slot, LocalDateTime start) {
+		this.doctorId = doctorId;
+		this.doctorName = doctorName;
+		this.specialty = specialty;
+		this.slot = slot;
+		this.start = start;
+	}
+
+	public Long getDoctorId() {
+		return doctorId;
+	}
+
+	public String getDoctorName() {
+		return doctorName;
+	}
+
+	public String getSpecialty() {
+		return specialty;
+	}
+
+	public String getSlot() {
+		return slot;
+	}
+
+	public LocalDateTime getStart() {
+		return start;
+	}
+}
@@ -0,0 +1,27 @@
+package com.project.back_end.DTO;
+
+import java.util.List;
+
+/**
+ * Request body for a batch status change: the same status for every listed appointment.
+ */
+public class StatusUpdate {
+	private List<Long> ids;
+	private int status;
+
+	public List<Long> getIds() {
+		return ids;
+	}
+
+	public void setIds(List<Long> ids) {
+		this.ids = ids;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public void setStatus(int status) {
+		this.status = status;
+	}
+}
@@ -0,0 +1,69 @@
+package com.project.back_end.config;
+
+import com.project.back_end.repo.AppointmentIdBlocks;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+import org.hibernate.annotations.IdGeneratorType;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.id.IdentityGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.Selectable;
+
+/**
+ * Appointment ids: database identity on a single database; when sharded, the next id of the
+ * current shard's range from AppointmentIdBlocks (passed in through the Hibernate setting
+ * BLOCKS_SETTING).
+ */
+public class AppointmentIdGenerator extends IdentityGenerator implements BeforeExecutionGenerator {
+
+	public static final String BLOCKS_SETTING = "cms.appointment-id-blocks";
+
+	@IdGeneratorType(AppointmentIdGenerator.class)
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ ElementType.FIELD, ElementType.METHOD })
+	public @interface ShardedId {
+	}
+
+	private final AppointmentIdBlocks blocks;
+
+	public AppointmentIdGenerator(ShardedId annotation, Member member, CustomIdGeneratorCreationContext context) {
+		Object setting = context.getServiceRegistry().requireService(ConfigurationService.class).getSettings().get(BLOCKS_SETTING);
+		this.blocks = setting instanceof AppointmentIdBlocks b ? b : null;
+		// Hibernate only marks the column as identity (for schema generation) for its own generator
+		for (Selectable column : context.getRootClass().getIdentifier().getSelectables()) {
+			if (column instanceof Column c) c.setIdentity(true);
+		}
+	}
+
+	@Override
+	public boolean generatedOnExecution() {
+		// keeps the identity insert available; the choice is made per insert below
+		return true;
+	}
+
+	@Override
+	public boolean generatedOnExecution(Object owner, SharedSessionContractImplementor session) {
+		return blocks == null;
+	}
+
+	@Override
+	public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+		Integer shard = ShardContext.current();
+		return blocks.next(shard == null ? 0 : shard);
+	}
+
+	@Override
+	public EnumSet<EventType> getEventTypes() {
+		return EventTypeSets.INSERT_ONLY;
+	}
+
+}
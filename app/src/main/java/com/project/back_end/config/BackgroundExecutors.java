@@ -0,0 +1,32 @@
+package com.project.back_end.config;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executors for a component's own background work (ordered event sends, write-behind queues,
+ * cleanup, shard fan-out), so they all name, size and shut down their threads the same way.
+ * Periodic jobs use @Scheduled instead (SchedulingConfig).
+ *
+ * The owning component calls shutdown() from its @PreDestroy. With drain, tasks already queued
+ * still run (for up to 30 s); without, running tasks are interrupted and queued ones dropped.
+ */
+public final class BackgroundExecutors {
+
+	private static final int AWAIT_TERMINATION_SECONDS = 30;
+
+	private BackgroundExecutors() {
+	}
+
+	public static ThreadPoolTaskExecutor create(String name, int threads, boolean drain) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix(name + "-");
+		executor.setDaemon(true);
+		executor.setCorePoolSize(threads);
+		executor.setMaxPoolSize(threads);
+		executor.setWaitForTasksToCompleteOnShutdown(drain);
+		executor.setAwaitTerminationSeconds(AWAIT_TERMINATION_SECONDS);
+		executor.initialize();
+		return executor;
+	}
+
+}
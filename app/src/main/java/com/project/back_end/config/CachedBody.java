@@ -0,0 +1,42 @@
+package com.project.back_end.config;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+/**
+ * A pre-serialized UTF-8 response body, held either on-heap (byte[]) or off-heap (direct ByteBuffer).
+ * Written straight to the servlet output stream by CachedBodyHttpMessageConverter.
+ */
+public final class CachedBody {
+
+	private final byte[] heap;
+	private final ByteBuffer direct;
+
+	private CachedBody(byte[] heap, ByteBuffer direct) {
+		this.heap = heap;
+		this.direct = direct;
+	}
+
+	public static CachedBody of(byte[] bytes, boolean offHeap) {
+		if (!offHeap) return new CachedBody(bytes, null);
+		ByteBuffer buf = ByteBuffer.allocateDirect(bytes.length);
+		buf.put(bytes).flip();
+		return new CachedBody(null, buf.asReadOnlyBuffer());
+	}
+
+	public int length() {
+		return heap != null ? heap.length : direct.capacity();
+	}
+
+	public void writeTo(OutputStream out) throws IOException {
+		if (heap != null) {
+			out.write(heap);
+		} else {
+			// duplicate() gives each writer its own position over the shared buffer
+			Channels.newChannel(out).write(direct.duplicate());
+		}
+	}
+
+}
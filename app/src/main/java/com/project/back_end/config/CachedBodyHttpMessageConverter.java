@@ -0,0 +1,46 @@
+package com.project.back_end.config;
+
+import java.io.IOException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.NonNull;
+
+/**
+ * Writes a CachedBody as-is; no Jackson involved.
+ */
+public class CachedBodyHttpMessageConverter extends AbstractHttpMessageConverter<CachedBody> {
+
+	public CachedBodyHttpMessageConverter() {
+		super(MediaType.APPLICATION_JSON, MediaType.ALL);
+	}
+
+	@Override
+	protected boolean supports(@NonNull Class<?> clazz) {
+		return CachedBody.class == clazz;
+	}
+
+	@Override
+	protected boolean canRead(MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	@NonNull
+	protected CachedBody readInternal(@NonNull Class<? extends CachedBody> clazz, @NonNull HttpInputMessage inputMessage) {
+		throw new HttpMessageNotReadableException("CachedBody is write-only", inputMessage);
+	}
+
+	@Override
+	protected Long getContentLength(@NonNull CachedBody body, MediaType contentType) {
+		return (long) body.length();
+	}
+
+	@Override
+	protected void writeInternal(@NonNull CachedBody body, @NonNull HttpOutputMessage outputMessage) throws IOException {
+		body.writeTo(outputMessage.getBody());
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.project.back_end.config;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.lang.NonNull;
+
+/**
+ * Connection pool tuning that plain spring.datasource.hikari.* / spring.data.mongodb.* properties
+ * can't express: MySQL driver statement caching (only applied when the URL is MySQL, so the H2
+ * load-test profile keeps working) and Mongo pool sizing plus a checkout wait-time timer.
+ *
+ * Hikari's own gauges (hikaricp.connections.active/idle/pending, .acquire) and the Mongo driver
+ * pool gauges (mongodb.driver.pool.*) come from Spring Boot actuator.
+ */
+@Configuration
+public class ConnectionPoolConfig {
+
+	/**
+	 * Copies db.mysql.properties.* into the Hikari data source properties before the pool starts.
+	 */
+	@Bean
+	static BeanPostProcessor mysqlDriverProperties(Environment environment) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(@NonNull Object bean, @NonNull String beanName) {
+				if (bean instanceof HikariDataSource hikari) applyMysqlProperties(hikari, environment);
+				return bean;
+			}
+		};
+	}
+
+	static void applyMysqlProperties(HikariDataSource hikari, Environment environment) {
+		if (hikari.getJdbcUrl() == null || !hikari.getJdbcUrl().startsWith("jdbc:mysql:")) return;
+		Map<String, String> props = Binder.get(environment)
+				.bind("db.mysql.properties", Bindable.mapOf(String.class, String.class))
+				.orElse(Map.of());
+		props.forEach(hikari::addDataSourceProperty);
+	}
+
+	@Bean
+	public MongoClientSettingsBuilderCustomizer mongoPoolSettings(MeterRegistry meterRegistry,
+			@Value("${mongo.pool.max-size:50}") int maxSize,
+			@Value("${mongo.pool.min-size:5}") int minSize,
+			@Value("${mongo.pool.max-wait-ms:2000}") long maxWaitMs,
+			@Value("${mongo.pool.max-idle-ms:600000}") long maxIdleMs,
+			@Value("${mongo.pool.max-connecting:2}") int maxConnecting) {
+		Timer wait = Timer.builder("mongodb.driver.pool.wait")
+				.description("Time spent waiting to check a connection out of the Mongo pool")
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+		Counter timeouts = Counter.builder("mongodb.driver.pool.checkout.failed").register(meterRegistry);
+		ConnectionPoolListener listener = new ConnectionPoolListener() {
+			@Override
+			public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+				wait.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+			}
+
+			@Override
+			public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+				wait.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+				timeouts.increment();
+			}
+		};
+		return builder -> builder.applyToConnectionPoolSettings(pool -> pool
+				.maxSize(maxSize)
+				.minSize(minSize)
+				.maxWaitTime(maxWaitMs, TimeUnit.MILLISECONDS)
+				.maxConnectionIdleTime(maxIdleMs, TimeUnit.MILLISECONDS)
+				.maxConnecting(maxConnecting)
+				.addConnectionPoolListener(listener));
+	}
+
+}
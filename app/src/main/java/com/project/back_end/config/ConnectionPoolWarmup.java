@@ -0,0 +1,72 @@
+package com.project.back_end.config;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opens pool.warmup.connections JDBC connections at startup (and pings Mongo) so the first
+ * burst of requests doesn't pay for TCP + TLS + auth handshakes. Runs before the application
+ * reports itself ready.
+ */
+@Component
+@ConditionalOnProperty(prefix = "pool.warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConnectionPoolWarmup implements ApplicationRunner {
+
+	private static final Logger log = LoggerFactory.getLogger(ConnectionPoolWarmup.class);
+
+	private final DataSource dataSource;
+	private final ObjectProvider<MongoTemplate> mongoTemplate;
+	private final int connections;
+
+	public ConnectionPoolWarmup(DataSource dataSource,
+								ObjectProvider<MongoTemplate> mongoTemplate,
+								@Value("${pool.warmup.connections:10}") int connections) {
+		this.dataSource = dataSource;
+		this.mongoTemplate = mongoTemplate;
+		this.connections = connections;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		// hold them all at once, otherwise the pool just hands out the same connection again
+		List<Connection> opened = new ArrayList<>();
+		try {
+			for (int i = 0; i < connections; i++) {
+				Connection c = dataSource.getConnection();
+				opened.add(c);
+				c.isValid(1);
+			}
+		} catch (Exception e) {
+			log.warn("Connection pool warm-up stopped after {} connections: {}", opened.size(), e.getMessage());
+		} finally {
+			for (Connection c : opened) {
+				try {
+					c.close();
+				} catch (Exception ignored) {
+				}
+			}
+		}
+
+		MongoTemplate mongo = mongoTemplate.getIfAvailable();
+		if (mongo != null) {
+			try {
+				mongo.executeCommand(new Document("ping", 1));
+			} catch (Exception e) {
+				log.warn("Mongo warm-up ping failed: {}", e.getMessage());
+			}
+		}
+	}
+
+}
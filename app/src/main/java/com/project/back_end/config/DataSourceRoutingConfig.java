@@ -0,0 +1,145 @@
+package com.project.back_end.config;
+
+import com.project.back_end.repo.AppointmentIdBlocks;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.TaskScheduler;
+
+/**
+ * Replaces Spring Boot's single pool when read replicas (db.replica.urls) and/or appointment
+ * shards (db.shards.urls) are configured.
+ *
+ * The application DataSource becomes a LazyConnectionDataSourceProxy. The proxy only fetches a
+ * real connection on first use: by then the JPA transaction manager has marked it read-only,
+ * and the service has picked its shard. Writes go to the shard router (or straight to the
+ * primary when unsharded). @Transactional(readOnly = true) work on the primary goes to the
+ * ReplicaDataSource.
+ */
+@Configuration
+@ConditionalOnExpression("!'${db.replica.urls:}'.isBlank() or !'${db.shards.urls:}'.isBlank()")
+public class DataSourceRoutingConfig {
+
+	/**
+	 * The primary pool, configured exactly like Spring Boot's default one (spring.datasource.*).
+	 */
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public DataSource primaryDataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean(destroyMethod = "close")
+	@ConditionalOnExpression("!'${db.shards.urls:}'.isBlank()")
+	public ShardRoutingDataSource shardRoutingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+														 DataSourceProperties properties,
+														 Environment environment,
+														 MeterRegistry meterRegistry,
+														 ObjectProvider<SlowQueryLog> slowQueryLog,
+														 @Value("${db.shards.urls}") List<String> urls,
+														 @Value("${db.shards.username:}") String username,
+														 @Value("${db.shards.password:}") String password,
+														 @Value("${db.shards.pool-size:10}") int poolSize) {
+		List<DataSource> shards = new ArrayList<>();
+		shards.add(primary);
+		for (int i = 0; i < urls.size(); i++) {
+			HikariDataSource pool = pool("cms-shard-" + (i + 1), urls.get(i), username, password, poolSize,
+					properties, environment, meterRegistry);
+			shards.add(withSlowQueryLog(pool, slowQueryLog));
+		}
+		return new ShardRoutingDataSource(shards);
+	}
+
+	@Bean
+	@ConditionalOnExpression("!'${db.shards.urls:}'.isBlank()")
+	public AppointmentIdBlocks appointmentIdBlocks(@Qualifier("primaryDataSource") DataSource primary,
+												   @Value("${db.shards.id-block-size:50}") int blockSize) {
+		return new AppointmentIdBlocks(primary, blockSize);
+	}
+
+	/**
+	 * Hands the id blocks to AppointmentIdGenerator.
+	 */
+	@Bean
+	@ConditionalOnExpression("!'${db.shards.urls:}'.isBlank()")
+	public HibernatePropertiesCustomizer appointmentIdBlocksCustomizer(AppointmentIdBlocks blocks) {
+		return properties -> properties.put(AppointmentIdGenerator.BLOCKS_SETTING, blocks);
+	}
+
+	@Bean(destroyMethod = "close")
+	@ConditionalOnExpression("!'${db.replica.urls:}'.isBlank()")
+	public ReplicaDataSource replicaDataSource(@Qualifier("primaryDataSource") DataSource primary,
+											   ObjectProvider<ShardRoutingDataSource> shardRouting,
+											   DataSourceProperties properties,
+											   Environment environment,
+											   MeterRegistry meterRegistry,
+											   ObjectProvider<SlowQueryLog> slowQueryLog,
+											   ObjectProvider<TaskScheduler> taskScheduler,
+											   @Value("${db.replica.urls}") List<String> urls,
+											   @Value("${db.replica.username:}") String username,
+											   @Value("${db.replica.password:}") String password,
+											   @Value("${db.replica.pool-size:10}") int poolSize,
+											   @Value("${db.replica.max-lag-ms:2000}") long maxLagMs,
+											   @Value("${db.replica.lag-query:SHOW REPLICA STATUS}") String lagQuery,
+											   @Value("${db.replica.check-interval-ms:5000}") long checkIntervalMs) {
+		List<ReplicaDataSource.Replica> replicas = new ArrayList<>();
+		for (int i = 0; i < urls.size(); i++) {
+			String name = "cms-replica-" + i;
+			HikariDataSource pool = pool(name, urls.get(i), username, password, poolSize, properties, environment, meterRegistry);
+			pool.setReadOnly(true);
+			replicas.add(new ReplicaDataSource.Replica(name, withSlowQueryLog(pool, slowQueryLog)));
+		}
+		// replicas mirror the primary only; reads against other shards fall through to the router
+		DataSource fallback = shardRouting.getIfAvailable(() -> null);
+		return new ReplicaDataSource(fallback != null ? fallback : primary, replicas, maxLagMs, lagQuery, checkIntervalMs,
+				taskScheduler.getIfAvailable(), meterRegistry);
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+								 ObjectProvider<ShardRoutingDataSource> shardRouting,
+								 ObjectProvider<ReplicaDataSource> replicas) {
+		ShardRoutingDataSource router = shardRouting.getIfAvailable();
+		LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(router != null ? router : primary);
+		ReplicaDataSource readOnly = replicas.getIfAvailable();
+		if (readOnly != null) proxy.setReadOnlyDataSource(readOnly);
+		return proxy;
+	}
+
+	private static HikariDataSource pool(String name, String url, String username, String password, int poolSize,
+										 DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry) {
+		HikariDataSource pool = new HikariDataSource();
+		pool.setPoolName(name);
+		pool.setJdbcUrl(url.trim());
+		pool.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+		pool.setPassword(password.isEmpty() ? properties.determinePassword() : password);
+		if (properties.getDriverClassName() != null) pool.setDriverClassName(properties.getDriverClassName());
+		pool.setMaximumPoolSize(poolSize);
+		pool.setMinimumIdle(Math.min(poolSize, 2));
+		pool.setConnectionTimeout(1000);
+		pool.setMetricRegistry(meterRegistry);
+		ConnectionPoolConfig.applyMysqlProperties(pool, environment);
+		return pool;
+	}
+
+	private static DataSource withSlowQueryLog(DataSource pool, ObjectProvider<SlowQueryLog> slowQueryLog) {
+		SlowQueryLog log = slowQueryLog.getIfAvailable();
+		return log != null ? new SlowQueryDataSource(pool, log) : pool;
+	}
+
+}
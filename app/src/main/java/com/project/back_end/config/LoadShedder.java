@@ -0,0 +1,38 @@
+package com.project.back_end.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency-limit load shedder: at most maxConcurrent requests are admitted at once,
+ * everything above that is rejected immediately instead of queueing on the DB pool.
+ */
+public class LoadShedder {
+
+	private final int maxConcurrent;
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	public LoadShedder(int maxConcurrent) {
+		if (maxConcurrent < 1) throw new IllegalArgumentException("maxConcurrent must be positive");
+		this.maxConcurrent = maxConcurrent;
+	}
+
+	/**
+	 * Try to admit a request. Every successful call must be paired with release().
+	 */
+	public boolean tryAcquire() {
+		while (true) {
+			int current = inFlight.get();
+			if (current >= maxConcurrent) return false;
+			if (inFlight.compareAndSet(current, current + 1)) return true;
+		}
+	}
+
+	public void release() {
+		inFlight.decrementAndGet();
+	}
+
+	public int inFlight() {
+		return inFlight.get();
+	}
+
+}
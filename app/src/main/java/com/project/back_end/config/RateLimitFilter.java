@@ -0,0 +1,242 @@
+package com.project.back_end.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Throttles the unauthenticated endpoints (the three logins, /token/refresh and /doctor/filter/...) before
+ * the request reaches a controller, so a single client cannot saturate the DB pool.
+ *
+ * - per client IP token bucket on every throttled request (429)
+ * - per identifier (email / username in the login body) token bucket on logins (429)
+ * - concurrency limit shared by all throttled requests (503)
+ * - login bodies over 4 KB are refused (413) rather than read whole
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+	private static final int MAX_LOGIN_BODY_BYTES = 4096;
+
+	private final TokenBucketRateLimiter ipLimiter;
+	private final TokenBucketRateLimiter identifierLimiter;
+	private final LoadShedder loadShedder;
+	private final boolean trustForwardedFor;
+	private final String apiPath;
+	private final ObjectMapper objectMapper;
+
+	private final Counter ipRejected;
+	private final Counter identifierRejected;
+	private final Counter shed;
+
+	public RateLimitFilter(@Value("${ratelimit.ip.capacity:30}") int ipCapacity,
+						   @Value("${ratelimit.ip.refill-per-minute:60}") int ipRefillPerMinute,
+						   @Value("${ratelimit.identifier.capacity:5}") int identifierCapacity,
+						   @Value("${ratelimit.identifier.refill-per-minute:10}") int identifierRefillPerMinute,
+						   @Value("${ratelimit.max-keys:100000}") int maxKeys,
+						   @Value("${ratelimit.max-concurrent:64}") int maxConcurrent,
+						   @Value("${ratelimit.trust-forwarded-for:false}") boolean trustForwardedFor,
+						   @Value("${api.path}") String apiPath,
+						   ObjectMapper objectMapper,
+						   MeterRegistry meterRegistry) {
+		this.ipLimiter = new TokenBucketRateLimiter(ipCapacity, ipRefillPerMinute, maxKeys);
+		this.identifierLimiter = new TokenBucketRateLimiter(identifierCapacity, identifierRefillPerMinute, maxKeys);
+		this.loadShedder = new LoadShedder(maxConcurrent);
+		this.trustForwardedFor = trustForwardedFor;
+		this.apiPath = apiPath;
+		this.objectMapper = objectMapper;
+
+		this.ipRejected = Counter.builder("ratelimit.rejected").tag("limiter", "ip").register(meterRegistry);
+		this.identifierRejected = Counter.builder("ratelimit.rejected").tag("limiter", "identifier").register(meterRegistry);
+		this.shed = Counter.builder("loadshed.rejected").register(meterRegistry);
+		Gauge.builder("loadshed.inflight", loadShedder, LoadShedder::inFlight).register(meterRegistry);
+		Gauge.builder("ratelimit.keys", ipLimiter, TokenBucketRateLimiter::trackedKeys).tag("limiter", "ip").register(meterRegistry);
+		Gauge.builder("ratelimit.keys", identifierLimiter, TokenBucketRateLimiter::trackedKeys).tag("limiter", "identifier").register(meterRegistry);
+	}
+
+	@Override
+	protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+		return !isLogin(request) && !isRefresh(request) && !isDoctorFilter(request);
+	}
+
+	@Override
+	protected void doFilterInternal(@NonNull HttpServletRequest request,
+									@NonNull HttpServletResponse response,
+									@NonNull FilterChain chain) throws ServletException, IOException {
+		if (!ipLimiter.tryAcquire(clientIp(request))) {
+			ipRejected.increment();
+			reject(response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests");
+			return;
+		}
+
+		HttpServletRequest forwarded = request;
+		if (isLogin(request)) {
+			// one byte more than allowed tells an oversized body from one exactly at the limit
+			byte[] body = request.getContentLengthLong() > MAX_LOGIN_BODY_BYTES
+					? null : request.getInputStream().readNBytes(MAX_LOGIN_BODY_BYTES + 1);
+			if (body == null || body.length > MAX_LOGIN_BODY_BYTES) {
+				reject(response, HttpStatus.PAYLOAD_TOO_LARGE, "Login body too large");
+				return;
+			}
+			CachedBodyRequest cached = new CachedBodyRequest(request, body);
+			String identifier = extractIdentifier(cached.body);
+			if (identifier != null && !identifierLimiter.tryAcquire(identifier.toLowerCase())) {
+				identifierRejected.increment();
+				reject(response, HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts");
+				return;
+			}
+			forwarded = cached;
+		}
+
+		if (!loadShedder.tryAcquire()) {
+			shed.increment();
+			reject(response, HttpStatus.SERVICE_UNAVAILABLE, "Server busy, try again shortly");
+			return;
+		}
+		try {
+			chain.doFilter(forwarded, response);
+		} finally {
+			loadShedder.release();
+		}
+	}
+
+	private boolean isLogin(HttpServletRequest request) {
+		if (!"POST".equals(request.getMethod())) return false;
+		String path = path(request);
+		return path.equals(apiPath + "patient/login")
+				|| path.equals(apiPath + "doctor/login")
+				|| path.equals(apiPath + "admin/login");
+	}
+
+	private boolean isRefresh(HttpServletRequest request) {
+		return "POST".equals(request.getMethod()) && path(request).equals(apiPath + "token/refresh");
+	}
+
+	private boolean isDoctorFilter(HttpServletRequest request) {
+		return "GET".equals(request.getMethod()) && path(request).startsWith(apiPath + "doctor/filter/");
+	}
+
+	private String path(HttpServletRequest request) {
+		return request.getRequestURI().substring(request.getContextPath().length());
+	}
+
+	private String clientIp(HttpServletRequest request) {
+		if (trustForwardedFor) {
+			String xff = request.getHeader("X-Forwarded-For");
+			if (xff != null && !xff.isBlank()) {
+				int comma = xff.indexOf(',');
+				return (comma < 0 ? xff : xff.substring(0, comma)).trim();
+			}
+		}
+		return request.getRemoteAddr();
+	}
+
+	/**
+	 * Login bodies are Login (email) for patients/doctors and Admin (username) for admins.
+	 */
+	private String extractIdentifier(byte[] body) {
+		if (body.length == 0) return null;
+		try {
+			JsonNode node = objectMapper.readTree(body);
+			if (node == null) return null;
+			JsonNode id = node.hasNonNull("email") ? node.get("email") : node.get("username");
+			return id != null && id.isTextual() ? id.asText() : null;
+		} catch (IOException e) {
+			return null; // let the controller report the malformed body
+		}
+	}
+
+	private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+		response.setStatus(status.value());
+		if (status == HttpStatus.TOO_MANY_REQUESTS || status == HttpStatus.SERVICE_UNAVAILABLE) response.setHeader("Retry-After", "1");
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.getOutputStream().write(objectMapper.writeValueAsBytes(java.util.Map.of("message", message)));
+	}
+
+	/**
+	 * Reads the (small) login body once so it can be inspected here and replayed to the controller.
+	 */
+	private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+		private final byte[] body;
+
+		CachedBodyRequest(HttpServletRequest request, byte[] body) {
+			super(request);
+			this.body = body;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			ByteArrayInputStream in = new ByteArrayInputStream(body);
+			return new ServletInputStream() {
+				@Override
+				public int read() {
+					return in.read();
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) {
+					return in.read(b, off, len);
+				}
+
+				@Override
+				public boolean isFinished() {
+					return in.available() == 0;
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setReadListener(ReadListener listener) {
+					// the whole body is already in memory: all of it is available at once
+					try {
+						if (!isFinished()) listener.onDataAvailable();
+						if (isFinished()) listener.onAllDataRead();
+					} catch (IOException e) {
+						listener.onError(e);
+					}
+				}
+			};
+		}
+
+		@Override
+		public BufferedReader getReader() {
+			return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public int getContentLength() {
+			return body.length;
+		}
+
+		@Override
+		public long getContentLengthLong() {
+			return body.length;
+		}
+
+	}
+
+}
@@ -0,0 +1,45 @@
+package com.project.back_end.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread override that keeps read-only transactions on the primary database.
+ *
+ * Used where a read must see a write that may not have reached the replicas yet: filling a
+ * ResponseCache entry for a freshly bumped version, and any read later in a request that has
+ * already committed a write (pinned until the request ends).
+ */
+public final class ReadRouting {
+
+	private static final ThreadLocal<int[]> PRIMARY_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+	private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+	private ReadRouting() {
+	}
+
+	public static <T> T onPrimary(Supplier<T> work) {
+		int[] depth = PRIMARY_DEPTH.get();
+		depth[0]++;
+		try {
+			return work.get();
+		} finally {
+			depth[0]--;
+		}
+	}
+
+	/**
+	 * Send every further read on this thread to the primary, until clear().
+	 */
+	public static void pinToPrimary() {
+		PINNED.set(Boolean.TRUE);
+	}
+
+	public static void clear() {
+		PINNED.remove();
+	}
+
+	public static boolean primaryRequired() {
+		return PINNED.get() != null || PRIMARY_DEPTH.get()[0] > 0;
+	}
+
+}
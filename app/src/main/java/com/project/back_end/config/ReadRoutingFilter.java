@@ -0,0 +1,41 @@
+package com.project.back_end.config;
+
+import com.project.back_end.services.EntityVersions;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Read-your-writes within a request: once a request has committed a write (every write bumps an
+ * EntityVersions counter after commit), its remaining reads go to the primary. The pin is
+ * dropped when the request ends.
+ */
+@Component
+@ConditionalOnExpression("!'${db.replica.urls:}'.isBlank()")
+public class ReadRoutingFilter extends OncePerRequestFilter {
+
+	public ReadRoutingFilter(EntityVersions entityVersions) {
+		entityVersions.addListener(entity -> {
+			// background jobs have no request to end, so never pin them
+			if (RequestContextHolder.getRequestAttributes() != null) ReadRouting.pinToPrimary();
+		});
+	}
+
+	@Override
+	protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+									@NonNull FilterChain filterChain) throws ServletException, IOException {
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			ReadRouting.clear();
+		}
+	}
+
+}
@@ -0,0 +1,156 @@
+package com.project.back_end.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.TaskScheduler;
+
+/**
+ * Read-only side of the read/write split: hands out connections from the replicas in round
+ * robin, skipping replicas that failed their last health check or lag more than maxLagMillis
+ * behind the primary. Falls back to the primary (or the shard router) when no replica qualifies,
+ * when ReadRouting says this thread must read its own writes, or when the thread works on an
+ * appointment shard other than the primary.
+ */
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+	private final DataSource primary;
+	private final List<Replica> replicas;
+	private final long maxLagMillis;
+	private final String lagQuery;
+	private final AtomicInteger next = new AtomicInteger();
+	private final ScheduledFuture<?> checks;
+
+	private final Counter toReplica;
+	private final Counter toPrimary;
+
+	public ReplicaDataSource(DataSource primary, List<Replica> replicas, long maxLagMillis, String lagQuery,
+							 long checkIntervalMillis, TaskScheduler scheduler, MeterRegistry meterRegistry) {
+		this.primary = primary;
+		this.replicas = List.copyOf(replicas);
+		this.maxLagMillis = maxLagMillis;
+		this.lagQuery = lagQuery == null || lagQuery.isBlank() ? null : lagQuery;
+
+		this.toReplica = Counter.builder("db.read.routed").tag("target", "replica").register(meterRegistry);
+		this.toPrimary = Counter.builder("db.read.routed").tag("target", "primary").register(meterRegistry);
+		for (Replica r : this.replicas) {
+			Gauge.builder("db.replica.healthy", r, x -> x.healthy ? 1 : 0).tag("replica", r.name).register(meterRegistry);
+			Gauge.builder("db.replica.lag", r, x -> x.lagMillis).tag("replica", r.name)
+					.baseUnit("milliseconds").register(meterRegistry);
+		}
+
+		checkAll();
+		// on the application's scheduler; without one, replicas are checked only here
+		Duration interval = Duration.ofMillis(checkIntervalMillis);
+		this.checks = scheduler == null ? null
+				: scheduler.scheduleWithFixedDelay(this::checkAll, Instant.now().plus(interval), interval);
+	}
+
+	@Override
+	@NonNull
+	public Connection getConnection() throws SQLException {
+		if (!ReadRouting.primaryRequired() && !ShardContext.offPrimary()) {
+			int n = replicas.size();
+			int start = Math.floorMod(next.getAndIncrement(), n);
+			for (int i = 0; i < n; i++) {
+				Replica r = replicas.get((start + i) % n);
+				if (!r.usable(maxLagMillis)) continue;
+				try {
+					Connection c = r.dataSource.getConnection();
+					toReplica.increment();
+					// replicas mirror the primary
+					ShardContext.connectionFetched(0);
+					return c;
+				} catch (SQLException e) {
+					// take it out of rotation until the next successful check
+					r.healthy = false;
+				}
+			}
+		}
+		toPrimary.increment();
+		return primary.getConnection();
+	}
+
+	@Override
+	@NonNull
+	public Connection getConnection(@NonNull String username, @NonNull String password) throws SQLException {
+		throw new UnsupportedOperationException("ReplicaDataSource uses the pools' own credentials");
+	}
+
+	private void checkAll() {
+		for (Replica r : replicas) check(r);
+	}
+
+	private void check(Replica r) {
+		try (Connection c = r.dataSource.getConnection()) {
+			if (!c.isValid(2)) {
+				r.healthy = false;
+				return;
+			}
+			r.lagMillis = lagQuery == null ? 0 : lag(c);
+			r.healthy = true;
+		} catch (Exception e) {
+			r.healthy = false;
+		}
+	}
+
+	/**
+	 * Replication lag as reported by the replica; Long.MAX_VALUE when replication is not running.
+	 */
+	private long lag(Connection c) throws SQLException {
+		try (Statement st = c.createStatement(); ResultSet rs = st.executeQuery(lagQuery)) {
+			if (!rs.next()) return Long.MAX_VALUE;
+			for (String column : new String[] { "Seconds_Behind_Source", "Seconds_Behind_Master" }) {
+				try {
+					long seconds = rs.getLong(column);
+					return rs.wasNull() ? Long.MAX_VALUE : seconds * 1000;
+				} catch (SQLException missingColumn) {
+					// older servers only have the other name
+				}
+			}
+			// custom lag query: first column in milliseconds
+			long millis = rs.getLong(1);
+			return rs.wasNull() ? Long.MAX_VALUE : millis;
+		}
+	}
+
+	@Override
+	public void close() {
+		if (checks != null) checks.cancel(false);
+		for (Replica r : replicas) {
+			try {
+				if (r.dataSource.isWrapperFor(AutoCloseable.class)) r.dataSource.unwrap(AutoCloseable.class).close();
+			} catch (Exception ignored) {
+			}
+		}
+	}
+
+	public static final class Replica {
+		final String name;
+		final DataSource dataSource;
+		volatile boolean healthy;
+		volatile long lagMillis;
+
+		public Replica(String name, DataSource dataSource) {
+			this.name = name;
+			this.dataSource = dataSource;
+		}
+
+		boolean usable(long maxLagMillis) {
+			return healthy && lagMillis <= maxLagMillis;
+		}
+	}
+
+}
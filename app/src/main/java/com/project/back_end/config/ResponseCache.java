@@ -0,0 +1,218 @@
+package com.project.back_end.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.services.EntityVersions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches pre-serialized (and pre-gzipped) JSON bodies per key and data version, and answers
+ * conditional requests with 304 when the client's ETag matches the current version.
+ *
+ * Keys start with the EntityVersions name they depend on (e.g. "appointments:patient:42/all"),
+ * so a bump of that name, or of a parent like "appointments", drops the entries eagerly.
+ * Correctness never depends on that: a lookup with a newer version always rebuilds.
+ *
+ * Bodies are kept on-heap or, with cache.response.off-heap=true, in direct buffers. The total
+ * size is bounded by cache.response.max-bytes; least recently used entries go first.
+ */
+@Component
+public class ResponseCache {
+
+	private final ObjectMapper objectMapper;
+	private final EntityVersions entityVersions;
+	private final int maxEntries;
+	private final long maxBytes;
+	private final boolean offHeap;
+	private final CacheControl cacheControl;
+	private final CacheControl privateCacheControl;
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong totalBytes = new AtomicLong();
+	private final AtomicLong clock = new AtomicLong();
+
+	private final Counter hits;
+	private final Counter misses;
+	private final Counter notModified;
+
+	public ResponseCache(ObjectMapper objectMapper,
+						 EntityVersions entityVersions,
+						 MeterRegistry meterRegistry,
+						 @Value("${cache.response.max-entries:1024}") int maxEntries,
+						 @Value("${cache.response.max-bytes:67108864}") long maxBytes,
+						 @Value("${cache.response.off-heap:false}") boolean offHeap,
+						 @Value("${cache.response.max-age-seconds:0}") long maxAgeSeconds) {
+		this.objectMapper = objectMapper;
+		this.entityVersions = entityVersions;
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		this.offHeap = offHeap;
+		// max-age 0 -> clients always revalidate, which is a cheap 304 while the version is unchanged
+		this.cacheControl = maxAgeSeconds > 0
+				? CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic()
+				: CacheControl.noCache().cachePublic();
+		this.privateCacheControl = CacheControl.noCache().cachePrivate();
+
+		entityVersions.addListener(this::invalidate);
+
+		this.hits = Counter.builder("cache.response.requests").tag("result", "hit").register(meterRegistry);
+		this.misses = Counter.builder("cache.response.requests").tag("result", "miss").register(meterRegistry);
+		this.notModified = Counter.builder("cache.response.requests").tag("result", "not_modified").register(meterRegistry);
+		Gauge.builder("cache.response.bytes", totalBytes, AtomicLong::get).register(meterRegistry);
+		Gauge.builder("cache.response.entries", entries, Map::size).register(meterRegistry);
+	}
+
+	/**
+	 * Serve a shared (cacheable by proxies) body for key at version, building it with the supplier only on a miss.
+	 */
+	public ResponseEntity<CachedBody> serve(HttpServletRequest request, String key, long version, Supplier<Object> body) {
+		return serve(request, key, version, body, cacheControl);
+	}
+
+	/**
+	 * Same as serve, but marks the response private so only the user's own browser may keep it.
+	 */
+	public ResponseEntity<CachedBody> servePrivate(HttpServletRequest request, String key, long version, Supplier<Object> body) {
+		return serve(request, key, version, body, privateCacheControl);
+	}
+
+	private ResponseEntity<CachedBody> serve(HttpServletRequest request, String key, long version, Supplier<Object> body,
+											 CacheControl control) {
+		Entry entry = entries.get(key);
+		if (entry == null || entry.version != version) {
+			misses.increment();
+			// built on the primary: a replica may not have the write that produced this version yet
+			entry = build(key, version, ReadRouting.onPrimary(body));
+			put(key, entry);
+		} else {
+			hits.increment();
+		}
+		entry.lastAccess = clock.incrementAndGet();
+
+		boolean gzip = acceptsGzip(request);
+		String etag = gzip ? entry.gzipEtag : entry.etag;
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag(etag);
+		headers.setCacheControl(control);
+		headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+
+		if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+			notModified.increment();
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+		}
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		if (gzip) headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+		return ResponseEntity.ok().headers(headers).body(gzip ? entry.gzip : entry.json);
+	}
+
+	/**
+	 * Drop every entry that depends on the given entity name (or on a child of it).
+	 */
+	public void invalidate(String entity) {
+		String slash = entity + "/";
+		String colon = entity + ":";
+		for (Map.Entry<String, Entry> e : entries.entrySet()) {
+			String k = e.getKey();
+			if ((k.startsWith(slash) || k.startsWith(colon)) && entries.remove(k, e.getValue())) {
+				totalBytes.addAndGet(-e.getValue().size);
+			}
+		}
+	}
+
+	public void clear() {
+		entries.clear();
+		totalBytes.set(0);
+	}
+
+	private void put(String key, Entry entry) {
+		Entry previous = entries.put(key, entry);
+		totalBytes.addAndGet(entry.size - (previous != null ? previous.size : 0));
+		if (entries.size() > maxEntries || totalBytes.get() > maxBytes) evict(key);
+	}
+
+	private synchronized void evict(String keep) {
+		if (entries.size() <= maxEntries && totalBytes.get() <= maxBytes) return;
+		// capture access stamps first; they keep moving while we sort
+		List<long[]> order = new ArrayList<>();
+		List<Map.Entry<String, Entry>> snapshot = new ArrayList<>(entries.entrySet());
+		for (int i = 0; i < snapshot.size(); i++) order.add(new long[] { snapshot.get(i).getValue().lastAccess, i });
+		order.sort(Comparator.comparingLong(o -> o[0]));
+		for (long[] o : order) {
+			if (entries.size() <= maxEntries && totalBytes.get() <= maxBytes) break;
+			Map.Entry<String, Entry> e = snapshot.get((int) o[1]);
+			if (e.getKey().equals(keep)) continue;
+			if (entries.remove(e.getKey(), e.getValue())) totalBytes.addAndGet(-e.getValue().size);
+		}
+	}
+
+	private Entry build(String key, long version, Object body) {
+		try {
+			byte[] json = objectMapper.writeValueAsBytes(body);
+			ByteArrayOutputStream bos = new ByteArrayOutputStream(Math.max(64, json.length / 4));
+			try (GZIPOutputStream gz = new GZIPOutputStream(bos)) {
+				gz.write(json);
+			}
+			String tag = Long.toHexString(entityVersions.stamp(key, version));
+			return new Entry(version, CachedBody.of(json, offHeap), CachedBody.of(bos.toByteArray(), offHeap), tag);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static boolean acceptsGzip(HttpServletRequest request) {
+		String ae = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		return ae != null && ae.contains("gzip");
+	}
+
+	private static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) return false;
+		if (ifNoneMatch.equals(etag) || "*".equals(ifNoneMatch.trim())) return true;
+		for (String candidate : ifNoneMatch.split(",")) {
+			String c = candidate.trim();
+			if (c.startsWith("W/")) c = c.substring(2);
+			if (c.equals(etag)) return true;
+		}
+		return false;
+	}
+
+	private static final class Entry {
+		final long version;
+		final CachedBody json;
+		final CachedBody gzip;
+		final String etag;
+		final String gzipEtag;
+		final long size;
+		volatile long lastAccess;
+
+		Entry(long version, CachedBody json, CachedBody gzip, String tag) {
+			this.version = version;
+			this.json = json;
+			this.gzip = gzip;
+			this.etag = "\"" + tag + "\"";
+			this.gzipEtag = "\"" + tag + "-gzip\"";
+			this.size = (long) json.length() + gzip.length();
+		}
+	}
+
+}
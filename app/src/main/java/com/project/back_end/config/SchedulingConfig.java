@@ -0,0 +1,14 @@
+package com.project.back_end.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Periodic jobs (archiving, sweeping, event heartbeats) run as @Scheduled methods on Spring's
+ * task scheduler, sized and shut down through spring.task.scheduling.*; each job checks its own
+ * *.enabled property.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
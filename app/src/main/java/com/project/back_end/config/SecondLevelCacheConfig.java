@@ -0,0 +1,118 @@
+package com.project.back_end.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.project.back_end.models.Admin;
+import com.project.back_end.models.Doctor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.function.ToDoubleFunction;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hibernate second-level cache for the entities read on almost every request: Doctor (with its
+ * availableTimes) and Admin, plus the query cache for their by-email / by-username lookups.
+ *
+ * Regions live in a Caffeine-backed JCache manager owned by this context, each bounded by a
+ * cache.l2.max-* property; a region that is not declared here fails startup instead of being
+ * created unbounded. With cache.l2.statistics on, per-region hits, misses and hit ratio come from
+ * Hibernate statistics as hibernate.cache.requests{region,result} and hibernate.cache.hit.ratio{region}.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+	static final String QUERY_REGION = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+	static final String TIMESTAMPS_REGION = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+	static final List<String> ENTITY_REGIONS = List.of(Doctor.class.getName(), Doctor.class.getName() + ".availableTimes",
+			Admin.class.getName());
+
+	@Bean(destroyMethod = "close")
+	public CacheManager secondLevelCacheManager(@Value("${cache.l2.max-doctors:10000}") long maxDoctors,
+												@Value("${cache.l2.max-admins:100}") long maxAdmins,
+												@Value("${cache.l2.max-queries:20000}") long maxQueries) {
+		// a manager of our own (not the provider default), so each application context gets fresh regions
+		CacheManager manager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+				.getCacheManager(URI.create("urn:back-end:l2:" + UUID.randomUUID()), getClass().getClassLoader());
+		Map<String, Long> regions = new LinkedHashMap<>();
+		regions.put(ENTITY_REGIONS.get(0), maxDoctors);
+		regions.put(ENTITY_REGIONS.get(1), maxDoctors);
+		regions.put(ENTITY_REGIONS.get(2), maxAdmins);
+		regions.put(QUERY_REGION, maxQueries);
+		// one small entry per table; evicting one would only make cached queries look stale
+		regions.put(TIMESTAMPS_REGION, 0L);
+		regions.forEach((name, max) -> {
+			CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+			if (max > 0) config.setMaximumSize(OptionalLong.of(max));
+			manager.createCache(name, config);
+		});
+		return manager;
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer secondLevelCache(CacheManager secondLevelCacheManager,
+														  @Value("${cache.l2.statistics:false}") boolean statistics) {
+		return properties -> {
+			properties.put("hibernate.cache.use_second_level_cache", true);
+			properties.put("hibernate.cache.use_query_cache", true);
+			properties.put("hibernate.cache.region.factory_class", "jcache");
+			properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+			properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+			// hit and miss counts for the metrics below; off by default, they cost on every session
+			properties.put("hibernate.generate_statistics", statistics);
+		};
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "cache.l2.statistics", havingValue = "true")
+	public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+		return registry -> {
+			Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+			List<String> regions = new ArrayList<>(ENTITY_REGIONS);
+			regions.add(QUERY_REGION);
+			for (String region : regions) {
+				FunctionCounter.builder("hibernate.cache.requests", statistics, s -> count(s, region, CacheRegionStatistics::getHitCount))
+						.tags("region", region, "result", "hit")
+						.register(registry);
+				FunctionCounter.builder("hibernate.cache.requests", statistics, s -> count(s, region, CacheRegionStatistics::getMissCount))
+						.tags("region", region, "result", "miss")
+						.register(registry);
+				Gauge.builder("hibernate.cache.hit.ratio", statistics, s -> {
+							double hits = count(s, region, CacheRegionStatistics::getHitCount);
+							double total = hits + count(s, region, CacheRegionStatistics::getMissCount);
+							return total == 0 ? Double.NaN : hits / total;
+						})
+						.tag("region", region)
+						.register(registry);
+			}
+		};
+	}
+
+	private static double count(Statistics statistics, String region, ToDoubleFunction<CacheRegionStatistics> value) {
+		// null until the region has been used
+		CacheRegionStatistics s = region.equals(QUERY_REGION)
+				? statistics.getQueryRegionStatistics(region)
+				: statistics.getCacheRegionStatistics(region);
+		return s == null ? 0 : value.applyAsDouble(s);
+	}
+
+}
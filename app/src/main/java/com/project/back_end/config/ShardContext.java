@@ -0,0 +1,81 @@
+package com.project.back_end.config;
+
+import java.util.function.Supplier;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The appointment shard the current thread works against; unset means shard 0 (the primary).
+ *
+ * Only takes effect for connections fetched while it is set. The application DataSource is a
+ * LazyConnectionDataSourceProxy, so inside a @Transactional method the real connection is
+ * fetched on the first statement: set the shard before that. The shard a transaction's
+ * connection was fetched for is remembered until it completes (boundShard()), so callers can
+ * refuse to switch shards too late instead of silently running on the wrong database.
+ */
+public final class ShardContext {
+
+	private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+	private static final ThreadLocal<Integer> BOUND = new ThreadLocal<>();
+
+	private ShardContext() {
+	}
+
+	public static <T> T on(int shard, Supplier<T> work) {
+		Integer previous = CURRENT.get();
+		CURRENT.set(shard);
+		try {
+			return work.get();
+		} finally {
+			if (previous == null) CURRENT.remove();
+			else CURRENT.set(previous);
+		}
+	}
+
+	public static Integer current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * The shard the current transaction already holds a connection to, or null if it has not
+	 * issued a statement yet (or there is no transaction).
+	 */
+	public static Integer boundShard() {
+		return BOUND.get();
+	}
+
+	/**
+	 * Called by the data sources when they hand out a connection. Inside a transaction, the
+	 * first one is remembered until the transaction completes; a suspended transaction's binding
+	 * comes back when it resumes.
+	 */
+	static void connectionFetched(int shard) {
+		if (BOUND.get() != null || !TransactionSynchronizationManager.isSynchronizationActive()) return;
+		BOUND.set(shard);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void suspend() {
+				BOUND.remove();
+			}
+
+			@Override
+			public void resume() {
+				BOUND.set(shard);
+			}
+
+			@Override
+			public void afterCompletion(int status) {
+				BOUND.remove();
+			}
+		});
+	}
+
+	/**
+	 * True when the thread targets a shard other than the primary.
+	 */
+	public static boolean offPrimary() {
+		Integer shard = CURRENT.get();
+		return shard != null && shard != 0;
+	}
+
+}
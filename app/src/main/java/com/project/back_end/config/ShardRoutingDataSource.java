@@ -0,0 +1,80 @@
+package com.project.back_end.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.lang.NonNull;
+
+/**
+ * Routes connections to the appointment shard named by ShardContext. Shard 0 is the primary
+ * database, which also stays the system of record for doctors, patients and admins.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+	private final List<DataSource> shards;
+
+	public ShardRoutingDataSource(List<DataSource> shards) {
+		this.shards = List.copyOf(shards);
+		Map<Object, Object> targets = new HashMap<>();
+		for (int i = 0; i < shards.size(); i++) targets.put(i, shards.get(i));
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(shards.get(0));
+		setLenientFallback(false);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return ShardContext.current();
+	}
+
+	@Override
+	@NonNull
+	public Connection getConnection() throws SQLException {
+		Connection connection = super.getConnection();
+		fetched();
+		return connection;
+	}
+
+	@Override
+	@NonNull
+	public Connection getConnection(@NonNull String username, @NonNull String password) throws SQLException {
+		Connection connection = super.getConnection(username, password);
+		fetched();
+		return connection;
+	}
+
+	private static void fetched() {
+		Integer shard = ShardContext.current();
+		ShardContext.connectionFetched(shard == null ? 0 : shard);
+	}
+
+	public int shardCount() {
+		return shards.size();
+	}
+
+	/**
+	 * The shard's own pool, outside of any routing (and of any JPA transaction).
+	 */
+	public DataSource shard(int index) {
+		return shards.get(index);
+	}
+
+	/**
+	 * Close the extra shard pools; the primary is its own bean and is closed by Spring.
+	 */
+	@Override
+	public void close() throws Exception {
+		for (int i = 1; i < shards.size(); i++) {
+			DataSource pool = shards.get(i);
+			if (pool instanceof DelegatingDataSource delegating) pool = delegating.getTargetDataSource();
+			if (pool instanceof AutoCloseable closeable) closeable.close();
+		}
+	}
+
+}
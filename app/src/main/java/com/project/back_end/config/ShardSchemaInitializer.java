@@ -0,0 +1,70 @@
+package com.project.back_end.config;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.repo.AppointmentIdBlocks;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Map;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Brings every extra shard's schema in line with the entities (the application's own
+ * EntityManagerFactory only manages shard 0), then starts each shard's appointment id counter
+ * in its own range, past any id already there, so ids stay unique across shards. Runs before
+ * the web server accepts requests.
+ */
+@Component
+@ConditionalOnExpression("!'${db.shards.urls:}'.isBlank()")
+public class ShardSchemaInitializer implements SmartInitializingSingleton {
+
+	/** Shard k numbers its appointments from k * ID_RANGE. */
+	public static final long ID_RANGE = 1L << 40;
+
+	private final ShardRoutingDataSource shards;
+	private final AppointmentIdBlocks idBlocks;
+	private final EntityManagerFactoryBuilder builder;
+	private final String ddlAuto;
+
+	public ShardSchemaInitializer(ShardRoutingDataSource shards,
+								  AppointmentIdBlocks idBlocks,
+								  EntityManagerFactoryBuilder builder,
+								  EntityManagerFactory applicationEntityManagerFactory,
+								  @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+		// applicationEntityManagerFactory: only a dependency, so shard 0 is set up first
+		this.shards = shards;
+		this.idBlocks = idBlocks;
+		this.builder = builder;
+		this.ddlAuto = ddlAuto;
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		// "create-drop" would drop the shard again when the throwaway factory closes
+		String mode = "create-drop".equals(ddlAuto) ? "create" : ddlAuto;
+		for (int k = 0; k < shards.shardCount(); k++) {
+			if (k > 0 && !"none".equals(mode)) {
+				LocalContainerEntityManagerFactoryBean factory = builder.dataSource(shards.shard(k))
+						.packages(Appointment.class)
+						.persistenceUnit("shard-" + k)
+						// schema only: no second-level cache, which would share (and close) the application's
+						.properties(Map.of("hibernate.hbm2ddl.auto", mode,
+								"hibernate.cache.use_second_level_cache", false,
+								"hibernate.cache.use_query_cache", false))
+						.build();
+				factory.afterPropertiesSet();
+				factory.destroy();
+			}
+			long base = k * ID_RANGE;
+			Long max = new JdbcTemplate(shards.shard(k)).queryForObject(
+					"SELECT MAX(id) FROM appointment WHERE id >= ? AND id < ?", Long.class, base, base + ID_RANGE);
+			// shard 0 also holds the ids handed out before sharding; never hand out id 0
+			idBlocks.seed(k, Math.max(Math.max(base, 1), max == null ? 0 : max + 1));
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+package com.project.back_end.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.lang.NonNull;
+
+/**
+ * DataSource wrapper that times every statement execution and hands slow ones to the
+ * SlowQueryLog. Bind parameters are remembered per PreparedStatement (just references,
+ * formatting happens on the log thread); they are copied, and the SQL text picked, only once a
+ * statement turns out slow. unwrap() still reaches the pool underneath.
+ */
+public class SlowQueryDataSource extends DelegatingDataSource {
+
+	private final SlowQueryLog slowQueryLog;
+
+	public SlowQueryDataSource(DataSource target, SlowQueryLog slowQueryLog) {
+		super(target);
+		this.slowQueryLog = slowQueryLog;
+	}
+
+	@Override
+	@NonNull
+	public Connection getConnection() throws SQLException {
+		return wrap(obtainTargetDataSource().getConnection());
+	}
+
+	@Override
+	@NonNull
+	public Connection getConnection(@NonNull String username, @NonNull String password) throws SQLException {
+		return wrap(obtainTargetDataSource().getConnection(username, password));
+	}
+
+	private Connection wrap(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+				(proxy, method, args) -> {
+					Object result = invoke(connection, method, args);
+					if (result instanceof Statement statement) {
+						String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+						return wrap(statement, method.getReturnType(), sql);
+					}
+					return result;
+				});
+	}
+
+	private Object wrap(Statement statement, Class<?> type, String sql) {
+		if (type != Statement.class && type != PreparedStatement.class && type != CallableStatement.class) return statement;
+		return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { type },
+				new StatementHandler(statement, sql, slowQueryLog.capturesParameters() && type != Statement.class));
+	}
+
+	private final class StatementHandler implements InvocationHandler {
+
+		private final Statement target;
+		private final String sql;
+		private final boolean capture;
+		private Object[] parameters;
+		private int parameterCount;
+
+		StatementHandler(Statement target, String sql, boolean capture) {
+			this.target = target;
+			this.sql = sql;
+			this.capture = capture;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.startsWith("execute")) {
+				long start = System.nanoTime();
+				try {
+					return SlowQueryDataSource.invoke(target, method, args);
+				} finally {
+					long elapsed = System.nanoTime() - start;
+					if (slowQueryLog.isSlow(elapsed)) {
+						// plain Statement: the SQL comes with the execute call
+						String text = sql != null ? sql : args != null && args.length > 0 ? String.valueOf(args[0]) : "(batch)";
+						Object[] params = parameterCount > 0 ? Arrays.copyOf(parameters, parameterCount) : null;
+						slowQueryLog.statementFinished(text, params, elapsed);
+					}
+				}
+			}
+			if (capture) {
+				if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+					remember(index, name.equals("setNull") ? null : args[1]);
+				} else if (name.equals("clearParameters")) {
+					parameterCount = 0;
+				}
+			}
+			return SlowQueryDataSource.invoke(target, method, args);
+		}
+
+		private void remember(int index, Object value) {
+			if (parameters == null) parameters = new Object[Math.max(8, index)];
+			if (index > parameters.length) parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+			parameters[index - 1] = value;
+			if (index > parameterCount) parameterCount = index;
+		}
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getTargetException();
+		}
+	}
+
+}
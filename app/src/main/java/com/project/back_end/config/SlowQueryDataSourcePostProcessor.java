@@ -0,0 +1,37 @@
+package com.project.back_end.config;
+
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps the application DataSource in a SlowQueryDataSource. The log is looked up lazily
+ * because post-processors are created before ordinary beans. Routing data sources (the lazy
+ * read/write proxy, the replica selector, the shard router) are left alone; the pools behind
+ * them are wrapped individually.
+ */
+@Component
+@ConditionalOnProperty(prefix = "slowquery", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryDataSourcePostProcessor implements BeanPostProcessor {
+
+	private final ObjectProvider<SlowQueryLog> slowQueryLog;
+
+	public SlowQueryDataSourcePostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+		this.slowQueryLog = slowQueryLog;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+		if (bean instanceof DataSource dataSource && !(bean instanceof DelegatingDataSource)
+				&& !(bean instanceof ReplicaDataSource) && !(bean instanceof ShardRoutingDataSource)) {
+			SlowQueryLog log = slowQueryLog.getIfAvailable();
+			if (log != null) return new SlowQueryDataSource(dataSource, log);
+		}
+		return bean;
+	}
+
+}
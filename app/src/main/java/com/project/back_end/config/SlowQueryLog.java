@@ -0,0 +1,168 @@
+package com.project.back_end.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sampled slow-query log. Statements slower than slowquery.threshold-ms are, with probability
+ * slowquery.sample-rate, queued together with their bind parameters and written by a single
+ * background thread, so request threads never block on log I/O.
+ *
+ * The queue is a fixed-size ring (slowquery.buffer-size); when the writer falls behind new
+ * records are dropped and counted instead of slowing the queries down.
+ */
+@Component
+@ConditionalOnProperty(prefix = "slowquery", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryLog {
+
+	private static final Logger log = LoggerFactory.getLogger("slow-query");
+	private static final int MAX_VALUE_LENGTH = 64;
+
+	private final long thresholdNanos;
+	private final double sampleRate;
+	private final boolean captureParameters;
+	private final BlockingQueue<Record> buffer;
+	private final Executor writer;
+
+	private final Counter recorded;
+	private final Counter dropped;
+
+	@Autowired
+	public SlowQueryLog(MeterRegistry meterRegistry,
+						@Value("${slowquery.threshold-ms:200}") long thresholdMs,
+						@Value("${slowquery.sample-rate:1.0}") double sampleRate,
+						@Value("${slowquery.capture-parameters:true}") boolean captureParameters,
+						@Value("${slowquery.buffer-size:1024}") int bufferSize) {
+		this(meterRegistry, thresholdMs, sampleRate, captureParameters, bufferSize,
+				BackgroundExecutors.create("slow-query-log", 1, false));
+	}
+
+	/**
+	 * With the executor the writer loop runs on (tests pass one that never runs it).
+	 */
+	SlowQueryLog(MeterRegistry meterRegistry, long thresholdMs, double sampleRate, boolean captureParameters,
+				 int bufferSize, Executor writer) {
+		this.thresholdNanos = thresholdMs * 1_000_000L;
+		this.sampleRate = sampleRate;
+		this.captureParameters = captureParameters;
+		this.buffer = new ArrayBlockingQueue<>(bufferSize);
+
+		this.recorded = Counter.builder("slowquery.records").tag("result", "logged").register(meterRegistry);
+		this.dropped = Counter.builder("slowquery.records").tag("result", "dropped").register(meterRegistry);
+		Gauge.builder("slowquery.buffer.size", buffer, BlockingQueue::size).register(meterRegistry);
+
+		this.writer = writer;
+		writer.execute(this::drain);
+	}
+
+	public boolean capturesParameters() {
+		return captureParameters;
+	}
+
+	/**
+	 * Whether a statement that took elapsedNanos is worth passing to statementFinished. Callers
+	 * check this first so fast statements cost one comparison and nothing is copied for them.
+	 */
+	public boolean isSlow(long elapsedNanos) {
+		return elapsedNanos >= thresholdNanos;
+	}
+
+	/**
+	 * Called for a slow statement (see isSlow); faster ones are ignored here too.
+	 */
+	public void statementFinished(String sql, Object[] parameters, long elapsedNanos) {
+		if (elapsedNanos < thresholdNanos) return;
+		if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) return;
+		Record record = new Record(sql, parameters, elapsedNanos, Thread.currentThread().getName());
+		if (buffer.offer(record)) {
+			recorded.increment();
+		} else {
+			dropped.increment();
+		}
+	}
+
+	private void drain() {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				Record r = buffer.take();
+				log.warn("{} ms [{}] {}{}", r.elapsedNanos / 1_000_000, r.thread, r.sql, format(r.sql, r.parameters));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (writer instanceof ThreadPoolTaskExecutor pool) pool.shutdown();
+	}
+
+	static String format(String sql, Object[] parameters) {
+		if (parameters == null || parameters.length == 0) return "";
+		String[] columns = boundColumns(sql, parameters.length);
+		StringBuilder sb = new StringBuilder(" -- params: [");
+		for (int i = 0; i < parameters.length; i++) {
+			if (i > 0) sb.append(", ");
+			Object v = parameters[i];
+			String s;
+			if (columns[i] != null && columns[i].contains("password")) s = "***";
+			else if (v == null) s = "null";
+			else if (v instanceof byte[] b) s = "byte[" + b.length + "]";
+			else s = String.valueOf(v);
+			if (s.length() > MAX_VALUE_LENGTH) s = s.substring(0, MAX_VALUE_LENGTH) + "...";
+			sb.append(v instanceof CharSequence ? "'" + s + "'" : s);
+		}
+		return sb.append(']').toString();
+	}
+
+	/**
+	 * Best-effort column name per bind parameter, used only to mask secrets: "col = ?" anywhere,
+	 * or the column list of "insert into t (a, b) values (?, ?)".
+	 */
+	static String[] boundColumns(String sql, int count) {
+		String[] columns = new String[count];
+		String lower = sql.toLowerCase();
+		String[] insertColumns = null;
+		if (lower.startsWith("insert")) {
+			int open = lower.indexOf('(');
+			int close = lower.indexOf(')', open + 1);
+			if (open > 0 && close > open) insertColumns = lower.substring(open + 1, close).split(",");
+		}
+		int ordinal = 0;
+		for (int i = 0; i < lower.length() && ordinal < count; i++) {
+			if (lower.charAt(i) != '?') continue;
+			if (insertColumns != null && ordinal < insertColumns.length) {
+				columns[ordinal] = insertColumns[ordinal].trim();
+			} else {
+				int j = i - 1;
+				while (j >= 0 && lower.charAt(j) == ' ') j--;
+				if (j >= 0 && lower.charAt(j) == '=') {
+					j--;
+					while (j >= 0 && lower.charAt(j) == ' ') j--;
+					int end = j + 1;
+					while (j >= 0 && (Character.isLetterOrDigit(lower.charAt(j)) || lower.charAt(j) == '_' || lower.charAt(j) == '.')) j--;
+					columns[ordinal] = lower.substring(j + 1, end);
+				}
+			}
+			ordinal++;
+		}
+		return columns;
+	}
+
+	private record Record(String sql, Object[] parameters, long elapsedNanos, String thread) {
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.project.back_end.config;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free per-key token bucket.
+ *
+ * Each key holds a single "theoretical arrival time" (GCRA form of a token bucket), so acquiring
+ * a token is one CAS on an AtomicLong. The key map is bounded: once it grows past maxKeys, idle
+ * (fully refilled) buckets are evicted first, then arbitrary ones until the map fits again.
+ */
+public class TokenBucketRateLimiter {
+
+	private final long intervalNanos;
+	private final long burstNanos;
+	private final int maxKeys;
+	private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+	private final AtomicBoolean sweeping = new AtomicBoolean(false);
+
+	/**
+	 * @param capacity        maximum burst size (tokens)
+	 * @param refillPerMinute tokens added back per minute
+	 * @param maxKeys         upper bound on tracked keys
+	 */
+	public TokenBucketRateLimiter(int capacity, int refillPerMinute, int maxKeys) {
+		if (capacity < 1 || refillPerMinute < 1 || maxKeys < 1) {
+			throw new IllegalArgumentException("capacity, refillPerMinute and maxKeys must be positive");
+		}
+		this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / refillPerMinute;
+		this.burstNanos = intervalNanos * capacity;
+		this.maxKeys = maxKeys;
+	}
+
+	/**
+	 * Take one token for the key. Returns true when the request may proceed.
+	 */
+	public boolean tryAcquire(String key) {
+		long now = System.nanoTime();
+		AtomicLong tat = buckets.get(key);
+		if (tat == null) {
+			if (buckets.size() >= maxKeys) evict(now);
+			tat = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+		}
+		while (true) {
+			long current = tat.get();
+			long next = Math.max(current, now) + intervalNanos;
+			if (next - now > burstNanos) return false;
+			if (tat.compareAndSet(current, next)) return true;
+		}
+	}
+
+	public int trackedKeys() {
+		return buckets.size();
+	}
+
+	private void evict(long now) {
+		if (!sweeping.compareAndSet(false, true)) return;
+		try {
+			// idle buckets (theoretical arrival time already passed) are full and safe to forget
+			buckets.values().removeIf(tat -> tat.get() - now <= 0);
+			Iterator<String> it = buckets.keySet().iterator();
+			while (buckets.size() >= maxKeys && it.hasNext()) {
+				it.next();
+				it.remove();
+			}
+		} finally {
+			sweeping.set(false);
+		}
+	}
+
+}
@@ -2,14 +2,22 @@ package com.project.back_end.config;
 
 
 import org.springframework.context.annotation.Configuration;
-import org.springframework.lang.NonNull; 
+import org.springframework.lang.NonNull;
 
+import java.util.List;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    @Override
+    public void extendMessageConverters(@NonNull List<HttpMessageConverter<?>> converters) {
+        // pre-serialized bodies from ResponseCache bypass Jackson entirely
+        converters.add(0, new CachedBodyHttpMessageConverter());
+    }
+
     @Override
     public void addCorsMappings(@NonNull CorsRegistry registry) {
         // Allow CORS for all endpoints
@@ -1,13 +1,19 @@
 
 package com. project.back_end.controllers;
 
+import com. project.back_end.DTO.AuthTokens;
 import com. project.back_end.models.Admin;
+import com. project.back_end.services.AppointmentArchiver;
+import com. project.back_end.services.DoctorDeletions;
 import com. project.back_end.services.Service;
+import com. project.back_end.services.ShardRebalancer;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -18,16 +24,23 @@ import org.springframework.web.bind.annotation.RestController;
 public class AdminController {
 
 	private final Service sharedService;
+	private final ShardRebalancer shardRebalancer;
+	private final AppointmentArchiver appointmentArchiver;
+	private final DoctorDeletions doctorDeletions;
 
 	@Autowired
-	public AdminController(Service sharedService) {
+	public AdminController(Service sharedService, ShardRebalancer shardRebalancer, AppointmentArchiver appointmentArchiver,
+						   DoctorDeletions doctorDeletions) {
 		this.sharedService = sharedService;
+		this.shardRebalancer = shardRebalancer;
+		this.appointmentArchiver = appointmentArchiver;
+		this.doctorDeletions = doctorDeletions;
 	}
 
 	/**
 	 * POST /login
 	 * Body: Admin JSON (username, password)
-	 * Returns: { token: "..." } on success or 401 with message on failure
+	 * Returns: { token, refreshToken, expiresIn } on success or 401 with message on failure
 	 */
 	@PostMapping("/login")
 
@@ -42,15 +55,70 @@ public class AdminController {
         // System.out.println("Admin found: " + admin.getUsername());
         // System.out.println("*\n*\n*\n*\n*\n*\n*\n*\n*\n*\n*\n*\n");
 
-		String token = sharedService.validateAdmin(admin.getUsername(), admin.getPassword());
-		if (token == null) {
+		AuthTokens tokens = sharedService.validateAdmin(admin.getUsername(), admin.getPassword());
+		if (tokens == null) {
 			resp.put("message", "Invalid username or passsword");
 			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(resp);
 		}
 
-		resp.put("token", token);
+		resp.put("token", tokens.getToken());
+		resp.put("refreshToken", tokens.getRefreshToken());
+		resp.put("expiresIn", tokens.getExpiresIn());
 		return ResponseEntity.ok(resp);
 	}
 
-}
+	/**
+	 * GET /shards/{token}
+	 * Appointment counts per shard and the moves a rebalance would make (admin only).
+	 */
+	@GetMapping("/shards/{token}")
+	public ResponseEntity<?> shardStatus(@PathVariable String token) {
+		String validation = sharedService.validateToken(token, "admin");
+		if (!validation.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", validation));
+		return ResponseEntity.ok(Map.of("loads", shardRebalancer.loads(), "plan", shardRebalancer.plan()));
+	}
+
+	/**
+	 * POST /shards/rebalance/{token}
+	 * Move doctors between shards to even out appointment counts (admin only).
+	 */
+	@PostMapping("/shards/rebalance/{token}")
+	public ResponseEntity<?> rebalanceShards(@PathVariable String token) {
+		String validation = sharedService.validateToken(token, "admin");
+		if (!validation.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", validation));
+		try {
+			int moved = shardRebalancer.rebalance();
+			return ResponseEntity.ok(Map.of("moved", moved, "loads", shardRebalancer.loads()));
+		} catch (IllegalStateException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", e.getMessage()));
+		}
+	}
 
+	/**
+	 * POST /archive/{token}
+	 * Archive completed appointments past the horizon now instead of waiting for the schedule (admin only).
+	 */
+	@PostMapping("/archive/{token}")
+	public ResponseEntity<?> archiveAppointments(@PathVariable String token) {
+		String validation = sharedService.validateToken(token, "admin");
+		if (!validation.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", validation));
+		try {
+			return ResponseEntity.ok(Map.of("archived", appointmentArchiver.archiveNow()));
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("message", e.getMessage()));
+		}
+	}
+
+	/**
+	 * GET /deletions/{token}
+	 * Progress of recent doctor deletions: appointments deleted, prescriptions removed so far and
+	 * batches still queued (admin only).
+	 */
+	@GetMapping("/deletions/{token}")
+	public ResponseEntity<?> doctorDeletions(@PathVariable String token) {
+		String validation = sharedService.validateToken(token, "admin");
+		if (!validation.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", validation));
+		return ResponseEntity.ok(Map.of("deletions", doctorDeletions.recent()));
+	}
+
+}
@@ -1,18 +1,25 @@
 package com. project.back_end.controllers;
 
+import com. project.back_end.DTO.StatusUpdate;
+import com. project.back_end.config.ResponseCache;
 import com. project.back_end.models.Appointment;
 import com. project.back_end.models.Doctor;
 import com. project.back_end.models.Patient;
 import com. project.back_end.repo.DoctorRepository;
 import com. project.back_end.repo.PatientRepository;
+import com. project.back_end.services.AppointmentEvents;
 import com. project.back_end.services.AppointmentService;
+import com. project.back_end.services.EntityVersions;
 import com. project.back_end.services.Service;
 import com. project.back_end.services.TokenService;
+import jakarta.servlet.http.HttpServletRequest;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,8 +27,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/appointments")
@@ -32,18 +41,24 @@ public class AppointmentController {
 	private final TokenService tokenService;
 	private final DoctorRepository doctorRepository;
 	private final PatientRepository patientRepository;
+	private final ResponseCache responseCache;
+	private final AppointmentEvents appointmentEvents;
 
 	@Autowired
 	public AppointmentController(AppointmentService appointmentService,
 			Service sharedService,
 			TokenService tokenService,
 			DoctorRepository doctorRepository,
-			PatientRepository patientRepository) {
+			PatientRepository patientRepository,
+			ResponseCache responseCache,
+			AppointmentEvents appointmentEvents) {
 		this.appointmentService = appointmentService;
 		this.sharedService = sharedService;
 		this.tokenService = tokenService;
 		this.doctorRepository = doctorRepository;
 		this.patientRepository = patientRepository;
+		this.responseCache = responseCache;
+		this.appointmentEvents = appointmentEvents;
 	}
 
 	/**
@@ -53,7 +68,8 @@ public class AppointmentController {
 	@GetMapping("/{date}/{patientName}/{token}")
 	public ResponseEntity<?> getAppointments(@PathVariable String date,
 			@PathVariable String patientName,
-			@PathVariable String token) {
+			@PathVariable String token,
+			HttpServletRequest request) {
 		String validation = sharedService.validateToken(token, "doctor");
 		if (!validation.isEmpty()) {
 			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(validation);
@@ -66,13 +82,36 @@ public class AppointmentController {
 			if (dOpt.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Doctor not found");
 			Long doctorId = dOpt.get().getId();
 			LocalDate ld = LocalDate.parse(date);
-			List<Appointment> appts = appointmentService.getAppointments(doctorId, ld, patientName);
-			return ResponseEntity.ok(appts);
+			String name = "null".equalsIgnoreCase(patientName) ? null : patientName;
+			long version = appointmentService.getDoctorAppointmentsVersion(doctorId);
+			String key = EntityVersions.doctorAppointments(doctorId) + "/" + ld + "/" + patientName;
+			return responseCache.servePrivate(request, key, version, () -> {
+				List<Appointment> appts = appointmentService.getAppointments(doctorId, ld, name);
+				return appts;
+			});
 		} catch (Exception e) {
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
 		}
 	}
 
+	/**
+	 * GET /appointments/stream/{token}
+	 * Server-sent events with the authenticated doctor's appointment changes: created, updated,
+	 * cancelled and status, each carrying the appointment; "reset" means (re)load the list.
+	 * EventSource can't send an Authorization header, so this route has no header variant.
+	 */
+	@GetMapping(value = "/stream/{token}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> streamAppointments(@PathVariable String token,
+			@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+		String validation = sharedService.validateToken(token, "doctor");
+		if (!validation.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+		String identifier = tokenService.extractIdentifier(token);
+		Doctor doctor = identifier == null ? null : doctorRepository.findByEmail(identifier);
+		if (doctor == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+		// tells nginx-style proxies not to buffer the stream
+		return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(appointmentEvents.subscribe(doctor.getId(), lastEventId));
+	}
+
 	/**
 	 * POST /appointments/{token}
 	 * Book a new appointment as the patient identified by token.
@@ -91,9 +130,7 @@ public class AppointmentController {
 			if (appointment.getDoctor() == null || appointment.getDoctor().getId() == null) {
 				return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Doctor id required");
 			}
-			Optional<Doctor> dOpt = doctorRepository.findById(appointment.getDoctor().getId());
-			if (dOpt.isEmpty()) return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid doctor id");
-			appointment.setDoctor(dOpt.get());
+			// the doctor is checked by the booking itself
 			appointment.setPatient(patient);
 
 			int res = appointmentService.bookAppointment(appointment);
@@ -152,4 +189,78 @@ public class AppointmentController {
 		}
 	}
 
+	/**
+	 * PUT /appointments/status/{token}
+	 * Batch status change by the authenticated doctor, body { "ids": [...], "status": n }.
+	 * Reports the ids that could not be changed (not found, not this doctor's, or failed).
+	 */
+	@PutMapping("/status/{token}")
+	public ResponseEntity<?> changeStatuses(@RequestBody StatusUpdate update, @PathVariable String token) {
+		String validation = sharedService.validateToken(token, "doctor");
+		if (!validation.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(validation);
+		if (update == null || update.getIds() == null || update.getIds().isEmpty() || update.getStatus() < 0) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(java.util.Map.of("message", "ids and a valid status are required"));
+		}
+		try {
+			String identifier = tokenService.extractIdentifier(token);
+			Doctor doctor = identifier == null ? null : doctorRepository.findByEmail(identifier);
+			if (doctor == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Doctor not found");
+			List<Long> failed = appointmentService.changeStatuses(update.getIds(), update.getStatus(), doctor.getId());
+			int requested = new java.util.HashSet<>(update.getIds()).size();
+			return ResponseEntity.ok(java.util.Map.of("message", "Updated", "updated", requested - failed.size(), "failed", failed));
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+		}
+	}
+
+	// Authorization-header variants: same behaviour as the routes above, with the token sent as
+	// "Authorization: Bearer <token>" instead of a path segment.
+
+	/**
+	 * GET /appointments/{date}/{patientName}
+	 */
+	@GetMapping("/{date}/{patientName}")
+	public ResponseEntity<?> getAppointmentsWithHeader(@PathVariable String date,
+			@PathVariable String patientName,
+			@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+			HttpServletRequest request) {
+		return getAppointments(date, patientName, TokenService.fromAuthorizationHeader(authorization), request);
+	}
+
+	/**
+	 * POST /appointments
+	 */
+	@PostMapping({"", "/"})
+	public ResponseEntity<?> bookAppointmentWithHeader(@RequestBody Appointment appointment,
+			@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+		return bookAppointment(appointment, TokenService.fromAuthorizationHeader(authorization));
+	}
+
+	/**
+	 * PUT /appointments
+	 */
+	@PutMapping({"", "/"})
+	public ResponseEntity<?> updateAppointmentWithHeader(@RequestBody Appointment appointment,
+			@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+		return updateAppointment(appointment, TokenService.fromAuthorizationHeader(authorization));
+	}
+
+	/**
+	 * PUT /appointments/status
+	 */
+	@PutMapping("/status")
+	public ResponseEntity<?> changeStatusesWithHeader(@RequestBody StatusUpdate update,
+			@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+		return changeStatuses(update, TokenService.fromAuthorizationHeader(authorization));
+	}
+
+	/**
+	 * DELETE /appointments/{id}
+	 */
+	@DeleteMapping("/{id}")
+	public ResponseEntity<?> cancelAppointmentWithHeader(@PathVariable Long id,
+			@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+		return cancelAppointment(id, TokenService.fromAuthorizationHeader(authorization));
+	}
+
 }
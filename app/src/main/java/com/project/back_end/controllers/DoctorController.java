@@ -1,14 +1,24 @@
 package com. project.back_end.controllers;
 
+import com. project.back_end.DTO.AuthTokens;
+import com. project.back_end.DTO.DoctorSchedule;
 import com. project.back_end.DTO.Login;
+import com. project.back_end.config.ResponseCache;
+import com. project.back_end.services.AvailabilityHeatmap;
 import com. project.back_end.models.Doctor;
 import com. project.back_end.services.DoctorService;
+import com. project.back_end.services.DoctorSuggestIndex;
+import com. project.back_end.services.EntityVersions;
+import com. project.back_end.services.FreeSlotSearch;
 import com. project.back_end.services.Service;
 import com. project.back_end.services.TokenService;
+import jakarta.servlet.http.HttpServletRequest;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -18,7 +28,9 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -28,30 +40,45 @@ public class DoctorController {
 	private final DoctorService doctorService;
 	private final Service sharedService;
 	private final TokenService tokenService;
+	private final ResponseCache responseCache;
+	private final DoctorSuggestIndex suggestIndex;
+	private final FreeSlotSearch freeSlotSearch;
+	private final AvailabilityHeatmap heatmap;
 
 	@Autowired
-	public DoctorController(DoctorService doctorService, Service sharedService, TokenService tokenService) {
+	public DoctorController(DoctorService doctorService, Service sharedService, TokenService tokenService, ResponseCache responseCache,
+							DoctorSuggestIndex suggestIndex, FreeSlotSearch freeSlotSearch, AvailabilityHeatmap heatmap) {
 		this.doctorService = doctorService;
 		this.sharedService = sharedService;
 		this.tokenService = tokenService;
+		this.responseCache = responseCache;
+		this.suggestIndex = suggestIndex;
+		this.freeSlotSearch = freeSlotSearch;
+		this.heatmap = heatmap;
 	}
 	/**
 	 * GET /doctor/availability/{user}/{doctorId}/{date}/{token}
 	 * Returns available time slots for a doctor on a date. `user` is expected to be the role ("doctor" or "patient" or "admin")
+	 * The body is the same for every caller, so it is served as a shared cacheable response.
 	 */
 	@GetMapping("/availability/{user}/{doctorId}/{date}/{token}")
 	public ResponseEntity<?> getDoctorAvailability(@PathVariable String user,
 												   @PathVariable Long doctorId,
 												   @PathVariable String date,
-												   @PathVariable String token) {
+												   @PathVariable String token,
+												   HttpServletRequest request) {
 		String validation = sharedService.validateToken(token, user);
 		if (!validation.isEmpty()) {
 			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(validation);
 		}
 		try {
 			LocalDate ld = LocalDate.parse(date);
-			List<String> slots = doctorService.getDoctorAvailability(doctorId, ld);
-			return ResponseEntity.ok(Map.of("available", slots));
+			long version = doctorService.getAvailabilityVersion(doctorId);
+			String key = EntityVersions.doctorAppointments(doctorId) + "/availability/" + ld;
+			return responseCache.serve(request, key, version, () -> {
+				List<String> slots = doctorService.getDoctorAvailability(doctorId, ld);
+				return Map.of("available", slots);
+			});
 		} catch (Exception e) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
 		}
@@ -59,12 +86,13 @@ public class DoctorController {
 
 	/**
 	 * GET /doctor/ - return all doctors
+	 * Served from the response cache with ETag / If-None-Match support; rebuilt only when the directory version changes.
 	 */
 	@GetMapping({"","/"})
-	public ResponseEntity<?> getDoctor() {
+	public ResponseEntity<?> getDoctor(HttpServletRequest request) {
 		try {
-			List<Doctor> doctors = doctorService.getDoctors();
-			return ResponseEntity.ok(Map.of("doctors", doctors));
+			long version = doctorService.getDirectoryVersion();
+			return responseCache.serve(request, "doctors/all", version, () -> Map.of("doctors", doctorService.getDoctors()));
 		} catch (Exception e) {
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
 		}
@@ -93,9 +121,9 @@ public class DoctorController {
 	@PostMapping("/login")
 	public ResponseEntity<?> doctorLogin(@Validated @RequestBody Login login) {
 		try {
-			String token = doctorService.validateDoctor(login);
-			if (token == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Invalid credentials"));
-			return ResponseEntity.ok(Map.of("token", token));
+			AuthTokens tokens = doctorService.validateDoctor(login);
+			if (tokens == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Invalid credentials"));
+			return ResponseEntity.ok(tokens);
 		} catch (Exception e) {
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
 		}
@@ -138,18 +166,220 @@ public class DoctorController {
 	/**
 	 * GET /doctor/filter/{name}/{time}/{speciality}
 	 * Filters doctors by name, time (AM/PM) and speciality. Use 'null' for unused params.
+	 * Cached per (name, time, speciality) and directory version, like GET /doctor.
 	 */
 	@GetMapping("/filter/{name}/{time}/{speciality}")
-	public ResponseEntity<?> filter(@PathVariable String name, @PathVariable String time, @PathVariable String speciality) {
+	public ResponseEntity<?> filter(@PathVariable String name, @PathVariable String time, @PathVariable String speciality,
+									HttpServletRequest request) {
 		try {
 			String n = (name == null || "null".equalsIgnoreCase(name) || "".equals(name)) ? null : name;
 			String t = (time == null || "null".equalsIgnoreCase(time) || "".equals(time)) ? null : time;
 			String s = (speciality == null || "null".equalsIgnoreCase(speciality) || "".equals(speciality)) ? null : speciality;
-			List<Doctor> doctors = sharedService.filterDoctor(n, s, t);
-			return ResponseEntity.ok(Map.of("doctors", doctors));
+			long version = doctorService.getDirectoryVersion();
+			String key = "doctors/filter/" + n + "/" + t + "/" + s;
+			return responseCache.serve(request, key, version, () -> {
+				List<Doctor> doctors = sharedService.filterDoctor(n, s, t);
+				return Map.of("doctors", doctors);
+			});
 		} catch (Exception e) {
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
 		}
 	}
 
+	/**
+	 * GET /doctor/suggest/{prefix}?specialty=&limit=
+	 * Search-as-you-type: up to limit (default 8, max 20) doctors whose name has a word starting with
+	 * prefix, as { id, name, specialty } only. Answered from an in-memory index, no query per keystroke.
+	 */
+	@GetMapping("/suggest/{prefix}")
+	public ResponseEntity<?> suggest(@PathVariable String prefix,
+									 @RequestParam(required = false) String specialty,
+									 @RequestParam(defaultValue = "8") int limit) {
+		try {
+			return ResponseEntity.ok(Map.of("suggestions", suggestIndex.suggest(prefix, specialty, limit)));
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+		}
+	}
+
+	/**
+	 * GET /doctor/next-available/{user}/{speciality}/{date}/{token}?time=&count=
+	 * The earliest free slots (default 10, max 50) across all doctors of the speciality from date on,
+	 * optionally only AM or PM ones. Not cached: slots drop out as time passes.
+	 */
+	@GetMapping("/next-available/{user}/{speciality}/{date}/{token}")
+	public ResponseEntity<?> nextAvailable(@PathVariable String user,
+										   @PathVariable String speciality,
+										   @PathVariable String date,
+										   @PathVariable String token,
+										   @RequestParam(required = false) String time,
+										   @RequestParam(defaultValue = "10") int count) {
+		String validation = sharedService.validateToken(token, user);
+		if (!validation.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(validation);
+		}
+		try {
+			LocalDate ld = LocalDate.parse(date);
+			String t = (time == null || "null".equalsIgnoreCase(time)) ? null : time;
+			return ResponseEntity.ok(Map.of("slots", freeSlotSearch.nextAvailable(speciality, t, ld, count)));
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		}
+	}
+
+	/**
+	 * GET /doctor/heatmap/{user}/{month}/{token}?doctorIds=1,2,...
+	 * Free-slot counts per day of month (yyyy-MM) for up to 50 doctors: { "days": { doctorId: { date: count } } }.
+	 * Cached per doctors and month until their appointments change, and at most until the day is over.
+	 */
+	@GetMapping("/heatmap/{user}/{month}/{token}")
+	public ResponseEntity<?> heatmap(@PathVariable String user,
+									 @PathVariable String month,
+									 @PathVariable String token,
+									 @RequestParam List<Long> doctorIds,
+									 HttpServletRequest request) {
+		String validation = sharedService.validateToken(token, user);
+		if (!validation.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(validation);
+		}
+		if (doctorIds.isEmpty() || doctorIds.size() > AvailabilityHeatmap.MAX_DOCTORS) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "Between 1 and " + AvailabilityHeatmap.MAX_DOCTORS + " doctor ids required"));
+		}
+		try {
+			YearMonth ym = YearMonth.parse(month);
+			List<Long> ids = doctorIds.stream().distinct().toList();
+			// past days drop to zero: let cached months move on every day
+			long version = EntityVersions.mix(heatmap.getVersion(ids), LocalDate.now().toEpochDay());
+			String key = "doctors/heatmap/" + ym + "/" + ids;
+			return responseCache.serve(request, key, version, () -> Map.of("days", heatmap.freeSlots(ids, ym)));
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		}
+	}
+
+	/**
+	 * GET /doctor/schedule/{user}/{doctorId}/{token}
+	 * The doctor's weekday rules and dated exceptions: { "schedule": { "weekly": {...}, "dates": {...} } }.
+	 * Days without a rule use the doctor's availableTimes.
+	 */
+	@GetMapping("/schedule/{user}/{doctorId}/{token}")
+	public ResponseEntity<?> getSchedule(@PathVariable String user, @PathVariable Long doctorId, @PathVariable String token) {
+		String validation = sharedService.validateToken(token, user);
+		if (!validation.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(validation);
+		}
+		try {
+			DoctorSchedule schedule = doctorService.getSchedule(doctorId);
+			if (schedule == null) return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Doctor not found"));
+			return ResponseEntity.ok(Map.of("schedule", schedule));
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+		}
+	}
+
+	/**
+	 * PUT /doctor/schedule/{doctorId}/{token} - replace the doctor's weekday rules and dated exceptions (admin only)
+	 * An empty list is a day off; e.g. { "weekly": { "SATURDAY": ["09:00-12:00"] }, "dates": { "2025-12-25": [] } }.
+	 */
+	@PutMapping("/schedule/{doctorId}/{token}")
+	public ResponseEntity<?> saveSchedule(@PathVariable Long doctorId, @RequestBody DoctorSchedule schedule, @PathVariable String token) {
+		String validation = sharedService.validateToken(token, "admin");
+		if (!validation.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(validation);
+		try {
+			int res = doctorService.saveSchedule(doctorId, schedule);
+			if (res == -1) return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Doctor not found"));
+			if (res == 0) return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "Invalid schedule: slots must look like 09:00-10:00"));
+			return ResponseEntity.ok(Map.of("message", "Schedule saved"));
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+		}
+	}
+
+	// Authorization-header variants: same behaviour as the routes above, with the token sent as
+	// "Authorization: Bearer <token>" instead of a path segment.
+
+	/**
+	 * GET /doctor/availability/{user}/{doctorId}/{date}
+	 */
+	@GetMapping("/availability/{user}/{doctorId}/{date}")
+	public ResponseEntity<?> getDoctorAvailabilityWithHeader(@PathVariable String user,
+												   @PathVariable Long doctorId,
+												   @PathVariable String date,
+												   @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+												   HttpServletRequest request) {
+		return getDoctorAvailability(user, doctorId, date, TokenService.fromAuthorizationHeader(authorization), request);
+	}
+
+	/**
+	 * GET /doctor/next-available/{user}/{speciality}/{date}
+	 */
+	@GetMapping("/next-available/{user}/{speciality}/{date}")
+	public ResponseEntity<?> nextAvailableWithHeader(@PathVariable String user,
+													 @PathVariable String speciality,
+													 @PathVariable String date,
+													 @RequestParam(required = false) String time,
+													 @RequestParam(defaultValue = "10") int count,
+													 @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+		return nextAvailable(user, speciality, date, TokenService.fromAuthorizationHeader(authorization), time, count);
+	}
+
+	/**
+	 * GET /doctor/heatmap/{user}/{month}?doctorIds=1,2,...
+	 */
+	@GetMapping("/heatmap/{user}/{month}")
+	public ResponseEntity<?> heatmapWithHeader(@PathVariable String user,
+											   @PathVariable String month,
+											   @RequestParam List<Long> doctorIds,
+											   @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+											   HttpServletRequest request) {
+		return heatmap(user, month, TokenService.fromAuthorizationHeader(authorization), doctorIds, request);
+	}
+
+	/**
+	 * GET /doctor/schedule/{user}/{doctorId}
+	 */
+	@GetMapping("/schedule/{user}/{doctorId}")
+	public ResponseEntity<?> getScheduleWithHeader(@PathVariable String user,
+												   @PathVariable Long doctorId,
+												   @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+		return getSchedule(user, doctorId, TokenService.fromAuthorizationHeader(authorization));
+	}
+
+	/**
+	 * PUT /doctor/schedule/{doctorId} - replace the doctor's schedule (admin only)
+	 */
+	@PutMapping("/schedule/{doctorId}")
+	public ResponseEntity<?> saveScheduleWithHeader(@PathVariable Long doctorId,
+													@RequestBody DoctorSchedule schedule,
+													@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+		return saveSchedule(doctorId, schedule, TokenService.fromAuthorizationHeader(authorization));
+	}
+
+	/**
+	 * POST /doctor - create a new doctor (admin only)
+	 */
+	@PostMapping({"", "/"})
+	public ResponseEntity<?> saveDoctorWithHeader(@Validated @RequestBody Doctor doctor,
+												  @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+		return saveDoctor(doctor, TokenService.fromAuthorizationHeader(authorization));
+	}
+
+	/**
+	 * PUT /doctor - update doctor (admin only)
+	 */
+	@PutMapping({"", "/"})
+	public ResponseEntity<?> updateDoctorWithHeader(@Validated @RequestBody Doctor doctor,
+													@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+		return updateDoctor(doctor, TokenService.fromAuthorizationHeader(authorization));
+	}
+
+	/**
+	 * DELETE /doctor/{id} - delete doctor (admin only)
+	 */
+	@DeleteMapping("/{id}")
+	public ResponseEntity<?> deleteDoctorWithHeader(@PathVariable Long id,
+													@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+		return deleteDoctor(id, TokenService.fromAuthorizationHeader(authorization));
+	}
+
 }
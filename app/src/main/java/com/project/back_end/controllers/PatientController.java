@@ -1,11 +1,17 @@
 package com.project.back_end.controllers;
 
+import com.project.back_end.DTO.AuthTokens;
 import com.project.back_end.DTO.Login;
+import com.project.back_end.config.ResponseCache;
 import com.project.back_end.models.Patient;
+import com.project.back_end.services.EntityVersions;
 import com.project.back_end.services.PatientService;
 import com.project.back_end.services.Service;
+import com.project.back_end.services.TokenService;
+import jakarta.servlet.http.HttpServletRequest;
 import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -13,7 +19,9 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -22,11 +30,13 @@ public class PatientController {
 
 	private final PatientService patientService;
 	private final Service sharedService;
+	private final ResponseCache responseCache;
 
 	@Autowired
-	public PatientController(PatientService patientService, Service sharedService) {
+	public PatientController(PatientService patientService, Service sharedService, ResponseCache responseCache) {
 		this.patientService = patientService;
 		this.sharedService = sharedService;
+		this.responseCache = responseCache;
 	}
 
 	/**
@@ -51,11 +61,8 @@ public class PatientController {
 	@PostMapping({"","/"})
 	public ResponseEntity<?> createPatient(@Validated @RequestBody Patient patient) {
 		try {
-			if (!sharedService.validatePatient(patient.getEmail(), patient.getPhone())) {
-				return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", "Patient with given email or phone already exists"));
-			}
 			int res = patientService.createPatient(patient);
-			if (res == -1) return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", "Patient already exists"));
+			if (res == -1) return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", "Patient with given email or phone already exists"));
 			if (res == 1) return ResponseEntity.ok(Map.of("message", "Saved"));
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("message", "Could not save patient"));
 		} catch (Exception e) {
@@ -69,9 +76,9 @@ public class PatientController {
 	@PostMapping("/login")
 	public ResponseEntity<?> login(@Validated @RequestBody Login login) {
 		try {
-			String token = sharedService.validatePatientLogin(login.getEmail(), login.getPassword());
-			if (token == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Invalid credentials"));
-			return ResponseEntity.ok(Map.of("token", token));
+			AuthTokens tokens = sharedService.validatePatientLogin(login.getEmail(), login.getPassword());
+			if (tokens == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Invalid credentials"));
+			return ResponseEntity.ok(tokens);
 		} catch (Exception e) {
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("message", e.getMessage()));
 		}
@@ -79,14 +86,18 @@ public class PatientController {
 
 	/**
 	 * GET /patient/{id}/{user}/{token} - get appointments for patient (user may be patient or doctor)
+	 * ?archived=true also returns completed appointments moved to the archive.
 	 */
 	@GetMapping("/{id}/{user}/{token}")
-	public ResponseEntity<?> getPatientAppointment(@PathVariable Long id, @PathVariable String user, @PathVariable String token) {
+	public ResponseEntity<?> getPatientAppointment(@PathVariable Long id, @PathVariable String user, @PathVariable String token,
+												   @RequestParam(defaultValue = "false") boolean archived,
+												   HttpServletRequest request) {
 		String validation = sharedService.validateToken(token, user);
 		if (!validation.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", validation));
 		try {
-			var appts = patientService.getPatientAppointments(id);
-			return ResponseEntity.ok(Map.of("appointments", appts));
+			long version = patientService.getAppointmentsVersion(id);
+			String key = EntityVersions.patientAppointments(id) + (archived ? "/all+archived" : "/all");
+			return responseCache.servePrivate(request, key, version, () -> Map.of("appointments", patientService.getPatientAppointments(id, archived)));
 		} catch (Exception e) {
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("message", e.getMessage()));
 		}
@@ -96,17 +107,56 @@ public class PatientController {
 	 * GET /patient/filter/{condition}/{name}/{token} - filter patient's appointments
 	 */
 	@GetMapping("/filter/{condition}/{name}/{token}")
-	public ResponseEntity<?> filterPatientAppointment(@PathVariable String condition, @PathVariable String name, @PathVariable String token) {
+	public ResponseEntity<?> filterPatientAppointment(@PathVariable String condition, @PathVariable String name, @PathVariable String token,
+													  HttpServletRequest request) {
 		String validation = sharedService.validateToken(token, "patient");
 		if (!validation.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", validation));
 		try {
-			var list = sharedService.filterPatient(token, condition.equals("null") ? null : condition, (name.equals("null") ? null : name));
-			return ResponseEntity.ok(Map.of("appointments", list));
+			Patient p = patientService.getPatientDetails(token);
+			if (p == null) return ResponseEntity.ok(Map.of("appointments", java.util.List.of()));
+			long version = patientService.getAppointmentsVersion(p.getId());
+			// past/future are relative to now: let cached lists move on every minute
+			if (!condition.equals("null")) version = EntityVersions.mix(version, System.currentTimeMillis() / 60_000);
+			String key = EntityVersions.patientAppointments(p.getId()) + "/filter/" + condition + "/" + name;
+			return responseCache.servePrivate(request, key, version, () -> {
+				var list = sharedService.filterPatient(token, condition.equals("null") ? null : condition, (name.equals("null") ? null : name));
+				return Map.of("appointments", list);
+			});
 		} catch (Exception e) {
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("message", e.getMessage()));
 		}
 	}
 
-}
+	// Authorization-header variants: same behaviour as the routes above, with the token sent as
+	// "Authorization: Bearer <token>" instead of a path segment.
+
+	/**
+	 * GET /patient - return patient details inferred from the Authorization header
+	 */
+	@GetMapping({"", "/"})
+	public ResponseEntity<?> getPatientWithHeader(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+		return getPatient(TokenService.fromAuthorizationHeader(authorization));
+	}
+
+	/**
+	 * GET /patient/{id}/{user} - get appointments for patient (user may be patient or doctor)
+	 */
+	@GetMapping("/{id}/{user}")
+	public ResponseEntity<?> getPatientAppointmentWithHeader(@PathVariable Long id, @PathVariable String user,
+												   @RequestParam(defaultValue = "false") boolean archived,
+												   @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+												   HttpServletRequest request) {
+		return getPatientAppointment(id, user, TokenService.fromAuthorizationHeader(authorization), archived, request);
+	}
 
+	/**
+	 * GET /patient/filter/{condition}/{name} - filter patient's appointments
+	 */
+	@GetMapping("/filter/{condition}/{name}")
+	public ResponseEntity<?> filterPatientAppointmentWithHeader(@PathVariable String condition, @PathVariable String name,
+													  @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+													  HttpServletRequest request) {
+		return filterPatientAppointment(condition, name, TokenService.fromAuthorizationHeader(authorization), request);
+	}
 
+}
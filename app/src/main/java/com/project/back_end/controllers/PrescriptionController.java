@@ -1,18 +1,21 @@
 package com. project.back_end.controllers;
 
+import com. project.back_end.config.ResponseCache;
 import com. project.back_end.models.Prescription;
 import com. project.back_end.models.Appointment;
 import com. project.back_end.models.Doctor;
-import com. project.back_end.repo.AppointmentRepository;
 import com. project.back_end.repo.DoctorRepository;
 import com. project.back_end.services.PrescriptionService;
 import com. project.back_end.services.AppointmentService;
+import com. project.back_end.services.EntityVersions;
 import com. project.back_end.services.Service;
 import com. project.back_end.services.TokenService;
+import jakarta.servlet.http.HttpServletRequest;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -20,6 +23,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -30,23 +34,23 @@ public class PrescriptionController {
 	private final PrescriptionService prescriptionService;
 	private final Service sharedService;
 	private final AppointmentService appointmentService;
-	private final AppointmentRepository appointmentRepository;
 	private final DoctorRepository doctorRepository;
 	private final TokenService tokenService;
+	private final ResponseCache responseCache;
 
 	@Autowired
 	public PrescriptionController(PrescriptionService prescriptionService,
 								  Service sharedService,
 								  AppointmentService appointmentService,
-								  AppointmentRepository appointmentRepository,
 								  DoctorRepository doctorRepository,
-								  TokenService tokenService) {
+								  TokenService tokenService,
+								  ResponseCache responseCache) {
 		this.prescriptionService = prescriptionService;
 		this.sharedService = sharedService;
 		this.appointmentService = appointmentService;
-		this.appointmentRepository = appointmentRepository;
 		this.doctorRepository = doctorRepository;
 		this.tokenService = tokenService;
+		this.responseCache = responseCache;
 	}
 
 	/**
@@ -67,7 +71,7 @@ public class PrescriptionController {
 			String identifier = tokenService.extractIdentifier(token);
 			if (identifier == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
 
-			Optional<Appointment> aOpt = appointmentRepository.findById(prescription.getAppointmentId());
+			Optional<Appointment> aOpt = appointmentService.findAppointment(prescription.getAppointmentId());
 			if (aOpt.isEmpty()) return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "Appointment not found"));
 			Appointment appt = aOpt.get();
 
@@ -98,7 +102,8 @@ public class PrescriptionController {
 	 * Get prescriptions for an appointment (doctor only).
 	 */
 	@GetMapping("/{appointmentId}/{token}")
-	public ResponseEntity<?> getPrescription(@PathVariable Long appointmentId, @PathVariable String token) {
+	public ResponseEntity<?> getPrescription(@PathVariable Long appointmentId, @PathVariable String token,
+											 HttpServletRequest request) {
 		String validation = sharedService.validateToken(token, "doctor");
 		if (!validation.isEmpty()) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(validation);
 
@@ -106,7 +111,7 @@ public class PrescriptionController {
 			String identifier = tokenService.extractIdentifier(token);
 			if (identifier == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
 
-			Optional<Appointment> aOpt = appointmentRepository.findById(appointmentId);
+			Optional<Appointment> aOpt = appointmentService.findAppointment(appointmentId);
 			if (aOpt.isEmpty()) return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "Appointment not found"));
 			Appointment appt = aOpt.get();
 
@@ -117,11 +122,37 @@ public class PrescriptionController {
 				return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Not authorized"));
 			}
 
-			List<com. project.back_end.models.Prescription> list = prescriptionService.getPrescription(appointmentId);
-			return ResponseEntity.ok(Map.of("prescriptions", list));
+			long version = prescriptionService.getPrescriptionVersion(appointmentId);
+			String key = EntityVersions.appointmentPrescriptions(appointmentId) + "/list";
+			return responseCache.servePrivate(request, key, version, () -> {
+				List<com. project.back_end.models.Prescription> list = prescriptionService.getPrescription(appointmentId);
+				return Map.of("prescriptions", list);
+			});
 		} catch (Exception e) {
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
 		}
 	}
 
+	// Authorization-header variants: same behaviour as the routes above, with the token sent as
+	// "Authorization: Bearer <token>" instead of a path segment.
+
+	/**
+	 * POST /prescription
+	 */
+	@PostMapping({"", "/"})
+	public ResponseEntity<?> savePrescriptionWithHeader(@Validated @RequestBody Prescription prescription,
+														@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+		return savePrescription(prescription, TokenService.fromAuthorizationHeader(authorization));
+	}
+
+	/**
+	 * GET /prescription/{appointmentId}
+	 */
+	@GetMapping("/{appointmentId}")
+	public ResponseEntity<?> getPrescriptionWithHeader(@PathVariable Long appointmentId,
+											 @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+											 HttpServletRequest request) {
+		return getPrescription(appointmentId, TokenService.fromAuthorizationHeader(authorization), request);
+	}
+
 }
@@ -0,0 +1,58 @@
+package com.project.back_end.controllers;
+
+import com.project.back_end.DTO.AuthTokens;
+import com.project.back_end.services.TokenService;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("${api.path}token")
+public class TokenController {
+
+	private final TokenService tokenService;
+
+	@Autowired
+	public TokenController(TokenService tokenService) {
+		this.tokenService = tokenService;
+	}
+
+	/**
+	 * POST /token/refresh
+	 * Body: { refreshToken: "..." }
+	 * Returns: { token, refreshToken, expiresIn } on success; the refresh token sent is used up.
+	 */
+	@PostMapping("/refresh")
+	public ResponseEntity<?> refresh(@RequestBody(required = false) Map<String, String> body) {
+		String refreshToken = body == null ? null : body.get("refreshToken");
+		if (refreshToken == null || refreshToken.isBlank()) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "Missing refresh token"));
+		}
+		AuthTokens tokens = tokenService.refresh(refreshToken);
+		if (tokens == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Invalid or expired refresh token"));
+		return ResponseEntity.ok(tokens);
+	}
+
+	/**
+	 * POST /token/logout
+	 * Revokes the access token in the Authorization header and, if given, body.refreshToken.
+	 */
+	@PostMapping("/logout")
+	public ResponseEntity<?> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+									@RequestBody(required = false) Map<String, String> body) {
+		String token = TokenService.fromAuthorizationHeader(authorization);
+		boolean revoked = token != null && tokenService.revoke(token);
+		String refreshToken = body == null ? null : body.get("refreshToken");
+		if (refreshToken != null && !refreshToken.isBlank()) revoked |= tokenService.revoke(refreshToken);
+		if (!revoked) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Invalid token"));
+		return ResponseEntity.ok(Map.of("message", "Logged out"));
+	}
+
+}
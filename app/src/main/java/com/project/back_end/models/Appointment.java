@@ -1,18 +1,27 @@
 package com.project.back_end.models;
 
+import com.project.back_end.config.AppointmentIdGenerator.ShardedId;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_appointment_doctor_time", columnList = "doctor_id, appointment_time"),
+        @Index(name = "idx_appointment_patient_time", columnList = "patient_id, appointment_time"),
+        // AppointmentSweeper: scheduled appointments by time
+        @Index(name = "idx_appointment_status_time", columnList = "status, appointment_time")
+})
 public class Appointment {
 
   // @Entity annotation:
@@ -24,9 +33,10 @@ public class Appointment {
 //    - Description:
 //      - Represents the unique identifier for each appointment.
 //      - The @Id annotation marks it as the primary key.
-//      - The @GeneratedValue(strategy = GenerationType.IDENTITY) annotation auto-generates the ID value when a new record is inserted into the database.
+//      - The @ShardedId annotation auto-generates the ID value when a new record is inserted into the database
+//        (database identity, or the shard's own id range when appointments are sharded).
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @ShardedId
     private Long id;
 
 // 2. 'doctor' field:
@@ -70,15 +80,35 @@ public class Appointment {
     @NotNull
     private int status; // 0 = scheduled, 1 = completed
 
+// 5a. 'durationMinutes' field:
+//    - Type: private int
+//    - Description:
+//      - Length of the appointment in minutes, at most MAX_DURATION_MINUTES.
+//      - 0 on a new appointment means "not given": booking then uses the length of the doctor's slot.
+//      - Rows created before durations existed default to an hour.
+    @Column(nullable = false)
+    @ColumnDefault("60")
+    private int durationMinutes;
+
+    public static final int DEFAULT_DURATION_MINUTES = 60;
+    public static final int MAX_DURATION_MINUTES = 24 * 60;
+
 // 6. 'getEndTime' method:
 //    - Type: private LocalDateTime
 //    - Description:
 //      - This method is a transient field (not persisted in the database).
-//      - It calculates the end time of the appointment by adding one hour to the start time (appointmentTime).
-//      - It is used to get an estimated appointment end time for display purposes.
+//      - It calculates the end time of the appointment by adding its duration to the start time (appointmentTime).
     @Transient
     public LocalDateTime getEndTime() {
-        return this.appointmentTime.plusHours(1);
+        return this.appointmentTime.plusMinutes(getLengthMinutes());
+    }
+
+    /**
+     * The duration, or the default hour when none has been set.
+     */
+    @Transient
+    public int getLengthMinutes() {
+        return durationMinutes > 0 ? durationMinutes : DEFAULT_DURATION_MINUTES;
     }
 
 // 7. 'getAppointmentDate' method:
@@ -159,5 +189,13 @@ public class Appointment {
         this.status = status;
     }
 
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public void setDurationMinutes(int durationMinutes) {
+        this.durationMinutes = durationMinutes;
+    }
+
 }
 
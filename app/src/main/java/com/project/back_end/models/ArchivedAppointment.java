@@ -0,0 +1,120 @@
+package com.project.back_end.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import java.time.LocalDateTime;
+import org.hibernate.annotations.ColumnDefault;
+
+/**
+ * A completed appointment moved out of the appointment table by AppointmentArchiver.
+ *
+ * Keeps the original id. References doctor and patient by id only (no foreign keys), so
+ * history survives a deleted doctor; the doctor's name is copied at archive time.
+ */
+@Entity
+@Table(name = "appointment_archive", indexes = {
+        @Index(name = "idx_appointment_archive_patient", columnList = "patient_id, appointment_time"),
+        @Index(name = "idx_appointment_archive_doctor", columnList = "doctor_id, appointment_time")
+})
+public class ArchivedAppointment {
+
+    @Id
+    private Long id;
+
+    private Long doctorId;
+
+    private String doctorName;
+
+    private Long patientId;
+
+    private LocalDateTime appointmentTime;
+
+    private int status;
+
+    // rows archived before durations were copied default to an hour
+    @Column(nullable = false)
+    @ColumnDefault("60")
+    private int durationMinutes;
+
+    private LocalDateTime archivedAt;
+
+    public ArchivedAppointment() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public String getDoctorName() {
+        return doctorName;
+    }
+
+    public void setDoctorName(String doctorName) {
+        this.doctorName = doctorName;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Long patientId) {
+        this.patientId = patientId;
+    }
+
+    public LocalDateTime getAppointmentTime() {
+        return appointmentTime;
+    }
+
+    public void setAppointmentTime(LocalDateTime appointmentTime) {
+        this.appointmentTime = appointmentTime;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public void setDurationMinutes(int durationMinutes) {
+        this.durationMinutes = durationMinutes;
+    }
+
+    /**
+     * The duration, or the default hour when none has been set.
+     */
+    @Transient
+    public int getLengthMinutes() {
+        return durationMinutes > 0 ? durationMinutes : Appointment.DEFAULT_DURATION_MINUTES;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+
+}
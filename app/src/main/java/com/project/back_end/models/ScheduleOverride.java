@@ -0,0 +1,93 @@
+package com.project.back_end.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * One exception to a doctor's everyday availableTimes: either the slots for every given weekday
+ * (dayOfWeek set) or the slots for one date (onDate set), which wins over both.
+ *
+ * Slots are kept as one comma-separated string in the availableTimes format ("09:00-10:00,...");
+ * an empty string means no slots that day. References the doctor by id only and is copied to
+ * the doctor's shard along with the doctor row.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_schedule_override_doctor", columnList = "doctor_id, on_date"))
+public class ScheduleOverride {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    private Long doctorId;
+
+    @Enumerated(EnumType.STRING)
+    private DayOfWeek dayOfWeek;
+
+    private LocalDate onDate;
+
+    @NotNull
+    @Column(length = 1000)
+    private String times;
+
+    public ScheduleOverride() {
+    }
+
+    public ScheduleOverride(Long doctorId, DayOfWeek dayOfWeek, LocalDate onDate, String times) {
+        this.doctorId = doctorId;
+        this.dayOfWeek = dayOfWeek;
+        this.onDate = onDate;
+        this.times = times;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public DayOfWeek getDayOfWeek() {
+        return dayOfWeek;
+    }
+
+    public void setDayOfWeek(DayOfWeek dayOfWeek) {
+        this.dayOfWeek = dayOfWeek;
+    }
+
+    public LocalDate getOnDate() {
+        return onDate;
+    }
+
+    public void setOnDate(LocalDate onDate) {
+        this.onDate = onDate;
+    }
+
+    public String getTimes() {
+        return times;
+    }
+
+    public void setTimes(String times) {
+        this.times = times;
+    }
+}
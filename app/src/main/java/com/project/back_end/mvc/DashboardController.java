@@ -1,10 +1,14 @@
 package com.project.back_end.mvc;
 
 import com.project.back_end.services.Service;
+import com.project.back_end.services.TokenService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.CookieValue;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.servlet.ModelAndView;
 
 @Controller
@@ -59,5 +63,26 @@ public class DashboardController {
         return modelAndView;
     }
 
+// 5. Token-less Dashboard Routes:
+//    - `/adminDashboard` and `/doctorDashboard` accept the token from an `Authorization: Bearer <token>` header.
+//    - Plain browser navigation cannot set headers, so a `token` cookie is accepted as a fallback.
+//    - Validation and view selection are the same as the path-variable routes above.
+
+    @GetMapping("/adminDashboard")
+    public ModelAndView adminDashboard(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                       @CookieValue(value = "token", required = false) String cookieToken) {
+        return adminDashboard(headerOrCookie(authorization, cookieToken));
+    }
+
+    @GetMapping("/doctorDashboard")
+    public ModelAndView doctorDashboard(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                        @CookieValue(value = "token", required = false) String cookieToken) {
+        return doctorDashboard(headerOrCookie(authorization, cookieToken));
+    }
+
+    private static String headerOrCookie(String authorization, String cookieToken) {
+        String token = TokenService.fromAuthorizationHeader(authorization);
+        return token != null ? token : cookieToken;
+    }
 
 }
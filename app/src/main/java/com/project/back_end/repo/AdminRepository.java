@@ -2,6 +2,9 @@ package com.project.back_end.repo;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import com.project.back_end.models.Admin;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -22,6 +25,8 @@ public interface AdminRepository extends JpaRepository<Admin, Long> {
 //      - It will return an Admin entity that matches the provided username.
 //      - If no Admin is found with the given username, it returns null.
 
+    // Every admin call: answered from the query cache until the admin table changes
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Admin findByUsername(String username);
 
 // Example: public Admin findByUsername(String username);
@@ -0,0 +1,95 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.config.ShardContext;
+import com.project.back_end.models.Appointment;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Books an appointment with a guarded statement: the INSERT ... SELECT only produces a row when
+ * the doctor exists and none of their appointments overlaps the new one. The doctor's row is
+ * locked first in the same short transaction, so concurrent bookings of one doctor run one
+ * after the other and the overlap check always sees the previous insert. Runs on whatever
+ * shard the caller selected.
+ */
+@Repository
+public class AppointmentBookingRepository {
+
+	// an existing appointment overlaps if it starts before the new end and ends after the new start;
+	// the lower bound on its start keeps the doctor/time index usable
+	private static final String GUARD = " FROM doctor d WHERE d.id = ? AND NOT EXISTS ("
+			+ "SELECT 1 FROM appointment a WHERE a.doctor_id = ? AND a.appointment_time < ? AND a.appointment_time > ? "
+			+ "AND TIMESTAMPADD(MINUTE, CASE WHEN a.duration_minutes > 0 THEN a.duration_minutes ELSE "
+			+ Appointment.DEFAULT_DURATION_MINUTES + " END, a.appointment_time) > ?)";
+	private static final String INSERT_IDENTITY = "INSERT INTO appointment (doctor_id, patient_id, appointment_time, duration_minutes, status) "
+			+ "SELECT ?, ?, ?, ?, ?" + GUARD;
+	private static final String INSERT_WITH_ID = "INSERT INTO appointment (id, doctor_id, patient_id, appointment_time, duration_minutes, status) "
+			+ "SELECT ?, ?, ?, ?, ?, ?" + GUARD;
+	private static final String LOCK_DOCTOR = "SELECT id FROM doctor WHERE id = ? FOR UPDATE";
+
+	private final JdbcTemplate jdbc;
+	private final TransactionTemplate tx;
+	private final AppointmentIdBlocks idBlocks;
+
+	public AppointmentBookingRepository(DataSource dataSource, PlatformTransactionManager transactionManager,
+										ObjectProvider<AppointmentIdBlocks> idBlocks) {
+		this.jdbc = new JdbcTemplate(dataSource);
+		this.tx = new TransactionTemplate(transactionManager);
+		this.idBlocks = idBlocks.getIfAvailable();
+	}
+
+	/**
+	 * Insert the appointment unless the doctor is missing or already has one overlapping
+	 * [time, time + durationMinutes). Returns the new id, or null if nothing was inserted.
+	 * Throws PessimisticLockingFailureException if the doctor's row could not be locked in time.
+	 */
+	public Long insertIfFree(Long doctorId, Long patientId, LocalDateTime time, int durationMinutes, int status) {
+		return tx.execute(s -> {
+			// serializes the doctor's bookings; without it two inserts could each miss the other
+			if (jdbc.queryForList(LOCK_DOCTOR, Long.class, doctorId).isEmpty()) return null;
+			return insert(doctorId, patientId, time, durationMinutes, status);
+		});
+	}
+
+	private Long insert(Long doctorId, Long patientId, LocalDateTime time, int durationMinutes, int status) {
+		Timestamp at = Timestamp.valueOf(time);
+		Timestamp end = Timestamp.valueOf(time.plusMinutes(durationMinutes));
+		Timestamp earliest = Timestamp.valueOf(time.minusMinutes(Appointment.MAX_DURATION_MINUTES));
+		if (idBlocks != null) {
+			// sharded: ids come from the shard's own range, as for AppointmentIdGenerator
+			Integer shard = ShardContext.current();
+			long id = idBlocks.next(shard == null ? 0 : shard);
+			int rows = jdbc.update(INSERT_WITH_ID, id, doctorId, patientId, at, durationMinutes, status,
+					doctorId, doctorId, end, earliest, at);
+			return rows == 1 ? id : null;
+		}
+		KeyHolder keys = new GeneratedKeyHolder();
+		int rows = jdbc.update(con -> {
+			PreparedStatement ps = con.prepareStatement(INSERT_IDENTITY, new String[] { "id" });
+			ps.setLong(1, doctorId);
+			ps.setLong(2, patientId);
+			ps.setTimestamp(3, at);
+			ps.setInt(4, durationMinutes);
+			ps.setInt(5, status);
+			ps.setLong(6, doctorId);
+			ps.setLong(7, doctorId);
+			ps.setTimestamp(8, end);
+			ps.setTimestamp(9, earliest);
+			ps.setTimestamp(10, at);
+			return ps;
+		}, keys);
+		if (rows != 1) return null;
+		Number id = keys.getKey();
+		return id == null ? null : id.longValue();
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.project.back_end.repo;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Hands out appointment ids per shard from counters kept in a small table on the primary,
+ * reserving a block at a time so only one booking in blockSize pays the round trip.
+ *
+ * Database auto-increment can't keep shard ranges apart: moving a doctor copies rows with their
+ * ids, and MySQL moves a table's counter past any id inserted explicitly, so the target shard
+ * would carry on numbering inside the source shard's range.
+ */
+public class AppointmentIdBlocks {
+
+	private final JdbcTemplate primary;
+	private final int blockSize;
+	private final Map<Integer, long[]> blocks = new HashMap<>();
+
+	public AppointmentIdBlocks(DataSource primary, int blockSize) {
+		this.primary = new JdbcTemplate(primary);
+		this.blockSize = blockSize;
+		this.primary.execute("CREATE TABLE IF NOT EXISTS appointment_id_block (shard INT NOT NULL PRIMARY KEY, next_id BIGINT NOT NULL)");
+	}
+
+	public synchronized long next(int shard) {
+		long[] block = blocks.computeIfAbsent(shard, k -> new long[2]);
+		if (block[0] >= block[1]) {
+			block[0] = reserve(shard);
+			block[1] = block[0] + blockSize;
+		}
+		return block[0]++;
+	}
+
+	/**
+	 * Make sure the shard's counter is at least floor.
+	 */
+	public void seed(int shard, long floor) {
+		if (primary.update("UPDATE appointment_id_block SET next_id = ? WHERE shard = ? AND next_id < ?", floor, shard, floor) > 0) return;
+		try {
+			primary.update("INSERT INTO appointment_id_block (shard, next_id) VALUES (?, ?)", shard, floor);
+		} catch (DuplicateKeyException alreadyHigher) {
+			// another instance seeded it first
+		}
+	}
+
+	private long reserve(int shard) {
+		// compare-and-set, so several application instances can share the counters
+		while (true) {
+			List<Long> current = primary.queryForList("SELECT next_id FROM appointment_id_block WHERE shard = ?", Long.class, shard);
+			if (current.isEmpty()) throw new IllegalStateException("No appointment id counter for shard " + shard);
+			long next = current.get(0);
+			if (primary.update("UPDATE appointment_id_block SET next_id = ? WHERE shard = ? AND next_id = ?",
+					next + blockSize, shard, next) == 1) {
+				return next;
+			}
+		}
+	}
+
+}
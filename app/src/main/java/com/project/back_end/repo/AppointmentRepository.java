@@ -2,7 +2,9 @@ package com. project.back_end.repo;
 
 import com. project.back_end.models.Appointment;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -16,13 +18,28 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
    // Find appointments for a doctor within a time range
    List<Appointment> findByDoctorIdAndAppointmentTimeBetween(Long doctorId, LocalDateTime start, LocalDateTime end);
 
+   // Appointments of several doctors in one range query (index doctor_id, appointment_time)
+   List<Appointment> findByDoctor_IdInAndAppointmentTimeBetween(Collection<Long> doctorIds, LocalDateTime start, LocalDateTime end);
+
+   // Per doctor and day in [from, to): { doctor id, date, appointment count, total minutes } for the month heatmap
+   @Query("SELECT a.doctor.id, CAST(a.appointmentTime AS LocalDate), COUNT(a), "
+         + "SUM(CASE WHEN a.durationMinutes > 0 THEN a.durationMinutes ELSE " + Appointment.DEFAULT_DURATION_MINUTES + " END) "
+         + "FROM Appointment a WHERE a.doctor.id IN :doctorIds AND a.appointmentTime >= :from AND a.appointmentTime < :to "
+         + "GROUP BY a.doctor.id, CAST(a.appointmentTime AS LocalDate)")
+   List<Object[]> countByDoctorAndDay(@Param("doctorIds") Collection<Long> doctorIds, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
    // Find appointments for a doctor filtered by patient name (case-insensitive) within a time range
    List<Appointment> findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(Long doctorId, String patientName, LocalDateTime start, LocalDateTime end);
 
-   // Delete all appointments for a doctor
+   // Ids of a doctor's appointments, lowest first; with PageRequest.of(0, n), the next chunk to delete
+   @Query("SELECT a.id FROM Appointment a WHERE a.doctor.id = :doctorId ORDER BY a.id")
+   List<Long> findIdsByDoctorId(@Param("doctorId") Long doctorId, Pageable page);
+
+   // Delete appointments by id in one statement, without loading them; returns the number of rows deleted
    @Modifying
    @Transactional
-   void deleteAllByDoctorId(Long doctorId);
+   @Query("DELETE FROM Appointment a WHERE a.id IN :ids")
+   int deleteByIds(@Param("ids") Collection<Long> ids);
 
    // Find all appointments for a patient
    List<Appointment> findByPatientId(Long patientId);
@@ -30,6 +47,14 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
    // Find appointments for a patient with a given status ordered by appointment time ascending
    List<Appointment> findByPatient_IdAndStatusOrderByAppointmentTimeAsc(Long patientId, int status);
 
+   // A patient's appointments before / from a point in time, ordered by time (index patient_id, appointment_time)
+   List<Appointment> findByPatient_IdAndAppointmentTimeBeforeOrderByAppointmentTimeAsc(Long patientId, LocalDateTime time);
+
+   List<Appointment> findByPatient_IdAndAppointmentTimeGreaterThanEqualOrderByAppointmentTimeAsc(Long patientId, LocalDateTime time);
+
+   // A patient's appointments starting in [from, to] (inclusive), same index
+   List<Appointment> findByPatient_IdAndAppointmentTimeBetweenOrderByAppointmentTimeAsc(Long patientId, LocalDateTime from, LocalDateTime to);
+
    // Filter by doctor name (LIKE) and patient id
    @Query("SELECT a FROM Appointment a JOIN a.doctor d WHERE LOWER(d.name) LIKE LOWER(CONCAT('%', :doctorName, '%')) AND a.patient.id = :patientId")
    List<Appointment> filterByDoctorNameAndPatientId(@Param("doctorName") String doctorName, @Param("patientId") Long patientId);
@@ -38,10 +63,23 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
    @Query("SELECT a FROM Appointment a JOIN a.doctor d WHERE LOWER(d.name) LIKE LOWER(CONCAT('%', :doctorName, '%')) AND a.patient.id = :patientId AND a.status = :status")
    List<Appointment> filterByDoctorNameAndPatientIdAndStatus(@Param("doctorName") String doctorName, @Param("patientId") Long patientId, @Param("status") int status);
 
+   // Filter by doctor name and patient id, before / from a point in time
+   @Query("SELECT a FROM Appointment a JOIN a.doctor d WHERE LOWER(d.name) LIKE LOWER(CONCAT('%', :doctorName, '%')) AND a.patient.id = :patientId AND a.appointmentTime < :time ORDER BY a.appointmentTime")
+   List<Appointment> filterByDoctorNameAndPatientIdBefore(@Param("doctorName") String doctorName, @Param("patientId") Long patientId, @Param("time") LocalDateTime time);
+
+   @Query("SELECT a FROM Appointment a JOIN a.doctor d WHERE LOWER(d.name) LIKE LOWER(CONCAT('%', :doctorName, '%')) AND a.patient.id = :patientId AND a.appointmentTime >= :time ORDER BY a.appointmentTime")
+   List<Appointment> filterByDoctorNameAndPatientIdFrom(@Param("doctorName") String doctorName, @Param("patientId") Long patientId, @Param("time") LocalDateTime time);
+
    // Update status for an appointment
    @Modifying
    @Transactional
    @Query("UPDATE Appointment a SET a.status = :status WHERE a.id = :id")
    void updateStatus(@Param("status") int status, @Param("id") Long id);
 
+   // Set one status on many appointments in a single statement; returns the number of rows changed
+   @Modifying
+   @Transactional
+   @Query("UPDATE Appointment a SET a.status = :status WHERE a.id IN :ids")
+   int updateStatuses(@Param("status") int status, @Param("ids") Collection<Long> ids);
+
 }
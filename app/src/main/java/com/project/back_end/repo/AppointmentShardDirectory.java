@@ -0,0 +1,48 @@
+package com.project.back_end.repo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Which shard holds each doctor's appointments. Kept in a small table on the primary and
+ * mirrored in memory, so resolving a shard never costs a query (and never touches the
+ * connection of the transaction about to run on that shard).
+ *
+ * Assignments are explicit rather than a pure hash so that adding shards, or rebalancing,
+ * only moves the doctors we choose to move.
+ */
+public class AppointmentShardDirectory {
+
+	private final JdbcTemplate primary;
+	private final Map<Long, Integer> assignments = new ConcurrentHashMap<>();
+
+	public AppointmentShardDirectory(DataSource primary) {
+		this.primary = new JdbcTemplate(primary);
+		this.primary.execute("CREATE TABLE IF NOT EXISTS appointment_shard (doctor_id BIGINT NOT NULL PRIMARY KEY, shard INT NOT NULL)");
+		this.primary.query("SELECT doctor_id, shard FROM appointment_shard",
+				rs -> { assignments.put(rs.getLong(1), rs.getInt(2)); });
+	}
+
+	public Integer find(Long doctorId) {
+		return assignments.get(doctorId);
+	}
+
+	public void assign(Long doctorId, int shard) {
+		if (primary.update("UPDATE appointment_shard SET shard = ? WHERE doctor_id = ?", shard, doctorId) == 0) {
+			primary.update("INSERT INTO appointment_shard (doctor_id, shard) VALUES (?, ?)", doctorId, shard);
+		}
+		assignments.put(doctorId, shard);
+	}
+
+	public void remove(Long doctorId) {
+		primary.update("DELETE FROM appointment_shard WHERE doctor_id = ?", doctorId);
+		assignments.remove(doctorId);
+	}
+
+	public Map<Long, Integer> snapshot() {
+		return Map.copyOf(assignments);
+	}
+
+}
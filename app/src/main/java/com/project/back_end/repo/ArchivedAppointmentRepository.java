@@ -0,0 +1,14 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.ArchivedAppointment;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ArchivedAppointmentRepository extends JpaRepository<ArchivedAppointment, Long> {
+
+    // A patient's archived history, oldest first
+    List<ArchivedAppointment> findByPatientIdOrderByAppointmentTimeAscIdAsc(Long patientId);
+
+}
@@ -1,6 +1,9 @@
 package com.project.back_end.repo;
 
 import com.project.back_end.models.Doctor;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import java.util.List;
@@ -20,6 +23,8 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
 //      - This method retrieves a Doctor by their email.
 //      - Return type: Doctor
 //      - Parameters: String email
+            // Token validation on most requests: answered from the query cache until the doctor table changes
+            @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
             Doctor findByEmail(String email);
 
             // Find doctors whose name contains the provided string (partial match)
@@ -1,6 +1,7 @@
 package com. project.back_end.repo;
 
 import com. project.back_end.models.Prescription;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
@@ -11,6 +12,9 @@ public interface PrescriptionRepository extends MongoRepository<Prescription, St
 	// Find prescriptions by associated appointment ID
 	List<Prescription> findByAppointmentId(Long appointmentId);
 
+	// Remove the prescriptions of many appointments in one delete; returns how many were removed
+	long deleteByAppointmentIdIn(Collection<Long> appointmentIds);
+
 }
 //      - Parameters: Long appointmentId
 
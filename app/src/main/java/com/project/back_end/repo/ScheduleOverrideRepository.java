@@ -0,0 +1,27 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.ScheduleOverride;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ScheduleOverrideRepository extends JpaRepository<ScheduleOverride, Long> {
+
+    // Weekday rules and dated exceptions of one or several doctors
+    List<ScheduleOverride> findByDoctorId(Long doctorId);
+
+    List<ScheduleOverride> findByDoctorIdIn(Collection<Long> doctorIds);
+
+    // One DELETE statement; a derived delete would load and remove each row
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ScheduleOverride o WHERE o.doctorId = :doctorId")
+    int deleteAllByDoctorId(@Param("doctorId") Long doctorId);
+
+}
@@ -0,0 +1,157 @@
+package com.project.back_end.services;
+
+import com.project.back_end.config.ShardRoutingDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Moves completed appointments older than archive.horizon-days out of the appointment table
+ * (on every shard) into appointment_archive on the primary, in batches, every
+ * archive.interval-minutes while archive.enabled.
+ * Keeps the hot table and its doctor/time index down to recent and upcoming appointments.
+ *
+ * Each batch is copied first and deleted second, and the copy skips ids already archived, so
+ * a crash in between only leaves a row that the next run finishes off. A row whose status
+ * changed after it was read is not deleted, and its archive copy is dropped again.
+ */
+@Service
+public class AppointmentArchiver {
+
+	private static final Logger log = LoggerFactory.getLogger(AppointmentArchiver.class);
+
+	private static final String SELECT_BATCH = "SELECT a.id, a.doctor_id, d.name, a.patient_id, a.appointment_time, a.status, a.duration_minutes "
+			+ "FROM appointment a LEFT JOIN doctor d ON d.id = a.doctor_id "
+			+ "WHERE a.status = 1 AND a.appointment_time < ? ORDER BY a.id LIMIT ?";
+
+	private final DataSource dataSource;
+	private final ShardRoutingDataSource shards;
+	private final EntityVersions entityVersions;
+	private final int horizonDays;
+	private final int batchSize;
+	private final Counter archived;
+	private final Counter failures;
+	private final boolean enabled;
+
+	@Autowired
+	public AppointmentArchiver(DataSource dataSource,
+							   ObjectProvider<ShardRoutingDataSource> shards,
+							   EntityVersions entityVersions,
+							   MeterRegistry meterRegistry,
+							   @Value("${archive.enabled:true}") boolean enabled,
+							   @Value("${archive.horizon-days:365}") int horizonDays,
+							   @Value("${archive.batch-size:500}") int batchSize) {
+		this.dataSource = dataSource;
+		this.shards = shards.getIfAvailable();
+		this.entityVersions = entityVersions;
+		this.horizonDays = horizonDays;
+		this.batchSize = batchSize;
+		this.archived = Counter.builder("appointments.archived").register(meterRegistry);
+		this.failures = Counter.builder("appointments.archive.failures").register(meterRegistry);
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Archive everything past the horizon now. Returns the number of appointments archived.
+	 */
+	public synchronized int archiveNow() {
+		LocalDateTime cutoff = LocalDateTime.now().minusDays(horizonDays);
+		// the archive lives on the primary: the application DataSource with no shard selected
+		JdbcTemplate archive = new JdbcTemplate(dataSource);
+		int total = 0;
+		int shardCount = shards == null ? 1 : shards.shardCount();
+		for (int k = 0; k < shardCount; k++) {
+			JdbcTemplate hot = new JdbcTemplate(shards == null ? dataSource : shards.shard(k));
+			int selected;
+			do {
+				int[] batch = archiveBatch(hot, archive, cutoff);
+				selected = batch[0];
+				total += batch[1];
+			} while (selected == batchSize);
+		}
+		return total;
+	}
+
+	/**
+	 * Archive one batch. Returns { rows selected, rows archived }.
+	 */
+	private int[] archiveBatch(JdbcTemplate hot, JdbcTemplate archive, LocalDateTime cutoff) {
+		List<Object[]> rows = hot.query(SELECT_BATCH, (rs, i) -> new Object[] {
+				rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getLong(4), rs.getTimestamp(5), rs.getInt(6), rs.getInt(7) },
+				Timestamp.valueOf(cutoff), batchSize);
+		if (rows.isEmpty()) return new int[] { 0, 0 };
+
+		List<Long> ids = new ArrayList<>(rows.size());
+		for (Object[] row : rows) ids.add((Long) row[0]);
+		Set<Long> already = new HashSet<>(new NamedParameterJdbcTemplate(archive).queryForList(
+				"SELECT id FROM appointment_archive WHERE id IN (:ids)", new MapSqlParameterSource("ids", ids), Long.class));
+
+		Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+		List<Object[]> inserts = new ArrayList<>(rows.size());
+		for (Object[] row : rows) {
+			if (already.contains((Long) row[0])) continue;
+			inserts.add(new Object[] { row[0], row[1], row[2], row[3], row[4], row[5], row[6], now });
+		}
+		archive.batchUpdate("INSERT INTO appointment_archive (id, doctor_id, doctor_name, patient_id, appointment_time, status, "
+				+ "duration_minutes, archived_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", inserts);
+
+		List<Object[]> deletes = new ArrayList<>(ids.size());
+		for (Long id : ids) deletes.add(new Object[] { id });
+		hot.batchUpdate("DELETE FROM appointment WHERE id = ? AND status = 1", deletes);
+		// batched deletes may only report SUCCESS_NO_INFO, so ask which rows are still there
+		Set<Long> kept = new HashSet<>(new NamedParameterJdbcTemplate(hot).queryForList(
+				"SELECT id FROM appointment WHERE id IN (:ids)", new MapSqlParameterSource("ids", ids), Long.class));
+
+		int moved = 0;
+		List<Object[]> reverted = new ArrayList<>();
+		Set<Long> doctors = new HashSet<>();
+		Set<Long> patients = new HashSet<>();
+		for (int i = 0; i < rows.size(); i++) {
+			if (kept.contains(ids.get(i))) {
+				reverted.add(new Object[] { ids.get(i) });
+				continue;
+			}
+			moved++;
+			doctors.add((Long) rows.get(i)[1]);
+			patients.add((Long) rows.get(i)[3]);
+		}
+		if (!reverted.isEmpty()) archive.batchUpdate("DELETE FROM appointment_archive WHERE id = ?", reverted);
+
+		for (Long doctorId : doctors) entityVersions.bump(EntityVersions.doctorAppointments(doctorId));
+		for (Long patientId : patients) entityVersions.bump(EntityVersions.patientAppointments(patientId));
+		archived.increment(moved);
+		// rows left behind no longer have status 1, so the next batch never selects them again
+		return new int[] { rows.size(), moved };
+	}
+
+	@Scheduled(initialDelayString = "${archive.interval-minutes:60}", fixedDelayString = "${archive.interval-minutes:60}",
+			timeUnit = TimeUnit.MINUTES)
+	void scheduledRun() {
+		if (!enabled) return;
+		try {
+			int n = archiveNow();
+			log.debug("Archived {} completed appointments", n);
+		} catch (Exception e) {
+			failures.increment();
+			log.warn("Appointment archiving failed", e);
+		}
+	}
+
+}
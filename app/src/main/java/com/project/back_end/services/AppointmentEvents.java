@@ -0,0 +1,253 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.config.BackgroundExecutors;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Patient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Per-doctor server-sent event feeds of appointment changes, so a dashboard loads a day once and
+ * then applies deltas instead of re-querying.
+ *
+ * Events are published after the change commits and sent from a single background thread, so a
+ * slow client never holds up a booking. A new subscriber first gets a "reset" event, its cue to
+ * load the list. Each feed keeps its last few events: a client reconnecting with Last-Event-ID
+ * gets what it missed, or another "reset" when that is no longer possible (buffer overrun,
+ * server restart). A feed lives only while someone subscribes to it, so there are never more
+ * feeds than open streams. Feeds are per instance; with
+ * several instances behind a load balancer, a client only sees changes made on its own.
+ */
+@Component
+public class AppointmentEvents {
+
+	public static final String CREATED = "created";
+	public static final String UPDATED = "updated";
+	public static final String CANCELLED = "cancelled";
+	public static final String STATUS = "status";
+	public static final String RESET = "reset";
+
+	private static final int REPLAY = 256;
+
+	private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+	private final Map<Long, Feed> feeds = new ConcurrentHashMap<>();
+	private final ThreadPoolTaskExecutor sender;
+	private final long timeoutMillis;
+
+	@Autowired
+	public AppointmentEvents(MeterRegistry meterRegistry,
+							 @Value("${appointments.events.timeout-ms:1800000}") long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+		this.sender = BackgroundExecutors.create("appointment-events", 1, false);
+		Gauge.builder("appointments.events.subscribers", feeds,
+				f -> f.values().stream().mapToInt(feed -> feed.subscribers.size()).sum()).register(meterRegistry);
+	}
+
+	/**
+	 * Subscribe to a doctor's feed. A reconnecting client passes its Last-Event-ID to get what it missed.
+	 */
+	public SseEmitter subscribe(Long doctorId, String lastEventId) {
+		SseEmitter emitter = newEmitter(timeoutMillis);
+		Runnable remove = () -> {
+			try {
+				sender.execute(() -> unsubscribe(doctorId, emitter));
+			} catch (TaskRejectedException e) {
+				// shutting down: stop() completes every stream anyway
+			}
+		};
+		emitter.onCompletion(remove);
+		emitter.onTimeout(remove);
+		emitter.onError(e -> remove.run());
+		sender.execute(() -> {
+			Feed feed = feeds.computeIfAbsent(doctorId, id -> new Feed());
+			feed.subscribers.add(emitter);
+			List<Event> missed = lastEventId == null || lastEventId.isBlank() ? null : feed.since(lastEventId);
+			if (missed == null) missed = List.of(feed.reset());
+			for (Event e : missed) {
+				if (!send(emitter, e)) {
+					unsubscribe(doctorId, emitter);
+					return;
+				}
+			}
+		});
+		return emitter;
+	}
+
+	/**
+	 * The stream for a new subscriber; tests override it to record what is sent.
+	 */
+	SseEmitter newEmitter(long timeoutMillis) {
+		return new SseEmitter(timeoutMillis);
+	}
+
+	/**
+	 * On the sender thread, like every other change to the feeds. The last subscriber leaving
+	 * drops the feed with its replay buffer; a client coming back later gets a reset.
+	 */
+	private void unsubscribe(Long doctorId, SseEmitter emitter) {
+		Feed feed = feeds.get(doctorId);
+		if (feed == null) return;
+		feed.subscribers.remove(emitter);
+		if (feed.subscribers.isEmpty()) feeds.remove(doctorId);
+	}
+
+	/**
+	 * Whether the doctor has a feed, so publishing for them is not a no-op.
+	 */
+	public boolean isWatched(Long doctorId) {
+		return feeds.containsKey(doctorId);
+	}
+
+	/**
+	 * Publish a change to the appointment's doctor feed once the current transaction commits.
+	 */
+	public void publish(String type, Appointment appointment) {
+		if (appointment == null || appointment.getDoctor() == null) return;
+		Long doctorId = appointment.getDoctor().getId();
+		if (!feeds.containsKey(doctorId)) return; // nobody listening, nothing to replay
+		// snapshot now: the entity may change or be detached by the time we send
+		AppointmentDTO data = toDTO(appointment);
+		Runnable dispatch = () -> sender.execute(() -> {
+			Feed feed = feeds.get(doctorId);
+			if (feed == null) return;
+			Event e = feed.append(type, data);
+			for (SseEmitter emitter : feed.subscribers) {
+				if (!send(emitter, e)) unsubscribe(doctorId, emitter);
+			}
+		});
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					dispatch.run();
+				}
+			});
+		} else {
+			dispatch.run();
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		sender.shutdown();
+		for (Feed feed : feeds.values()) {
+			for (SseEmitter emitter : feed.subscribers) emitter.complete();
+		}
+	}
+
+	/**
+	 * Comments keep proxies from closing idle streams and flush out dead connections. Sent from
+	 * the sender thread, so a slow client holds up neither the scheduler nor other jobs.
+	 */
+	@Scheduled(initialDelayString = "${appointments.events.heartbeat-ms:20000}", fixedDelayString = "${appointments.events.heartbeat-ms:20000}")
+	void scheduleHeartbeat() {
+		sender.execute(this::heartbeat);
+	}
+
+	private void heartbeat() {
+		for (Map.Entry<Long, Feed> entry : feeds.entrySet()) {
+			Feed feed = entry.getValue();
+			for (SseEmitter emitter : feed.subscribers) {
+				try {
+					emitter.send(SseEmitter.event().comment("ping"));
+				} catch (IOException | IllegalStateException e) {
+					unsubscribe(entry.getKey(), emitter);
+				}
+			}
+		}
+	}
+
+	private boolean send(SseEmitter emitter, Event e) {
+		try {
+			SseEmitter.SseEventBuilder event = SseEmitter.event().id(e.id).name(e.type);
+			emitter.send(e.data == null ? event.data("{}", MediaType.APPLICATION_JSON) : event.data(e.data, MediaType.APPLICATION_JSON));
+			return true;
+		} catch (IOException | IllegalStateException ex) {
+			emitter.completeWithError(ex);
+			return false;
+		}
+	}
+
+	private static AppointmentDTO toDTO(Appointment a) {
+		Patient p = a.getPatient();
+		return new AppointmentDTO(
+				a.getId(),
+				a.getDoctor().getId(),
+				a.getDoctor().getName(),
+				p != null ? p.getId() : null,
+				p != null ? p.getName() : null,
+				p != null ? p.getEmail() : null,
+				p != null ? p.getPhone() : null,
+				p != null ? p.getAddress() : null,
+				a.getAppointmentTime(),
+				a.getStatus(),
+				a.getLengthMinutes());
+	}
+
+	private record Event(String id, String type, AppointmentDTO data) {
+	}
+
+	/**
+	 * One doctor's feed. Only touched from the sender thread, apart from the subscriber count.
+	 */
+	private final class Feed {
+
+		final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+		final ArrayDeque<Event> recent = new ArrayDeque<>();
+		long seq;
+
+		Event append(String type, AppointmentDTO data) {
+			Event e = new Event(epoch + "-" + (++seq), type, data);
+			recent.addLast(e);
+			if (recent.size() > REPLAY) recent.removeFirst();
+			return e;
+		}
+
+		Event reset() {
+			return new Event(epoch + "-" + seq, RESET, null);
+		}
+
+		/**
+		 * Events after lastEventId, or null when they can't all be replayed.
+		 */
+		List<Event> since(String lastEventId) {
+			int dash = lastEventId.lastIndexOf('-');
+			if (dash < 0 || !lastEventId.substring(0, dash).equals(epoch)) return null;
+			long last;
+			try {
+				last = Long.parseLong(lastEventId.substring(dash + 1));
+			} catch (NumberFormatException e) {
+				return null;
+			}
+			if (last == seq) return List.of();
+			if (last > seq || recent.isEmpty() || last < seq - recent.size()) return null;
+			List<Event> out = new ArrayList<>();
+			long n = seq - recent.size();
+			for (Event e : recent) {
+				if (++n > last) out.add(e);
+			}
+			return out;
+		}
+
+	}
+
+}
@@ -0,0 +1,151 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.repo.AppointmentRepository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-doctor, per-day interval trees of appointments, answering "does anything overlap
+ * [start, end)?" in O(log n) for booking, rescheduling and availability.
+ *
+ * A day's tree is built from AppointmentRepository on first use and rebuilt the first time it
+ * is used after the doctor's appointment version changes. It holds every appointment starting
+ * that day or late enough the day before to reach into it. Callers must already be running on
+ * the doctor's shard. At most appointments.intervals.max-days trees are kept, least recently used
+ * go first.
+ */
+@Component
+public class AppointmentIntervals {
+
+	private final AppointmentRepository appointmentRepository;
+	private final EntityVersions entityVersions;
+	private final Map<String, Day> days;
+
+	@Autowired
+	public AppointmentIntervals(AppointmentRepository appointmentRepository,
+								EntityVersions entityVersions,
+								@Value("${appointments.intervals.max-days:10000}") int maxDays) {
+		this.appointmentRepository = appointmentRepository;
+		this.entityVersions = entityVersions;
+		this.days = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Day> eldest) {
+				return size() > maxDays;
+			}
+		});
+	}
+
+	/**
+	 * Whether any of the doctor's appointments, other than excludeId, overlaps [start, end).
+	 */
+	public boolean overlaps(Long doctorId, LocalDateTime start, LocalDateTime end, Long excludeId) {
+		long version = version(doctorId);
+		for (LocalDate date = start.toLocalDate(); date.atStartOfDay().isBefore(end); date = date.plusDays(1)) {
+			Day day = days.get(key(doctorId, date));
+			if (day == null || day.version != version) {
+				day = load(doctorId, date, version);
+				days.put(key(doctorId, date), day);
+			}
+			if (day.overlaps(start, end, excludeId)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Same as overlaps, answered only from trees that are built and current: null when that
+	 * would take a query.
+	 */
+	public Boolean overlapsIfCached(Long doctorId, LocalDateTime start, LocalDateTime end, Long excludeId) {
+		long version = version(doctorId);
+		for (LocalDate date = start.toLocalDate(); date.atStartOfDay().isBefore(end); date = date.plusDays(1)) {
+			Day day = days.get(key(doctorId, date));
+			if (day == null || day.version != version) return null;
+			if (day.overlaps(start, end, excludeId)) return true;
+		}
+		return false;
+	}
+
+	private long version(Long doctorId) {
+		return entityVersions.current(EntityVersions.APPOINTMENTS, EntityVersions.doctorAppointments(doctorId));
+	}
+
+	private Day load(Long doctorId, LocalDate date, long version) {
+		LocalDateTime dayStart = date.atStartOfDay();
+		List<Appointment> appointments = appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doctorId,
+				dayStart.minusMinutes(Appointment.MAX_DURATION_MINUTES), dayStart.plusDays(1));
+		return new Day(version, appointments);
+	}
+
+	private static String key(Long doctorId, LocalDate date) {
+		return doctorId + "/" + date;
+	}
+
+	private static long seconds(LocalDateTime t) {
+		return t.toEpochSecond(ZoneOffset.UTC);
+	}
+
+	/**
+	 * One day's appointments as a static interval tree: sorted by start, with the subtree rooted
+	 * at the middle of each index range keeping the greatest end in that range.
+	 */
+	static final class Day {
+
+		final long version;
+		private final long[] starts;
+		private final long[] ends;
+		private final long[] maxEnds;
+		private final Long[] ids;
+
+		Day(long version, List<Appointment> appointments) {
+			this.version = version;
+			List<Appointment> sorted = appointments.stream().sorted(Comparator.comparing(Appointment::getAppointmentTime)).toList();
+			int n = sorted.size();
+			this.starts = new long[n];
+			this.ends = new long[n];
+			this.maxEnds = new long[n];
+			this.ids = new Long[n];
+			for (int i = 0; i < n; i++) {
+				Appointment a = sorted.get(i);
+				starts[i] = seconds(a.getAppointmentTime());
+				ends[i] = seconds(a.getEndTime());
+				ids[i] = a.getId();
+			}
+			build(0, n - 1);
+		}
+
+		private long build(int lo, int hi) {
+			if (lo > hi) return Long.MIN_VALUE;
+			int mid = (lo + hi) >>> 1;
+			maxEnds[mid] = Math.max(ends[mid], Math.max(build(lo, mid - 1), build(mid + 1, hi)));
+			return maxEnds[mid];
+		}
+
+		boolean overlaps(LocalDateTime start, LocalDateTime end, Long excludeId) {
+			return overlaps(0, starts.length - 1, seconds(start), seconds(end), excludeId);
+		}
+
+		private boolean overlaps(int lo, int hi, long start, long end, Long excludeId) {
+			if (lo > hi) return false;
+			int mid = (lo + hi) >>> 1;
+			// nothing in this subtree ends after start
+			if (maxEnds[mid] <= start) return false;
+			if (starts[mid] < end && ends[mid] > start && !ids[mid].equals(excludeId)) return true;
+			if (overlaps(lo, mid - 1, start, end, excludeId)) return true;
+			// everything to the right starts at or after this one
+			if (starts[mid] >= end) return false;
+			return overlaps(mid + 1, hi, start, end, excludeId);
+		}
+
+	}
+
+}
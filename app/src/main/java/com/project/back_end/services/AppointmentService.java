@@ -3,16 +3,23 @@ package com.project.back_end.services;
 import com.project.back_end.models.Appointment;
 import com.project.back_end.models.Doctor;
 import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentBookingRepository;
 import com.project.back_end.repo.AppointmentRepository;
-import com.project.back_end.repo.DoctorRepository;
 import com.project.back_end.repo.PatientRepository;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @org.springframework.stereotype.Service
 public class AppointmentService {
@@ -21,50 +28,97 @@ public class AppointmentService {
 	private final Service sharedService;
 	private final TokenService tokenService;
 	private final PatientRepository patientRepository;
-	private final DoctorRepository doctorRepository;
+	private final EntityVersions entityVersions;
+	private final AppointmentShards shards;
+	private final AppointmentEvents events;
+	private final AppointmentStatusWriter statusWriter;
+	private final AppointmentBookingRepository bookingRepository;
+	private final DoctorSlots doctorSlots;
+	private final AppointmentIntervals intervals;
+	private final PatientIntervals patientIntervals;
 
 	@Autowired
 	public AppointmentService(AppointmentRepository appointmentRepository,
 							  Service sharedService,
 							  TokenService tokenService,
 							  PatientRepository patientRepository,
-							  DoctorRepository doctorRepository) {
+							  EntityVersions entityVersions,
+							  AppointmentShards shards,
+							  AppointmentEvents events,
+							  AppointmentStatusWriter statusWriter,
+							  AppointmentBookingRepository bookingRepository,
+							  DoctorSlots doctorSlots,
+							  AppointmentIntervals intervals,
+							  PatientIntervals patientIntervals) {
 		this.appointmentRepository = appointmentRepository;
 		this.sharedService = sharedService;
 		this.tokenService = tokenService;
 		this.patientRepository = patientRepository;
-		this.doctorRepository = doctorRepository;
+		this.entityVersions = entityVersions;
+		this.shards = shards;
+		this.events = events;
+		this.statusWriter = statusWriter;
+		this.bookingRepository = bookingRepository;
+		this.doctorSlots = doctorSlots;
+		this.intervals = intervals;
+		this.patientIntervals = patientIntervals;
 	}
 
 	/**
-	 * Book a new appointment.
-	 * Returns 1 on success, 0 on failure (conflict or invalid doctor/patient).
+	 * Book a new appointment at one of the doctor's offered slot times, lasting durationMinutes
+	 * if given and the length of the slot otherwise.
+	 * Returns 1 on success, 0 on failure (not an offered slot, overlap with the doctor's or the
+	 * patient's other appointments, or invalid doctor/patient).
+	 *
+	 * The slot check uses the cached schedule and a current interval tree can refuse an overlap
+	 * early; doctor existence, the overlap check and the insert are a single guarded statement,
+	 * run in a short transaction of its own after locking the doctor's row, so concurrent
+	 * bookings of one slot cannot both succeed. The patient's side spans shards, so it is
+	 * checked under the patient's lock.
 	 */
-	@Transactional
 	public int bookAppointment(Appointment appointment) {
 		if (appointment == null || appointment.getDoctor() == null || appointment.getPatient() == null || appointment.getAppointmentTime() == null) {
 			return 0;
 		}
 
 		Long doctorId = appointment.getDoctor().getId();
-		if (doctorId == null || doctorRepository.findById(doctorId).isEmpty()) {
-			return 0; // invalid doctor
-		}
+		if (doctorId == null || appointment.getPatient().getId() == null) return 0;
+		return shards.onDoctor(doctorId, () -> {
+			shards.preparePatient(doctorId, appointment.getPatient().getId());
+			return patientIntervals.withPatient(appointment.getPatient().getId(), () -> book(appointment, doctorId));
+		});
+	}
 
-		// check for conflicting appointments for the doctor in the requested timeslot
+	private int book(Appointment appointment, Long doctorId) {
+		DoctorSlots.Schedule schedule = doctorSlots.get(doctorId);
+		if (schedule == null) return 0; // invalid doctor
 		LocalDateTime start = appointment.getAppointmentTime();
-		LocalDateTime end = start.plusHours(1);
-		List<Appointment> conflicts = appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doctorId, start, end);
-		if (conflicts != null && !conflicts.isEmpty()) {
-			return 0; // timeslot taken
-		}
+		if (!schedule.offers(start)) return 0; // not one of the doctor's slots that day
+		int duration = appointment.getDurationMinutes() > 0 ? appointment.getDurationMinutes() : schedule.lengthOf(start);
+		if (duration > Appointment.MAX_DURATION_MINUTES) return 0;
+		// the tree only answers if already built; otherwise the guarded insert decides alone
+		if (Boolean.TRUE.equals(intervals.overlapsIfCached(doctorId, start, start.plusMinutes(duration), null))) return 0;
+		// the patient is busy with another doctor then
+		if (patientIntervals.overlaps(appointment.getPatient().getId(), start, start.plusMinutes(duration), null)) return 0;
 
+		// inserted only if none of the doctor's appointments overlaps this one
+		Long id;
 		try {
-			appointmentRepository.save(appointment);
-			return 1;
-		} catch (Exception e) {
-			return 0;
+			id = bookingRepository.insertIfFree(doctorId, appointment.getPatient().getId(), start, duration,
+					appointment.getStatus());
+		} catch (DataIntegrityViolationException e) {
+			return 0; // unknown patient; anything else is not a booking refusal and propagates
+		} catch (PessimisticLockingFailureException e) {
+			return 0; // the doctor's row stayed locked by other bookings; the slot is contended
 		}
+		if (id == null) return 0; // timeslot taken (or doctor gone)
+
+		appointment.setId(id);
+		appointment.setDurationMinutes(duration);
+		appointment.setDoctor(schedule.getDoctor());
+		bumpVersions(appointment);
+		events.publish(AppointmentEvents.CREATED, appointment);
+		return 1;
 	}
 
 	/**
@@ -72,6 +126,11 @@ public class AppointmentService {
 	 */
 	@Transactional
 	public String updateAppointment(Long appointmentId, Appointment updatedAppointment, Long patientId) {
+		return shards.onAppointment(appointmentId, () -> patientIntervals.withPatient(patientId,
+				() -> update(appointmentId, updatedAppointment, patientId)));
+	}
+
+	private String update(Long appointmentId, Appointment updatedAppointment, Long patientId) {
 		Optional<Appointment> existingOpt = appointmentRepository.findById(appointmentId);
 		if (existingOpt.isEmpty()) return "Appointment not found";
 
@@ -80,24 +139,47 @@ public class AppointmentService {
 
 		// Check doctor exists
 		Long doctorId = updatedAppointment.getDoctor() != null ? updatedAppointment.getDoctor().getId() : existing.getDoctor().getId();
-		if (doctorId == null || doctorRepository.findById(doctorId).isEmpty()) {
-			return "Invalid doctor";
+		if (doctorId == null) return "Invalid doctor";
+		if (shards.shardOf(doctorId) != shards.shardOf(existing.getDoctor().getId())) {
+			// would move the row between databases
+			return "Cannot move appointment to this doctor; cancel and book again";
 		}
+		DoctorSlots.Schedule schedule = doctorSlots.get(doctorId);
+		if (schedule == null) return "Invalid doctor";
 
 		LocalDateTime newStart = updatedAppointment.getAppointmentTime() != null ? updatedAppointment.getAppointmentTime() : existing.getAppointmentTime();
-		LocalDateTime newEnd = newStart.plusHours(1);
-		List<Appointment> conflicts = appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doctorId, newStart, newEnd);
-		// allow if only conflict is the same appointment
-		boolean hasConflictingOther = conflicts.stream().anyMatch(a -> !a.getId().equals(appointmentId));
-		if (hasConflictingOther) return "Requested timeslot not available";
+		// a moved appointment must land on one of the doctor's slots, as when booking
+		boolean moved = !newStart.equals(existing.getAppointmentTime()) || !doctorId.equals(existing.getDoctor().getId());
+		if (moved && !schedule.offers(newStart)) return "Requested timeslot not available";
+		// keeps its length unless a new one is given
+		int duration = updatedAppointment.getDurationMinutes() > 0 ? updatedAppointment.getDurationMinutes() : existing.getLengthMinutes();
+		if (duration > Appointment.MAX_DURATION_MINUTES) return "Invalid duration";
+		// the appointment itself does not count as a conflict
+		if (intervals.overlaps(doctorId, newStart, newStart.plusMinutes(duration), appointmentId)) {
+			return "Requested timeslot not available";
+		}
+		if (patientIntervals.overlaps(patientId, newStart, newStart.plusMinutes(duration), appointmentId)) {
+			return "You already have an appointment at that time";
+		}
 
 		// apply updates
+		Appointment before = new Appointment(existing.getId(), existing.getDoctor(), existing.getPatient(),
+				existing.getAppointmentTime(), existing.getStatus());
+		before.setDurationMinutes(existing.getDurationMinutes());
 		existing.setDoctor(updatedAppointment.getDoctor() != null ? updatedAppointment.getDoctor() : existing.getDoctor());
 		existing.setAppointmentTime(updatedAppointment.getAppointmentTime() != null ? updatedAppointment.getAppointmentTime() : existing.getAppointmentTime());
 		existing.setPatient(updatedAppointment.getPatient() != null ? updatedAppointment.getPatient() : existing.getPatient());
 		existing.setStatus(updatedAppointment.getStatus());
+		existing.setDurationMinutes(duration);
 
+		shards.preparePatient(doctorId, existing.getPatient().getId());
 		appointmentRepository.save(existing);
+		bumpVersions(existing);
+		if (!before.getDoctor().getId().equals(doctorId)) {
+			bumpVersions(before);
+			events.publish(AppointmentEvents.CANCELLED, before);
+		}
+		events.publish(AppointmentEvents.UPDATED, existing);
 		return "OK";
 	}
 
@@ -106,13 +188,17 @@ public class AppointmentService {
 	 */
 	@Transactional
 	public boolean cancelAppointment(Long appointmentId, Long patientId) {
-		Optional<Appointment> existingOpt = appointmentRepository.findById(appointmentId);
-		if (existingOpt.isEmpty()) return false;
-		Appointment existing = existingOpt.get();
-		if (!existing.getPatient().getId().equals(patientId)) return false;
+		return shards.onAppointment(appointmentId, () -> {
+			Optional<Appointment> existingOpt = appointmentRepository.findById(appointmentId);
+			if (existingOpt.isEmpty()) return false;
+			Appointment existing = existingOpt.get();
+			if (!existing.getPatient().getId().equals(patientId)) return false;
 
-		appointmentRepository.deleteById(appointmentId);
-		return true;
+			appointmentRepository.deleteById(appointmentId);
+			bumpVersions(existing);
+			events.publish(AppointmentEvents.CANCELLED, existing);
+			return true;
+		});
 	}
 
 	/**
@@ -121,23 +207,83 @@ public class AppointmentService {
 	public List<Appointment> getAppointments(Long doctorId, LocalDate date, String patientName) {
 		LocalDateTime startOfDay = date.atStartOfDay();
 		LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
-		if (patientName == null || patientName.isBlank()) {
-			return appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doctorId, startOfDay, endOfDay);
-		}
-		return appointmentRepository.findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(doctorId, patientName, startOfDay, endOfDay);
+		return shards.onDoctor(doctorId, () -> {
+			if (patientName == null || patientName.isBlank()) {
+				return appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doctorId, startOfDay, endOfDay);
+			}
+			return appointmentRepository.findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(doctorId, patientName, startOfDay, endOfDay);
+		});
 	}
 
 	/**
-	 * Change status of an appointment.
+	 * Change status of an appointment. Goes through the status write-behind queue, so concurrent
+	 * changes share one UPDATE; returns once the change has committed (true) or failed (false).
+	 * Throws IllegalStateException inside a transaction, which could be holding the row lock the
+	 * writer waits for.
 	 */
-	@Transactional
 	public boolean changeStatus(Long appointmentId, int status) {
+		requireNoTransaction();
 		try {
-			appointmentRepository.updateStatus(status, appointmentId);
-			return true;
+			return statusWriter.submit(appointmentId, status).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
 		} catch (Exception e) {
 			return false;
 		}
 	}
 
+	/**
+	 * Set one status on many of a doctor's appointments (e.g. end-of-day completion), batched
+	 * into as few UPDATEs as the queue allows. Returns the ids that failed, including ids that
+	 * are not this doctor's. Like changeStatus, not inside a transaction.
+	 */
+	public List<Long> changeStatuses(List<Long> appointmentIds, int status, Long doctorId) {
+		requireNoTransaction();
+		Set<Long> own = new HashSet<>();
+		shards.onDoctor(doctorId, () -> {
+			for (Appointment a : appointmentRepository.findAllById(new LinkedHashSet<>(appointmentIds))) {
+				if (a.getDoctor() != null && doctorId.equals(a.getDoctor().getId())) own.add(a.getId());
+			}
+			return null;
+		});
+		List<Long> failed = new ArrayList<>();
+		List<Long> accepted = new ArrayList<>();
+		for (Long id : new LinkedHashSet<>(appointmentIds)) {
+			if (own.contains(id)) accepted.add(id);
+			else failed.add(id);
+		}
+		failed.addAll(statusWriter.submitAll(accepted, status));
+		return failed;
+	}
+
+	private static void requireNoTransaction() {
+		// the writer's own transaction would wait on locks this one holds until it times out
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			throw new IllegalStateException("Status changes wait for the write-behind queue and must not run inside a transaction");
+		}
+	}
+
+	/**
+	 * Find an appointment wherever its shard is.
+	 */
+	public Optional<Appointment> findAppointment(Long appointmentId) {
+		return shards.onAppointment(appointmentId, () -> appointmentRepository.findById(appointmentId));
+	}
+
+	/**
+	 * Version of a doctor's appointment listings, used as the response cache key.
+	 */
+	public long getDoctorAppointmentsVersion(Long doctorId) {
+		return entityVersions.current(EntityVersions.APPOINTMENTS, EntityVersions.doctorAppointments(doctorId));
+	}
+
+	/**
+	 * Invalidate cached listings of the appointment's doctor and patient.
+	 */
+	private void bumpVersions(Appointment appointment) {
+		if (appointment.getDoctor() != null) entityVersions.bump(EntityVersions.doctorAppointments(appointment.getDoctor().getId()));
+		if (appointment.getPatient() != null) entityVersions.bump(EntityVersions.patientAppointments(appointment.getPatient().getId()));
+	}
+
 }
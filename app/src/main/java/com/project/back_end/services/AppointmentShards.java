@@ -0,0 +1,511 @@
+package com.project.back_end.services;
+
+import com.project.back_end.config.BackgroundExecutors;
+import com.project.back_end.config.ShardContext;
+import com.project.back_end.config.ShardRoutingDataSource;
+import com.project.back_end.config.ShardSchemaInitializer;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.repo.AppointmentShardDirectory;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Appointment sharding by doctor id (enabled by db.shards.urls; otherwise every method simply
+ * runs the work on the single database).
+ *
+ * Each shard is a full-schema database holding the appointments of the doctors assigned to it,
+ * plus copies of the doctor (with schedule) and patient rows those appointments reference. The
+ * primary (shard 0) stays the system of record for doctors and patients; copies are refreshed
+ * when a doctor changes and whenever a patient books.
+ *
+ * Doctor-scoped work runs on the doctor's shard under a per-doctor read lock, held until the
+ * surrounding transaction completes, so a rebalancing move (write lock) never sees half a booking.
+ * Patient-scoped queries fan out to all shards in parallel and are merged by appointment time.
+ *
+ * A move copies the rows, switches the directory, then deletes the originals. If it fails before
+ * the switch the copies are removed again; if it fails (or the process dies) after, the next move
+ * of that doctor, or finishInterruptedMoves(), deletes what was left on the old shard.
+ */
+@Component
+public class AppointmentShards {
+
+	private static final Comparator<Appointment> BY_TIME = Comparator
+			.comparing(Appointment::getAppointmentTime)
+			.thenComparing(Appointment::getId);
+
+	private final ShardRoutingDataSource shards;
+	private final AppointmentShardDirectory directory;
+	private final TransactionTemplate readOnlyTx;
+	private final ThreadPoolTaskExecutor fanOutPool;
+	private final JdbcTemplate[] jdbc;
+	// only doctors with work in progress have an entry
+	private final Map<Long, DoctorLock> locks = new ConcurrentHashMap<>();
+
+	@Autowired
+	public AppointmentShards(ObjectProvider<ShardRoutingDataSource> shards,
+							 ObjectProvider<PlatformTransactionManager> transactionManager,
+							 @Value("${db.shards.fan-out-threads:8}") int fanOutThreads) {
+		this(shards.getIfAvailable(), transactionManager.getIfAvailable(), fanOutThreads);
+	}
+
+	private AppointmentShards(ShardRoutingDataSource shards, PlatformTransactionManager transactionManager, int fanOutThreads) {
+		this.shards = shards;
+		if (shards == null) {
+			this.directory = null;
+			this.readOnlyTx = null;
+			this.fanOutPool = null;
+			this.jdbc = new JdbcTemplate[0];
+			return;
+		}
+		this.directory = new AppointmentShardDirectory(shards.shard(0));
+		this.readOnlyTx = new TransactionTemplate(transactionManager);
+		this.readOnlyTx.setReadOnly(true);
+		this.fanOutPool = BackgroundExecutors.create("shard-fan-out", fanOutThreads, false);
+		this.jdbc = new JdbcTemplate[shards.shardCount()];
+		for (int i = 0; i < jdbc.length; i++) jdbc[i] = new JdbcTemplate(shards.shard(i));
+	}
+
+	/**
+	 * A single-database instance, for wiring the services by hand.
+	 */
+	public static AppointmentShards unsharded() {
+		return new AppointmentShards((ShardRoutingDataSource) null, (PlatformTransactionManager) null, 0);
+	}
+
+	public boolean isSharded() {
+		return shards != null;
+	}
+
+	public int shardCount() {
+		return shards == null ? 1 : shards.shardCount();
+	}
+
+	/**
+	 * The doctor's shard. New doctors are placed by id hash and their row is copied there.
+	 */
+	public int shardOf(Long doctorId) {
+		if (shards == null) return 0;
+		Integer shard = directory.find(doctorId);
+		if (shard != null) return shard;
+		synchronized (directory) {
+			shard = directory.find(doctorId);
+			if (shard != null) return shard;
+			int assigned = (int) Math.floorMod(doctorId, (long) shards.shardCount());
+			boolean exists = assigned == 0
+					? !jdbc[0].queryForList("SELECT id FROM doctor WHERE id = ?", Long.class, doctorId).isEmpty()
+					: copyDoctor(doctorId, assigned);
+			// unknown ids get an answer but no directory entry
+			if (exists) directory.assign(doctorId, assigned);
+			return assigned;
+		}
+	}
+
+	/**
+	 * Run work against the doctor's shard. Must be called before the surrounding transaction
+	 * issues its first statement: a transaction already holding a connection to another shard
+	 * gets an IllegalStateException rather than running the work on the wrong database.
+	 */
+	public <T> T onDoctor(Long doctorId, Supplier<T> work) {
+		if (shards == null || doctorId == null) return work.get();
+		return withLock(doctorId, false, () -> {
+			int shard = shardOf(doctorId);
+			Integer bound = ShardContext.boundShard();
+			if (bound != null && bound != shard) {
+				throw new IllegalStateException("Transaction already uses shard " + bound + "; doctor " + doctorId
+						+ " is on shard " + shard + ". Call onDoctor before the first statement.");
+			}
+			return ShardContext.on(shard, work);
+		});
+	}
+
+	/**
+	 * Run work against the shard holding the appointment (shard 0 if no shard has it).
+	 */
+	public <T> T onAppointment(Long appointmentId, Supplier<T> work) {
+		if (shards == null || appointmentId == null) return work.get();
+		Long doctorId = doctorOfAppointment(appointmentId);
+		return doctorId == null ? work.get() : onDoctor(doctorId, work);
+	}
+
+	/**
+	 * Group appointment ids by doctor, for batches that must run on each doctor's shard.
+	 * Ids found on no shard are left out. Unsharded, everything comes back under a null doctor
+	 * (onDoctor(null, ...) simply runs the work).
+	 */
+	public Map<Long, List<Long>> groupByDoctor(Collection<Long> appointmentIds) {
+		Map<Long, List<Long>> groups = new LinkedHashMap<>();
+		if (appointmentIds.isEmpty()) return groups;
+		if (shards == null) {
+			groups.put(null, new ArrayList<>(appointmentIds));
+			return groups;
+		}
+		MapSqlParameterSource params = new MapSqlParameterSource("ids", appointmentIds);
+		for (JdbcTemplate shard : jdbc) {
+			new NamedParameterJdbcTemplate(shard).query("SELECT id, doctor_id FROM appointment WHERE id IN (:ids)", params,
+					rs -> { groups.computeIfAbsent(rs.getLong(2), k -> new ArrayList<>()).add(rs.getLong(1)); });
+		}
+		return groups;
+	}
+
+	/**
+	 * Run a query over several doctors once per shard, each run given only that shard's doctors
+	 * (in its own read-only transaction), and concatenate the results. Takes no doctor locks, so
+	 * a doctor being moved may be read from either shard; for aggregates, not for writes.
+	 */
+	public <T> List<T> onDoctors(Collection<Long> doctorIds, Function<List<Long>, List<T>> query) {
+		if (doctorIds.isEmpty()) return new ArrayList<>();
+		if (shards == null) return query.apply(new ArrayList<>(doctorIds));
+		Map<Integer, List<Long>> byShard = new TreeMap<>();
+		for (Long id : doctorIds) byShard.computeIfAbsent(shardOf(id), k -> new ArrayList<>()).add(id);
+		List<T> out = new ArrayList<>();
+		byShard.forEach((shard, ids) -> out.addAll(ShardContext.on(shard, () -> readOnlyTx.execute(status -> query.apply(ids)))));
+		return out;
+	}
+
+	/**
+	 * Make sure the patient's row exists (and is current) on the doctor's shard before
+	 * an appointment referencing it is written there.
+	 */
+	public void preparePatient(Long doctorId, Long patientId) {
+		if (shards == null || patientId == null) return;
+		int shard = shardOf(doctorId);
+		if (shard != 0) copyRow("patient", patientId, shard);
+	}
+
+	/**
+	 * Refresh the doctor's copy on their shard once the current transaction has committed.
+	 */
+	public void refreshDoctorAfterCommit(Long doctorId) {
+		if (shards == null) return;
+		Integer shard = directory.find(doctorId);
+		if (shard == null || shard == 0) return;
+		Runnable refresh = () -> copyDoctor(doctorId, shard);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					refresh.run();
+				}
+			});
+		} else {
+			refresh.run();
+		}
+	}
+
+	/**
+	 * Delete a doctor's appointments (and row copy) when they live off the primary.
+	 * Returns false when the caller should delete them on the primary itself. Holds the doctor's
+	 * write lock, so a booking or move of the doctor cannot interleave with the cleanup.
+	 */
+	public boolean deleteDoctorAppointments(Long doctorId) {
+		if (shards == null) return false;
+		return withLock(doctorId, true, () -> {
+			Integer shard = directory.find(doctorId);
+			if (shard != null) directory.remove(doctorId);
+			if (shard == null || shard == 0) return false;
+			JdbcTemplate target = jdbc[shard];
+			target.update("DELETE FROM appointment WHERE doctor_id = ?", doctorId);
+			target.update("DELETE FROM doctor_available_times WHERE doctor_id = ?", doctorId);
+			target.update("DELETE FROM schedule_override WHERE doctor_id = ?", doctorId);
+			target.update("DELETE FROM doctor WHERE id = ?", doctorId);
+			return true;
+		});
+	}
+
+	/**
+	 * Run a patient-scoped query on every shard in parallel (each in its own read-only
+	 * transaction) and merge the results by appointment time.
+	 */
+	public List<Appointment> fanOut(Supplier<List<Appointment>> query) {
+		if (shards == null) return query.get();
+		List<Future<List<Appointment>>> futures = new ArrayList<>();
+		for (int k = 0; k < shards.shardCount(); k++) {
+			int shard = k;
+			futures.add(fanOutPool.submit(() -> ShardContext.on(shard, () -> readOnlyTx.execute(status -> query.get()))));
+		}
+		List<List<Appointment>> parts = new ArrayList<>();
+		try {
+			for (Future<List<Appointment>> f : futures) {
+				List<Appointment> part = new ArrayList<>(f.get());
+				part.sort(BY_TIME);
+				parts.add(part);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while querying shards", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Shard query failed", e.getCause());
+		}
+		return merge(parts);
+	}
+
+	/**
+	 * k-way merge of per-shard sorted lists. A row caught mid-move can show up on two shards;
+	 * it is kept once.
+	 */
+	static List<Appointment> merge(List<List<Appointment>> parts) {
+		PriorityQueue<int[]> heads = new PriorityQueue<>(
+				(a, b) -> BY_TIME.compare(parts.get(a[0]).get(a[1]), parts.get(b[0]).get(b[1])));
+		int total = 0;
+		for (int i = 0; i < parts.size(); i++) {
+			total += parts.get(i).size();
+			if (!parts.get(i).isEmpty()) heads.add(new int[] { i, 0 });
+		}
+		List<Appointment> out = new ArrayList<>(total);
+		Set<Long> seen = new HashSet<>();
+		while (!heads.isEmpty()) {
+			int[] head = heads.poll();
+			Appointment a = parts.get(head[0]).get(head[1]);
+			if (seen.add(a.getId())) out.add(a);
+			if (++head[1] < parts.get(head[0]).size()) heads.add(head);
+		}
+		return out;
+	}
+
+	/**
+	 * Current doctor placement and appointment counts per doctor, per shard.
+	 */
+	public Map<Integer, Map<Long, Long>> appointmentCounts() {
+		Map<Integer, Map<Long, Long>> counts = new LinkedHashMap<>();
+		for (int k = 0; k < shardCount(); k++) counts.put(k, new HashMap<>());
+		if (shards == null) return counts;
+		for (Map.Entry<Long, Integer> e : directory.snapshot().entrySet()) counts.get(e.getValue()).put(e.getKey(), 0L);
+		for (int k = 0; k < jdbc.length; k++) {
+			Map<Long, Long> shardCounts = counts.get(k);
+			jdbc[k].query("SELECT doctor_id, COUNT(*) FROM appointment GROUP BY doctor_id",
+					rs -> { shardCounts.put(rs.getLong(1), rs.getLong(2)); });
+		}
+		return counts;
+	}
+
+	/**
+	 * Move a doctor's appointments to another shard. Blocks that doctor's bookings and reads
+	 * for the duration; ids are kept, so links to existing appointments stay valid.
+	 */
+	public void moveDoctor(Long doctorId, int target) {
+		if (shards == null) throw new IllegalStateException("Appointments are not sharded");
+		if (target < 0 || target >= shards.shardCount()) throw new IllegalArgumentException("No shard " + target);
+		withLock(doctorId, true, () -> {
+			int source = shardOf(doctorId);
+			// finish an earlier move of this doctor that failed after switching the directory
+			removeOutside(doctorId, source);
+			if (source == target) return null;
+			try {
+				if (target != 0) copyDoctor(doctorId, target);
+				List<Map<String, Object>> rows = jdbc[source].queryForList("SELECT * FROM appointment WHERE doctor_id = ?", doctorId);
+				if (target != 0) {
+					Set<Long> patients = new HashSet<>();
+					for (Map<String, Object> row : rows) patients.add(((Number) row.get("patient_id")).longValue());
+					for (Long patientId : patients) copyRow("patient", patientId, target);
+				}
+				for (Map<String, Object> row : rows) upsert(jdbc[target], "appointment", row);
+				directory.assign(doctorId, target);
+			} catch (RuntimeException e) {
+				// the directory still names the source; drop what was copied so far
+				remove(doctorId, target);
+				throw e;
+			}
+			removeOutside(doctorId, target);
+			return null;
+		});
+	}
+
+	/**
+	 * Delete the leftovers of moves that did not finish (e.g. the process stopped mid-move):
+	 * appointments of a doctor found on a shard other than the doctor's own. Safe to run at any
+	 * time; returns the ids of the doctors cleaned up.
+	 */
+	public Set<Long> finishInterruptedMoves() {
+		Set<Long> doctors = new HashSet<>();
+		if (shards == null) return doctors;
+		for (int k = 0; k < jdbc.length; k++) {
+			int shard = k;
+			jdbc[k].query("SELECT DISTINCT doctor_id FROM appointment", rs -> {
+				Integer home = directory.find(rs.getLong(1));
+				if (home != null && home != shard) doctors.add(rs.getLong(1));
+			});
+		}
+		for (Long doctorId : doctors) withLock(doctorId, true, () -> {
+			removeOutside(doctorId, shardOf(doctorId));
+			return null;
+		});
+		return doctors;
+	}
+
+	/**
+	 * Remove the doctor's appointments, and row copies off the primary, from every shard but keep.
+	 */
+	private void removeOutside(Long doctorId, int keep) {
+		for (int k = 0; k < jdbc.length; k++) {
+			if (k != keep) remove(doctorId, k);
+		}
+	}
+
+	private void remove(Long doctorId, int shard) {
+		jdbc[shard].update("DELETE FROM appointment WHERE doctor_id = ?", doctorId);
+		if (shard != 0) {
+			jdbc[shard].update("DELETE FROM doctor_available_times WHERE doctor_id = ?", doctorId);
+			jdbc[shard].update("DELETE FROM schedule_override WHERE doctor_id = ?", doctorId);
+			jdbc[shard].update("DELETE FROM doctor WHERE id = ?", doctorId);
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (fanOutPool != null) fanOutPool.shutdown();
+	}
+
+	private Long doctorOfAppointment(Long appointmentId) {
+		// ids encode the shard that created the row; moved rows need the scan
+		int origin = (int) (appointmentId / ShardSchemaInitializer.ID_RANGE);
+		if (origin < jdbc.length) {
+			Long doctorId = doctorOfAppointment(origin, appointmentId);
+			if (doctorId != null) return doctorId;
+		}
+		for (int k = 0; k < jdbc.length; k++) {
+			if (k == origin) continue;
+			Long doctorId = doctorOfAppointment(k, appointmentId);
+			if (doctorId != null) return doctorId;
+		}
+		return null;
+	}
+
+	private Long doctorOfAppointment(int shard, Long appointmentId) {
+		List<Long> ids = jdbc[shard].queryForList("SELECT doctor_id FROM appointment WHERE id = ?", Long.class, appointmentId);
+		return ids.isEmpty() ? null : ids.get(0);
+	}
+
+	private boolean copyDoctor(Long doctorId, int shard) {
+		if (!copyRow("doctor", doctorId, shard)) return false;
+		List<Map<String, Object>> times = jdbc[0].queryForList("SELECT * FROM doctor_available_times WHERE doctor_id = ?", doctorId);
+		jdbc[shard].update("DELETE FROM doctor_available_times WHERE doctor_id = ?", doctorId);
+		for (Map<String, Object> row : times) insert(jdbc[shard], "doctor_available_times", row);
+		// the schedule is read where the doctor's bookings are checked
+		List<Map<String, Object>> overrides = jdbc[0].queryForList("SELECT * FROM schedule_override WHERE doctor_id = ?", doctorId);
+		jdbc[shard].update("DELETE FROM schedule_override WHERE doctor_id = ?", doctorId);
+		for (Map<String, Object> row : overrides) insert(jdbc[shard], "schedule_override", row);
+		return true;
+	}
+
+	/**
+	 * Copy one row by id from the primary to a shard. Returns false if the primary has no such row.
+	 */
+	private boolean copyRow(String table, Long id, int shard) {
+		Map<String, Object> row;
+		try {
+			row = jdbc[0].queryForMap("SELECT * FROM " + table + " WHERE id = ?", id);
+		} catch (EmptyResultDataAccessException e) {
+			return false;
+		}
+		upsert(jdbc[shard], table, row);
+		return true;
+	}
+
+	private static void upsert(JdbcTemplate target, String table, Map<String, Object> row) {
+		List<String> columns = new ArrayList<>();
+		List<Object> values = new ArrayList<>();
+		Object id = null;
+		for (Map.Entry<String, Object> e : row.entrySet()) {
+			if (e.getKey().equalsIgnoreCase("id")) {
+				id = e.getValue();
+			} else {
+				columns.add(e.getKey() + " = ?");
+				values.add(e.getValue());
+			}
+		}
+		values.add(id);
+		if (target.update("UPDATE " + table + " SET " + String.join(", ", columns) + " WHERE id = ?", values.toArray()) == 0) {
+			insert(target, table, row);
+		}
+	}
+
+	private static void insert(JdbcTemplate target, String table, Map<String, Object> row) {
+		String columns = String.join(", ", row.keySet());
+		String marks = String.join(", ", Collections.nCopies(row.size(), "?"));
+		target.update("INSERT INTO " + table + " (" + columns + ") VALUES (" + marks + ")", row.values().toArray());
+	}
+
+	/**
+	 * Run work under the doctor's own read or write lock. The lock exists while someone holds or
+	 * waits for it and is dropped with its last user, so idle doctors cost nothing.
+	 */
+	private <T> T withLock(Long doctorId, boolean write, Supplier<T> work) {
+		DoctorLock held = locks.compute(doctorId, (id, l) -> {
+			DoctorLock lock = l != null ? l : new DoctorLock();
+			lock.users++;
+			return lock;
+		});
+		Runnable release = () -> locks.computeIfPresent(doctorId, (id, l) -> --l.users == 0 ? null : l);
+		return locked(write ? held.lock.writeLock() : held.lock.readLock(), release, work);
+	}
+
+	/**
+	 * Hold the lock for the work and, inside a transaction, until that transaction completes.
+	 */
+	static <T> T locked(Lock lock, Supplier<T> work) {
+		return locked(lock, () -> { }, work);
+	}
+
+	private static <T> T locked(Lock lock, Runnable afterUnlock, Supplier<T> work) {
+		lock.lock();
+		boolean deferred = false;
+		try {
+			if (TransactionSynchronizationManager.isSynchronizationActive()) {
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+					@Override
+					public void afterCompletion(int status) {
+						lock.unlock();
+						afterUnlock.run();
+					}
+				});
+				deferred = true;
+			}
+			return work.get();
+		} finally {
+			if (!deferred) {
+				lock.unlock();
+				afterUnlock.run();
+			}
+		}
+	}
+
+	private static final class DoctorLock {
+
+		private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+		// changed only inside the map's compute, which also publishes it
+		private int users;
+
+	}
+
+}
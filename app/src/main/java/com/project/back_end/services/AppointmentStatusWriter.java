@@ -0,0 +1,211 @@
+package com.project.back_end.services;
+
+import com.project.back_end.config.BackgroundExecutors;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.repo.AppointmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind queue for appointment status changes. One writer thread drains the queue and
+ * coalesces whatever is pending into one UPDATE ... WHERE id IN (...) per doctor and status.
+ * Concurrent single changes share a flush as well as explicit batches.
+ *
+ * A change's future completes only after its flush has committed (true) or failed (false: no
+ * such appointment, or the update threw), so an acknowledged change is durable. The queue is
+ * bounded: when it is full, submit waits up to enqueue-timeout-ms and then rejects. On shutdown
+ * the writer finishes everything already queued.
+ */
+@Component
+public class AppointmentStatusWriter {
+
+	private static final Logger log = LoggerFactory.getLogger(AppointmentStatusWriter.class);
+
+	private final AppointmentRepository appointmentRepository;
+	private final AppointmentShards shards;
+	private final EntityVersions entityVersions;
+	private final AppointmentEvents events;
+	private final TransactionTemplate tx;
+	private final BlockingQueue<Pending> queue;
+	private final int maxBatch;
+	private final long lingerMillis;
+	private final long enqueueTimeoutMillis;
+	private final Counter failed;
+	private final DistributionSummary batchSizes;
+	private final ThreadPoolTaskExecutor writer;
+	private volatile boolean running = true;
+
+	@Autowired
+	public AppointmentStatusWriter(AppointmentRepository appointmentRepository,
+								   AppointmentShards shards,
+								   EntityVersions entityVersions,
+								   AppointmentEvents events,
+								   PlatformTransactionManager transactionManager,
+								   MeterRegistry meterRegistry,
+								   @Value("${appointments.status.queue-capacity:10000}") int capacity,
+								   @Value("${appointments.status.max-batch:500}") int maxBatch,
+								   @Value("${appointments.status.linger-ms:5}") long lingerMillis,
+								   @Value("${appointments.status.enqueue-timeout-ms:2000}") long enqueueTimeoutMillis) {
+		this.appointmentRepository = appointmentRepository;
+		this.shards = shards;
+		this.entityVersions = entityVersions;
+		this.events = events;
+		this.tx = new TransactionTemplate(transactionManager);
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.maxBatch = maxBatch;
+		this.lingerMillis = lingerMillis;
+		this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+		this.failed = Counter.builder("appointments.status.failed").register(meterRegistry);
+		this.batchSizes = DistributionSummary.builder("appointments.status.batch").register(meterRegistry);
+		Gauge.builder("appointments.status.queued", queue, BlockingQueue::size).register(meterRegistry);
+		// drains on shutdown: the loop exits once stopped and the queue is empty
+		this.writer = BackgroundExecutors.create("appointment-status-writer", 1, true);
+		writer.execute(this::run);
+	}
+
+	/**
+	 * Queue a status change. Completes with true once committed, false if it failed, or
+	 * exceptionally (RejectedExecutionException) if the queue stayed full.
+	 */
+	public CompletableFuture<Boolean> submit(Long appointmentId, int status) {
+		Pending p = new Pending(appointmentId, status, new CompletableFuture<>());
+		try {
+			if (!running || !queue.offer(p, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				p.done.completeExceptionally(new RejectedExecutionException("Status update queue is full"));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			p.done.completeExceptionally(e);
+		}
+		return p.done;
+	}
+
+	/**
+	 * Set one status on many appointments and wait for the result. Returns the ids that failed
+	 * (not found, update error, or rejected because the queue stayed full).
+	 */
+	public List<Long> submitAll(List<Long> appointmentIds, int status) {
+		Map<Long, CompletableFuture<Boolean>> futures = new LinkedHashMap<>();
+		for (Long id : appointmentIds) futures.put(id, submit(id, status));
+		List<Long> failedIds = new ArrayList<>();
+		for (Map.Entry<Long, CompletableFuture<Boolean>> e : futures.entrySet()) {
+			try {
+				if (!e.getValue().get()) failedIds.add(e.getKey());
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				failedIds.add(e.getKey());
+			} catch (Exception ex) {
+				failedIds.add(e.getKey());
+			}
+		}
+		return failedIds;
+	}
+
+	@PreDestroy
+	public void stop() {
+		running = false;
+		writer.shutdown();
+	}
+
+	private void run() {
+		List<Pending> batch = new ArrayList<>(maxBatch);
+		while (running || !queue.isEmpty()) {
+			try {
+				Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) continue;
+				batch.add(first);
+				// a short linger lets concurrent callers join this flush
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+				while (batch.size() < maxBatch) {
+					Pending next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+					if (next == null) break;
+					batch.add(next);
+					queue.drainTo(batch, maxBatch - batch.size());
+				}
+				flush(batch);
+			} catch (InterruptedException e) {
+				// shutdown: keep draining until the queue is empty
+			} catch (Exception e) {
+				log.warn("Appointment status flush failed", e);
+				for (Pending p : batch) p.done.complete(false);
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void flush(List<Pending> batch) {
+		batchSizes.record(batch.size());
+		// the last change to an appointment in the batch wins
+		Map<Long, Integer> latest = new LinkedHashMap<>();
+		for (Pending p : batch) latest.put(p.appointmentId, p.status);
+
+		Set<Long> done = new HashSet<>();
+		for (Map.Entry<Long, List<Long>> group : shards.groupByDoctor(latest.keySet()).entrySet()) {
+			try {
+				done.addAll(update(group.getKey(), group.getValue(), latest));
+			} catch (Exception e) {
+				// isolate the bad rows: retry this group one appointment at a time
+				for (Long id : group.getValue()) {
+					try {
+						done.addAll(update(group.getKey(), List.of(id), latest));
+					} catch (Exception single) {
+						log.warn("Could not update status of appointment {}: {}", id, single.getMessage());
+					}
+				}
+			}
+		}
+		for (Pending p : batch) {
+			boolean ok = done.contains(p.appointmentId);
+			if (!ok) failed.increment();
+			p.done.complete(ok);
+		}
+	}
+
+	/**
+	 * Update one doctor's appointments in one transaction. Returns the ids that were updated.
+	 */
+	private Set<Long> update(Long doctorId, List<Long> ids, Map<Long, Integer> latest) {
+		Map<Integer, List<Long>> byStatus = new LinkedHashMap<>();
+		for (Long id : ids) byStatus.computeIfAbsent(latest.get(id), k -> new ArrayList<>()).add(id);
+		return shards.onDoctor(doctorId, () -> tx.execute(status -> {
+			for (Map.Entry<Integer, List<Long>> e : byStatus.entrySet()) {
+				appointmentRepository.updateStatuses(e.getKey(), e.getValue());
+			}
+			Set<Long> updated = new HashSet<>();
+			for (Appointment a : appointmentRepository.findAllById(ids)) {
+				updated.add(a.getId());
+				if (a.getDoctor() != null) entityVersions.bump(EntityVersions.doctorAppointments(a.getDoctor().getId()));
+				if (a.getPatient() != null) entityVersions.bump(EntityVersions.patientAppointments(a.getPatient().getId()));
+				events.publish(AppointmentEvents.STATUS, a);
+			}
+			return updated;
+		}));
+	}
+
+	private record Pending(Long appointmentId, int status, CompletableFuture<Boolean> done) {
+	}
+
+}
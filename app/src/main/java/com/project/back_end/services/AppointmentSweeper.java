@@ -0,0 +1,159 @@
+package com.project.back_end.services;
+
+import com.project.back_end.config.ShardContext;
+import com.project.back_end.config.ShardRoutingDataSource;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.repo.AppointmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Marks scheduled appointments as completed (status 1) once they are over: ended (start plus
+ * duration) more than sweeper.grace-minutes ago. Without it an appointment that never got a prescription
+ * stays "scheduled" forever.
+ *
+ * Runs every sweeper.interval-minutes (while sweeper.enabled) over every shard, in batches walked in (appointment_time, id) order
+ * on the status/time index. Each batch is a single autocommit UPDATE, so no lock is held between
+ * batches, and a row changed concurrently (status no longer 0) is simply left alone.
+ */
+@Service
+public class AppointmentSweeper {
+
+	private static final Logger log = LoggerFactory.getLogger(AppointmentSweeper.class);
+
+	// an appointment that ended before the cutoff also started before it, which bounds the index walk
+	private static final String SELECT_BATCH = "SELECT id, doctor_id, patient_id, appointment_time FROM appointment "
+			+ "WHERE status = 0 AND appointment_time < ? AND (appointment_time > ? OR (appointment_time = ? AND id > ?)) "
+			+ "AND TIMESTAMPADD(MINUTE, CASE WHEN duration_minutes > 0 THEN duration_minutes ELSE "
+			+ Appointment.DEFAULT_DURATION_MINUTES + " END, appointment_time) < ? "
+			+ "ORDER BY appointment_time, id LIMIT ?";
+	private static final Timestamp START = Timestamp.valueOf(LocalDateTime.of(1900, 1, 1, 0, 0));
+
+	private final DataSource dataSource;
+	private final ShardRoutingDataSource shards;
+	private final EntityVersions entityVersions;
+	private final AppointmentRepository appointmentRepository;
+	private final AppointmentEvents events;
+	private final int graceMinutes;
+	private final int batchSize;
+	private final Counter completed;
+	private final Counter failures;
+	private final boolean enabled;
+
+	@Autowired
+	public AppointmentSweeper(DataSource dataSource,
+							  ObjectProvider<ShardRoutingDataSource> shards,
+							  EntityVersions entityVersions,
+							  AppointmentRepository appointmentRepository,
+							  AppointmentEvents events,
+							  MeterRegistry meterRegistry,
+							  @Value("${sweeper.enabled:true}") boolean enabled,
+							  @Value("${sweeper.grace-minutes:60}") int graceMinutes,
+							  @Value("${sweeper.batch-size:500}") int batchSize) {
+		this.dataSource = dataSource;
+		this.shards = shards.getIfAvailable();
+		this.entityVersions = entityVersions;
+		this.appointmentRepository = appointmentRepository;
+		this.events = events;
+		this.graceMinutes = graceMinutes;
+		this.batchSize = batchSize;
+		this.completed = Counter.builder("appointments.swept").register(meterRegistry);
+		this.failures = Counter.builder("appointments.sweep.failures").register(meterRegistry);
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Complete every expired appointment now. Returns the number of appointments changed.
+	 */
+	public synchronized int sweepNow() {
+		Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusMinutes(graceMinutes));
+		int total = 0;
+		int shardCount = shards == null ? 1 : shards.shardCount();
+		for (int k = 0; k < shardCount; k++) {
+			JdbcTemplate jdbc = new JdbcTemplate(shards == null ? dataSource : shards.shard(k));
+			Timestamp afterTime = START;
+			long afterId = 0;
+			while (true) {
+				List<Object[]> rows = jdbc.query(SELECT_BATCH, (rs, i) -> new Object[] {
+						rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getTimestamp(4) },
+						cutoff, afterTime, afterTime, afterId, cutoff, batchSize);
+				if (rows.isEmpty()) break;
+				total += complete(k, jdbc, rows);
+				Object[] last = rows.get(rows.size() - 1);
+				afterTime = (Timestamp) last[3];
+				afterId = (Long) last[0];
+				if (rows.size() < batchSize) break;
+			}
+		}
+		return total;
+	}
+
+	private int complete(int shard, JdbcTemplate jdbc, List<Object[]> rows) {
+		List<Long> ids = new ArrayList<>(rows.size());
+		Set<Long> doctors = new HashSet<>();
+		Set<Long> patients = new HashSet<>();
+		for (Object[] row : rows) {
+			ids.add((Long) row[0]);
+			doctors.add((Long) row[1]);
+			patients.add((Long) row[2]);
+		}
+		int changed = new NamedParameterJdbcTemplate(jdbc).update(
+				"UPDATE appointment SET status = 1 WHERE status = 0 AND id IN (:ids)", new MapSqlParameterSource("ids", ids));
+		if (changed == 0) return 0;
+		for (Long doctorId : doctors) entityVersions.bump(EntityVersions.doctorAppointments(doctorId));
+		for (Long patientId : patients) entityVersions.bump(EntityVersions.patientAppointments(patientId));
+		publish(shard, rows);
+		completed.increment(changed);
+		return changed;
+	}
+
+	/**
+	 * Tell the doctors' feeds about the completed appointments, as AppointmentStatusWriter does.
+	 * The rows are only loaded for doctors someone is watching.
+	 */
+	private void publish(int shard, List<Object[]> rows) {
+		List<Long> watched = new ArrayList<>();
+		for (Object[] row : rows) {
+			if (events.isWatched((Long) row[1])) watched.add((Long) row[0]);
+		}
+		if (watched.isEmpty()) return;
+		List<Appointment> swept = shards == null ? appointmentRepository.findAllById(watched)
+				: ShardContext.on(shard, () -> appointmentRepository.findAllById(watched));
+		for (Appointment a : swept) {
+			// a row changed concurrently was left alone above
+			if (a.getStatus() == 1) events.publish(AppointmentEvents.STATUS, a);
+		}
+	}
+
+	@Scheduled(initialDelayString = "${sweeper.interval-minutes:15}", fixedDelayString = "${sweeper.interval-minutes:15}",
+			timeUnit = TimeUnit.MINUTES)
+	void scheduledRun() {
+		if (!enabled) return;
+		try {
+			int n = sweepNow();
+			log.debug("Completed {} expired appointments", n);
+		} catch (Exception e) {
+			failures.increment();
+			log.warn("Appointment sweep failed", e);
+		}
+	}
+
+}
@@ -0,0 +1,162 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Free-slot counts per day of a month, for a month view that shows where a doctor still has
+ * openings without asking for each day's availability.
+ *
+ * Counts come from the slots of each day's compiled schedule (DoctorSlots) minus one grouped query of appointments per day
+ * (count and total minutes), for all requested doctors at once (once per shard). A day is taken
+ * to lose at least one slot per appointment, and more when the booked minutes cover more of the
+ * doctor's average slot length, so long appointments are accounted for; the exact slots of a day
+ * are still getDoctorAvailability's job. Results are cached per (doctor, month) until the
+ * doctor's appointments, schedule or the directory change; days already past always show 0.
+ */
+@Service
+public class AvailabilityHeatmap {
+
+	public static final int MAX_DOCTORS = 50;
+
+	private final DoctorRepository doctorRepository;
+	private final AppointmentRepository appointmentRepository;
+	private final AppointmentShards shards;
+	private final DoctorSlots doctorSlots;
+	private final EntityVersions entityVersions;
+	private final Map<String, Month> cache;
+
+	@Autowired
+	public AvailabilityHeatmap(DoctorRepository doctorRepository,
+							   AppointmentRepository appointmentRepository,
+							   AppointmentShards shards,
+							   DoctorSlots doctorSlots,
+							   EntityVersions entityVersions,
+							   @Value("${doctor.heatmap.max-entries:10000}") int maxEntries) {
+		this.doctorRepository = doctorRepository;
+		this.appointmentRepository = appointmentRepository;
+		this.shards = shards;
+		this.doctorSlots = doctorSlots;
+		this.entityVersions = entityVersions;
+		this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Month> eldest) {
+				return size() > maxEntries;
+			}
+		});
+	}
+
+	/**
+	 * Free slots per day ("yyyy-MM-dd" to count) for each doctor that exists, in the given order.
+	 */
+	public Map<Long, Map<String, Integer>> freeSlots(List<Long> doctorIds, YearMonth month) {
+		Map<Long, Month> found = new LinkedHashMap<>();
+		List<Long> missing = new ArrayList<>();
+		Map<Long, Long> versions = new HashMap<>();
+		for (Long id : doctorIds) {
+			long version = version(id);
+			versions.put(id, version);
+			Month m = cache.get(key(id, month));
+			if (m != null && m.version == version) found.put(id, m);
+			else missing.add(id);
+		}
+		if (!missing.isEmpty()) {
+			// versions were read first: a change committed meanwhile forces another load
+			found.putAll(load(missing, month, versions));
+		}
+
+		LocalDate today = LocalDate.now();
+		Map<Long, Map<String, Integer>> out = new LinkedHashMap<>();
+		for (Long id : doctorIds) {
+			Month m = found.get(id);
+			if (m == null) continue; // no such doctor
+			Map<String, Integer> days = new LinkedHashMap<>();
+			for (int d = 1; d <= month.lengthOfMonth(); d++) {
+				LocalDate date = month.atDay(d);
+				days.put(date.toString(), date.isBefore(today) ? 0 : m.free[d - 1]);
+			}
+			out.put(id, days);
+		}
+		return out;
+	}
+
+	/**
+	 * Version of the doctors' heatmaps, for the response cache.
+	 */
+	public long getVersion(List<Long> doctorIds) {
+		String[] keys = new String[2 * doctorIds.size() + 2];
+		keys[0] = EntityVersions.DOCTORS;
+		keys[1] = EntityVersions.APPOINTMENTS;
+		for (int i = 0; i < doctorIds.size(); i++) {
+			keys[2 * i + 2] = EntityVersions.doctorAppointments(doctorIds.get(i));
+			keys[2 * i + 3] = EntityVersions.doctorSchedule(doctorIds.get(i));
+		}
+		return entityVersions.current(keys);
+	}
+
+	private long version(Long doctorId) {
+		return entityVersions.current(EntityVersions.DOCTORS, EntityVersions.APPOINTMENTS,
+				EntityVersions.doctorAppointments(doctorId), EntityVersions.doctorSchedule(doctorId));
+	}
+
+	private Map<Long, Month> load(List<Long> doctorIds, YearMonth month, Map<Long, Long> versions) {
+		Map<Long, DoctorSlots.Schedule> schedules = doctorSlots.getAll(doctorRepository.findAllById(doctorIds));
+
+		int days = month.lengthOfMonth();
+		Map<Long, int[]> counts = new HashMap<>();
+		Map<Long, long[]> minutes = new HashMap<>();
+		List<Object[]> rows = shards.onDoctors(schedules.keySet(), ids -> appointmentRepository.countByDoctorAndDay(ids,
+				month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay()));
+		for (Object[] row : rows) {
+			Long doctorId = ((Number) row[0]).longValue();
+			int day = toLocalDate(row[1]).getDayOfMonth() - 1;
+			counts.computeIfAbsent(doctorId, k -> new int[days])[day] += ((Number) row[2]).intValue();
+			minutes.computeIfAbsent(doctorId, k -> new long[days])[day] += ((Number) row[3]).longValue();
+		}
+
+		Map<Long, Month> out = new HashMap<>();
+		for (Map.Entry<Long, DoctorSlots.Schedule> e : schedules.entrySet()) {
+			DoctorSlots.Schedule schedule = e.getValue();
+			int[] c = counts.getOrDefault(e.getKey(), new int[days]);
+			long[] m = minutes.getOrDefault(e.getKey(), new long[days]);
+			int[] free = new int[days];
+			for (int d = 0; d < days; d++) {
+				List<DoctorSlots.Slot> slots = schedule.slots(schedule.slotsOn(month.atDay(d + 1)));
+				if (slots.isEmpty()) continue;
+				long averageLength = slots.stream().mapToLong(DoctorSlots.Slot::length).sum() / slots.size();
+				long byMinutes = averageLength == 0 ? 0 : (m[d] + averageLength - 1) / averageLength;
+				free[d] = (int) Math.max(0, slots.size() - Math.max(c[d], byMinutes));
+			}
+			Month loaded = new Month(versions.get(e.getKey()), free);
+			cache.put(key(e.getKey(), month), loaded);
+			out.put(e.getKey(), loaded);
+		}
+		return out;
+	}
+
+	private static LocalDate toLocalDate(Object value) {
+		// the dialect decides whether a date comes back as LocalDate or java.sql.Date
+		if (value instanceof java.sql.Date d) return d.toLocalDate();
+		return (LocalDate) value;
+	}
+
+	private static String key(Long doctorId, YearMonth month) {
+		return doctorId + "/" + month;
+	}
+
+	private record Month(long version, int[] free) {
+	}
+
+}
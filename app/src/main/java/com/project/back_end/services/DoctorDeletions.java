@@ -0,0 +1,191 @@
+package com.project.back_end.services;
+
+import com.project.back_end.config.BackgroundExecutors;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.PrescriptionRepository;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Removes a deleted doctor's appointments without loading them: chunks of ids
+ * (doctor.deletion.chunk-size) are deleted with one bulk statement each on the doctor's shard,
+ * each chunk its own short transaction, so no lock is held for the whole history.
+ *
+ * The prescriptions of every deleted chunk are removed from Mongo in the background, one delete
+ * per chunk, on a single thread; batches still queued at shutdown are drained, not dropped.
+ * Progress of recent deletions is kept for the admin.
+ */
+@Service
+public class DoctorDeletions {
+
+	private static final Logger log = LoggerFactory.getLogger(DoctorDeletions.class);
+	private static final int MAX_RECENT = 100;
+
+	private final AppointmentRepository appointmentRepository;
+	private final PrescriptionRepository prescriptionRepository;
+	private final AppointmentShards shards;
+	private final int chunkSize;
+	private final ThreadPoolTaskExecutor cleaner;
+	private final Map<Long, Progress> recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, false) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Progress> eldest) {
+			return size() > MAX_RECENT;
+		}
+	});
+
+	@Autowired
+	public DoctorDeletions(AppointmentRepository appointmentRepository,
+						   PrescriptionRepository prescriptionRepository,
+						   AppointmentShards shards,
+						   @Value("${doctor.deletion.chunk-size:1000}") int chunkSize) {
+		this.appointmentRepository = appointmentRepository;
+		this.prescriptionRepository = prescriptionRepository;
+		this.shards = shards;
+		this.chunkSize = chunkSize;
+		this.cleaner = BackgroundExecutors.create("prescription-cleanup", 1, true);
+	}
+
+	/**
+	 * Delete all of the doctor's appointments, chunk by chunk, and queue the removal of their
+	 * prescriptions. Returns once the appointments are gone; must not run inside a transaction,
+	 * or the chunks would not commit separately.
+	 */
+	public Progress deleteAppointments(Long doctorId) {
+		Progress progress = new Progress(doctorId);
+		recent.put(doctorId, progress);
+		try {
+			List<Long> ids;
+			do {
+				ids = shards.onDoctor(doctorId, () -> {
+					List<Long> chunk = appointmentRepository.findIdsByDoctorId(doctorId, PageRequest.of(0, chunkSize));
+					if (!chunk.isEmpty()) progress.appointments.addAndGet(appointmentRepository.deleteByIds(chunk));
+					return chunk;
+				});
+				if (!ids.isEmpty()) cleanPrescriptions(progress, ids);
+			} while (!ids.isEmpty());
+		} catch (RuntimeException e) {
+			progress.fail(e);
+			progress.finishedAt = LocalDateTime.now();
+			throw e;
+		}
+		if (progress.state != State.FAILED) progress.state = State.CLEANING_PRESCRIPTIONS;
+		// the queue is first in, first out: this runs after every batch queued above
+		cleaner.execute(() -> {
+			if (progress.state != State.FAILED) progress.state = State.DONE;
+			progress.finishedAt = LocalDateTime.now();
+		});
+		return progress;
+	}
+
+	private void cleanPrescriptions(Progress progress, List<Long> appointmentIds) {
+		progress.pendingBatches.incrementAndGet();
+		cleaner.execute(() -> {
+			try {
+				progress.prescriptions.addAndGet(prescriptionRepository.deleteByAppointmentIdIn(appointmentIds));
+			} catch (Exception e) {
+				log.warn("Prescription cleanup for doctor {} failed", progress.doctorId, e);
+				progress.fail(e);
+			} finally {
+				progress.pendingBatches.decrementAndGet();
+			}
+		});
+	}
+
+	/**
+	 * Progress of the most recent deletions, oldest first.
+	 */
+	public List<Progress> recent() {
+		synchronized (recent) {
+			return new ArrayList<>(recent.values());
+		}
+	}
+
+	/**
+	 * Wait until every cleanup queued so far has run: the queue is first in, first out, so a
+	 * task submitted now finishes after them.
+	 */
+	void awaitCleanup(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		cleaner.submit(() -> { }).get(timeout, unit);
+	}
+
+	@PreDestroy
+	public void stop() {
+		cleaner.shutdown();
+	}
+
+	public enum State { DELETING_APPOINTMENTS, CLEANING_PRESCRIPTIONS, DONE, FAILED }
+
+	public static final class Progress {
+
+		private final Long doctorId;
+		private final LocalDateTime startedAt = LocalDateTime.now();
+		private final AtomicLong appointments = new AtomicLong();
+		private final AtomicLong prescriptions = new AtomicLong();
+		private final AtomicLong pendingBatches = new AtomicLong();
+		private volatile State state = State.DELETING_APPOINTMENTS;
+		private volatile String error;
+		private volatile LocalDateTime finishedAt;
+
+		Progress(Long doctorId) {
+			this.doctorId = doctorId;
+		}
+
+		private void fail(Exception e) {
+			error = e.getMessage();
+			state = State.FAILED;
+		}
+
+		public Long getDoctorId() {
+			return doctorId;
+		}
+
+		public State getState() {
+			return state;
+		}
+
+		public long getAppointmentsDeleted() {
+			return appointments.get();
+		}
+
+		public long getPrescriptionsDeleted() {
+			return prescriptions.get();
+		}
+
+		/**
+		 * Chunks whose prescriptions are still to be removed.
+		 */
+		public long getPendingBatches() {
+			return pendingBatches.get();
+		}
+
+		public String getError() {
+			return error;
+		}
+
+		public LocalDateTime getStartedAt() {
+			return startedAt;
+		}
+
+		public LocalDateTime getFinishedAt() {
+			return finishedAt;
+		}
+
+	}
+
+}
@@ -1,17 +1,20 @@
 package com. project.back_end.services;
 
+import com. project.back_end.DTO.AuthTokens;
+import com. project.back_end.DTO.DoctorSchedule;
 import com. project.back_end.DTO.Login;
 import com. project.back_end.models.Doctor;
-import com. project.back_end.models.Appointment;
-import com. project.back_end.repo.AppointmentRepository;
+import com. project.back_end.models.ScheduleOverride;
 import com. project.back_end.repo.DoctorRepository;
+import com. project.back_end.repo.ScheduleOverrideRepository;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,16 +22,31 @@ import org.springframework.transaction.annotation.Transactional;
 public class DoctorService {
 
 	private final DoctorRepository doctorRepository;
-	private final AppointmentRepository appointmentRepository;
 	private final TokenService tokenService;
+	private final EntityVersions entityVersions;
+	private final AppointmentShards shards;
+	private final AppointmentIntervals intervals;
+	private final DoctorSlots doctorSlots;
+	private final ScheduleOverrideRepository overrideRepository;
+	private final DoctorDeletions deletions;
 
 	@Autowired
 	public DoctorService(DoctorRepository doctorRepository,
-						 AppointmentRepository appointmentRepository,
-						 TokenService tokenService) {
+						 TokenService tokenService,
+						 EntityVersions entityVersions,
+						 AppointmentShards shards,
+						 AppointmentIntervals intervals,
+						 DoctorSlots doctorSlots,
+						 ScheduleOverrideRepository overrideRepository,
+						 DoctorDeletions deletions) {
 		this.doctorRepository = doctorRepository;
-		this.appointmentRepository = appointmentRepository;
 		this.tokenService = tokenService;
+		this.entityVersions = entityVersions;
+		this.shards = shards;
+		this.intervals = intervals;
+		this.doctorSlots = doctorSlots;
+		this.overrideRepository = overrideRepository;
+		this.deletions = deletions;
 	}
 
 	/**
@@ -36,47 +54,97 @@ public class DoctorService {
 	 */
 	@Transactional(readOnly = true)
 	public List<String> getDoctorAvailability(Long doctorId, LocalDate date) {
-		Optional<Doctor> dOpt = doctorRepository.findById(doctorId);
-		if (dOpt.isEmpty()) return List.of();
-		Doctor doctor = dOpt.get();
+		return shards.onDoctor(doctorId, () -> availability(doctorId, date));
+	}
+
+	private List<String> availability(Long doctorId, LocalDate date) {
+		DoctorSlots.Schedule schedule = doctorSlots.get(doctorId);
+		if (schedule == null) return List.of();
 		List<String> available = new ArrayList<>();
-		if (doctor.getAvailableTimes() == null) return available;
-
-		LocalDateTime dayStart = date.atStartOfDay();
-		LocalDateTime dayEnd = date.plusDays(1).atStartOfDay();
-		List<Appointment> booked = appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doctorId, dayStart, dayEnd);
-
-		for (String slot : doctor.getAvailableTimes()) {
-			// slot format expected like "09:00-10:00"
-			boolean conflict = false;
-			try {
-				String[] parts = slot.split("-");
-				LocalTime start = LocalTime.parse(parts[0].trim());
-				LocalDateTime slotStart = date.atTime(start);
-				for (Appointment a : booked) {
-					if (a.getAppointmentTime().equals(slotStart)) {
-						conflict = true;
-						break;
-					}
-				}
-			} catch (Exception e) {
-				// if parsing fails, include the slot conservatively
-				conflict = false;
-			}
-			if (!conflict) available.add(slot);
+		for (DoctorSlots.Slot slot : schedule.slots(schedule.slotsOn(date))) {
+			LocalDateTime slotStart = date.atTime(slot.start());
+			// taken if any appointment overlaps the slot, including a longer one that started earlier
+			if (!intervals.overlaps(doctorId, slotStart, slotStart.plusMinutes(slot.length()), null)) available.add(slot.label());
 		}
 		return available;
 	}
 
 	/**
-	 * Save a new doctor. Returns: -1 = conflict (email exists), 1 = success, 0 = error
+	 * Whether the doctor offers a slot starting at time on that day. Returns: 1 = yes, 0 = no, -1 = no such doctor
+	 */
+	public int validateAppointmentTime(Long doctorId, LocalDateTime time) {
+		DoctorSlots.Schedule schedule = doctorSlots.get(doctorId);
+		if (schedule == null) return -1;
+		return schedule.offers(time) ? 1 : 0;
+	}
+
+	/**
+	 * The doctor's weekday rules and dated exceptions, or null if there is no such doctor.
+	 */
+	@Transactional(readOnly = true)
+	public DoctorSchedule getSchedule(Long doctorId) {
+		if (!doctorRepository.existsById(doctorId)) return null;
+		DoctorSchedule out = new DoctorSchedule();
+		for (ScheduleOverride o : overrideRepository.findByDoctorId(doctorId)) {
+			if (o.getOnDate() != null) out.getDates().put(o.getOnDate(), DoctorSlots.split(o.getTimes()));
+			else if (o.getDayOfWeek() != null) out.getWeekly().put(o.getDayOfWeek(), DoctorSlots.split(o.getTimes()));
+		}
+		return out;
+	}
+
+	/**
+	 * Replace the doctor's weekday rules and dated exceptions.
+	 * Returns: -1 = not found, 0 = malformed slot, 1 = success
 	 */
 	@Transactional
+	public int saveSchedule(Long doctorId, DoctorSchedule schedule) {
+		if (!doctorRepository.existsById(doctorId)) return -1;
+		List<ScheduleOverride> overrides = new ArrayList<>();
+		for (Map.Entry<DayOfWeek, List<String>> e : schedule.getWeekly().entrySet()) {
+			String times = times(e.getValue());
+			if (times == null) return 0;
+			overrides.add(new ScheduleOverride(doctorId, e.getKey(), null, times));
+		}
+		for (Map.Entry<LocalDate, List<String>> e : schedule.getDates().entrySet()) {
+			String times = times(e.getValue());
+			if (times == null) return 0;
+			overrides.add(new ScheduleOverride(doctorId, null, e.getKey(), times));
+		}
+		boolean weeklyChanged = !getSchedule(doctorId).getWeekly().equals(schedule.getWeekly());
+		overrideRepository.deleteAllByDoctorId(doctorId);
+		overrideRepository.saveAll(overrides);
+		shards.refreshDoctorAfterCommit(doctorId);
+		// weekday rules decide AM/PM filtering, so they are a directory change; dated ones are not
+		if (weeklyChanged) entityVersions.bump(EntityVersions.DOCTORS);
+		entityVersions.bump(EntityVersions.doctorSchedule(doctorId));
+		return 1;
+	}
+
+	/**
+	 * Slots joined for storage, or null if one is malformed.
+	 */
+	private static String times(List<String> slots) {
+		if (slots == null) return "";
+		List<String> out = new ArrayList<>();
+		for (String slot : slots) {
+			DoctorSlots.Slot parsed = slot == null ? null : DoctorSlots.parse(slot);
+			if (parsed == null) return null;
+			out.add(parsed.label());
+		}
+		return String.join(",", out);
+	}
+
+	/**
+	 * Save a new doctor. Returns: -1 = conflict (email exists), 1 = success, 0 = error
+	 * The unique email constraint decides, in the INSERT itself (see PatientService.createPatient).
+	 */
 	public int saveDoctor(Doctor doctor) {
 		try {
-			if (doctorRepository.findByEmail(doctor.getEmail()) != null) return -1;
 			doctorRepository.save(doctor);
+			entityVersions.bump(EntityVersions.DOCTORS);
 			return 1;
+		} catch (DataIntegrityViolationException e) {
+			return -1;
 		} catch (Exception e) {
 			return 0;
 		}
@@ -90,12 +158,32 @@ public class DoctorService {
 		if (doctor.getId() == null || !doctorRepository.existsById(doctor.getId())) return -1;
 		try {
 			doctorRepository.save(doctor);
+			shards.refreshDoctorAfterCommit(doctor.getId());
+			entityVersions.bump(EntityVersions.DOCTORS);
+			// doctor name is part of every appointment listing
+			entityVersions.bump(EntityVersions.APPOINTMENTS);
 			return 1;
 		} catch (Exception e) {
 			return 0;
 		}
 	}
 
+	/**
+	 * Version of the doctor directory; changes after every save/update/delete commits.
+	 */
+	public long getDirectoryVersion() {
+		return entityVersions.current(EntityVersions.DOCTORS);
+	}
+
+	/**
+	 * Version of a doctor's availability: changes with the directory (slot templates), their schedule exceptions
+	 * and their appointments.
+	 */
+	public long getAvailabilityVersion(Long doctorId) {
+		return entityVersions.current(EntityVersions.DOCTORS, EntityVersions.APPOINTMENTS, EntityVersions.doctorAppointments(doctorId),
+				EntityVersions.doctorSchedule(doctorId));
+	}
+
 	@Transactional(readOnly = true)
 	public List<Doctor> getDoctors() {
 		return doctorRepository.findAll();
@@ -103,14 +191,21 @@ public class DoctorService {
 
 	/**
 	 * Delete a doctor and their appointments. Returns -1 if not found, 1 success, 0 error.
+	 * Not one transaction: appointments go in chunks that commit on their own (see DoctorDeletions),
+	 * and their prescriptions are removed in the background.
 	 */
-	@Transactional
 	public int deleteDoctor(Long doctorId) {
 		if (!doctorRepository.existsById(doctorId)) return -1;
 		try {
-			// delete appointments for doctor
-			appointmentRepository.deleteAllByDoctorId(doctorId);
+			deletions.deleteAppointments(doctorId);
+			// then the doctor's row copy and directory entry on a shard
+			shards.deleteDoctorAppointments(doctorId);
+			overrideRepository.deleteAllByDoctorId(doctorId);
 			doctorRepository.deleteById(doctorId);
+			// role checks no longer look the doctor up, so their outstanding tokens must be revoked
+			tokenService.revokeAll("doctor", doctorId);
+			entityVersions.bump(EntityVersions.DOCTORS);
+			entityVersions.bump(EntityVersions.APPOINTMENTS);
 			return 1;
 		} catch (Exception e) {
 			return 0;
@@ -118,16 +213,16 @@ public class DoctorService {
 	}
 
 	/**
-	 * Validate doctor credentials and return a JWT token on success, null on failure.
+	 * Validate doctor credentials and return the access and refresh tokens on success, null on failure.
 	 */
 	@Transactional(readOnly = true)
-	public String validateDoctor(Login login) {
+	public AuthTokens validateDoctor(Login login) {
 		if (login == null || login.getEmail() == null) return null;
 		Doctor d = doctorRepository.findByEmail(login.getEmail());
 		if (d == null) return null;
 		// Note: password hashing is not handled here; compare plaintext as stored.
 		if (!d.getPassword().equals(login.getPassword())) return null;
-		return tokenService.generateToken(d.getEmail());
+		return tokenService.issue("doctor", d.getId(), d.getEmail());
 	}
 
 	@Transactional(readOnly = true)
@@ -161,20 +256,12 @@ public class DoctorService {
 	public List<Doctor> filterDoctorByTime(List<Doctor> doctors, String timePeriod) {
 		if (timePeriod == null || timePeriod.isBlank()) return doctors;
 		String tp = timePeriod.trim().toUpperCase();
+		if (!"AM".equals(tp) && !"PM".equals(tp)) return new ArrayList<>();
+		Map<Long, DoctorSlots.Schedule> schedules = doctorSlots.getAll(doctors);
 		List<Doctor> out = new ArrayList<>();
 		for (Doctor d : doctors) {
-			List<String> slots = d.getAvailableTimes();
-			if (slots == null) continue;
-			for (String s : slots) {
-				try {
-					String[] parts = s.split("-");
-					LocalTime start = LocalTime.parse(parts[0].trim());
-					if ("AM".equals(tp) && start.getHour() < 12) { out.add(d); break; }
-					if ("PM".equals(tp) && start.getHour() >= 12) { out.add(d); break; }
-				} catch (Exception e) {
-					// ignore malformed slot
-				}
-			}
+			// any slot in the period on some day of a normal week
+			if (schedules.get(d.getId()).works(tp)) out.add(d);
 		}
 		return out;
 	}
@@ -0,0 +1,299 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.ScheduleOverride;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.ScheduleOverrideRepository;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Each doctor's schedule compiled into slot bitmaps, so checking a booking against it, listing a
+ * day's slots or filtering by AM/PM is bit arithmetic instead of parsing slot strings.
+ *
+ * Every distinct slot the doctor ever offers (availableTimes, weekday rules, dated exceptions)
+ * gets a bit, in start order; a day's slots are one long: the dated exception for that day if
+ * there is one, else the weekday rule, else availableTimes. An entry is recompiled once the
+ * directory or the doctor's schedule version has moved past the version it was compiled at.
+ */
+@Component
+public class DoctorSlots {
+
+	/** More distinct slots than this in one doctor's schedule are ignored. */
+	public static final int MAX_SLOTS = 64;
+
+	private final DoctorRepository doctorRepository;
+	private final ScheduleOverrideRepository overrideRepository;
+	private final EntityVersions entityVersions;
+	private final Map<Long, Schedule> cache = new ConcurrentHashMap<>();
+
+	@Autowired
+	public DoctorSlots(DoctorRepository doctorRepository, ScheduleOverrideRepository overrideRepository, EntityVersions entityVersions) {
+		this.doctorRepository = doctorRepository;
+		this.overrideRepository = overrideRepository;
+		this.entityVersions = entityVersions;
+	}
+
+	/**
+	 * The doctor's schedule, or null if there is no such doctor.
+	 */
+	public Schedule get(Long doctorId) {
+		long version = version(doctorId);
+		Schedule s = cache.get(doctorId);
+		if (s != null && s.version == version) return s;
+		// read the version before loading: a change committed meanwhile forces another reload
+		Doctor d = doctorRepository.findById(doctorId).orElse(null);
+		if (d == null) {
+			cache.remove(doctorId);
+			return null;
+		}
+		s = compile(version, d, overrideRepository.findByDoctorId(doctorId));
+		cache.put(doctorId, s);
+		return s;
+	}
+
+	/**
+	 * Schedules of already loaded doctors, by doctor id; the exceptions of all that need
+	 * compiling come from one query.
+	 */
+	public Map<Long, Schedule> getAll(List<Doctor> doctors) {
+		Map<Long, Schedule> out = new LinkedHashMap<>();
+		Map<Long, Long> versions = new HashMap<>();
+		List<Long> missing = new ArrayList<>();
+		for (Doctor d : doctors) {
+			long version = version(d.getId());
+			Schedule s = cache.get(d.getId());
+			if (s != null && s.version == version) {
+				out.put(d.getId(), s);
+			} else {
+				versions.put(d.getId(), version);
+				missing.add(d.getId());
+			}
+		}
+		if (missing.isEmpty()) return out;
+		Map<Long, List<ScheduleOverride>> overrides = new HashMap<>();
+		for (ScheduleOverride o : overrideRepository.findByDoctorIdIn(missing)) {
+			overrides.computeIfAbsent(o.getDoctorId(), k -> new ArrayList<>()).add(o);
+		}
+		for (Doctor d : doctors) {
+			if (out.containsKey(d.getId())) continue;
+			Schedule s = compile(versions.get(d.getId()), d, overrides.getOrDefault(d.getId(), List.of()));
+			cache.put(d.getId(), s);
+			out.put(d.getId(), s);
+		}
+		return out;
+	}
+
+	private long version(Long doctorId) {
+		return entityVersions.current(EntityVersions.DOCTORS, EntityVersions.doctorSchedule(doctorId));
+	}
+
+	private static Schedule compile(long version, Doctor d, List<ScheduleOverride> overrides) {
+		// the grid: every distinct slot, in start order
+		List<Slot> all = new ArrayList<>(parseAll(d.getAvailableTimes()));
+		for (ScheduleOverride o : overrides) all.addAll(parseAll(split(o.getTimes())));
+		all.sort(Comparator.comparing(Slot::start).thenComparingInt(Slot::length));
+		List<Slot> grid = new ArrayList<>();
+		for (Slot s : all) {
+			if (!grid.isEmpty() && grid.get(grid.size() - 1).start().equals(s.start()) && grid.get(grid.size() - 1).length() == s.length()) continue;
+			if (grid.size() == MAX_SLOTS) {
+				System.err.println("Doctor " + d.getId() + " has more than " + MAX_SLOTS + " distinct slots; ignoring " + s.label());
+				continue;
+			}
+			grid.add(s);
+		}
+
+		long everyday = bits(grid, parseAll(d.getAvailableTimes()));
+		long[] weekdays = new long[7];
+		Arrays.fill(weekdays, everyday);
+		Map<LocalDate, Long> dates = new HashMap<>();
+		for (ScheduleOverride o : overrides) {
+			long bits = bits(grid, parseAll(split(o.getTimes())));
+			if (o.getOnDate() != null) dates.put(o.getOnDate(), bits);
+			else if (o.getDayOfWeek() != null) weekdays[o.getDayOfWeek().getValue() - 1] = bits;
+		}
+		return new Schedule(version, summary(d), grid.toArray(new Slot[0]), weekdays, dates);
+	}
+
+	private static long bits(List<Slot> grid, List<Slot> slots) {
+		long bits = 0;
+		for (Slot s : slots) {
+			for (int i = 0; i < grid.size(); i++) {
+				if (grid.get(i).start().equals(s.start()) && grid.get(i).length() == s.length()) bits |= 1L << i;
+			}
+		}
+		return bits;
+	}
+
+	private static Doctor summary(Doctor d) {
+		// enough of the doctor to describe an appointment, without credentials
+		Doctor out = new Doctor();
+		out.setId(d.getId());
+		out.setName(d.getName());
+		out.setSpecialty(d.getSpecialty());
+		return out;
+	}
+
+	/**
+	 * The slots in a comma-separated list; "" is none.
+	 */
+	public static List<String> split(String times) {
+		List<String> out = new ArrayList<>();
+		if (times == null) return out;
+		for (String t : times.split(",")) {
+			if (!t.isBlank()) out.add(t.trim());
+		}
+		return out;
+	}
+
+	private static List<Slot> parseAll(List<String> times) {
+		List<Slot> out = new ArrayList<>();
+		if (times == null) return out;
+		for (String t : times) {
+			Slot s = parse(t);
+			if (s != null) out.add(s);
+		}
+		return out;
+	}
+
+	/**
+	 * A slot like "09:00-10:00" (an hour if there is no end), or null if it is malformed.
+	 */
+	public static Slot parse(String slot) {
+		try {
+			String[] parts = slot.split("-");
+			LocalTime start = LocalTime.parse(parts[0].trim());
+			int length = parts.length > 1 ? slotLength(start, LocalTime.parse(parts[1].trim())) : Appointment.DEFAULT_DURATION_MINUTES;
+			return new Slot(slot.trim(), start, length);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Minutes from start to end; an end at or before the start runs past midnight.
+	 */
+	static int slotLength(LocalTime start, LocalTime end) {
+		long minutes = Duration.between(start, end).toMinutes();
+		return (int) (minutes > 0 ? minutes : minutes + Appointment.MAX_DURATION_MINUTES);
+	}
+
+	public record Slot(String label, LocalTime start, int length) {
+	}
+
+	public static final class Schedule {
+
+		private final long version;
+		private final Doctor doctor;
+		private final Slot[] grid;
+		private final long[] weekdays;
+		private final Map<LocalDate, Long> dates;
+		private final long weekly;
+		private final long morning;
+
+		Schedule(long version, Doctor doctor, Slot[] grid, long[] weekdays, Map<LocalDate, Long> dates) {
+			this.version = version;
+			this.doctor = doctor;
+			this.grid = grid;
+			this.weekdays = weekdays;
+			this.dates = dates;
+			long w = 0;
+			for (long bits : weekdays) w |= bits;
+			this.weekly = w;
+			long m = 0;
+			for (int i = 0; i < grid.length; i++) if (grid[i].start().getHour() < 12) m |= 1L << i;
+			this.morning = m;
+		}
+
+		public Doctor getDoctor() {
+			return doctor;
+		}
+
+		/**
+		 * The slots offered on date, one bit per slot.
+		 */
+		public long slotsOn(LocalDate date) {
+			Long bits = dates.get(date);
+			return bits != null ? bits : weekdays[date.getDayOfWeek().getValue() - 1];
+		}
+
+		/**
+		 * The slots offered on some day of a normal week, ignoring dated exceptions.
+		 */
+		public long weekly() {
+			return weekly;
+		}
+
+		/**
+		 * Bits of the slots in a period: "AM" starts before noon, "PM" at or after; anything else is all.
+		 */
+		public long period(String period) {
+			if ("AM".equalsIgnoreCase(period)) return morning;
+			if ("PM".equalsIgnoreCase(period)) return ~morning;
+			return -1L;
+		}
+
+		/**
+		 * The slots whose bits are set, in start order.
+		 */
+		public List<Slot> slots(long bits) {
+			List<Slot> out = new ArrayList<>(Long.bitCount(bits));
+			for (long b = bits; b != 0; b &= b - 1) {
+				int i = Long.numberOfTrailingZeros(b);
+				if (i < grid.length) out.add(grid[i]);
+			}
+			return out;
+		}
+
+		public Slot slot(int bit) {
+			return grid[bit];
+		}
+
+		/**
+		 * The slot offered starting exactly at start, or null.
+		 */
+		public Slot slotAt(LocalDateTime start) {
+			long bits = slotsOn(start.toLocalDate());
+			LocalTime time = start.toLocalTime();
+			for (long b = bits; b != 0; b &= b - 1) {
+				Slot s = grid[Long.numberOfTrailingZeros(b)];
+				if (s.start().equals(time)) return s;
+			}
+			return null;
+		}
+
+		public boolean offers(LocalDateTime start) {
+			return slotAt(start) != null;
+		}
+
+		/**
+		 * Length in minutes of the slot starting at start (an hour if there is none).
+		 */
+		public int lengthOf(LocalDateTime start) {
+			Slot s = slotAt(start);
+			return s == null ? Appointment.DEFAULT_DURATION_MINUTES : s.length();
+		}
+
+		/**
+		 * Whether a normal week has a slot in the period ("AM"/"PM").
+		 */
+		public boolean works(String period) {
+			return (weekly & period(period)) != 0;
+		}
+
+	}
+
+}
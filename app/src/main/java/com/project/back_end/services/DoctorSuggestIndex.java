@@ -0,0 +1,135 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.DoctorSuggestion;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory prefix trie over doctor names for search-as-you-type.
+ *
+ * The name is indexed from the start of every word, so "smi" and "john sm" both find
+ * "John Smith". Each node keeps its best
+ * MAX_SUGGESTIONS matches (by name), so a lookup is a walk down the prefix and no scan.
+ * The trie is rebuilt from the repository the first time it is used after the doctor
+ * directory version changes.
+ */
+@Component
+public class DoctorSuggestIndex {
+
+	public static final int MAX_SUGGESTIONS = 20;
+
+	private static final Comparator<DoctorSuggestion> BY_NAME = Comparator
+			.comparing((DoctorSuggestion s) -> s.getName().toLowerCase(Locale.ROOT))
+			.thenComparing(DoctorSuggestion::getId);
+
+	private final DoctorRepository doctorRepository;
+	private final EntityVersions entityVersions;
+
+	// the trie and the directory version it was built from, published together
+	private volatile Built built;
+
+	@Autowired
+	public DoctorSuggestIndex(DoctorRepository doctorRepository, EntityVersions entityVersions) {
+		this.doctorRepository = doctorRepository;
+		this.entityVersions = entityVersions;
+	}
+
+	/**
+	 * Up to limit doctors with a name word starting with prefix, optionally of one specialty,
+	 * ordered by name.
+	 */
+	public List<DoctorSuggestion> suggest(String prefix, String specialty, int limit) {
+		String key = normalize(prefix);
+		if (key.isEmpty() || limit <= 0) return List.of();
+		int k = Math.min(limit, MAX_SUGGESTIONS);
+		Node node = current();
+		for (int i = 0; i < key.length() && node != null; i++) node = node.children.get(key.charAt(i));
+		if (node == null) return List.of();
+
+		if (specialty == null || specialty.isBlank()) return node.top.subList(0, Math.min(k, node.top.size()));
+		List<DoctorSuggestion> out = new ArrayList<>(k);
+		for (DoctorSuggestion s : node.top) {
+			if (specialty.equalsIgnoreCase(s.getSpecialty())) out.add(s);
+			if (out.size() == k) return out;
+		}
+		// the node's shortlist was full but not enough of it matched: fall back to the whole subtree
+		if (node.top.size() < MAX_SUGGESTIONS) return out;
+		Set<DoctorSuggestion> all = new LinkedHashSet<>();
+		collect(node, all);
+		return all.stream().filter(s -> specialty.equalsIgnoreCase(s.getSpecialty())).sorted(BY_NAME).limit(k).toList();
+	}
+
+	private Node current() {
+		long version = entityVersions.current(EntityVersions.DOCTORS);
+		Built b = built;
+		if (b != null && b.version == version) return b.root;
+		synchronized (this) {
+			b = built;
+			if (b == null || b.version != version) {
+				b = new Built(version, build());
+				built = b;
+			}
+			return b.root;
+		}
+	}
+
+	private Node build() {
+		Node r = new Node();
+		List<DoctorSuggestion> doctors = new ArrayList<>();
+		for (Doctor d : doctorRepository.findAll()) {
+			if (d.getName() != null) doctors.add(new DoctorSuggestion(d.getId(), d.getName(), d.getSpecialty()));
+		}
+		// inserting in name order means each node's shortlist is simply the first MAX_SUGGESTIONS to reach it
+		doctors.sort(BY_NAME);
+		for (DoctorSuggestion s : doctors) {
+			String name = normalize(s.getName());
+			for (int start = 0; start < name.length(); start = name.indexOf(' ', start) + 1) {
+				Node node = r;
+				for (int i = start; i < name.length(); i++) {
+					node = node.children.computeIfAbsent(name.charAt(i), c -> new Node());
+					node.add(s);
+				}
+				node.terminal.add(s);
+				if (name.indexOf(' ', start) < 0) break;
+			}
+		}
+		return r;
+	}
+
+	private static void collect(Node node, Set<DoctorSuggestion> out) {
+		out.addAll(node.terminal);
+		for (Node child : node.children.values()) collect(child, out);
+	}
+
+	private static String normalize(String s) {
+		if (s == null) return "";
+		return s.trim().toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+	}
+
+	private record Built(long version, Node root) {
+	}
+
+	private static final class Node {
+
+		final Map<Character, Node> children = new HashMap<>();
+		final List<DoctorSuggestion> top = new ArrayList<>();
+		final List<DoctorSuggestion> terminal = new ArrayList<>(1);
+
+		void add(DoctorSuggestion s) {
+			// one doctor can reach a node through two words ("Ann Anders")
+			if (top.size() < MAX_SUGGESTIONS && (top.isEmpty() || top.get(top.size() - 1) != s)) top.add(s);
+		}
+
+	}
+
+}
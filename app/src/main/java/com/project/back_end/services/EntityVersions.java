@@ -0,0 +1,118 @@
+package com.project.back_end.services;
+
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Monotonic version counters per data set (e.g. the doctor directory, one patient's appointments).
+ * Services bump a counter whenever they change the data; cached responses are keyed by it.
+ *
+ * Names are hierarchical: "appointments" is the global counter for all appointment data and
+ * "appointments:patient:42" is the counter for one patient. Bulk changes bump the global one.
+ *
+ * Counters live in memory and start at 0 on every instance, so combined versions (and the ETags
+ * built from them) are hashed together with a random id of this instance.
+ */
+@Component
+public class EntityVersions {
+
+	public static final String DOCTORS = "doctors";
+	public static final String APPOINTMENTS = "appointments";
+	public static final String PRESCRIPTIONS = "prescriptions";
+
+	private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+	private final long instanceId = new SecureRandom().nextLong();
+	private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+	public static String patientAppointments(Long patientId) {
+		return APPOINTMENTS + ":patient:" + patientId;
+	}
+
+	public static String doctorAppointments(Long doctorId) {
+		return APPOINTMENTS + ":doctor:" + doctorId;
+	}
+
+	/**
+	 * One doctor's dated schedule exceptions; weekday rules change the directory (DOCTORS) instead.
+	 */
+	public static String doctorSchedule(Long doctorId) {
+		return DOCTORS + ":schedule:" + doctorId;
+	}
+
+	public static String appointmentPrescriptions(Long appointmentId) {
+		return PRESCRIPTIONS + ":appointment:" + appointmentId;
+	}
+
+	public long current(String entity) {
+		AtomicLong v = versions.get(entity);
+		return v == null ? 0 : v.get();
+	}
+
+	/**
+	 * Combined version of several counters: a hash of this instance's id and the (name, counter)
+	 * pairs in order. Unlike a sum, different counter states give different values, and the same
+	 * state on another instance (or after a restart) does not match.
+	 */
+	public long current(String... entities) {
+		long hash = instanceId;
+		for (String e : entities) hash = mix(mix(hash, e.hashCode()), current(e));
+		return hash;
+	}
+
+	/**
+	 * A value identifying the data cached under key at version on this instance, e.g. for an
+	 * ETag: clients of another instance, or of this one before a restart, never match it.
+	 */
+	public long stamp(String key, long version) {
+		return mix(mix(instanceId, key.hashCode()), version);
+	}
+
+	/**
+	 * Fold value into hash (SplitMix64 finalizer), for versions that combine a counter with
+	 * something else, e.g. the current day.
+	 */
+	public static long mix(long hash, long value) {
+		long z = hash * 0x9E3779B97F4A7C15L + value;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Bump the version of a data set. Inside a transaction the bump happens after commit,
+	 * so a reader can never cache pre-commit data under the new version.
+	 */
+	public void bump(String entity) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					increment(entity);
+				}
+			});
+		} else {
+			increment(entity);
+		}
+	}
+
+	/**
+	 * Register an invalidation hook, called with the entity name after each bump.
+	 */
+	public void addListener(Consumer<String> listener) {
+		listeners.add(listener);
+	}
+
+	private void increment(String entity) {
+		versions.computeIfAbsent(entity, k -> new AtomicLong()).incrementAndGet();
+		for (Consumer<String> l : listeners) l.accept(entity);
+	}
+
+}
@@ -0,0 +1,156 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.FreeSlot;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * "Earliest free slots for a specialty": one call instead of filtering doctors and then asking
+ * for each doctor's availability day by day.
+ *
+ * Every doctor of the specialty gets a cursor walking the bits of their compiled day schedules
+ * (DoctorSlots), skipping slots that are past or overlap a booked appointment; a priority queue
+ * on the cursors' next start merges them in time order until enough slots are found or the horizon
+ * (doctor.next-available.horizon-days) is reached. The booked appointments of all those doctors
+ * over the horizon come from one range query per shard.
+ */
+@Service
+public class FreeSlotSearch {
+
+	public static final int MAX_RESULTS = 50;
+
+	private static final Comparator<SlotCursor> EARLIEST = Comparator.comparing((SlotCursor c) -> c.next)
+			.thenComparing(c -> c.doctor.getName(), Comparator.nullsLast(Comparator.naturalOrder()))
+			.thenComparing(c -> c.doctor.getId());
+
+	private final DoctorRepository doctorRepository;
+	private final AppointmentRepository appointmentRepository;
+	private final AppointmentShards shards;
+	private final DoctorSlots doctorSlots;
+	private final int horizonDays;
+
+	@Autowired
+	public FreeSlotSearch(DoctorRepository doctorRepository,
+						  AppointmentRepository appointmentRepository,
+						  AppointmentShards shards,
+						  DoctorSlots doctorSlots,
+						  @Value("${doctor.next-available.horizon-days:14}") int horizonDays) {
+		this.doctorRepository = doctorRepository;
+		this.appointmentRepository = appointmentRepository;
+		this.shards = shards;
+		this.doctorSlots = doctorSlots;
+		this.horizonDays = horizonDays;
+	}
+
+	/**
+	 * Up to count (at most MAX_RESULTS) free slots of the specialty's doctors, earliest first,
+	 * starting on date (or now, if later). timePeriod "AM"/"PM" keeps only slots starting
+	 * before/after noon; null keeps all.
+	 */
+	public List<FreeSlot> nextAvailable(String specialty, String timePeriod, LocalDate date, int count) {
+		int wanted = Math.max(0, Math.min(count, MAX_RESULTS));
+		List<FreeSlot> out = new ArrayList<>(wanted);
+		if (wanted == 0 || specialty == null || specialty.isBlank()) return out;
+		List<Doctor> doctors = doctorRepository.findBySpecialtyIgnoreCase(specialty);
+		if (doctors.isEmpty()) return out;
+
+		LocalDateTime now = LocalDateTime.now();
+		LocalDate first = date.isBefore(now.toLocalDate()) ? now.toLocalDate() : date;
+		LocalDate last = first.plusDays(horizonDays - 1L);
+		Map<Long, AppointmentIntervals.Day> booked = booked(doctors, first, last);
+
+		PriorityQueue<SlotCursor> queue = new PriorityQueue<>(EARLIEST);
+		Map<Long, DoctorSlots.Schedule> schedules = doctorSlots.getAll(doctors);
+		for (Doctor d : doctors) {
+			AppointmentIntervals.Day day = booked.getOrDefault(d.getId(), new AppointmentIntervals.Day(0, List.of()));
+			DoctorSlots.Schedule schedule = schedules.get(d.getId());
+			long period = schedule.period(timePeriod == null ? null : timePeriod.trim());
+			SlotCursor c = new SlotCursor(d, schedule, period, day, first, last, now);
+			if (c.advance()) queue.add(c);
+		}
+		while (out.size() < wanted && !queue.isEmpty()) {
+			SlotCursor c = queue.poll();
+			out.add(new FreeSlot(c.doctor.getId(), c.doctor.getName(), c.doctor.getSpecialty(), c.nextSlot.label(), c.next));
+			if (c.advance()) queue.add(c);
+		}
+		return out;
+	}
+
+	private Map<Long, AppointmentIntervals.Day> booked(List<Doctor> doctors, LocalDate first, LocalDate last) {
+		List<Long> ids = doctors.stream().map(Doctor::getId).toList();
+		// appointments that started the day before can still run into the first day
+		List<Appointment> appointments = shards.fanOut(() -> appointmentRepository.findByDoctor_IdInAndAppointmentTimeBetween(ids,
+				first.atStartOfDay().minusMinutes(Appointment.MAX_DURATION_MINUTES), last.plusDays(1).atStartOfDay()));
+		Map<Long, List<Appointment>> byDoctor = new HashMap<>();
+		for (Appointment a : appointments) byDoctor.computeIfAbsent(a.getDoctor().getId(), k -> new ArrayList<>()).add(a);
+		Map<Long, AppointmentIntervals.Day> out = new HashMap<>();
+		byDoctor.forEach((id, list) -> out.put(id, new AppointmentIntervals.Day(0, list)));
+		return out;
+	}
+
+	/**
+	 * Walks one doctor's free slots in time order.
+	 */
+	private static final class SlotCursor {
+
+		final Doctor doctor;
+		private final DoctorSlots.Schedule schedule;
+		private final long period;
+		private final AppointmentIntervals.Day booked;
+		private final LocalDate last;
+		private final LocalDateTime now;
+		private LocalDate day;
+		private long remaining;
+		LocalDateTime next;
+		DoctorSlots.Slot nextSlot;
+
+		SlotCursor(Doctor doctor, DoctorSlots.Schedule schedule, long period, AppointmentIntervals.Day booked,
+				   LocalDate first, LocalDate last, LocalDateTime now) {
+			this.doctor = doctor;
+			this.schedule = schedule;
+			this.period = period;
+			this.booked = booked;
+			this.day = first;
+			this.last = last;
+			this.now = now;
+			this.remaining = schedule.slotsOn(first) & period;
+		}
+
+		/**
+		 * Move to the next free slot. Returns false once the horizon is passed.
+		 */
+		boolean advance() {
+			while (true) {
+				while (remaining == 0) {
+					day = day.plusDays(1);
+					if (day.isAfter(last)) return false;
+					remaining = schedule.slotsOn(day) & period;
+				}
+				// lowest bit first: the grid is in start order
+				DoctorSlots.Slot s = schedule.slot(Long.numberOfTrailingZeros(remaining));
+				remaining &= remaining - 1;
+				LocalDateTime start = day.atTime(s.start());
+				if (start.isBefore(now)) continue;
+				if (booked.overlaps(start, start.plusMinutes(s.length()), null)) continue;
+				next = start;
+				nextSlot = s;
+				return true;
+			}
+		}
+
+	}
+
+}
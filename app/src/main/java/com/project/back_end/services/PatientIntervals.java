@@ -0,0 +1,123 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.repo.AppointmentRepository;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Overlap checks on the patient's side, so nobody holds two appointments at once with
+ * different doctors.
+ *
+ * Each patient's upcoming appointments (anything still running or ahead, from every shard) are
+ * cached sorted by start, and rebuilt the first time they are used after the patient's
+ * appointment version changes. A check that reaches further back than the cached window runs an
+ * indexed range query on (patient_id, appointment_time) instead. At most
+ * appointments.patient-intervals.max-patients entries are kept, least recently used go first.
+ *
+ * The patient's appointments can live on several shards, so no single statement can guard
+ * them: checks and the writes they allow run under withPatient.
+ */
+@Component
+public class PatientIntervals {
+
+	private static final int LOCK_STRIPES = 64;
+
+	private final AppointmentRepository appointmentRepository;
+	private final AppointmentShards shards;
+	private final EntityVersions entityVersions;
+	private final Map<Long, Upcoming> cache;
+	private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+	@Autowired
+	public PatientIntervals(AppointmentRepository appointmentRepository,
+							AppointmentShards shards,
+							EntityVersions entityVersions,
+							@Value("${appointments.patient-intervals.max-patients:10000}") int maxPatients) {
+		this.appointmentRepository = appointmentRepository;
+		this.shards = shards;
+		this.entityVersions = entityVersions;
+		this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Upcoming> eldest) {
+				return size() > maxPatients;
+			}
+		});
+		for (int i = 0; i < LOCK_STRIPES; i++) locks[i] = new ReentrantLock();
+	}
+
+	/**
+	 * Run work holding the patient's lock, and inside a transaction until it completes, so an
+	 * overlap check and the write it allowed cannot interleave with another of theirs.
+	 */
+	public <T> T withPatient(Long patientId, Supplier<T> work) {
+		return AppointmentShards.locked(locks[Math.floorMod(patientId.hashCode(), LOCK_STRIPES)], work);
+	}
+
+	/**
+	 * Whether any of the patient's appointments, other than excludeId, overlaps [start, end).
+	 */
+	public boolean overlaps(Long patientId, LocalDateTime start, LocalDateTime end, Long excludeId) {
+		// only appointments starting after this can still be running at start
+		LocalDateTime earliest = start.minusMinutes(Appointment.MAX_DURATION_MINUTES);
+		long version = entityVersions.current(EntityVersions.patientAppointments(patientId));
+		Upcoming u = cache.get(patientId);
+		if (u == null || u.version != version) {
+			LocalDateTime from = LocalDateTime.now().minusMinutes(Appointment.MAX_DURATION_MINUTES);
+			u = new Upcoming(version, from, shards.fanOut(() ->
+					appointmentRepository.findByPatient_IdAndAppointmentTimeGreaterThanEqualOrderByAppointmentTimeAsc(patientId, from)));
+			cache.put(patientId, u);
+		}
+		if (!earliest.isBefore(u.from)) return u.overlaps(start, end, excludeId);
+		// in the past: not cached, ask the database
+		List<Appointment> near = shards.fanOut(() ->
+				appointmentRepository.findByPatient_IdAndAppointmentTimeBetweenOrderByAppointmentTimeAsc(patientId, earliest, end));
+		return near.stream().anyMatch(a -> overlaps(a, start, end, excludeId));
+	}
+
+	private static boolean overlaps(Appointment a, LocalDateTime start, LocalDateTime end, Long excludeId) {
+		return a.getAppointmentTime().isBefore(end) && a.getEndTime().isAfter(start) && !a.getId().equals(excludeId);
+	}
+
+	/**
+	 * A patient's appointments starting at or after from, sorted by start.
+	 */
+	private static final class Upcoming {
+
+		final long version;
+		final LocalDateTime from;
+		private final List<Appointment> appointments;
+
+		Upcoming(long version, LocalDateTime from, List<Appointment> appointments) {
+			this.version = version;
+			this.from = from;
+			this.appointments = appointments;
+		}
+
+		boolean overlaps(LocalDateTime start, LocalDateTime end, Long excludeId) {
+			// first appointment starting at or after end: it and everything after it cannot overlap
+			int lo = 0;
+			int hi = appointments.size();
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (appointments.get(mid).getAppointmentTime().isBefore(end)) lo = mid + 1;
+				else hi = mid;
+			}
+			LocalDateTime earliest = start.minusMinutes(Appointment.MAX_DURATION_MINUTES);
+			for (int i = lo - 1; i >= 0 && appointments.get(i).getAppointmentTime().isAfter(earliest); i--) {
+				if (PatientIntervals.overlaps(appointments.get(i), start, end, excludeId)) return true;
+			}
+			return false;
+		}
+
+	}
+
+}
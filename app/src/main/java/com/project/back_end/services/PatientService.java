@@ -2,14 +2,20 @@ package com. project.back_end.services;
 
 import com. project.back_end.DTO.AppointmentDTO;
 import com. project.back_end.models.Appointment;
+import com. project.back_end.models.ArchivedAppointment;
 import com. project.back_end.models.Patient;
 import com. project.back_end.repo.AppointmentRepository;
+import com. project.back_end.repo.ArchivedAppointmentRepository;
 import com. project.back_end.repo.PatientRepository;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,25 +25,42 @@ public class PatientService {
     private final PatientRepository patientRepository;
     private final AppointmentRepository appointmentRepository;
     private final TokenService tokenService;
+    private final EntityVersions entityVersions;
+    private final AppointmentShards shards;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
 
     @Autowired
-    public PatientService(PatientRepository patientRepository, AppointmentRepository appointmentRepository, TokenService tokenService) {
+    public PatientService(PatientRepository patientRepository, AppointmentRepository appointmentRepository, TokenService tokenService,
+                          EntityVersions entityVersions, AppointmentShards shards,
+                          ArchivedAppointmentRepository archivedAppointmentRepository) {
         this.patientRepository = patientRepository;
         this.appointmentRepository = appointmentRepository;
         this.tokenService = tokenService;
+        this.entityVersions = entityVersions;
+        this.shards = shards;
+        this.archivedAppointmentRepository = archivedAppointmentRepository;
+    }
+
+    /**
+     * Version of a patient's appointment listings, used as the response cache key.
+     */
+    public long getAppointmentsVersion(Long patientId) {
+        return entityVersions.current(EntityVersions.APPOINTMENTS, EntityVersions.patientAppointments(patientId));
     }
 
     /**
      * Create a new patient. Returns 1 on success, -1 if patient already exists (email or phone), 0 on error.
+     * A single INSERT: the unique email and phone constraints reject duplicates, also between
+     * concurrent signups. Not transactional, so the violation surfaces here rather than at commit.
      */
-    @Transactional
     public int createPatient(Patient patient) {
         try {
             if (patient == null) return 0;
-            Patient existing = patientRepository.findByEmailOrPhone(patient.getEmail(), patient.getPhone());
-            if (existing != null) return -1;
             patientRepository.save(patient);
             return 1;
+        } catch (DataIntegrityViolationException e) {
+            // required fields are validated before this, so a violation is a duplicate
+            return -1;
         } catch (Exception e) {
             System.err.println("Error creating patient: " + e.getMessage());
             return 0;
@@ -51,7 +74,7 @@ public class PatientService {
     public List<AppointmentDTO> getPatientAppointments(Long patientId) {
         List<AppointmentDTO> out = new ArrayList<>();
         try {
-            List<Appointment> appts = appointmentRepository.findByPatientId(patientId);
+            List<Appointment> appts = shards.fanOut(() -> appointmentRepository.findByPatientId(patientId));
             for (Appointment a : appts) {
                 out.add(mapToDTO(a));
             }
@@ -62,17 +85,51 @@ public class PatientService {
     }
 
     /**
-     * Filter by condition ("past" -> status=1, "future" -> status=0)
+     * Get a patient's appointments, optionally together with their archived history,
+     * ordered by appointment time.
+     */
+    @Transactional(readOnly = true)
+    public List<AppointmentDTO> getPatientAppointments(Long patientId, boolean includeArchived) {
+        List<AppointmentDTO> hot = getPatientAppointments(patientId);
+        if (!includeArchived) return hot;
+        try {
+            List<ArchivedAppointment> archived = archivedAppointmentRepository.findByPatientIdOrderByAppointmentTimeAscIdAsc(patientId);
+            if (archived.isEmpty()) return hot;
+            Patient p = patientRepository.findById(patientId).orElse(null);
+            // an appointment caught mid-archive is in both places; the hot row wins
+            Set<Long> hotIds = new HashSet<>();
+            for (AppointmentDTO a : hot) hotIds.add(a.getId());
+            List<AppointmentDTO> out = new ArrayList<>(hot.size() + archived.size());
+            for (ArchivedAppointment a : archived) {
+                if (!hotIds.contains(a.getId())) out.add(mapToDTO(a, p));
+            }
+            out.addAll(hot);
+            out.sort(Comparator.comparing(AppointmentDTO::getAppointmentTime).thenComparing(AppointmentDTO::getId));
+            return out;
+        } catch (Exception e) {
+            System.err.println("Error fetching archived appointments for patient " + patientId + ": " + e.getMessage());
+            return hot;
+        }
+    }
+
+    /**
+     * Filter by condition: "past" = ended by now, "future" = not over yet (including one in progress).
+     * By time rather than status, so an appointment nobody completed still moves to the past.
      */
     @Transactional(readOnly = true)
     public List<AppointmentDTO> filterByCondition(Long patientId, String condition) {
         List<AppointmentDTO> out = new ArrayList<>();
         try {
-            int status;
-            if ("past".equalsIgnoreCase(condition)) status = 1;
-            else if ("future".equalsIgnoreCase(condition)) status = 0;
-            else return out; // invalid condition -> empty
-            List<Appointment> appts = appointmentRepository.findByPatient_IdAndStatusOrderByAppointmentTimeAsc(patientId, status);
+            LocalDateTime now = LocalDateTime.now();
+            List<Appointment> appts;
+            if ("past".equalsIgnoreCase(condition)) {
+                appts = ended(shards.fanOut(() -> appointmentRepository.findByPatient_IdAndAppointmentTimeBeforeOrderByAppointmentTimeAsc(patientId, now)), now, true);
+            } else if ("future".equalsIgnoreCase(condition)) {
+                LocalDateTime from = now.minusMinutes(Appointment.MAX_DURATION_MINUTES);
+                appts = ended(shards.fanOut(() -> appointmentRepository.findByPatient_IdAndAppointmentTimeGreaterThanEqualOrderByAppointmentTimeAsc(patientId, from)), now, false);
+            } else {
+                return out; // invalid condition -> empty
+            }
             for (Appointment a : appts) out.add(mapToDTO(a));
         } catch (Exception e) {
             System.err.println("Error filtering by condition for patient " + patientId + ": " + e.getMessage());
@@ -80,6 +137,15 @@ public class PatientService {
         return out;
     }
 
+    /**
+     * Keep the appointments that have (or have not) ended by now. The queries bound the start
+     * time only, which keeps them on the (patient_id, appointment_time) index; no appointment
+     * lasts longer than MAX_DURATION_MINUTES, so that bound is enough for the future side.
+     */
+    private static List<Appointment> ended(List<Appointment> appts, LocalDateTime now, boolean ended) {
+        return appts.stream().filter(a -> a.getEndTime().isAfter(now) != ended).toList();
+    }
+
     /**
      * Filter by doctor's name for a patient.
      */
@@ -87,7 +153,7 @@ public class PatientService {
     public List<AppointmentDTO> filterByDoctor(Long patientId, String doctorName) {
         List<AppointmentDTO> out = new ArrayList<>();
         try {
-            List<Appointment> appts = appointmentRepository.filterByDoctorNameAndPatientId(doctorName, patientId);
+            List<Appointment> appts = shards.fanOut(() -> appointmentRepository.filterByDoctorNameAndPatientId(doctorName, patientId));
             for (Appointment a : appts) out.add(mapToDTO(a));
         } catch (Exception e) {
             System.err.println("Error filtering by doctor for patient " + patientId + ": " + e.getMessage());
@@ -96,17 +162,22 @@ public class PatientService {
     }
 
     /**
-     * Filter by doctor name and condition.
+     * Filter by doctor name and condition (by time, as in filterByCondition).
      */
     @Transactional(readOnly = true)
     public List<AppointmentDTO> filterByDoctorAndCondition(Long patientId, String doctorName, String condition) {
         List<AppointmentDTO> out = new ArrayList<>();
         try {
-            int status;
-            if ("past".equalsIgnoreCase(condition)) status = 1;
-            else if ("future".equalsIgnoreCase(condition)) status = 0;
-            else return out;
-            List<Appointment> appts = appointmentRepository.filterByDoctorNameAndPatientIdAndStatus(doctorName, patientId, status);
+            LocalDateTime now = LocalDateTime.now();
+            List<Appointment> appts;
+            if ("past".equalsIgnoreCase(condition)) {
+                appts = ended(shards.fanOut(() -> appointmentRepository.filterByDoctorNameAndPatientIdBefore(doctorName, patientId, now)), now, true);
+            } else if ("future".equalsIgnoreCase(condition)) {
+                LocalDateTime from = now.minusMinutes(Appointment.MAX_DURATION_MINUTES);
+                appts = ended(shards.fanOut(() -> appointmentRepository.filterByDoctorNameAndPatientIdFrom(doctorName, patientId, from)), now, false);
+            } else {
+                return out;
+            }
             for (Appointment a : appts) out.add(mapToDTO(a));
         } catch (Exception e) {
             System.err.println("Error filtering by doctor and condition for patient " + patientId + ": " + e.getMessage());
@@ -141,7 +212,24 @@ public class PatientService {
                 p != null ? p.getPhone() : null,
                 p != null ? p.getAddress() : null,
                 a.getAppointmentTime(),
-                a.getStatus()
+                a.getStatus(),
+                a.getLengthMinutes()
+        );
+    }
+
+    private AppointmentDTO mapToDTO(ArchivedAppointment a, Patient p) {
+        return new AppointmentDTO(
+                a.getId(),
+                a.getDoctorId(),
+                a.getDoctorName(),
+                a.getPatientId(),
+                p != null ? p.getName() : null,
+                p != null ? p.getEmail() : null,
+                p != null ? p.getPhone() : null,
+                p != null ? p.getAddress() : null,
+                a.getAppointmentTime(),
+                a.getStatus(),
+                a.getLengthMinutes()
         );
     }
 
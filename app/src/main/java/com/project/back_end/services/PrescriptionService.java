@@ -12,10 +12,19 @@ import org.springframework.transaction.annotation.Transactional;
 public class PrescriptionService {
 
 	private final PrescriptionRepository prescriptionRepository;
+	private final EntityVersions entityVersions;
 
 	@Autowired
-	public PrescriptionService(PrescriptionRepository prescriptionRepository) {
+	public PrescriptionService(PrescriptionRepository prescriptionRepository, EntityVersions entityVersions) {
 		this.prescriptionRepository = prescriptionRepository;
+		this.entityVersions = entityVersions;
+	}
+
+	/**
+	 * Version of an appointment's prescription list, used as the response cache key.
+	 */
+	public long getPrescriptionVersion(Long appointmentId) {
+		return entityVersions.current(EntityVersions.PRESCRIPTIONS, EntityVersions.appointmentPrescriptions(appointmentId));
 	}
 
 	/**
@@ -33,6 +42,7 @@ public class PrescriptionService {
 				return -1; // already exists
 			}
 			prescriptionRepository.save(prescription);
+			entityVersions.bump(EntityVersions.appointmentPrescriptions(prescription.getAppointmentId()));
 			return 1;
 		} catch (Exception e) {
 			System.err.println("Error saving prescription: " + e.getMessage());
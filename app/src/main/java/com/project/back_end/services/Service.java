@@ -104,26 +104,18 @@ public class Service {
 
 
 	/**
-	 * Validate admin credentials. Returns a JWT token string on success, or null on failure.
+	 * Validate admin credentials. Returns the access and refresh tokens on success, or null on failure.
 	 */
-	public String validateAdmin(String username, String password) {
-		if (username == null || password == null){ 
-                System.out.println("*\n*\n*\n*\n*\n*\n*\n*\n*\n*\n*\n*\n");
-                System.out.println("Something is null : " + username + " / " + password);
-                System.out.println("*\n*\n*\n*\n*\n*\n*\n*\n*\n*\n*\n*\n");
-                return null; 
-            }
+	public com. project.back_end.DTO.AuthTokens validateAdmin(String username, String password) {
+		if (username == null || password == null) return null;
 		try {
 			var admin = adminRepository.findByUsername(username);
-            System.out.println("*\n*\n*\n*\n*\n*\n*\n*\n*\n*\n*\n*\n");
-            System.out.println("Admin found in Service: " + admin.getUsername());
-            System.out.println("*\n*\n*\n*\n*\n*\n*\n*\n*\n*\n*\n*\n");
 			if (admin == null) return null;
 			if (!admin.getPassword().equals(password)) return null;
 			// use username as token subject for admin
-			return tokenService.generateToken(admin.getUsername());
+			return tokenService.issue("admin", admin.getId(), admin.getUsername());
 		} catch (Exception e) {
-			System.out.println("Error validating admin: " + e.getMessage());
+			System.err.println("Error validating admin: " + e.getMessage());
 			return null;
 		}
 	}
@@ -141,22 +133,8 @@ public class Service {
 	 */
 	public int validateAppointment(Long doctorId, java.time.LocalDateTime requestedTime) {
 		if (doctorId == null || requestedTime == null) return 0;
-		var dOpt = doctorRepository.findById(doctorId);
-		if (dOpt.isEmpty()) return -1;
-		var doctor = dOpt.get();
-		var slots = doctor.getAvailableTimes();
-		if (slots == null) return 0;
-		java.time.LocalTime reqTime = requestedTime.toLocalTime();
-		for (String slot : slots) {
-			try {
-				String[] parts = slot.split("-");
-				java.time.LocalTime start = java.time.LocalTime.parse(parts[0].trim());
-				if (start.equals(reqTime)) return 1;
-			} catch (Exception e) {
-				// ignore malformed slot
-			}
-		}
-		return 0;
+		// the day's compiled schedule: weekday rules and dated exceptions included
+		return doctorService.validateAppointmentTime(doctorId, requestedTime);
 	}
 
 	/**
@@ -169,15 +147,15 @@ public class Service {
 	}
 
 	/**
-	 * Validate patient login; returns JWT token on success or null on failure.
+	 * Validate patient login; returns the access and refresh tokens on success or null on failure.
 	 */
-	public String validatePatientLogin(String email, String password) {
+	public com. project.back_end.DTO.AuthTokens validatePatientLogin(String email, String password) {
 		if (email == null || password == null) return null;
 		try {
 			var patient = patientRepository.findByEmail(email);
 			if (patient == null) return null;
 			if (!patient.getPassword().equals(password)) return null;
-			return tokenService.generateToken(patient.getEmail());
+			return tokenService.issue("patient", patient.getId(), patient.getEmail());
 		} catch (Exception e) {
 			return null;
 		}
@@ -0,0 +1,98 @@
+package com.project.back_end.services;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Evens out appointment counts across shards by moving whole doctors, preferring few moves:
+ * each step moves the doctor from the fullest to the emptiest shard whose count best closes
+ * half the gap between them.
+ */
+@Service
+public class ShardRebalancer {
+
+	private final AppointmentShards shards;
+	private final EntityVersions entityVersions;
+
+	@Autowired
+	public ShardRebalancer(AppointmentShards shards, EntityVersions entityVersions) {
+		this.shards = shards;
+		this.entityVersions = entityVersions;
+	}
+
+	/**
+	 * Appointment count per shard.
+	 */
+	public Map<Integer, Long> loads() {
+		Map<Integer, Long> loads = new LinkedHashMap<>();
+		for (Map.Entry<Integer, Map<Long, Long>> e : shards.appointmentCounts().entrySet()) {
+			loads.put(e.getKey(), e.getValue().values().stream().mapToLong(Long::longValue).sum());
+		}
+		return loads;
+	}
+
+	/**
+	 * The moves a rebalance would make: doctor id -> target shard.
+	 */
+	public Map<Long, Integer> plan() {
+		Map<Integer, Map<Long, Long>> counts = shards.appointmentCounts();
+		int n = counts.size();
+		long[] load = new long[n];
+		List<Map<Long, Long>> doctors = new ArrayList<>();
+		for (int k = 0; k < n; k++) {
+			Map<Long, Long> onShard = new LinkedHashMap<>(counts.get(k));
+			doctors.add(onShard);
+			for (long c : onShard.values()) load[k] += c;
+		}
+
+		Map<Long, Integer> moves = new LinkedHashMap<>();
+		while (true) {
+			int max = 0;
+			int min = 0;
+			for (int k = 1; k < n; k++) {
+				if (load[k] > load[max]) max = k;
+				if (load[k] < load[min]) min = k;
+			}
+			long gap = load[max] - load[min];
+			// moving c narrows the spread only if 0 < c < gap; c closest to gap / 2 is best
+			Long best = null;
+			long bestCount = 0;
+			for (Map.Entry<Long, Long> d : doctors.get(max).entrySet()) {
+				long c = d.getValue();
+				if (c <= 0 || c >= gap) continue;
+				if (best == null || Math.abs(gap - 2 * c) < Math.abs(gap - 2 * bestCount)) {
+					best = d.getKey();
+					bestCount = c;
+				}
+			}
+			if (best == null) break;
+			doctors.get(max).remove(best);
+			doctors.get(min).put(best, bestCount);
+			load[max] -= bestCount;
+			load[min] += bestCount;
+			moves.put(best, min);
+		}
+		return moves;
+	}
+
+	/**
+	 * Plan and carry out a rebalance, after cleaning up any move that did not finish. Returns the
+	 * number of doctors moved.
+	 */
+	public int rebalance() {
+		for (Long doctorId : shards.finishInterruptedMoves()) {
+			entityVersions.bump(EntityVersions.doctorAppointments(doctorId));
+		}
+		Map<Long, Integer> moves = plan();
+		for (Map.Entry<Long, Integer> move : moves.entrySet()) {
+			shards.moveDoctor(move.getKey(), move.getValue());
+			entityVersions.bump(EntityVersions.doctorAppointments(move.getKey()));
+		}
+		return moves.size();
+	}
+
+}
@@ -1,73 +1,207 @@
 package com.project.back_end.services;
 
+import com.project.back_end.DTO.AuthTokens;
 import com.project.back_end.repo.AdminRepository;
 import com.project.back_end.repo.DoctorRepository;
 import com.project.back_end.repo.PatientRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import java.security.Key;
 import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+/**
+ * Issues and checks JWTs. An access token names its role and account id, so checking it is
+ * signature, expiry and an in-memory revocation lookup: no repository is touched per request.
+ * Access tokens are short-lived (jwt.access-token-minutes); a refresh token (jwt.refresh-token-days)
+ * trades for a new pair once the account is confirmed to still exist.
+ *
+ * Revocations are kept in memory only until the revoked tokens would have expired anyway, so
+ * they are not shared between instances and do not survive a restart.
+ */
 @Component
 public class TokenService {
 
+	static final String ROLE = "role";
+	static final String ID = "id";
+	static final String TYPE = "type";
+	static final String ACCESS = "access";
+	static final String REFRESH = "refresh";
+
 	private final AdminRepository adminRepository;
 	private final DoctorRepository doctorRepository;
 	private final PatientRepository patientRepository;
+	private final long accessTokenMillis;
+	private final long refreshTokenMillis;
+	// token id -> when the token expires
+	private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+	// "role:id" -> tokens issued at or before this instant are revoked
+	private final Map<String, Long> revokedAccounts = new ConcurrentHashMap<>();
 
 	@Value("${jwt.secret}")
 	private String jwtSecret;
 
+	private volatile Key signingKey;
+	private volatile JwtParser parser;
+	private volatile long nextPrune;
+
 	@Autowired
-	public TokenService(AdminRepository adminRepository, DoctorRepository doctorRepository, PatientRepository patientRepository) {
+	public TokenService(AdminRepository adminRepository, DoctorRepository doctorRepository, PatientRepository patientRepository,
+						@Value("${jwt.access-token-minutes:15}") long accessTokenMinutes,
+						@Value("${jwt.refresh-token-days:7}") long refreshTokenDays) {
 		this.adminRepository = adminRepository;
 		this.doctorRepository = doctorRepository;
 		this.patientRepository = patientRepository;
+		this.accessTokenMillis = accessTokenMinutes * 60 * 1000;
+		this.refreshTokenMillis = refreshTokenDays * 24 * 60 * 60 * 1000;
 	}
 
 	private Key getSigningKey() {
-		return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+		if (signingKey == null) signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+		return signingKey;
+	}
+
+	private JwtParser parser() {
+		if (parser == null) parser = Jwts.parser().setSigningKey(getSigningKey()).build();
+		return parser;
+	}
+
+	/**
+	 * Extract the token from an "Authorization: Bearer <token>" header value. Returns null when absent.
+	 */
+	public static String fromAuthorizationHeader(String header) {
+		if (header == null) return null;
+		String h = header.trim();
+		if (h.regionMatches(true, 0, "Bearer ", 0, 7)) h = h.substring(7).trim();
+		return h.isEmpty() ? null : h;
+	}
+
+	/**
+	 * An access token for the account; identifier (email, or username for admins) is the subject.
+	 */
+	public String generateToken(String role, Long id, String identifier) {
+		return build(ACCESS, role.toLowerCase(), id, identifier, accessTokenMillis);
 	}
 
-	public String generateToken(String email) {
+	/**
+	 * An access token and a refresh token for the account, as handed out on login.
+	 */
+	public AuthTokens issue(String role, Long id, String identifier) {
+		String r = role.toLowerCase();
+		return new AuthTokens(build(ACCESS, r, id, identifier, accessTokenMillis), build(REFRESH, r, id, identifier, refreshTokenMillis),
+				accessTokenMillis / 1000);
+	}
+
+	private String build(String type, String role, Long id, String identifier, long lifetimeMillis) {
 		long now = System.currentTimeMillis();
 		return Jwts.builder()
-				.setSubject(email)
+				.setId(UUID.randomUUID().toString())
+				.setSubject(identifier)
+				.claim(ROLE, role)
+				.claim(ID, id)
+				.claim(TYPE, type)
 				.setIssuedAt(new Date(now))
-				.setExpiration(new Date(now + 7L * 24 * 60 * 60 * 1000)) // 7 days
+				.setExpiration(new Date(now + lifetimeMillis))
 				.signWith(getSigningKey())
 				.compact();
 	}
 
 	public String extractIdentifier(String token) {
-		return Jwts.parser()
-				.setSigningKey(getSigningKey())
-				.build()
-				.parseClaimsJws(token)
-				.getBody()
-				.getSubject();
+		return parser().parseClaimsJws(token).getBody().getSubject();
 	}
 
+	/**
+	 * Whether token is an unexpired, unrevoked access token for role. Tokens issued before roles
+	 * were carried in the token fail here.
+	 */
 	public boolean validateToken(String token, String role) {
 		try {
-			String identifier = extractIdentifier(token);
-			switch (role.toLowerCase()) {
-				case "admin":
-					// admin tokens carry username as subject
-					return adminRepository.findByUsername(identifier) != null;
-				case "doctor":
-					return doctorRepository.findByEmail(identifier) != null;
-				case "patient":
-					return patientRepository.findByEmail(identifier) != null;
-				default:
-					return false;
-			}
+			Claims claims = parser().parseClaimsJws(token).getBody();
+			return ACCESS.equals(claims.get(TYPE)) && role.equalsIgnoreCase(claims.get(ROLE, String.class)) && !revoked(claims);
 		} catch (Exception e) {
 			return false;
 		}
 	}
 
+	/**
+	 * A new token pair for a valid refresh token whose account still exists, or null. The refresh
+	 * token used is revoked, so each one works once.
+	 */
+	public AuthTokens refresh(String refreshToken) {
+		Claims claims;
+		try {
+			claims = parser().parseClaimsJws(refreshToken).getBody();
+		} catch (Exception e) {
+			return null;
+		}
+		if (!REFRESH.equals(claims.get(TYPE)) || revoked(claims)) return null;
+		String role = claims.get(ROLE, String.class);
+		Long id = claims.get(ID, Long.class);
+		if (role == null || id == null || !accountExists(role, id)) return null;
+		prune();
+		// a concurrent refresh with the same token loses here
+		if (revokedTokens.putIfAbsent(claims.getId(), claims.getExpiration().getTime()) != null) return null;
+		return issue(role, id, claims.getSubject());
+	}
+
+	private boolean accountExists(String role, Long id) {
+		switch (role) {
+			case "admin":
+				return adminRepository.existsById(id);
+			case "doctor":
+				return doctorRepository.existsById(id);
+			case "patient":
+				return patientRepository.existsById(id);
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Revoke one token (access or refresh), e.g. on logout. Returns false if it is not a valid token.
+	 */
+	public boolean revoke(String token) {
+		try {
+			Claims claims = parser().parseClaimsJws(token).getBody();
+			if (claims.getId() == null) return false;
+			prune();
+			revokedTokens.put(claims.getId(), claims.getExpiration().getTime());
+			return true;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Revoke every token issued so far to the account, e.g. when it is deleted.
+	 */
+	public void revokeAll(String role, Long id) {
+		prune();
+		revokedAccounts.put(role.toLowerCase() + ":" + id, System.currentTimeMillis());
+	}
+
+	private boolean revoked(Claims claims) {
+		if (claims.getId() != null && revokedTokens.containsKey(claims.getId())) return true;
+		if (revokedAccounts.isEmpty()) return false;
+		Long before = revokedAccounts.get(claims.get(ROLE) + ":" + claims.get(ID));
+		// issued-at is in whole seconds
+		return before != null && claims.getIssuedAt() != null && claims.getIssuedAt().getTime() <= before;
+	}
+
+	private void prune() {
+		// a revoked token is dropped once it would have expired anyway; at most once a minute
+		long now = System.currentTimeMillis();
+		if (now < nextPrune) return;
+		nextPrune = now + 60_000;
+		revokedTokens.values().removeIf(expiry -> expiry < now);
+		revokedAccounts.values().removeIf(at -> at + Math.max(accessTokenMillis, refreshTokenMillis) < now);
+	}
+
 }
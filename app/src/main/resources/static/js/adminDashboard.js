@@ -25,16 +25,13 @@
     Handle any fetch errors by logging them
 
 
-  Attach 'input' and 'change' event listeners to the search bar and filter dropdowns
-  On any input change, call filterDoctorsOnChange()
+  Wire the search bar and filter dropdowns with wireDoctorSearch() (services/doctorSearch.js):
+  name suggestions while typing, the full filter once typing pauses or a dropdown changes,
+  stale requests aborted
 
 
-  Function: filterDoctorsOnChange
-  Purpose: Filter doctors based on name, available time, and specialty
-
-    Read values from the search bar and filters
-    Normalize empty values to null
-    Call filterDoctors(name, time, specialty) from the service
+  Function: renderFilteredDoctors
+  Purpose: Show the result of filterDoctors(name, time, specialty)
 
     If doctors are found:
     - Render them using createDoctorCard()
@@ -71,20 +68,15 @@
     If saving fails, show an error message
 */
 
-import { getDoctors, filterDoctors, saveDoctor } from './services/doctorServices.js';
+import { getDoctors, saveDoctor } from './services/doctorServices.js';
+import { wireDoctorSearch } from './services/doctorSearch.js';
 import { createDoctorCard } from './components/doctorCard.js';
 
 // Load and render all doctors when DOM is ready
 document.addEventListener('DOMContentLoaded', () => {
   loadDoctorCards();
 
-  const search = document.getElementById('searchBar');
-  const filterTime = document.getElementById('filterTime');
-  const filterSpecialty = document.getElementById('filterSpecialty');
-
-  if (search) search.addEventListener('input', filterDoctorsOnChange);
-  if (filterTime) filterTime.addEventListener('change', filterDoctorsOnChange);
-  if (filterSpecialty) filterSpecialty.addEventListener('change', filterDoctorsOnChange);
+  wireDoctorSearch(renderFilteredDoctors);
 
   // If there's an Add Doctor button on the page (in header or elsewhere), ensure it opens modal
   const addDocBtn = document.getElementById('addDocBtn');
@@ -119,29 +111,13 @@ export function renderDoctorCards(doctors) {
   });
 }
 
-export function filterDoctorsOnChange() {
-  const searchBar = document.getElementById('searchBar')?.value.trim() || '';
-  const filterTime = document.getElementById('filterTime')?.value || '';
-  const filterSpecialty = document.getElementById('filterSpecialty')?.value || '';
-
-  const name = searchBar.length > 0 ? searchBar : null;
-  const time = filterTime.length > 0 ? filterTime : null;
-  const specialty = filterSpecialty.length > 0 ? filterSpecialty : null;
-
-  filterDoctors(name, time, specialty)
-    .then(response => {
-      const doctors = response.doctors || [];
-      if (doctors.length > 0) {
-        renderDoctorCards(doctors);
-      } else {
-        const contentDiv = document.getElementById('content');
-        if (contentDiv) contentDiv.innerHTML = '<p>No doctors found with the given filters.</p>';
-      }
-    })
-    .catch(error => {
-      console.error('Failed to filter doctors:', error);
-      alert('❌ An error occurred while filtering doctors.');
-    });
+export function renderFilteredDoctors(doctors) {
+  if (doctors.length > 0) {
+    renderDoctorCards(doctors);
+  } else {
+    const contentDiv = document.getElementById('content');
+    if (contentDiv) contentDiv.innerHTML = '<p>No doctors found with the given filters.</p>';
+  }
 }
 
 // Admin add doctor handler (wired by modals.js saveDoctorBtn)
@@ -196,12 +196,16 @@
   function logout() {
     localStorage.removeItem('userRole');
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
+    localStorage.removeItem('tokenExpiresAt');
     // Redirect to site root
     window.location.href = '/';
   }
 
   function logoutPatient() {
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
+    localStorage.removeItem('tokenExpiresAt');
     localStorage.removeItem('userRole');
     // Send the user to the public patient dashboard
     window.location.href = '/pages/patientDashboard.html';
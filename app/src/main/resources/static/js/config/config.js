@@ -12,3 +12,56 @@
  */
 
 export const API_BASE_URL = "http://localhost:8080";
+
+/**
+ * authHeaders:
+ * - Builds request headers carrying the JWT as "Authorization: Bearer <token>".
+ * - Keeps tokens out of URLs so responses can share cache keys across users.
+ */
+export function authHeaders(token, extra = {}) {
+  return { ...extra, "Authorization": `Bearer ${token}` };
+}
+
+/**
+ * saveSession / refreshSession:
+ * - Access tokens expire after a few minutes; the refresh token handed out with them buys a new pair.
+ * - saveSession stores a login or refresh response; while a page is open the access token is
+ *   refreshed shortly before it expires.
+ */
+let refreshTimer = null;
+
+export function saveSession(data) {
+  localStorage.setItem("token", data.token);
+  if (data.refreshToken) localStorage.setItem("refreshToken", data.refreshToken);
+  if (data.expiresIn) {
+    localStorage.setItem("tokenExpiresAt", String(Date.now() + data.expiresIn * 1000));
+    scheduleRefresh();
+  }
+}
+
+export async function refreshSession() {
+  const refreshToken = localStorage.getItem("refreshToken");
+  if (!refreshToken) return false;
+  try {
+    const res = await fetch(`${API_BASE_URL}/token/refresh`, {
+      method: "POST",
+      headers: { "Content-Type": "application/json" },
+      body: JSON.stringify({ refreshToken }),
+    });
+    if (!res.ok) return false;
+    saveSession(await res.json());
+    return true;
+  } catch (e) {
+    return false;
+  }
+}
+
+function scheduleRefresh() {
+  clearTimeout(refreshTimer);
+  const expiresAt = Number(localStorage.getItem("tokenExpiresAt"));
+  if (!expiresAt || !localStorage.getItem("refreshToken")) return;
+  // a minute early, so requests in flight do not carry an expired token
+  refreshTimer = setTimeout(refreshSession, Math.max(0, expiresAt - Date.now() - 60_000));
+}
+
+if (typeof window !== "undefined") scheduleRefresh();
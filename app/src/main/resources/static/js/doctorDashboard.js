@@ -13,8 +13,8 @@
   On each keystroke:
     - Trim and check the input value
     - If not empty, use it as the patientName for filtering
-    - Else, reset patientName to "null" (as expected by backend)
-    - Reload the appointments list with the updated filter
+    - Else, reset patientName to null
+    - Re-render the already loaded day with the updated filter (no request)
 
 
   Add a click listener to the "Today" button
@@ -31,7 +31,9 @@
 
 
   Function: loadAppointments
-  Purpose: Fetch and display appointments based on selected date and optional patient name
+  Purpose: Fetch the whole selected day once, then display it filtered by the optional patient name.
+  After that the day is kept current by the live change feed (subscribeAppointmentChanges):
+  created/updated/status events upsert a row, cancelled removes it, reset reloads the day.
 
   Step 1: Call getAllAppointments with selectedDate, patientName, and token
   Step 2: Clear the table body content before rendering new rows
@@ -53,7 +55,7 @@
     - Call loadAppointments() to display today's appointments by default
 */
 
-import { getAllAppointments } from './services/appointmentRecordService.js';
+import { getAllAppointments, subscribeAppointmentChanges } from './services/appointmentRecordService.js';
 import { createPatientRow } from './components/patientRows.js';
 
 const tableBody = document.getElementById('patientTableBody');
@@ -61,59 +63,119 @@ let selectedDate = new Date().toISOString().split('T')[0]; // YYYY-MM-DD
 const token = localStorage.getItem('token');
 let patientName = null;
 
+// The selected day's appointments by id, kept current by the change feed
+let dayAppointments = new Map();
+let loading = null;
+let pendingChanges = [];
+let liveFeed = null;
+
 // Helpers to update UI rows
 function showMessageRow(message) {
   if (!tableBody) return;
   tableBody.innerHTML = `<tr><td colspan="5" style="text-align:center;">${message}</td></tr>`;
 }
 
-// Load appointments for selectedDate and optional patientName filter
+function dateOf(time) {
+  if (Array.isArray(time)) return `${time[0]}-${String(time[1]).padStart(2, '0')}-${String(time[2]).padStart(2, '0')}`;
+  return time ? String(time).slice(0, 10) : null;
+}
+
+function patientOf(app) {
+  return {
+    id: app.patientId || app.patient?.id || 'N/A',
+    name: app.patientName || app.patient?.name || 'Unknown',
+    phone: app.patientPhone || app.patient?.phone || '-',
+    email: app.patientEmail || app.patient?.email || '-'
+  };
+}
+
+// Render the loaded day, filtered by patient name like the backend does (case-insensitive contains)
+function renderAppointments() {
+  if (!tableBody) return;
+  const filter = patientName ? patientName.toLowerCase() : null;
+  const rows = [...dayAppointments.values()]
+    .filter(app => !filter || patientOf(app).name.toLowerCase().includes(filter));
+
+  tableBody.innerHTML = '';
+  if (rows.length === 0) {
+    showMessageRow('No Appointments found for the selected date.');
+    return;
+  }
+
+  // For each appointment, create patient row
+  rows.forEach(app => {
+    const appointmentId = app.id || app.appointmentId || null;
+    const doctorId = app.doctorId || app.doctor?.id || null;
+    tableBody.appendChild(createPatientRow(patientOf(app), appointmentId, doctorId));
+  });
+}
+
+// Apply one change from the feed to the loaded day
+function applyChange(type, app) {
+  if (type === 'cancelled' || dateOf(app.appointmentTime) !== selectedDate) dayAppointments.delete(app.id);
+  else dayAppointments.set(app.id, app);
+}
+
+function onChange(type) {
+  return (app) => {
+    // changes that race a load are applied once it lands
+    if (loading) pendingChanges.push([type, app]);
+    else {
+      applyChange(type, app);
+      renderAppointments();
+    }
+  };
+}
+
+// Load the whole selected day; name filtering happens client-side
 export async function loadAppointments() {
   if (!tableBody) return;
+  const date = selectedDate;
+  pendingChanges = [];
+  const request = getAllAppointments(date, 'null', token);
+  loading = request;
   try {
-    const nameParam = patientName && patientName.length ? encodeURIComponent(patientName) : 'null';
-    const res = await getAllAppointments(selectedDate, nameParam, token);
+    const res = await request;
+    if (loading !== request) return; // a newer load superseded this one
 
   // backend may return an array of appointments or an object like { appointments: [...] } or { data: { appointments: [...] } }
   let appointments = [];
   if (Array.isArray(res)) appointments = res;
   else appointments = res?.appointments || res?.data?.appointments || [];
 
-    tableBody.innerHTML = '';
-
-    if (!appointments || appointments.length === 0) {
-      showMessageRow('No Appointments found for the selected date.');
-      return;
-    }
-
-    // For each appointment, create patient row
-    appointments.forEach(app => {
-      const patient = {
-        id: app.patientId || app.patient?.id || 'N/A',
-        name: app.patientName || app.patient?.name || 'Unknown',
-        phone: app.patientPhone || app.patient?.phone || '-',
-        email: app.patientEmail || app.patient?.email || '-'
-      };
-
-      const appointmentId = app.id || app.appointmentId || null;
-      const doctorId = app.doctorId || app.doctor?.id || null;
-
-      const row = createPatientRow(patient, appointmentId, doctorId);
-      tableBody.appendChild(row);
-    });
+    dayAppointments = new Map(appointments.map(app => [app.id || app.appointmentId, app]));
+    loading = null;
+    pendingChanges.forEach(([type, app]) => applyChange(type, app));
+    pendingChanges = [];
+    renderAppointments();
   } catch (error) {
+    if (loading !== request) return;
+    loading = null;
     console.error('Error loading appointments:', error);
     showMessageRow('Error loading appointments. Try again later.');
   }
 }
 
+// Live updates; "reset" (sent on connect and when missed changes can't be replayed) reloads the day.
+// Without EventSource the dashboard loads once and refreshes on date changes only.
+function startLiveFeed() {
+  liveFeed = subscribeAppointmentChanges(token, {
+    reset: () => loadAppointments(),
+    created: onChange('created'),
+    updated: onChange('updated'),
+    status: onChange('status'),
+    cancelled: onChange('cancelled')
+  });
+  if (!liveFeed) loadAppointments();
+}
+
 // Search and filter wiring
 const searchBarEl = document.getElementById('searchBar');
 if (searchBarEl) {
   searchBarEl.addEventListener('input', (e) => {
     const v = e.target.value.trim();
     patientName = v.length ? v : null;
-    loadAppointments();
+    if (!loading) renderAppointments();
   });
 }
 
@@ -136,9 +198,12 @@ if (datePickerEl) {
   });
 }
 
-// On page load render content and appointments
+// On page load render content and start the live feed (which triggers the first load)
 document.addEventListener('DOMContentLoaded', () => {
   if (typeof renderContent === 'function') renderContent();
-  loadAppointments();
+  startLiveFeed();
 });
 
+window.addEventListener('beforeunload', () => {
+  if (liveFeed) liveFeed.close();
+});
@@ -1,5 +1,5 @@
 // appointmentRecordService.js
-import { API_BASE_URL } from "../config/config.js";
+import { API_BASE_URL, authHeaders } from "../config/config.js";
 const APPOINTMENT_API = `${API_BASE_URL}/appointments`;
 
 
@@ -9,7 +9,7 @@ export async function getAllAppointments(date, patientName, token) {
   const d = date ? encodeURIComponent(date) : '';
   const p = patientName ? encodeURIComponent(patientName) : '';
 
-  const response = await fetch(`${APPOINTMENT_API}/${d}/${p}/${token}`);
+  const response = await fetch(`${APPOINTMENT_API}/${d}/${p}`, { headers: authHeaders(token) });
   if (!response.ok) {
     throw new Error("Failed to fetch appointments");
   }
@@ -17,13 +17,25 @@ export async function getAllAppointments(date, patientName, token) {
   return await response.json();
 }
 
+// Live feed of the doctor's appointment changes (server-sent events). EventSource can't send
+// headers, so the token goes in the path. Handlers: { reset, created, updated, cancelled, status },
+// each called with the parsed event data. Returns the EventSource (call close() to stop).
+export function subscribeAppointmentChanges(token, handlers) {
+  if (typeof EventSource === 'undefined') return null;
+  const source = new EventSource(`${APPOINTMENT_API}/stream/${encodeURIComponent(token)}`);
+  Object.entries(handlers).forEach(([type, handler]) => {
+    source.addEventListener(type, (e) => handler(e.data ? JSON.parse(e.data) : {}));
+  });
+  return source;
+}
+
 export async function bookAppointment(appointment, token) {
   try {
-    const response = await fetch(`${APPOINTMENT_API}/${token}`, {
+    const response = await fetch(`${APPOINTMENT_API}`, {
       method: "POST",
-      headers: {
+      headers: authHeaders(token, {
         "Content-Type": "application/json"
-      },
+      }),
       body: JSON.stringify(appointment)
     });
 
@@ -43,11 +55,11 @@ export async function bookAppointment(appointment, token) {
 
 export async function updateAppointment(appointment, token) {
   try {
-    const response = await fetch(`${APPOINTMENT_API}/${token}`, {
+    const response = await fetch(`${APPOINTMENT_API}`, {
       method: "PUT",
-      headers: {
+      headers: authHeaders(token, {
         "Content-Type": "application/json"
-      },
+      }),
       body: JSON.stringify(appointment)
     });
 
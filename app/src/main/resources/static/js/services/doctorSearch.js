@@ -0,0 +1,106 @@
+// doctorSearch.js
+// Wires the doctor search bar and filters on a page.
+// - While typing, name suggestions come from the lightweight /doctor/suggest endpoint into a <datalist>.
+// - The full (heavier) /doctor/filter request only runs once typing pauses, when a suggestion is
+//   picked, or when a filter dropdown changes, and is skipped if its criteria are already shown or
+//   already being fetched.
+// - A request for other criteria aborts the one still in flight, so a slow stale response never
+//   overwrites a newer one. Criteria count as shown only once their results rendered, so a failed
+//   or aborted request can be retried.
+import { filterDoctors, suggestDoctors } from './doctorServices.js';
+
+const SUGGEST_DELAY_MS = 150;
+const FILTER_DELAY_MS = 400;
+
+function debounce(fn, delay) {
+  let timer = null;
+  const debounced = (...args) => {
+    clearTimeout(timer);
+    timer = setTimeout(() => fn(...args), delay);
+  };
+  debounced.cancel = () => clearTimeout(timer);
+  return debounced;
+}
+
+// Runs fn(signal, ...args), aborting the previous call's request first.
+function latestOnly(fn) {
+  let controller = null;
+  return (...args) => {
+    if (controller) controller.abort();
+    controller = new AbortController();
+    return fn(controller.signal, ...args);
+  };
+}
+
+// onResults(doctors) renders the filtered list.
+export function wireDoctorSearch(onResults) {
+  const searchBar = document.getElementById('searchBar');
+  const filterTime = document.getElementById('filterTime');
+  const filterSpecialty = document.getElementById('filterSpecialty');
+  let lastCriteria = null; // criteria of the results on screen
+  let pending = null; // criteria of the request in flight
+  let controller = null;
+
+  const criteria = () => {
+    const name = searchBar?.value.trim() || '';
+    const time = filterTime?.value || '';
+    const specialty = filterSpecialty?.value || '';
+    return { name: name || null, time: time || null, specialty: specialty || null };
+  };
+
+  const runFilter = async () => {
+    const c = criteria();
+    const key = JSON.stringify(c);
+    // compared before aborting: the same criteria must not cancel their own request
+    if (key === lastCriteria || key === pending) return;
+    if (controller) controller.abort();
+    controller = new AbortController();
+    const signal = controller.signal;
+    pending = key;
+    const response = await filterDoctors(c.name, c.time, c.specialty, signal);
+    if (signal.aborted || response === null) return; // superseded; the newer request owns pending
+    pending = null;
+    lastCriteria = response.failed ? null : key;
+    onResults(response.doctors || []);
+  };
+
+  const runSuggest = latestOnly(async (signal, list) => {
+    const { name, specialty } = criteria();
+    if (!name) {
+      list.innerHTML = '';
+      return;
+    }
+    const suggestions = await suggestDoctors(name, specialty, signal);
+    if (suggestions === null) return;
+    list.innerHTML = '';
+    suggestions.forEach(s => {
+      const option = document.createElement('option');
+      option.value = s.name;
+      option.label = s.specialty || '';
+      list.appendChild(option);
+    });
+  });
+
+  const filterSoon = debounce(runFilter, FILTER_DELAY_MS);
+  const filterNow = () => {
+    filterSoon.cancel();
+    runFilter();
+  };
+
+  if (searchBar) {
+    const list = document.createElement('datalist');
+    list.id = 'doctorSuggestions';
+    searchBar.after(list);
+    searchBar.setAttribute('list', list.id);
+    searchBar.setAttribute('autocomplete', 'off');
+    const suggestSoon = debounce(() => runSuggest(list), SUGGEST_DELAY_MS);
+    searchBar.addEventListener('input', () => {
+      suggestSoon();
+      filterSoon();
+    });
+    // fires on Enter, blur and when a suggestion is picked
+    searchBar.addEventListener('change', filterNow);
+  }
+  if (filterTime) filterTime.addEventListener('change', filterNow);
+  if (filterSpecialty) filterSpecialty.addEventListener('change', filterNow);
+}
@@ -1,5 +1,5 @@
 // doctorServices.js
-import { API_BASE_URL } from '../config/config.js';
+import { API_BASE_URL, authHeaders } from '../config/config.js';
 
 const DOCTOR_API = `${API_BASE_URL}/doctor`;
 
@@ -18,8 +18,9 @@ export async function getDoctors() {
 
 export async function deleteDoctor(id, token) {
   try {
-    const response = await fetch(`${DOCTOR_API}/${id}/${token}`, {
-      method: 'DELETE'
+    const response = await fetch(`${DOCTOR_API}/${id}`, {
+      method: 'DELETE',
+      headers: authHeaders(token)
     });
     const data = await response.json();
     return { success: response.ok, message: data.message || '' };
@@ -31,9 +32,9 @@ export async function deleteDoctor(id, token) {
 
 export async function saveDoctor(doctor, token) {
   try {
-    const response = await fetch(`${DOCTOR_API}/${token}`, {
+    const response = await fetch(`${DOCTOR_API}`, {
       method: 'POST',
-      headers: { 'Content-Type': 'application/json' },
+      headers: authHeaders(token, { 'Content-Type': 'application/json' }),
       body: JSON.stringify(doctor)
     });
     const data = await response.json();
@@ -44,22 +45,41 @@ export async function saveDoctor(doctor, token) {
   }
 }
 
-export async function filterDoctors(name, time, specialty) {
+// `signal` (optional) is an AbortSignal; an aborted request resolves to null so callers can drop it,
+// a failed one to { doctors: [], failed: true }.
+export async function filterDoctors(name, time, specialty, signal) {
   try {
     // normalize to avoid 'null' in URL
     const n = name ? encodeURIComponent(name) : 'null';
     const t = time ? encodeURIComponent(time) : 'null';
     const s = specialty ? encodeURIComponent(specialty) : 'null';
-    const response = await fetch(`${DOCTOR_API}/filter/${n}/${t}/${s}`);
+    const response = await fetch(`${DOCTOR_API}/filter/${n}/${t}/${s}`, { signal });
     if (!response.ok) {
       console.error('Failed to filter doctors:', response.statusText);
-      return { doctors: [] };
+      return { doctors: [], failed: true };
     }
     const data = await response.json();
     return data;
   } catch (error) {
+    if (error.name === 'AbortError') return null;
     console.error('Error filtering doctors:', error);
     alert('Something went wrong while filtering doctors.');
-    return { doctors: [] };
+    return { doctors: [], failed: true };
+  }
+}
+
+// Name suggestions as [{ id, name, specialty }]; null if aborted.
+export async function suggestDoctors(prefix, specialty, signal) {
+  try {
+    const params = new URLSearchParams({ limit: '8' });
+    if (specialty) params.set('specialty', specialty);
+    const response = await fetch(`${DOCTOR_API}/suggest/${encodeURIComponent(prefix)}?${params}`, { signal });
+    if (!response.ok) return [];
+    const data = await response.json();
+    return data.suggestions || [];
+  } catch (error) {
+    if (error.name === 'AbortError') return null;
+    console.error('Error fetching doctor suggestions:', error);
+    return [];
   }
 }
@@ -58,7 +58,7 @@
 */
 
 import { openModal } from '../components/modals.js';
-import { API_BASE_URL } from '../config/config.js';
+import { API_BASE_URL, saveSession } from '../config/config.js';
 import { patientSignup, patientLogin } from './patientServices.js';
 
 const ADMIN_API = `${API_BASE_URL}/admin/login`;
@@ -137,7 +137,7 @@ window.adminLoginHandler = async function adminLoginHandler() {
     const token = data?.token;
     if (!token) return alert('No token received from server');
 
-    localStorage.setItem('token', token);
+    saveSession(data);
     localStorage.setItem('role', 'admin');
     // proceed to admin area
     if (typeof window.selectRole === 'function') return window.selectRole('admin');
@@ -177,7 +177,7 @@ window.doctorLoginHandler = async function doctorLoginHandler() {
     const token = data?.token;
     if (!token) return alert('No token received from server');
 
-    localStorage.setItem('token', token);
+    saveSession(data);
     localStorage.setItem('role', 'doctor');
     if (typeof window.selectRole === 'function') return window.selectRole('doctor');
     window.location.href = `/doctorDashboard/${token}`;
@@ -208,7 +208,7 @@ window.loginPatient = async function loginPatient() {
     const token = data?.token;
     if (!token) return alert('No token received from server');
 
-    localStorage.setItem('token', token);
+    saveSession(data);
     localStorage.setItem('role', 'patient');
     if (typeof window.selectRole === 'function') return window.selectRole('patient');
     window.location.href = `/pages/patientDashboard.html`;
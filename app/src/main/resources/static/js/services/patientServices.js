@@ -1,5 +1,5 @@
 // patientServices
-import { API_BASE_URL } from "../config/config.js";
+import { API_BASE_URL, authHeaders } from "../config/config.js";
 const PATIENT_API = API_BASE_URL + '/patient'
 
 
@@ -44,7 +44,7 @@ export async function patientLogin(data) {
 // For getting patient data (name ,id , etc ). Used in booking appointments
 export async function getPatientData(token) {
   try {
-    const response = await fetch(`${PATIENT_API}/${token}`);
+    const response = await fetch(`${PATIENT_API}`, { headers: authHeaders(token) });
     const data = await response.json();
     if (response.ok) return data.patient;
     return null;
@@ -57,7 +57,7 @@ export async function getPatientData(token) {
 // the Backend API for fetching the patient record(visible in Doctor Dashboard) and Appointments (visible in Patient Dashboard) are same based on user(patient/doctor).
 export async function getPatientAppointments(id, token, user) {
   try {
-    const response = await fetch(`${PATIENT_API}/${id}/${user}/${token}`);
+    const response = await fetch(`${PATIENT_API}/${id}/${user}`, { headers: authHeaders(token) });
     const data = await response.json();
     console.log(data.appointments)
     if (response.ok) {
@@ -73,11 +73,11 @@ export async function getPatientAppointments(id, token, user) {
 
 export async function filterAppointments(condition, name, token) {
   try {
-    const response = await fetch(`${PATIENT_API}/filter/${condition}/${name}/${token}`, {
+    const response = await fetch(`${PATIENT_API}/filter/${condition}/${name}`, {
       method: "GET",
-      headers: {
+      headers: authHeaders(token, {
         "Content-Type": "application/json",
-      },
+      }),
     });
 
     if (response.ok) {
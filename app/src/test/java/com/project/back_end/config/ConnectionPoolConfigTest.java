@@ -0,0 +1,56 @@
+package com.project.back_end.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.connection.ConnectionPoolSettings;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+/**
+ * MySQL driver properties reach Hikari only for MySQL URLs, and the Mongo pool is sized from the
+ * mongo.pool.* values with its wait-time metrics registered. No pool is started.
+ */
+class ConnectionPoolConfigTest {
+
+	private final MockEnvironment environment = new MockEnvironment()
+			.withProperty("db.mysql.properties.cachePrepStmts", "true")
+			.withProperty("db.mysql.properties.prepStmtCacheSize", "250");
+
+	@Test
+	void mysqlDriverPropertiesAreOnlyAppliedToMysqlPools() {
+		try (HikariDataSource mysql = new HikariDataSource(); HikariDataSource h2 = new HikariDataSource()) {
+			mysql.setJdbcUrl("jdbc:mysql://localhost:3306/cms");
+			ConnectionPoolConfig.applyMysqlProperties(mysql, environment);
+			assertEquals("true", mysql.getDataSourceProperties().getProperty("cachePrepStmts"));
+			assertEquals("250", mysql.getDataSourceProperties().getProperty("prepStmtCacheSize"));
+
+			h2.setJdbcUrl("jdbc:h2:mem:pools");
+			ConnectionPoolConfig.applyMysqlProperties(h2, environment);
+			assertTrue(h2.getDataSourceProperties().isEmpty());
+		}
+	}
+
+	@Test
+	void mongoPoolIsSizedAndMeasured() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		MongoClientSettings.Builder builder = MongoClientSettings.builder();
+		new ConnectionPoolConfig().mongoPoolSettings(registry, 40, 4, 1500, 60_000, 3).customize(builder);
+
+		ConnectionPoolSettings pool = builder.build().getConnectionPoolSettings();
+		assertEquals(40, pool.getMaxSize());
+		assertEquals(4, pool.getMinSize());
+		assertEquals(1500, pool.getMaxWaitTime(TimeUnit.MILLISECONDS));
+		assertEquals(60_000, pool.getMaxConnectionIdleTime(TimeUnit.MILLISECONDS));
+		assertEquals(3, pool.getMaxConnecting());
+		assertEquals(1, pool.getConnectionPoolListeners().size());
+		assertNotNull(registry.find("mongodb.driver.pool.wait").timer());
+		assertNotNull(registry.find("mongodb.driver.pool.checkout.failed").counter());
+	}
+
+}
@@ -0,0 +1,22 @@
+package com.project.back_end.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LoadShedderTest {
+
+	@Test
+	void admitsUpToTheLimitAndAgainAfterRelease() {
+		LoadShedder shedder = new LoadShedder(2);
+		assertTrue(shedder.tryAcquire());
+		assertTrue(shedder.tryAcquire());
+		assertFalse(shedder.tryAcquire());
+		assertEquals(2, shedder.inFlight());
+		shedder.release();
+		assertTrue(shedder.tryAcquire());
+	}
+
+}
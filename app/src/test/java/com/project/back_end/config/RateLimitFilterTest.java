@@ -0,0 +1,72 @@
+package com.project.back_end.config;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RateLimitFilterTest {
+
+	private static RateLimitFilter filter(int identifierCapacity, int maxConcurrent) {
+		return new RateLimitFilter(1000, 1000, identifierCapacity, 1, 1000, maxConcurrent, false, "/",
+				new ObjectMapper(), new SimpleMeterRegistry());
+	}
+
+	private static MockHttpServletRequest login(String body) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/patient/login");
+		request.setContentType("application/json");
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		return request;
+	}
+
+	@Test
+	void loginBodyIsReplayedToTheController() throws Exception {
+		byte[] body = "{\"email\":\"a@b.test\",\"password\":\"x\"}".getBytes(StandardCharsets.UTF_8);
+		AtomicReference<byte[]> seen = new AtomicReference<>();
+		FilterChain chain = (req, res) -> seen.set(req.getInputStream().readAllBytes());
+		filter(5, 10).doFilter(login(new String(body, StandardCharsets.UTF_8)), new MockHttpServletResponse(), chain);
+		assertArrayEquals(body, seen.get());
+	}
+
+	@Test
+	void oversizedLoginBodyIsRefusedNotTruncated() throws Exception {
+		String body = "{\"email\":\"a@b.test\",\"password\":\"" + "x".repeat(5000) + "\"}";
+		AtomicBoolean called = new AtomicBoolean();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter(5, 10).doFilter(login(body), response, (req, res) -> called.set(true));
+		assertEquals(413, response.getStatus());
+		assertFalse(called.get());
+	}
+
+	@Test
+	void repeatedLoginsForOneIdentifierAreThrottled() throws Exception {
+		RateLimitFilter filter = filter(1, 10);
+		String body = "{\"email\":\"A@b.test\",\"password\":\"x\"}";
+		MockHttpServletResponse first = new MockHttpServletResponse();
+		filter.doFilter(login(body), first, (req, res) -> { });
+		assertEquals(200, first.getStatus());
+		MockHttpServletResponse second = new MockHttpServletResponse();
+		filter.doFilter(login(body.replace("A@", "a@")), second, (req, res) -> { });
+		assertEquals(429, second.getStatus());
+	}
+
+	@Test
+	void requestsBeyondTheConcurrencyLimitAreShed() throws Exception {
+		RateLimitFilter filter = filter(100, 1);
+		MockHttpServletResponse inner = new MockHttpServletResponse();
+		// a second request arriving while the first is still in the controller
+		filter.doFilter(new MockHttpServletRequest("GET", "/doctor/filter/a/b/c"), new MockHttpServletResponse(),
+				(req, res) -> filter.doFilter(new MockHttpServletRequest("GET", "/doctor/filter/a/b/c"), inner, (r, s) -> { }));
+		assertEquals(503, inner.getStatus());
+	}
+
+}
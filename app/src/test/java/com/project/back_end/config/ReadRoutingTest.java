@@ -0,0 +1,127 @@
+package com.project.back_end.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.InMemoryPrescriptionRepository;
+import com.project.back_end.services.DoctorService;
+import com.project.back_end.services.EntityVersions;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Read routing against a primary and a replica database. Each test copies the primary to the
+ * replica and renames the doctor there, so the name read back tells which database served it.
+ */
+@SpringBootTest
+@ActiveProfiles("replica")
+@Import(InMemoryPrescriptionRepository.Config.class)
+class ReadRoutingTest {
+
+	private static final AtomicInteger SEQ = new AtomicInteger();
+
+	@Autowired
+	DoctorRepository doctorRepository;
+
+	@Autowired
+	DoctorService doctorService;
+
+	@Autowired
+	EntityVersions entityVersions;
+
+	@Autowired
+	ReadRoutingFilter readRoutingFilter;
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	@Qualifier("primaryDataSource")
+	DataSource primary;
+
+	@Value("${db.replica.urls}")
+	String replicaUrl;
+
+	private Long doctorId;
+
+	@BeforeEach
+	void copyPrimaryToReplica() {
+		doctorId = doctorRepository.save(doctor()).getId();
+		JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(replicaUrl, "sa", ""));
+		replica.execute("DROP ALL OBJECTS");
+		for (String sql : new JdbcTemplate(primary).queryForList("SCRIPT", String.class)) replica.execute(sql);
+		replica.update("UPDATE doctor SET name = 'On the replica' WHERE id = ?", doctorId);
+	}
+
+	@Test
+	void writesGoToThePrimaryAndReadOnlyTransactionsToTheReplica() {
+		assertEquals("On the primary", new JdbcTemplate(primary)
+				.queryForObject("SELECT name FROM doctor WHERE id = ?", String.class, doctorId));
+		assertEquals("On the replica", readName());
+	}
+
+	@Test
+	void onPrimaryKeepsReadsOnThePrimary() {
+		assertEquals("On the primary", ReadRouting.onPrimary(this::readName));
+		assertEquals("On the replica", readName());
+	}
+
+	@Test
+	void aRequestReadsThePrimaryOnceItHasWritten() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+		try {
+			List<String> seen = new ArrayList<>();
+			readRoutingFilter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+				seen.add(readName());
+				entityVersions.bump(EntityVersions.DOCTORS);
+				seen.add(readName());
+			});
+			assertEquals(List.of("On the replica", "On the primary"), seen);
+		} finally {
+			RequestContextHolder.resetRequestAttributes();
+		}
+		// the pin ends with the request
+		assertEquals("On the replica", readName());
+	}
+
+	/**
+	 * The doctor's name as read by a @Transactional(readOnly = true) service call, past the
+	 * second-level cache.
+	 */
+	private String readName() {
+		entityManagerFactory.getCache().evictAll();
+		return doctorService.getDoctors().stream().filter(d -> d.getId().equals(doctorId)).findFirst().orElseThrow().getName();
+	}
+
+	private static Doctor doctor() {
+		int n = SEQ.incrementAndGet();
+		Doctor d = new Doctor();
+		d.setName("On the primary");
+		d.setEmail("doctor" + n + "@replica.test");
+		d.setPassword("secret" + n);
+		d.setPhone(String.format("%010d", n));
+		d.setSpecialty("Cardiology");
+		d.setAvailableTimes(new ArrayList<>(List.of("09:00-10:00")));
+		return d;
+	}
+
+}
@@ -0,0 +1,105 @@
+package com.project.back_end.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Read routing against in-memory H2 databases standing in for the primary and two replicas,
+ * each replica reporting its lag from a one-row table: reads go round robin over replicas within
+ * the allowed lag, and to the primary when none qualifies, when the thread must read its own
+ * writes, or when it works on another appointment shard.
+ */
+class ReplicaDataSourceTest {
+
+	private static final String LAG_QUERY = "SELECT millis FROM replica_lag";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final List<ReplicaDataSource> opened = new ArrayList<>();
+
+	@AfterEach
+	void close() {
+		opened.forEach(ReplicaDataSource::close);
+	}
+
+	@Test
+	void readsAreSpreadOverReplicasWithinTheAllowedLag() {
+		ReplicaDataSource routing = routing("spread", 0, 0, 50_000);
+		Set<String> seen = new HashSet<>();
+		for (int i = 0; i < 4; i++) seen.add(database(routing));
+		assertEquals(Set.of("spread_replica0", "spread_replica1"), seen);
+		assertEquals(4, registry.get("db.read.routed").tag("target", "replica").counter().count());
+		assertEquals(1.0, registry.get("db.replica.healthy").tag("replica", "spread_replica1").gauge().value());
+	}
+
+	@Test
+	void laggingOrUnhealthyReplicasAreSkipped() {
+		ReplicaDataSource routing = routing("lag", 0, 5_000, 2_000);
+		for (int i = 0; i < 3; i++) assertEquals("lag_replica0", database(routing));
+
+		ReplicaDataSource none = routing("none", 5_000, 5_000, 2_000);
+		assertEquals("none_primary", database(none));
+		assertEquals(1, registry.get("db.read.routed").tag("target", "primary").counter().count());
+	}
+
+	@Test
+	void ownWritesAndOtherShardsAreReadFromThePrimary() {
+		ReplicaDataSource routing = routing("pinned", 0, 0, 2_000);
+		assertEquals("pinned_primary", ReadRouting.onPrimary(() -> database(routing)));
+		ReadRouting.pinToPrimary();
+		try {
+			assertEquals("pinned_primary", database(routing));
+		} finally {
+			ReadRouting.clear();
+		}
+		assertEquals("pinned_primary", ShardContext.on(1, () -> database(routing)));
+		assertTrue(database(routing).startsWith("pinned_replica"));
+	}
+
+	private ReplicaDataSource routing(String name, long lag0, long lag1, long maxLagMillis) {
+		List<ReplicaDataSource.Replica> replicas = List.of(
+				new ReplicaDataSource.Replica(name + "_replica0", replica(name + "_replica0", lag0)),
+				new ReplicaDataSource.Replica(name + "_replica1", replica(name + "_replica1", lag1)));
+		// no scheduler: replicas are checked once, on construction
+		ReplicaDataSource routing = new ReplicaDataSource(h2(name + "_primary"), replicas, maxLagMillis, LAG_QUERY,
+				60_000, null, registry);
+		opened.add(routing);
+		return routing;
+	}
+
+	private static DataSource replica(String name, long lagMillis) {
+		DataSource ds = h2(name);
+		JdbcTemplate jdbc = new JdbcTemplate(ds);
+		jdbc.execute("CREATE TABLE replica_lag (millis BIGINT)");
+		jdbc.update("INSERT INTO replica_lag VALUES (?)", lagMillis);
+		return ds;
+	}
+
+	private static DataSource h2(String name) {
+		JdbcDataSource ds = new JdbcDataSource();
+		ds.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+		return ds;
+	}
+
+	private static String database(DataSource ds) {
+		try (Connection c = ds.getConnection()) {
+			String url = c.getMetaData().getURL();
+			return url.substring("jdbc:h2:mem:".length()).replaceAll(";.*", "");
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.project.back_end.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.services.EntityVersions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * Bodies are built once per key and version, conditional requests get 304 while the version
+ * holds, a bump drops the entries depending on it, and ETags differ between instances.
+ */
+class ResponseCacheTest {
+
+	private final EntityVersions versions = new EntityVersions();
+	private final ResponseCache cache = new ResponseCache(new ObjectMapper(), versions, new SimpleMeterRegistry(),
+			16, 1 << 20, false, 0);
+
+	@Test
+	void buildsOncePerVersionAndAnswersMatchingETagsWith304() {
+		AtomicInteger builds = new AtomicInteger();
+		String key = EntityVersions.DOCTORS + "/all";
+		ResponseEntity<CachedBody> first = cache.serve(new MockHttpServletRequest(), key, versions.current(EntityVersions.DOCTORS),
+				() -> Map.of("builds", builds.incrementAndGet()));
+		assertEquals(HttpStatus.OK, first.getStatusCode());
+		String etag = first.getHeaders().getETag();
+
+		MockHttpServletRequest conditional = new MockHttpServletRequest();
+		conditional.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+		ResponseEntity<CachedBody> again = cache.serve(conditional, key, versions.current(EntityVersions.DOCTORS),
+				() -> Map.of("builds", builds.incrementAndGet()));
+		assertEquals(HttpStatus.NOT_MODIFIED, again.getStatusCode());
+		assertEquals(1, builds.get());
+
+		versions.bump(EntityVersions.DOCTORS);
+		ResponseEntity<CachedBody> changed = cache.serve(conditional, key, versions.current(EntityVersions.DOCTORS),
+				() -> Map.of("builds", builds.incrementAndGet()));
+		assertEquals(HttpStatus.OK, changed.getStatusCode());
+		assertNotEquals(etag, changed.getHeaders().getETag());
+		assertEquals(2, builds.get());
+	}
+
+	@Test
+	void gzipAndPlainBodiesHaveTheirOwnETags() {
+		String key = EntityVersions.DOCTORS + "/all";
+		MockHttpServletRequest gzip = new MockHttpServletRequest();
+		gzip.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+		ResponseEntity<CachedBody> zipped = cache.serve(gzip, key, 0, () -> Map.of("doctors", 0));
+		ResponseEntity<CachedBody> plain = cache.serve(new MockHttpServletRequest(), key, 0, () -> Map.of("doctors", 0));
+		assertEquals("gzip", zipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertNotEquals(plain.getHeaders().getETag(), zipped.getHeaders().getETag());
+	}
+
+	@Test
+	void anotherInstanceNeverMatchesThisOnesETag() {
+		ResponseCache other = new ResponseCache(new ObjectMapper(), new EntityVersions(), new SimpleMeterRegistry(),
+				16, 1 << 20, false, 0);
+		String key = EntityVersions.DOCTORS + "/all";
+		String etag = cache.serve(new MockHttpServletRequest(), key, 0, () -> Map.of("doctors", 0)).getHeaders().getETag();
+		MockHttpServletRequest conditional = new MockHttpServletRequest();
+		conditional.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+		assertEquals(HttpStatus.OK, other.serve(conditional, key, 0, () -> Map.of("doctors", 0)).getStatusCode());
+	}
+
+}
@@ -0,0 +1,102 @@
+package com.project.back_end.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.project.back_end.models.Admin;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.AdminRepository;
+import com.project.back_end.repo.DoctorRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * The second-level and query caches against an embedded database, with statistics on: lookups
+ * by email and username are served from the cache, and updates and deletes are seen right away.
+ * Not run in a test transaction, so each repository call has its own session, as in a request.
+ */
+@DataJpaTest
+@Import(SecondLevelCacheConfig.class)
+@TestPropertySource(properties = "cache.l2.statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheConfigTest {
+
+	@Autowired
+	DoctorRepository doctorRepository;
+
+	@Autowired
+	AdminRepository adminRepository;
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	MeterBinder secondLevelCacheMetrics;
+
+	@Test
+	void doctorLookupsHitTheCacheAndSeeUpdatesAndDeletes() {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		secondLevelCacheMetrics.bindTo(registry);
+		Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		Doctor doctor = doctorRepository.save(doctor());
+		doctorRepository.findByEmail(doctor.getEmail());
+		long queryHits = stats.getQueryCacheHitCount();
+		long entityHits = stats.getSecondLevelCacheHitCount();
+		Doctor cached = doctorRepository.findByEmail(doctor.getEmail());
+		assertEquals(doctor.getId(), cached.getId());
+		assertTrue(stats.getQueryCacheHitCount() > queryHits);
+		assertTrue(stats.getSecondLevelCacheHitCount() > entityHits);
+		// a lookup by id is answered by the Doctor region itself
+		doctorRepository.findById(doctor.getId());
+		assertTrue(registry.get("hibernate.cache.hit.ratio").tag("region", Doctor.class.getName()).gauge().value() > 0);
+
+		cached.setName("Renamed Doctor");
+		cached.setAvailableTimes(new ArrayList<>(List.of("08:00-09:00")));
+		doctorRepository.save(cached);
+		Doctor updated = doctorRepository.findByEmail(doctor.getEmail());
+		assertEquals("Renamed Doctor", updated.getName());
+		assertEquals(List.of("08:00-09:00"), updated.getAvailableTimes());
+		assertEquals(List.of("08:00-09:00"), doctorRepository.findById(doctor.getId()).orElseThrow().getAvailableTimes());
+
+		doctorRepository.deleteById(doctor.getId());
+		assertNull(doctorRepository.findByEmail(doctor.getEmail()));
+		assertTrue(doctorRepository.findById(doctor.getId()).isEmpty());
+	}
+
+	@Test
+	void adminLookupsSeeUpdatesAndDeletes() {
+		Admin admin = adminRepository.save(new Admin("cached-admin", "first-password"));
+		assertEquals("first-password", adminRepository.findByUsername("cached-admin").getPassword());
+		admin.setPassword("second-password");
+		adminRepository.save(admin);
+		assertEquals("second-password", adminRepository.findByUsername("cached-admin").getPassword());
+		adminRepository.delete(admin);
+		assertNull(adminRepository.findByUsername("cached-admin"));
+	}
+
+	private static Doctor doctor() {
+		Doctor d = new Doctor();
+		d.setName("Cached Doctor");
+		d.setEmail("cached@doctors.test");
+		d.setPassword("secret");
+		d.setPhone("5551234567");
+		d.setSpecialty("Cardiology");
+		d.setAvailableTimes(new ArrayList<>(List.of("09:00-10:00", "10:00-11:00")));
+		return d;
+	}
+
+}
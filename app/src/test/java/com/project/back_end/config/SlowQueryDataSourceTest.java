@@ -0,0 +1,86 @@
+package com.project.back_end.config;
+
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Types;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Statement timing through the wrapper, against an in-memory H2 database and a mocked log:
+ * parameters are handed over only for statements the log calls slow.
+ */
+class SlowQueryDataSourceTest {
+
+	private final SlowQueryLog log = mock(SlowQueryLog.class);
+
+	@Test
+	void slowPreparedStatementsArePassedOnWithTheirParameters() throws Exception {
+		when(log.isSlow(anyLong())).thenReturn(true);
+		when(log.capturesParameters()).thenReturn(true);
+		try (Connection c = dataSource("slow").getConnection();
+			 PreparedStatement ps = c.prepareStatement("SELECT ? + ?")) {
+			ps.setInt(1, 1);
+			ps.setLong(2, 2L);
+			ps.executeQuery().close();
+			ps.clearParameters();
+			ps.setInt(1, 3);
+			ps.setNull(2, Types.INTEGER);
+			ps.executeQuery().close();
+		}
+		verify(log).statementFinished(eq("SELECT ? + ?"), aryEq(new Object[] { 1, 2L }), anyLong());
+		verify(log).statementFinished(eq("SELECT ? + ?"), aryEq(new Object[] { 3, null }), anyLong());
+	}
+
+	@Test
+	void plainStatementsCarryTheirSqlAndNoParameters() throws Exception {
+		when(log.isSlow(anyLong())).thenReturn(true);
+		when(log.capturesParameters()).thenReturn(true);
+		try (Connection c = dataSource("plain").getConnection(); Statement st = c.createStatement()) {
+			st.execute("SELECT 1");
+		}
+		verify(log).statementFinished(eq("SELECT 1"), isNull(), anyLong());
+	}
+
+	@Test
+	void fastStatementsAreNotPassedOn() throws Exception {
+		when(log.isSlow(anyLong())).thenReturn(false);
+		when(log.capturesParameters()).thenReturn(true);
+		try (Connection c = dataSource("fast").getConnection();
+			 PreparedStatement ps = c.prepareStatement("SELECT ?")) {
+			ps.setInt(1, 1);
+			ps.executeQuery().close();
+		}
+		verify(log, never()).statementFinished(any(), any(), anyLong());
+	}
+
+	@Test
+	void parametersAreNotKeptWhenCaptureIsOff() throws Exception {
+		when(log.isSlow(anyLong())).thenReturn(true);
+		when(log.capturesParameters()).thenReturn(false);
+		try (Connection c = dataSource("nocapture").getConnection();
+			 PreparedStatement ps = c.prepareStatement("SELECT ?")) {
+			ps.setString(1, "secret");
+			ps.executeQuery().close();
+		}
+		verify(log).statementFinished(eq("SELECT ?"), isNull(), anyLong());
+	}
+
+	private SlowQueryDataSource dataSource(String name) {
+		JdbcDataSource h2 = new JdbcDataSource();
+		h2.setURL("jdbc:h2:mem:slowquery_" + name);
+		return new SlowQueryDataSource(h2, log);
+	}
+
+}
@@ -0,0 +1,79 @@
+package com.project.back_end.config;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The slow-query log's decisions, with a writer that never drains the buffer: which statements
+ * are queued, what happens once the buffer is full, and which parameters are masked.
+ */
+class SlowQueryLogTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void onlyStatementsAtOrAboveTheThresholdAreQueued() {
+		SlowQueryLog log = log(200, 1.0, 16);
+		assertFalse(log.isSlow(199_999_999L));
+		assertTrue(log.isSlow(200_000_000L));
+
+		log.statementFinished("select 1", null, 199_999_999L);
+		log.statementFinished("select 2", null, 200_000_000L);
+		assertEquals(1, logged());
+		assertEquals(1.0, registry.get("slowquery.buffer.size").gauge().value());
+	}
+
+	@Test
+	void samplingKeepsAboutTheConfiguredShare() {
+		SlowQueryLog none = log(0, 0.0, 16);
+		for (int i = 0; i < 10; i++) none.statementFinished("select 1", null, 1);
+		assertEquals(0, logged());
+
+		SlowQueryLog half = log(0, 0.5, 10_000);
+		for (int i = 0; i < 2000; i++) half.statementFinished("select 1", null, 1);
+		assertTrue(logged() > 800 && logged() < 1200, "logged " + logged());
+	}
+
+	@Test
+	void aFullBufferDropsNewRecords() {
+		SlowQueryLog log = log(0, 1.0, 3);
+		for (int i = 0; i < 5; i++) log.statementFinished("select " + i, null, 1);
+		assertEquals(3, logged());
+		assertEquals(2, registry.get("slowquery.records").tag("result", "dropped").counter().count());
+	}
+
+	@Test
+	void parametersBoundToPasswordColumnsAreMasked() {
+		assertEquals(" -- params: ['ann', '***']",
+				SlowQueryLog.format("select * from admin where username = ? and password = ?", new Object[] { "ann", "x" }));
+		assertEquals(" -- params: ['ann', '***', 3]",
+				SlowQueryLog.format("insert into patient (name, password, age) values (?, ?, ?)", new Object[] { "ann", "x", 3 }));
+		assertEquals(" -- params: [null, byte[4]]",
+				SlowQueryLog.format("update t set a = ?, b = ?", new Object[] { null, new byte[4] }));
+		assertEquals("", SlowQueryLog.format("select 1", null));
+	}
+
+	@Test
+	void insertSelectUsesTheColumnListThenTheWhereClause() {
+		String sql = "INSERT INTO admin (username, password) SELECT ?, ? FROM dual WHERE NOT EXISTS "
+				+ "(SELECT 1 FROM admin a WHERE a.username = ? AND a.password = ?)";
+		assertArrayEquals(new String[] { "username", "password", "a.username", "a.password" }, SlowQueryLog.boundColumns(sql, 4));
+		assertEquals(" -- params: ['ann', '***', 'ann', '***']",
+				SlowQueryLog.format(sql, new Object[] { "ann", "x", "ann", "x" }));
+	}
+
+	private SlowQueryLog log(long thresholdMs, double sampleRate, int bufferSize) {
+		return new SlowQueryLog(registry, thresholdMs, sampleRate, true, bufferSize, task -> {
+		});
+	}
+
+	private double logged() {
+		return registry.get("slowquery.records").tag("result", "logged").counter().count();
+	}
+
+}
@@ -0,0 +1,32 @@
+package com.project.back_end.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketRateLimiterTest {
+
+	@Test
+	void burstUpToCapacityThenRejectsPerKey() {
+		TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, 1, 100);
+		for (int i = 0; i < 3; i++) assertTrue(limiter.tryAcquire("a"));
+		assertFalse(limiter.tryAcquire("a"));
+		// another key has its own bucket
+		assertTrue(limiter.tryAcquire("b"));
+	}
+
+	@Test
+	void trackedKeysStayBounded() {
+		TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 2);
+		for (int i = 0; i < 10; i++) limiter.tryAcquire("key" + i);
+		assertTrue(limiter.trackedKeys() <= 2);
+	}
+
+	@Test
+	void rejectsNonPositiveSettings() {
+		assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter(0, 1, 1));
+	}
+
+}
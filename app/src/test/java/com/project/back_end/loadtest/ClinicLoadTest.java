@@ -0,0 +1,296 @@
+package com.project.back_end.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.InMemoryPrescriptionRepository;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.repo.PrescriptionRepository;
+import com.project.back_end.services.TokenService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * End-to-end load test: seeds H2 with a realistic clinic, then drives booking, availability,
+ * doctor filter and prescription flows concurrently over HTTP against the real controllers
+ * and prints throughput and latency percentiles per endpoint.
+ *
+ * Run with: mvn -Ploadtest test
+ * Tunables (system properties): loadtest.doctors, loadtest.patients, loadtest.appointments,
+ * loadtest.concurrency, loadtest.duration-seconds.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+class ClinicLoadTest {
+
+	/**
+	 * No Mongo in the harness: prescriptions are kept in memory.
+	 */
+	@TestConfiguration
+	static class Config {
+
+		@Bean
+		PrescriptionRepository prescriptionRepository() {
+			return InMemoryPrescriptionRepository.create();
+		}
+
+	}
+
+	private static final String[] SPECIALTIES = { "Cardiology", "Dermatology", "Neurology", "Pediatrics", "Orthopedics" };
+	private static final String[] SLOTS = { "09:00-10:00", "10:00-11:00", "11:00-12:00", "12:00-13:00",
+			"14:00-15:00", "15:00-16:00", "16:00-17:00", "17:00-18:00" };
+	private static final int DAYS = 30;
+
+	@LocalServerPort
+	int port;
+
+	@Autowired
+	DoctorRepository doctorRepository;
+
+	@Autowired
+	PatientRepository patientRepository;
+
+	@Autowired
+	AppointmentRepository appointmentRepository;
+
+	@Autowired
+	TokenService tokenService;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+	private final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+
+	private List<Doctor> doctors;
+	private List<Patient> patients;
+	private List<Appointment> appointments;
+	private String[] patientTokens;
+	private Map<Long, String> doctorTokens;
+	private final AtomicLong nextAppointment = new AtomicLong();
+
+	@Test
+	void mixedWorkload() throws Exception {
+		int doctorCount = Integer.getInteger("loadtest.doctors", 100);
+		int patientCount = Integer.getInteger("loadtest.patients", 1000);
+		int appointmentCount = Integer.getInteger("loadtest.appointments", 10000);
+		int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+		int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 20);
+
+		long seedStart = System.nanoTime();
+		seed(doctorCount, patientCount, appointmentCount);
+		System.out.printf("Seeded %d doctors, %d patients, %d appointments in %d ms%n",
+				doctorCount, patientCount, appointmentCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart));
+
+		ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+		long start = System.nanoTime();
+		for (int i = 0; i < concurrency; i++) {
+			pool.submit(() -> {
+				while (System.nanoTime() < deadline) {
+					try {
+						runOne();
+					} catch (Exception e) {
+						histogram("client-error").record(0, true);
+					}
+				}
+			});
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(durationSeconds + 60L, TimeUnit.SECONDS));
+		double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+		report(elapsedSeconds, concurrency);
+		long serverErrors = histograms.values().stream().mapToLong(LatencyHistogram::errors).sum();
+		assertTrue(histograms.values().stream().mapToLong(LatencyHistogram::count).sum() > 0, "no requests completed");
+		assertEquals(0, serverErrors, "5xx responses or client failures during the run");
+	}
+
+	/**
+	 * Pick a flow with a read-heavy mix roughly matching production traffic.
+	 */
+	private void runOne() throws Exception {
+		int dice = ThreadLocalRandom.current().nextInt(100);
+		if (dice < 35) availability();
+		else if (dice < 60) filter();
+		else if (dice < 75) patientAppointments();
+		else if (dice < 90) book();
+		else prescription();
+	}
+
+	private void availability() throws Exception {
+		Doctor d = doctors.get(ThreadLocalRandom.current().nextInt(doctors.size()));
+		LocalDate date = LocalDate.now().plusDays(1 + ThreadLocalRandom.current().nextInt(DAYS));
+		get("GET /doctor/availability", "/doctor/availability/patient/" + d.getId() + "/" + date, randomPatientToken());
+	}
+
+	private void filter() throws Exception {
+		ThreadLocalRandom r = ThreadLocalRandom.current();
+		String name = r.nextBoolean() ? "Doctor" + "%20" + (1 + r.nextInt(9)) : "null";
+		String time = r.nextBoolean() ? (r.nextBoolean() ? "AM" : "PM") : "null";
+		String specialty = r.nextBoolean() ? SPECIALTIES[r.nextInt(SPECIALTIES.length)] : "null";
+		get("GET /doctor/filter", "/doctor/filter/" + name + "/" + time + "/" + specialty, null);
+	}
+
+	private void patientAppointments() throws Exception {
+		int i = ThreadLocalRandom.current().nextInt(patients.size());
+		get("GET /patient/{id}/patient", "/patient/" + patients.get(i).getId() + "/patient", patientTokens[i]);
+	}
+
+	private void book() throws Exception {
+		ThreadLocalRandom r = ThreadLocalRandom.current();
+		Doctor d = doctors.get(r.nextInt(doctors.size()));
+		String slot = d.getAvailableTimes().get(r.nextInt(d.getAvailableTimes().size()));
+		LocalDateTime time = LocalDate.now().plusDays(1 + r.nextInt(DAYS)).atTime(LocalTime.parse(slot.substring(0, 5)));
+		String body = "{\"doctor\":{\"id\":" + d.getId() + "},\"appointmentTime\":\"" + time + "\"}";
+		send("POST /appointments", HttpRequest.newBuilder(uri("/appointments"))
+				.header("Authorization", "Bearer " + randomPatientToken())
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body)));
+	}
+
+	private void prescription() throws Exception {
+		// each seeded appointment gets at most one prescription; walk them in order
+		int i = (int) (nextAppointment.getAndIncrement() % appointments.size());
+		Appointment a = appointments.get(i);
+		String token = doctorTokens.get(a.getDoctor().getId());
+		String body = "{\"patientName\":\"" + a.getPatient().getName() + "\",\"appointmentId\":" + a.getId()
+				+ ",\"medication\":\"Paracetamol\",\"dosage\":\"500mg\",\"doctorNotes\":\"after meals\"}";
+		send("POST /prescription", HttpRequest.newBuilder(uri("/prescription"))
+				.header("Authorization", "Bearer " + token)
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body)));
+		get("GET /prescription/{id}", "/prescription/" + a.getId(), token);
+	}
+
+	private void get(String endpoint, String path, String token) throws Exception {
+		HttpRequest.Builder b = HttpRequest.newBuilder(uri(path)).GET();
+		if (token != null) b.header("Authorization", "Bearer " + token);
+		send(endpoint, b);
+	}
+
+	private void send(String endpoint, HttpRequest.Builder request) throws Exception {
+		long t0 = System.nanoTime();
+		HttpResponse<Void> resp = client.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.discarding());
+		long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - t0);
+		histogram(endpoint).record(micros, resp.statusCode() >= 500);
+	}
+
+	private LatencyHistogram histogram(String endpoint) {
+		return histograms.computeIfAbsent(endpoint, k -> new LatencyHistogram());
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+
+	private String randomPatientToken() {
+		return patientTokens[ThreadLocalRandom.current().nextInt(patientTokens.length)];
+	}
+
+	private void seed(int doctorCount, int patientCount, int appointmentCount) {
+		Random rnd = new Random(42);
+		List<Doctor> ds = new ArrayList<>();
+		for (int i = 1; i <= doctorCount; i++) {
+			Doctor d = new Doctor();
+			d.setName("Doctor " + i);
+			d.setEmail("doctor" + i + "@clinic.test");
+			d.setPassword("secret" + i);
+			d.setPhone(String.format("%010d", i));
+			d.setSpecialty(SPECIALTIES[i % SPECIALTIES.length]);
+			d.setAvailableTimes(new ArrayList<>(List.of(i % 2 == 0 ? java.util.Arrays.copyOf(SLOTS, 4) : SLOTS)));
+			ds.add(d);
+		}
+		doctors = doctorRepository.saveAll(ds);
+
+		List<Patient> ps = new ArrayList<>();
+		for (int i = 1; i <= patientCount; i++) {
+			Patient p = new Patient();
+			p.setName("Patient " + i);
+			p.setEmail("patient" + i + "@mail.test");
+			p.setPassword("secret" + i);
+			p.setPhone(String.format("9%09d", i));
+			p.setAddress(i + " Main Street");
+			ps.add(p);
+		}
+		patients = patientRepository.saveAll(ps);
+
+		List<Appointment> as = new ArrayList<>();
+		for (int i = 0; i < appointmentCount; i++) {
+			Doctor d = doctors.get(rnd.nextInt(doctors.size()));
+			Patient p = patients.get(rnd.nextInt(patients.size()));
+			String slot = d.getAvailableTimes().get(rnd.nextInt(d.getAvailableTimes().size()));
+			LocalDateTime time = LocalDate.now().plusDays(1 + rnd.nextInt(DAYS)).atTime(LocalTime.parse(slot.substring(0, 5)));
+			as.add(new Appointment(null, d, p, time, 0));
+		}
+		appointments = appointmentRepository.saveAll(as);
+
+		patientTokens = new String[patients.size()];
+		for (int i = 0; i < patients.size(); i++) patientTokens[i] = tokenService.generateToken("patient", patients.get(i).getId(), patients.get(i).getEmail());
+		doctorTokens = new ConcurrentHashMap<>();
+		for (Doctor d : doctors) doctorTokens.put(d.getId(), tokenService.generateToken("doctor", d.getId(), d.getEmail()));
+	}
+
+	private void report(double elapsedSeconds, int concurrency) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%nLoad test: %d clients, %.1f s%n", concurrency, elapsedSeconds));
+		sb.append(String.format("%-28s %8s %9s %9s %9s %9s %9s %6s%n",
+				"endpoint", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "5xx"));
+		for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(histograms).entrySet()) {
+			LatencyHistogram h = e.getValue();
+			sb.append(String.format("%-28s %8d %9.1f %9.2f %9.2f %9.2f %9.2f %6d%n",
+					e.getKey(), h.count(), h.count() / elapsedSeconds,
+					h.percentile(50) / 1000.0, h.percentile(90) / 1000.0, h.percentile(99) / 1000.0,
+					h.max() / 1000.0, h.errors()));
+		}
+		Timer acquire = meterRegistry.find("hikaricp.connections.acquire").timer();
+		if (acquire != null) {
+			sb.append(String.format("JDBC pool: %d acquisitions, mean wait %.3f ms, max wait %.3f ms, %.0f timeouts%n",
+					acquire.count(), acquire.mean(TimeUnit.MILLISECONDS), acquire.max(TimeUnit.MILLISECONDS),
+					meterRegistry.find("hikaricp.connections.timeout").counter() == null ? 0
+							: meterRegistry.find("hikaricp.connections.timeout").counter().count()));
+		}
+		for (Counter routed : meterRegistry.find("db.read.routed").counters()) {
+			sb.append(String.format("Read-only connections to %s: %.0f%n", routed.getId().getTag("target"), routed.count()));
+		}
+		System.out.println(sb);
+	}
+
+}
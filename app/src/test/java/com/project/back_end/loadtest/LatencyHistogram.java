@@ -0,0 +1,72 @@
+package com.project.back_end.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear latency histogram: 4 sub-buckets per power of two of microseconds,
+ * good to about 19% relative error, which is plenty for comparing latency curves.
+ */
+final class LatencyHistogram {
+
+	private static final int SUB_BUCKETS = 4;
+	private static final int BUCKETS = 40 * SUB_BUCKETS; // up to ~2^40 us
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder total = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private volatile long maxMicros;
+
+	void record(long micros, boolean error) {
+		counts.incrementAndGet(bucket(Math.max(1, micros)));
+		total.increment();
+		if (error) errors.increment();
+		if (micros > maxMicros) {
+			synchronized (this) {
+				if (micros > maxMicros) maxMicros = micros;
+			}
+		}
+	}
+
+	long count() {
+		return total.sum();
+	}
+
+	long errors() {
+		return errors.sum();
+	}
+
+	long max() {
+		return maxMicros;
+	}
+
+	/**
+	 * Upper bound (in microseconds) of the bucket holding the given percentile.
+	 */
+	long percentile(double p) {
+		long n = count();
+		if (n == 0) return 0;
+		long rank = (long) Math.ceil(p / 100.0 * n);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) return Math.min(upperBound(i), maxMicros);
+		}
+		return maxMicros;
+	}
+
+	private static int bucket(long micros) {
+		int exp = 63 - Long.numberOfLeadingZeros(micros);
+		int sub = exp >= 2 ? (int) ((micros >>> (exp - 2)) & (SUB_BUCKETS - 1)) : (int) (micros & (SUB_BUCKETS - 1));
+		return Math.min(BUCKETS - 1, exp * SUB_BUCKETS + sub);
+	}
+
+	private static long upperBound(int bucket) {
+		int exp = bucket / SUB_BUCKETS;
+		int sub = bucket % SUB_BUCKETS;
+		if (exp < 2) return (1L << exp) + sub;
+		long base = 1L << exp;
+		return base + (base / SUB_BUCKETS) * (sub + 1);
+	}
+
+}
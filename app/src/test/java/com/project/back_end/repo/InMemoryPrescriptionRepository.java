@@ -0,0 +1,82 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Prescription;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Embedded stand-in for the Mongo-backed PrescriptionRepository.
+ * Implements the calls the application makes (save, findByAppointmentId, deleteByAppointmentIdIn, findById,
+ * findAll, count, deleteAll).
+ */
+public final class InMemoryPrescriptionRepository {
+
+	private InMemoryPrescriptionRepository() {
+	}
+
+	/**
+	 * No Mongo in the embedded profiles: import this to keep prescriptions in memory.
+	 */
+	@TestConfiguration
+	public static class Config {
+
+		@Bean
+		PrescriptionRepository prescriptionRepository() {
+			return create();
+		}
+
+	}
+
+	public static PrescriptionRepository create() {
+		Map<String, Prescription> byId = new ConcurrentHashMap<>();
+		return (PrescriptionRepository) Proxy.newProxyInstance(PrescriptionRepository.class.getClassLoader(),
+				new Class<?>[] { PrescriptionRepository.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+						case "save": {
+							Prescription p = (Prescription) args[0];
+							if (p.getId() == null) p.setId(UUID.randomUUID().toString());
+							byId.put(p.getId(), p);
+							return p;
+						}
+						case "findByAppointmentId": {
+							List<Prescription> out = new ArrayList<>();
+							for (Prescription p : byId.values()) if (args[0].equals(p.getAppointmentId())) out.add(p);
+							return out;
+						}
+						case "deleteByAppointmentIdIn": {
+							long removed = 0;
+							for (Prescription p : new ArrayList<>(byId.values())) {
+								if (((Collection<?>) args[0]).contains(p.getAppointmentId()) && byId.remove(p.getId()) != null) removed++;
+							}
+							return removed;
+						}
+						case "findById":
+							return Optional.ofNullable(byId.get(args[0]));
+						case "findAll":
+							return new ArrayList<>(byId.values());
+						case "count":
+							return (long) byId.size();
+						case "deleteAll":
+							byId.clear();
+							return null;
+						case "toString":
+							return "InMemoryPrescriptionRepository";
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						case "equals":
+							return proxy == args[0];
+						default:
+							throw new UnsupportedOperationException("PrescriptionRepository." + method.getName());
+					}
+				});
+	}
+
+}
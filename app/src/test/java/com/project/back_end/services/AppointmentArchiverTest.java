@@ -0,0 +1,186 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.config.ShardRoutingDataSource;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.InMemoryPrescriptionRepository;
+import com.project.back_end.repo.PatientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.lang.NonNull;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Archiving completed appointments from every shard into the primary's archive table, and the
+ * two ways a batch can be interrupted: a crash between the copy and the delete, and a status
+ * change between the read and the delete.
+ */
+@SpringBootTest
+@ActiveProfiles("shards")
+@Import(InMemoryPrescriptionRepository.Config.class)
+class AppointmentArchiverTest {
+
+	private static final LocalDate DAY = LocalDate.now().plusDays(7);
+
+	@Autowired
+	DoctorRepository doctorRepository;
+
+	@Autowired
+	PatientRepository patientRepository;
+
+	@Autowired
+	AppointmentService appointmentService;
+
+	@Autowired
+	PatientService patientService;
+
+	@Autowired
+	AppointmentShards shards;
+
+	@Autowired
+	ShardRoutingDataSource routing;
+
+	@Autowired
+	EntityVersions entityVersions;
+
+	@Autowired
+	AppointmentArchiver archiver;
+
+	@Test
+	void completedAppointmentsAreArchivedAndStillListed() {
+		ClinicFixture clinic = clinic();
+		Patient patient = clinic.patient();
+		List<Doctor> doctors = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			Doctor doctor = clinic.doctor();
+			doctors.add(doctor);
+			assertEquals(1, appointmentService.bookAppointment(new Appointment(null, doctor, patient, DAY.plusDays(i).atTime(9, 0), 0)));
+			assertEquals(1, appointmentService.bookAppointment(new Appointment(null, doctor, patient, DAY.plusDays(i).atTime(10, 0), 0)));
+		}
+		// age the 09:00 appointments past the horizon, shorten and complete them
+		LocalDateTime old = LocalDateTime.now().minusYears(2).withNano(0);
+		for (int i = 0; i < doctors.size(); i++) {
+			hot(doctors.get(i)).update(
+					"UPDATE appointment SET status = 1, duration_minutes = 30, appointment_time = ? WHERE doctor_id = ? AND appointment_time = ?",
+					old.plusDays(i), doctors.get(i).getId(), DAY.plusDays(i).atTime(9, 0));
+		}
+
+		assertEquals(4, archiver.archiveNow());
+		assertEquals(0, archiver.archiveNow());
+
+		for (Doctor doctor : doctors) assertEquals(1, count(hot(doctor), doctor.getId()));
+		assertEquals(4, patientService.getPatientAppointments(patient.getId()).size());
+		List<AppointmentDTO> history = patientService.getPatientAppointments(patient.getId(), true);
+		assertEquals(8, history.size());
+		for (int i = 0; i < 4; i++) {
+			assertEquals(old.plusDays(i), history.get(i).getAppointmentTime());
+			assertEquals(doctors.get(i).getName(), history.get(i).getDoctorName());
+			assertEquals(patient.getEmail(), history.get(i).getPatientEmail());
+			assertEquals(30, history.get(i).getDurationMinutes());
+		}
+	}
+
+	@Test
+	void aRowCopiedBeforeACrashIsFinishedOffOnce() {
+		ClinicFixture clinic = clinic();
+		Doctor doctor = clinic.doctor();
+		Patient patient = clinic.patient();
+		Appointment a = new Appointment(null, doctor, patient, DAY.atTime(9, 0), 0);
+		assertEquals(1, appointmentService.bookAppointment(a));
+		LocalDateTime old = LocalDateTime.now().minusYears(2).withNano(0);
+		hot(doctor).update("UPDATE appointment SET status = 1, appointment_time = ? WHERE id = ?", old, a.getId());
+		// the previous run copied the row and died before deleting it
+		archive().update("INSERT INTO appointment_archive (id, doctor_id, doctor_name, patient_id, appointment_time, status, "
+				+ "duration_minutes, archived_at) VALUES (?, ?, ?, ?, ?, 1, 60, ?)", a.getId(), doctor.getId(), doctor.getName(),
+				patient.getId(), old, Timestamp.valueOf(LocalDateTime.now()));
+
+		assertEquals(1, archiver.archiveNow());
+		assertEquals(0, count(hot(doctor), doctor.getId()));
+		assertEquals(1, archive().queryForObject("SELECT COUNT(*) FROM appointment_archive WHERE id = ?", Long.class, a.getId()));
+		assertEquals(List.of(old), patientService.getPatientAppointments(patient.getId(), true).stream()
+				.map(AppointmentDTO::getAppointmentTime).toList());
+	}
+
+	@Test
+	void aRowWhoseStatusChangedAfterTheReadStaysAndIsNotArchived() {
+		ClinicFixture clinic = clinic();
+		Doctor doctor = clinic.doctor();
+		shards.moveDoctor(doctor.getId(), 0);
+		Appointment a = new Appointment(null, doctor, clinic.patient(), DAY.atTime(9, 0), 0);
+		assertEquals(1, appointmentService.bookAppointment(a));
+		hot(doctor).update("UPDATE appointment SET status = 1, appointment_time = ? WHERE id = ?",
+				LocalDateTime.now().minusYears(2), a.getId());
+
+		// an archiver over the primary alone, which sees the status change just before its delete
+		AppointmentArchiver racing = new AppointmentArchiver(changingStatusBeforeDelete(routing.shard(0), a.getId()),
+				new StaticListableBeanFactory().getBeanProvider(ShardRoutingDataSource.class), entityVersions,
+				new SimpleMeterRegistry(), false, 365, 500);
+		assertEquals(0, racing.archiveNow());
+
+		assertEquals(2, hot(doctor).queryForObject("SELECT status FROM appointment WHERE id = ?", Integer.class, a.getId()));
+		assertEquals(0, archive().queryForObject("SELECT COUNT(*) FROM appointment_archive WHERE id = ?", Long.class, a.getId()));
+	}
+
+	/**
+	 * The database, except that the appointment's status changes as the archiver prepares its delete.
+	 */
+	private static DataSource changingStatusBeforeDelete(DataSource target, Long appointmentId) {
+		return new DelegatingDataSource(target) {
+			@Override
+			@NonNull
+			public Connection getConnection() throws SQLException {
+				Connection c = target.getConnection();
+				return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+						(proxy, method, args) -> {
+							if (method.getName().equals("prepareStatement")
+									&& ((String) args[0]).startsWith("DELETE FROM appointment WHERE")) {
+								new JdbcTemplate(target).update("UPDATE appointment SET status = 2 WHERE id = ?", appointmentId);
+							}
+							try {
+								return method.invoke(c, args);
+							} catch (InvocationTargetException e) {
+								throw e.getTargetException();
+							}
+						});
+			}
+		};
+	}
+
+	private ClinicFixture clinic() {
+		return new ClinicFixture(doctorRepository, patientRepository);
+	}
+
+	private JdbcTemplate hot(Doctor doctor) {
+		return new JdbcTemplate(routing.shard(shards.shardOf(doctor.getId())));
+	}
+
+	private JdbcTemplate archive() {
+		return new JdbcTemplate(routing.shard(0));
+	}
+
+	private static long count(JdbcTemplate hot, Long doctorId) {
+		return hot.queryForObject("SELECT COUNT(*) FROM appointment WHERE doctor_id = ?", Long.class, doctorId);
+	}
+
+}
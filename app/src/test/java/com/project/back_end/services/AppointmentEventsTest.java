@@ -0,0 +1,174 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Doctor feeds with recording streams: a reset on subscribing, delivery only once the change
+ * commits, replay for a client coming back with its Last-Event-ID, and feeds dropped with their
+ * last subscriber. Sending happens on the feeds' own thread, so each stream hands its events
+ * to a queue the test waits on.
+ */
+class AppointmentEventsTest {
+
+	private static final Pattern ID_AND_TYPE = Pattern.compile("id:([^\\n]*)\\nevent:([^\\n]*)\\n");
+
+	private final AppointmentEvents events = new AppointmentEvents(new SimpleMeterRegistry(), 60_000) {
+		@Override
+		SseEmitter newEmitter(long timeoutMillis) {
+			return new Recorder(timeoutMillis);
+		}
+	};
+
+	@AfterEach
+	void stop() {
+		events.stop();
+	}
+
+	@Test
+	void aNewSubscriberFirstGetsAReset() throws Exception {
+		Recorder client = (Recorder) events.subscribe(1L, null);
+		assertEquals(AppointmentEvents.RESET, client.next().type);
+		events.publish(AppointmentEvents.CREATED, appointment(1L));
+		assertEquals(AppointmentEvents.CREATED, client.next().type);
+	}
+
+	@Test
+	void changesAreSentOnlyOnceTheyCommit() throws Exception {
+		Recorder client = (Recorder) events.subscribe(2L, null);
+		String reset = client.next().id;
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			events.publish(AppointmentEvents.CREATED, appointment(2L));
+			List<TransactionSynchronization> pending = TransactionSynchronizationManager.getSynchronizations();
+			assertEquals(1, pending.size());
+			TransactionSynchronizationUtils.invokeAfterCompletion(pending, TransactionSynchronization.STATUS_ROLLED_BACK);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			events.publish(AppointmentEvents.STATUS, appointment(2L));
+			TransactionSynchronizationUtils.triggerAfterCommit();
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		// the rolled-back change never reached the feed: the committed one is the next event
+		Sent next = client.next();
+		assertEquals(AppointmentEvents.STATUS, next.type);
+		assertEquals(next(reset), next.id);
+	}
+
+	@Test
+	void aReturningClientGetsExactlyWhatItMissed() throws Exception {
+		Recorder watcher = (Recorder) events.subscribe(3L, null);
+		watcher.next();
+		for (int i = 0; i < 3; i++) events.publish(AppointmentEvents.CREATED, appointment(3L));
+		String first = watcher.next().id;
+		String second = watcher.next().id;
+		String third = watcher.next().id;
+
+		Recorder back = (Recorder) events.subscribe(3L, first);
+		assertEquals(second, back.next().id);
+		assertEquals(third, back.next().id);
+
+		Recorder upToDate = (Recorder) events.subscribe(3L, third);
+		events.publish(AppointmentEvents.CANCELLED, appointment(3L));
+		Sent live = upToDate.next();
+		assertEquals(AppointmentEvents.CANCELLED, live.type);
+		assertEquals(next(third), live.id);
+	}
+
+	@Test
+	void aClientTooFarBehindOrFromAnotherRunGetsAReset() throws Exception {
+		Recorder watcher = (Recorder) events.subscribe(4L, null);
+		String start = watcher.next().id;
+		for (int i = 0; i < 300; i++) events.publish(AppointmentEvents.CREATED, appointment(4L));
+
+		assertEquals(AppointmentEvents.RESET, ((Recorder) events.subscribe(4L, start)).next().type);
+		String foreign = "otherrun-" + start.substring(start.lastIndexOf('-') + 1);
+		assertEquals(AppointmentEvents.RESET, ((Recorder) events.subscribe(4L, foreign)).next().type);
+		assertEquals(AppointmentEvents.RESET, ((Recorder) events.subscribe(4L, "garbage")).next().type);
+	}
+
+	@Test
+	void theFeedGoesAwayWithItsLastSubscriber() throws Exception {
+		assertFalse(events.isWatched(5L));
+		Recorder client = (Recorder) events.subscribe(5L, null);
+		client.next();
+		assertTrue(events.isWatched(5L));
+
+		// the failed send unsubscribes the only client
+		client.broken = true;
+		events.publish(AppointmentEvents.CREATED, appointment(5L));
+		Recorder probe = (Recorder) events.subscribe(6L, null);
+		probe.next(); // sent after the publish above, on the same thread
+		assertFalse(events.isWatched(5L));
+	}
+
+	private static String next(String id) {
+		int dash = id.lastIndexOf('-');
+		return id.substring(0, dash + 1) + (Long.parseLong(id.substring(dash + 1)) + 1);
+	}
+
+	private static Appointment appointment(Long doctorId) {
+		Doctor doctor = new Doctor();
+		doctor.setId(doctorId);
+		doctor.setName("Doctor " + doctorId);
+		return new Appointment(1L, doctor, null, LocalDateTime.now().plusDays(1), 0);
+	}
+
+	private record Sent(String id, String type) {
+	}
+
+	/**
+	 * Keeps the id and event name of everything sent, or fails like a closed connection.
+	 */
+	private static final class Recorder extends SseEmitter {
+
+		private final BlockingQueue<Sent> sent = new LinkedBlockingQueue<>();
+		volatile boolean broken;
+
+		Recorder(long timeoutMillis) {
+			super(timeoutMillis);
+		}
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			if (broken) throw new IOException("connection closed");
+			StringBuilder text = new StringBuilder();
+			builder.build().forEach(part -> text.append(part.getData()));
+			Matcher m = ID_AND_TYPE.matcher(text);
+			if (m.find()) sent.add(new Sent(m.group(1), m.group(2)));
+		}
+
+		Sent next() throws InterruptedException {
+			Sent s = sent.poll(5, TimeUnit.SECONDS);
+			if (s == null) throw new AssertionError("nothing sent");
+			return s;
+		}
+
+	}
+
+}
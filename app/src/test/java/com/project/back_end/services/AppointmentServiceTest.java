@@ -0,0 +1,75 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.InMemoryPrescriptionRepository;
+import com.project.back_end.repo.PatientRepository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Booking under contention: concurrent requests for one doctor's slot are serialized on the
+ * doctor's row, so exactly one of them gets it.
+ */
+@SpringBootTest
+@ActiveProfiles("shards")
+@Import(InMemoryPrescriptionRepository.Config.class)
+class AppointmentServiceTest {
+
+	private static final LocalDate DAY = LocalDate.now().plusDays(7);
+
+	@Autowired
+	DoctorRepository doctorRepository;
+
+	@Autowired
+	PatientRepository patientRepository;
+
+	@Autowired
+	AppointmentService appointmentService;
+
+	@Test
+	void concurrentBookingsOfOneSlotLetExactlyOneThrough() throws Exception {
+		ClinicFixture clinic = new ClinicFixture(doctorRepository, patientRepository);
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			// a lost race is rare in one round, so run several
+			for (int round = 0; round < 20; round++) {
+				Doctor doctor = clinic.doctor();
+				LocalDateTime slot = DAY.atTime(10, 0);
+				List<Appointment> requests = new ArrayList<>();
+				for (int i = 0; i < 8; i++) requests.add(new Appointment(null, doctor, clinic.patient(), slot, 0));
+
+				CountDownLatch start = new CountDownLatch(1);
+				List<Future<Integer>> results = new ArrayList<>();
+				for (Appointment a : requests) {
+					results.add(pool.submit(() -> {
+						start.await();
+						return appointmentService.bookAppointment(a);
+					}));
+				}
+				start.countDown();
+				int booked = 0;
+				for (Future<Integer> r : results) booked += r.get();
+				assertEquals(1, booked);
+				assertEquals(1, appointmentService.getAppointments(doctor.getId(), DAY, null).size());
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+}
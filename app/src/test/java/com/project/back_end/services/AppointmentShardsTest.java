@@ -0,0 +1,341 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.config.ShardRoutingDataSource;
+import com.project.back_end.config.ShardSchemaInitializer;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.InMemoryPrescriptionRepository;
+import com.project.back_end.repo.PatientRepository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Appointment sharding against three H2 databases: placement by doctor, patient queries fanned
+ * out and merged, doctors moved between shards by the rebalancer (and cleanup after a move that
+ * did not finish), batched status changes, completion of expired appointments, and overlap
+ * checks for appointments longer than a slot.
+ */
+@SpringBootTest
+@ActiveProfiles("shards")
+@Import(InMemoryPrescriptionRepository.Config.class)
+class AppointmentShardsTest {
+
+	private static final LocalDate DAY = LocalDate.now().plusDays(7);
+
+	@Autowired
+	DoctorRepository doctorRepository;
+
+	@Autowired
+	PatientRepository patientRepository;
+
+	@Autowired
+	AppointmentService appointmentService;
+
+	@Autowired
+	PatientService patientService;
+
+	@Autowired
+	DoctorService doctorService;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	AppointmentShards shards;
+
+	@Autowired
+	ShardRebalancer rebalancer;
+
+	@Autowired
+	ShardRoutingDataSource routing;
+
+	@Autowired
+	AppointmentSweeper sweeper;
+
+	@Test
+	void bookingsLandOnTheDoctorsShard() {
+		for (int i = 0; i < 6; i++) {
+			Patient patient = patient();
+			Doctor doctor = doctor();
+			assertEquals(1, appointmentService.bookAppointment(new Appointment(null, doctor, patient, DAY.atTime(9, 0), 0)));
+
+			int shard = shards.shardOf(doctor.getId());
+			for (int k = 0; k < routing.shardCount(); k++) {
+				assertEquals(k == shard ? 1 : 0, count(k, doctor.getId()));
+			}
+			Long id = appointmentService.getAppointments(doctor.getId(), DAY, null).get(0).getId();
+			assertEquals(shard, (int) (id / ShardSchemaInitializer.ID_RANGE));
+
+			// the same slot is taken on the doctor's shard, and no longer offered
+			assertEquals(0, appointmentService.bookAppointment(new Appointment(null, doctor, patient, DAY.atTime(9, 0), 0)));
+			// only the doctor's own slot times can be booked
+			assertEquals(0, appointmentService.bookAppointment(new Appointment(null, doctor, patient, DAY.atTime(13, 0), 0)));
+			assertFalse(doctorService.getDoctorAvailability(doctor.getId(), DAY).contains("09:00-10:00"));
+		}
+	}
+
+	@Test
+	void patientAppointmentsAreMergedAcrossShards() {
+		Patient patient = patient();
+		List<LocalDateTime> times = List.of(DAY.atTime(16, 0), DAY.atTime(9, 0), DAY.plusDays(1).atTime(11, 0),
+				DAY.atTime(12, 0), DAY.minusDays(1).atTime(14, 0), DAY.atTime(10, 0));
+		for (LocalDateTime time : times) {
+			assertEquals(1, appointmentService.bookAppointment(new Appointment(null, doctor(), patient, time, 0)));
+		}
+
+		List<AppointmentDTO> appointments = patientService.getPatientAppointments(patient.getId());
+		List<LocalDateTime> sorted = new ArrayList<>(times);
+		sorted.sort(null);
+		assertEquals(sorted, appointments.stream().map(AppointmentDTO::getAppointmentTime).toList());
+	}
+
+	@Test
+	void movedDoctorKeepsAppointmentsAndIds() {
+		Patient patient = patient();
+		Doctor doctor = doctor();
+		for (int h = 9; h < 13; h++) {
+			assertEquals(1, appointmentService.bookAppointment(new Appointment(null, doctor, patient, DAY.atTime(h, 0), 0)));
+		}
+		List<Long> ids = appointmentService.getAppointments(doctor.getId(), DAY, null).stream().map(Appointment::getId).toList();
+		int source = shards.shardOf(doctor.getId());
+		int target = (source + 1) % routing.shardCount();
+
+		shards.moveDoctor(doctor.getId(), target);
+
+		assertEquals(target, shards.shardOf(doctor.getId()));
+		assertEquals(0, count(source, doctor.getId()));
+		assertEquals(4, count(target, doctor.getId()));
+		for (Long id : ids) assertTrue(appointmentService.findAppointment(id).isPresent());
+		assertTrue(appointmentService.cancelAppointment(ids.get(0), patient.getId()));
+		assertEquals(3, appointmentService.getAppointments(doctor.getId(), DAY, null).size());
+		assertTrue(doctorService.getDoctorAvailability(doctor.getId(), DAY).contains("09:00-10:00"));
+	}
+
+	@Test
+	void newIdsStayInTheShardsRangeAfterAMoveDown() {
+		Patient patient = patient();
+		int top = routing.shardCount() - 1;
+		Doctor moved = doctor();
+		shards.moveDoctor(moved.getId(), top);
+		assertEquals(1, appointmentService.bookAppointment(new Appointment(null, moved, patient, DAY.atTime(11, 0), 0)));
+		shards.moveDoctor(moved.getId(), 0);
+
+		Doctor stays = doctor();
+		shards.moveDoctor(stays.getId(), 0);
+		assertEquals(1, appointmentService.bookAppointment(new Appointment(null, stays, patient, DAY.atTime(12, 0), 0)));
+		Long id = appointmentService.getAppointments(stays.getId(), DAY, null).get(0).getId();
+		assertEquals(0, id / ShardSchemaInitializer.ID_RANGE);
+	}
+
+	@Test
+	void rebalanceNeverWidensTheSpread() {
+		Patient patient = patient();
+		Doctor busy = doctor();
+		for (int h = 8; h < 18; h++) {
+			appointmentService.bookAppointment(new Appointment(null, busy, patient, DAY.plusDays(2).atTime(h, 0), 0));
+		}
+		Map<Integer, Long> before = rebalancer.loads();
+		rebalancer.rebalance();
+		Map<Integer, Long> after = rebalancer.loads();
+
+		assertEquals(sum(before), sum(after));
+		assertTrue(spread(after) <= spread(before));
+		assertTrue(rebalancer.plan().isEmpty());
+	}
+
+	@Test
+	void copiesLeftByAnInterruptedMoveAreRemoved() {
+		Patient patient = patient();
+		Doctor doctor = doctor();
+		shards.moveDoctor(doctor.getId(), 1);
+		assertEquals(1, appointmentService.bookAppointment(new Appointment(null, doctor, patient, DAY.atTime(9, 0), 0)));
+		// a move back to the primary that stopped after copying, before switching the directory
+		Map<String, Object> row = new JdbcTemplate(routing.shard(1))
+				.queryForMap("SELECT * FROM appointment WHERE doctor_id = ?", doctor.getId());
+		new SimpleJdbcInsert(routing.shard(0)).withTableName("appointment").execute(row);
+		assertEquals(1, count(0, doctor.getId()));
+
+		assertTrue(shards.finishInterruptedMoves().contains(doctor.getId()));
+		assertEquals(0, count(0, doctor.getId()));
+		assertEquals(1, count(1, doctor.getId()));
+		assertEquals(1, shards.shardOf(doctor.getId()));
+	}
+
+	@Test
+	void onDoctorRefusesToSwitchShardsOnceATransactionHasAConnection() {
+		Doctor onPrimary = doctor();
+		Doctor onShard = doctor();
+		shards.moveDoctor(onPrimary.getId(), 0);
+		shards.moveDoctor(onShard.getId(), 1);
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			shards.onDoctor(onPrimary.getId(), () -> patientRepository.count());
+			assertThrows(IllegalStateException.class, () -> shards.onDoctor(onShard.getId(), () -> patientRepository.count()));
+			// the shard it is already on is fine
+			assertTrue(shards.onDoctor(onPrimary.getId(), () -> patientRepository.count()) > 0);
+		});
+		// the next transaction starts unbound
+		new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+				assertTrue(shards.onDoctor(onShard.getId(), () -> patientRepository.count()) >= 0));
+	}
+
+	@Test
+	void batchStatusChangeReportsForeignAndMissingIds() {
+		Patient patient = patient();
+		Doctor doctor = doctor();
+		Doctor other = doctor();
+		for (int h = 9; h < 13; h++) {
+			assertEquals(1, appointmentService.bookAppointment(new Appointment(null, doctor, patient, DAY.atTime(h, 0), 0)));
+		}
+		assertEquals(1, appointmentService.bookAppointment(new Appointment(null, other, patient(), DAY.atTime(9, 0), 0)));
+		List<Long> ids = new ArrayList<>(appointmentService.getAppointments(doctor.getId(), DAY, null).stream().map(Appointment::getId).toList());
+		Long foreign = appointmentService.getAppointments(other.getId(), DAY, null).get(0).getId();
+		ids.add(foreign);
+		ids.add(Long.MAX_VALUE);
+
+		assertEquals(List.of(foreign, Long.MAX_VALUE), appointmentService.changeStatuses(ids, 1, doctor.getId()));
+		for (Appointment a : appointmentService.getAppointments(doctor.getId(), DAY, null)) assertEquals(1, a.getStatus());
+		assertEquals(0, appointmentService.findAppointment(foreign).get().getStatus());
+
+		assertTrue(appointmentService.changeStatus(foreign, 1));
+		assertFalse(appointmentService.changeStatus(Long.MAX_VALUE, 1));
+		assertEquals(1, appointmentService.findAppointment(foreign).get().getStatus());
+	}
+
+	@Test
+	void expiredAppointmentsAreCompletedAndFilteredByTime() {
+		Patient patient = patient();
+		List<Doctor> doctors = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			Doctor doctor = doctor();
+			doctors.add(doctor);
+			assertEquals(1, appointmentService.bookAppointment(new Appointment(null, doctor, patient, DAY.atTime(9 + i, 0), 0)));
+		}
+		// two of them took place yesterday and nobody completed them; the third is still ahead
+		LocalDateTime yesterday = LocalDateTime.now().minusDays(1).withNano(0);
+		for (int i = 0; i < 2; i++) {
+			new JdbcTemplate(routing.shard(shards.shardOf(doctors.get(i).getId()))).update(
+					"UPDATE appointment SET appointment_time = ? WHERE doctor_id = ?", yesterday.plusMinutes(i), doctors.get(i).getId());
+		}
+
+		List<AppointmentDTO> past = patientService.filterByCondition(patient.getId(), "past");
+		List<AppointmentDTO> future = patientService.filterByCondition(patient.getId(), "future");
+		assertEquals(List.of(yesterday, yesterday.plusMinutes(1)), past.stream().map(AppointmentDTO::getAppointmentTime).toList());
+		assertEquals(List.of(DAY.atTime(11, 0)), future.stream().map(AppointmentDTO::getAppointmentTime).toList());
+
+		assertTrue(sweeper.sweepNow() >= 2);
+		for (AppointmentDTO a : patientService.getPatientAppointments(patient.getId())) {
+			assertEquals(a.getAppointmentTime().isBefore(LocalDateTime.now()) ? 1 : 0, a.getStatus());
+		}
+		assertEquals(1, patientService.filterByDoctorAndCondition(patient.getId(), doctors.get(2).getName(), "future").size());
+		assertTrue(patientService.filterByDoctorAndCondition(patient.getId(), doctors.get(2).getName(), "past").isEmpty());
+	}
+
+	@Test
+	void longAppointmentsAreOverWhenTheyEndNotWhenTheyStart() {
+		Patient patient = patient();
+		Doctor running = doctor();
+		Doctor finished = doctor();
+		Appointment inProgress = new Appointment(null, running, patient, DAY.atTime(9, 0), 0);
+		inProgress.setDurationMinutes(180);
+		assertEquals(1, appointmentService.bookAppointment(inProgress));
+		Appointment over = new Appointment(null, finished, patient, DAY.atTime(14, 0), 0);
+		over.setDurationMinutes(180);
+		assertEquals(1, appointmentService.bookAppointment(over));
+		// both started before the sweeper's cutoff (an hour ago); only the second has ended before it
+		LocalDateTime now = LocalDateTime.now().withNano(0);
+		new JdbcTemplate(routing.shard(shards.shardOf(running.getId()))).update(
+				"UPDATE appointment SET appointment_time = ? WHERE doctor_id = ?", now.minusHours(2), running.getId());
+		new JdbcTemplate(routing.shard(shards.shardOf(finished.getId()))).update(
+				"UPDATE appointment SET appointment_time = ? WHERE doctor_id = ?", now.minusHours(5), finished.getId());
+
+		assertEquals(List.of(now.minusHours(5)), patientService.filterByCondition(patient.getId(), "past").stream()
+				.map(AppointmentDTO::getAppointmentTime).toList());
+		assertEquals(List.of(now.minusHours(2)), patientService.filterByCondition(patient.getId(), "future").stream()
+				.map(AppointmentDTO::getAppointmentTime).toList());
+		assertEquals(1, patientService.filterByDoctorAndCondition(patient.getId(), running.getName(), "future").size());
+		assertTrue(patientService.filterByDoctorAndCondition(patient.getId(), running.getName(), "past").isEmpty());
+
+		sweeper.sweepNow();
+		assertEquals(0, appointmentService.findAppointment(inProgress.getId()).get().getStatus());
+		assertEquals(1, appointmentService.findAppointment(over.getId()).get().getStatus());
+	}
+
+	@Test
+	void longerAppointmentsBlockTheSlotsTheyOverlap() {
+		for (int i = 0; i < 2; i++) {
+			Patient patient = patient();
+			Doctor doctor = doctor();
+			Appointment longOne = new Appointment(null, doctor, patient, DAY.atTime(9, 0), 0);
+			longOne.setDurationMinutes(90);
+			assertEquals(1, appointmentService.bookAppointment(longOne));
+			// the first time the guarded insert refuses on its own, the second time the interval tree is built already
+			if (i == 1) doctorService.getDoctorAvailability(doctor.getId(), DAY);
+			assertEquals(0, appointmentService.bookAppointment(new Appointment(null, doctor, patient, DAY.atTime(10, 0), 0)));
+
+			List<String> available = doctorService.getDoctorAvailability(doctor.getId(), DAY);
+			assertFalse(available.contains("09:00-10:00"));
+			assertFalse(available.contains("10:00-11:00"));
+			assertTrue(available.contains("11:00-12:00"));
+		}
+
+		// rescheduling keeps the length and ignores the appointment itself
+		Patient patient = patient();
+		Doctor doctor = doctor();
+		Appointment longOne = new Appointment(null, doctor, patient, DAY.atTime(9, 0), 0);
+		longOne.setDurationMinutes(90);
+		assertEquals(1, appointmentService.bookAppointment(longOne));
+		assertEquals(1, appointmentService.bookAppointment(new Appointment(null, doctor, patient, DAY.atTime(12, 0), 0)));
+		Appointment moved = new Appointment(null, null, null, DAY.atTime(10, 0), 0);
+		assertEquals("OK", appointmentService.updateAppointment(longOne.getId(), moved, patient.getId()));
+		assertEquals(90, appointmentService.findAppointment(longOne.getId()).get().getDurationMinutes());
+		moved = new Appointment(null, null, null, DAY.atTime(11, 0), 0);
+		assertEquals("Requested timeslot not available", appointmentService.updateAppointment(longOne.getId(), moved, patient.getId()));
+		// free, but not one of the doctor's slots
+		moved = new Appointment(null, null, null, DAY.atTime(10, 30), 0);
+		assertEquals("Requested timeslot not available", appointmentService.updateAppointment(longOne.getId(), moved, patient.getId()));
+		assertEquals(DAY.atTime(10, 0), appointmentService.findAppointment(longOne.getId()).get().getAppointmentTime());
+	}
+
+	private Doctor doctor() {
+		return new ClinicFixture(doctorRepository, patientRepository).doctor();
+	}
+
+	private Patient patient() {
+		return new ClinicFixture(doctorRepository, patientRepository).patient();
+	}
+
+	private long count(int shard, Long doctorId) {
+		return new JdbcTemplate(routing.shard(shard))
+				.queryForObject("SELECT COUNT(*) FROM appointment WHERE doctor_id = ?", Long.class, doctorId);
+	}
+
+	private static long sum(Map<Integer, Long> loads) {
+		return loads.values().stream().mapToLong(Long::longValue).sum();
+	}
+
+	private static long spread(Map<Integer, Long> loads) {
+		return loads.values().stream().mapToLong(Long::longValue).max().orElse(0)
+				- loads.values().stream().mapToLong(Long::longValue).min().orElse(0);
+	}
+
+}
@@ -0,0 +1,156 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.repo.AppointmentRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The status write-behind queue over a mocked repository. Updating appointment BLOCKER holds
+ * the writer inside a flush until the test releases it, so what queues up meanwhile is known
+ * exactly.
+ */
+class AppointmentStatusWriterTest {
+
+	private static final Long BLOCKER = 1000L;
+
+	private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final CountDownLatch blocked = new CountDownLatch(1);
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final List<AppointmentStatusWriter> writers = new ArrayList<>();
+
+	@AfterEach
+	void stop() {
+		release.countDown();
+		writers.forEach(AppointmentStatusWriter::stop);
+	}
+
+	@Test
+	void changesQueuedDuringAFlushShareTheNextOne() throws Exception {
+		AppointmentStatusWriter writer = writer(100, 100);
+		CompletableFuture<Boolean> first = blockWriter(writer);
+		List<CompletableFuture<Boolean>> queued = new ArrayList<>();
+		for (long id = 1; id <= 5; id++) queued.add(writer.submit(id, 1));
+		release.countDown();
+
+		assertTrue(first.get(5, TimeUnit.SECONDS));
+		for (CompletableFuture<Boolean> f : queued) assertTrue(f.get(5, TimeUnit.SECONDS));
+		verify(appointmentRepository).updateStatuses(1, List.of(1L, 2L, 3L, 4L, 5L));
+		DistributionSummary batches = registry.get("appointments.status.batch").summary();
+		assertEquals(2, batches.count());
+		assertEquals(5, batches.max());
+	}
+
+	@Test
+	void theLastChangeToAnAppointmentInAFlushWins() throws Exception {
+		AppointmentStatusWriter writer = writer(100, 100);
+		CompletableFuture<Boolean> first = blockWriter(writer);
+		List<CompletableFuture<Boolean>> changes = List.of(writer.submit(7L, 1), writer.submit(7L, 2), writer.submit(7L, 0));
+		release.countDown();
+
+		assertTrue(first.get(5, TimeUnit.SECONDS));
+		for (CompletableFuture<Boolean> f : changes) assertTrue(f.get(5, TimeUnit.SECONDS));
+		verify(appointmentRepository).updateStatuses(0, List.of(7L));
+		verify(appointmentRepository, never()).updateStatuses(eq(1), eq(List.of(7L)));
+		verify(appointmentRepository, never()).updateStatuses(eq(2), eq(List.of(7L)));
+	}
+
+	@Test
+	void aFullQueueRejectsTheChange() throws Exception {
+		AppointmentStatusWriter writer = writer(1, 1);
+		CompletableFuture<Boolean> first = blockWriter(writer);
+		CompletableFuture<Boolean> queued = writer.submit(1L, 1);
+		CompletableFuture<Boolean> rejected = writer.submit(2L, 1);
+
+		ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+		assertInstanceOf(RejectedExecutionException.class, e.getCause());
+		release.countDown();
+		assertTrue(first.get(5, TimeUnit.SECONDS));
+		assertTrue(queued.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void anUnknownAppointmentFails() throws Exception {
+		AppointmentStatusWriter writer = writer(100, 100);
+		release.countDown();
+		assertFalse(writer.submit(-1L, 1).get(5, TimeUnit.SECONDS));
+		assertEquals(1, registry.get("appointments.status.failed").counter().count());
+	}
+
+	@Test
+	void statusChangesAreRefusedInsideATransaction() {
+		AppointmentStatusWriter writer = mock(AppointmentStatusWriter.class);
+		AppointmentService service = new AppointmentService(appointmentRepository, null, null, null, new EntityVersions(),
+				AppointmentShards.unsharded(), null, writer, null, null, null, null);
+		// waiting on the writer from inside a transaction could deadlock on the row lock
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		try {
+			assertThrows(IllegalStateException.class, () -> service.changeStatus(1L, 1));
+			assertThrows(IllegalStateException.class, () -> service.changeStatuses(List.of(1L), 1, 1L));
+		} finally {
+			TransactionSynchronizationManager.setActualTransactionActive(false);
+		}
+		verify(writer, never()).submit(1L, 1);
+	}
+
+	/**
+	 * Submit the blocking change and wait until the writer is stuck flushing it.
+	 */
+	private CompletableFuture<Boolean> blockWriter(AppointmentStatusWriter writer) throws InterruptedException {
+		CompletableFuture<Boolean> f = writer.submit(BLOCKER, 1);
+		assertTrue(blocked.await(5, TimeUnit.SECONDS));
+		return f;
+	}
+
+	@SuppressWarnings("unchecked")
+	private AppointmentStatusWriter writer(int capacity, int maxBatch) {
+		when(appointmentRepository.updateStatuses(anyInt(), anyCollection())).thenAnswer(inv -> {
+			Collection<Long> ids = inv.getArgument(1);
+			if (ids.contains(BLOCKER)) {
+				blocked.countDown();
+				release.await();
+			}
+			return ids.size();
+		});
+		// every positive id exists
+		when(appointmentRepository.findAllById(anyCollection())).thenAnswer(inv -> {
+			List<Appointment> found = new ArrayList<>();
+			for (Long id : (Collection<Long>) inv.getArgument(0)) {
+				if (id > 0) found.add(new Appointment(id, null, null, null, 0));
+			}
+			return found;
+		});
+		AppointmentStatusWriter writer = new AppointmentStatusWriter(appointmentRepository, AppointmentShards.unsharded(),
+				new EntityVersions(), mock(AppointmentEvents.class), mock(PlatformTransactionManager.class), registry,
+				capacity, maxBatch, 0, 0);
+		writers.add(writer);
+		return writer;
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.InMemoryPrescriptionRepository;
+import com.project.back_end.repo.PatientRepository;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * The month availability heatmap: free slots per doctor and day, and the version the response
+ * cache keys it by.
+ */
+@SpringBootTest
+@ActiveProfiles("shards")
+@Import(InMemoryPrescriptionRepository.Config.class)
+class AvailabilityHeatmapTest {
+
+	private static final LocalDate DAY = LocalDate.now().plusDays(7);
+
+	@Autowired
+	DoctorRepository doctorRepository;
+
+	@Autowired
+	PatientRepository patientRepository;
+
+	@Autowired
+	AppointmentService appointmentService;
+
+	@Autowired
+	AvailabilityHeatmap heatmap;
+
+	@Test
+	void heatmapCountsFreeSlotsPerDay() {
+		ClinicFixture clinic = new ClinicFixture(doctorRepository, patientRepository);
+		Doctor busy = clinic.doctor();
+		Doctor idle = clinic.doctor();
+		Appointment longOne = new Appointment(null, busy, clinic.patient(), DAY.atTime(9, 0), 0);
+		longOne.setDurationMinutes(90);
+		assertEquals(1, appointmentService.bookAppointment(longOne));
+		assertEquals(1, appointmentService.bookAppointment(new Appointment(null, busy, clinic.patient(), DAY.atTime(12, 0), 0)));
+
+		YearMonth month = YearMonth.from(DAY);
+		Map<Long, Map<String, Integer>> days = heatmap.freeSlots(List.of(busy.getId(), idle.getId(), Long.MAX_VALUE), month);
+		assertEquals(List.of(busy.getId(), idle.getId()), new ArrayList<>(days.keySet()));
+		// six slots; 150 booked minutes take three of them
+		assertEquals(3, days.get(busy.getId()).get(DAY.toString()));
+		assertEquals(6, days.get(idle.getId()).get(DAY.toString()));
+		assertEquals(month.lengthOfMonth(), days.get(idle.getId()).size());
+
+		assertEquals(1, appointmentService.bookAppointment(new Appointment(null, busy, clinic.patient(), DAY.atTime(14, 0), 0)));
+		assertEquals(2, heatmap.freeSlots(List.of(busy.getId()), month).get(busy.getId()).get(DAY.toString()));
+	}
+
+	@Test
+	void aBookingChangesTheHeatmapVersion() {
+		ClinicFixture clinic = new ClinicFixture(doctorRepository, patientRepository);
+		Doctor doctor = clinic.doctor();
+		List<Long> ids = List.of(doctor.getId());
+		long before = heatmap.getVersion(ids);
+		assertEquals(before, heatmap.getVersion(ids));
+
+		assertEquals(1, appointmentService.bookAppointment(new Appointment(null, doctor, clinic.patient(), DAY.atTime(9, 0), 0)));
+		long after = heatmap.getVersion(ids);
+		assertNotEquals(before, after);
+		// a refused booking changes nothing
+		assertEquals(0, appointmentService.bookAppointment(new Appointment(null, doctor, clinic.patient(), DAY.atTime(9, 0), 0)));
+		assertEquals(after, heatmap.getVersion(ids));
+	}
+
+}
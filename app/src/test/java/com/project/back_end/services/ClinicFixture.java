@@ -0,0 +1,58 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Doctors and patients for the tests sharing the "shards" context. The sequence is shared by
+ * every test class, so emails and phones stay unique in the cached databases.
+ */
+final class ClinicFixture {
+
+	private static final AtomicInteger SEQ = new AtomicInteger();
+
+	private final DoctorRepository doctorRepository;
+	private final PatientRepository patientRepository;
+
+	ClinicFixture(DoctorRepository doctorRepository, PatientRepository patientRepository) {
+		this.doctorRepository = doctorRepository;
+		this.patientRepository = patientRepository;
+	}
+
+	/**
+	 * A cardiologist with one-hour slots from 09:00 to 13:00, 14:00 to 15:00 and 16:00 to 17:00.
+	 */
+	Doctor doctor() {
+		return doctor("Cardiology");
+	}
+
+	Doctor doctor(String specialty) {
+		int n = SEQ.incrementAndGet();
+		Doctor d = new Doctor();
+		d.setName("Doctor " + n);
+		d.setEmail("doctor" + n + "@shards.test");
+		d.setPassword("secret" + n);
+		d.setPhone(String.format("%010d", n));
+		d.setSpecialty(specialty);
+		d.setAvailableTimes(new ArrayList<>(List.of("09:00-10:00", "10:00-11:00", "11:00-12:00", "12:00-13:00",
+				"14:00-15:00", "16:00-17:00")));
+		return doctorRepository.save(d);
+	}
+
+	Patient patient() {
+		int n = SEQ.incrementAndGet();
+		Patient p = new Patient();
+		p.setName("Patient " + n);
+		p.setEmail("patient" + n + "@shards.test");
+		p.setPassword("secret" + n);
+		p.setPhone(String.format("9%09d", n));
+		p.setAddress(n + " Main Street");
+		return patientRepository.save(p);
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.project.back_end.config.ShardRoutingDataSource;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Prescription;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.InMemoryPrescriptionRepository;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.repo.PrescriptionRepository;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Deleting a doctor on the sharded setup: the appointments go in small chunks on the doctor's
+ * shard, and their prescriptions are removed in the background.
+ */
+@SpringBootTest
+@ActiveProfiles("shards")
+@Import(InMemoryPrescriptionRepository.Config.class)
+// small chunks, so deleting a doctor takes several; a context of its own, so databases of its own
+// too, or its create-drop would reset the tables under the other shards-profile tests
+@TestPropertySource(properties = {
+		"doctor.deletion.chunk-size=2",
+		"spring.datasource.url=jdbc:h2:mem:deletions0;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"db.shards.urls=jdbc:h2:mem:deletions1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1,"
+				+ "jdbc:h2:mem:deletions2;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1" })
+class DoctorDeletionsTest {
+
+	private static final LocalDate DAY = LocalDate.now().plusDays(7);
+
+	@Autowired
+	DoctorRepository doctorRepository;
+
+	@Autowired
+	PatientRepository patientRepository;
+
+	@Autowired
+	AppointmentService appointmentService;
+
+	@Autowired
+	DoctorService doctorService;
+
+	@Autowired
+	AppointmentShards shards;
+
+	@Autowired
+	ShardRoutingDataSource routing;
+
+	@Autowired
+	DoctorDeletions deletions;
+
+	@Autowired
+	PrescriptionRepository prescriptionRepository;
+
+	@Test
+	void deletingADoctorRemovesAppointmentsInChunksAndTheirPrescriptions() throws Exception {
+		ClinicFixture clinic = new ClinicFixture(doctorRepository, patientRepository);
+		Doctor onPrimary = clinic.doctor();
+		Doctor onShard = clinic.doctor();
+		Doctor kept = clinic.doctor();
+		shards.moveDoctor(onPrimary.getId(), 0);
+		shards.moveDoctor(onShard.getId(), 2);
+		for (Doctor d : List.of(onPrimary, onShard, kept)) {
+			for (int h : new int[] { 9, 10, 11, 12, 14 }) {
+				assertEquals(1, appointmentService.bookAppointment(new Appointment(null, d, clinic.patient(), DAY.atTime(h, 0), 0)));
+			}
+			for (Appointment a : appointmentService.getAppointments(d.getId(), DAY, null)) {
+				prescriptionRepository.save(new Prescription("Patient", "Aspirin", "1 daily", null, a.getId()));
+			}
+		}
+		long before = prescriptionRepository.count();
+
+		assertEquals(1, doctorService.deleteDoctor(onPrimary.getId()));
+		assertEquals(1, doctorService.deleteDoctor(onShard.getId()));
+		assertEquals(-1, doctorService.deleteDoctor(onShard.getId()));
+		assertEquals(0, count(0, onPrimary.getId()));
+		assertEquals(0, count(2, onShard.getId()));
+		assertEquals(5, count(shards.shardOf(kept.getId()), kept.getId()));
+
+		deletions.awaitCleanup(10, TimeUnit.SECONDS);
+		for (Long id : List.of(onPrimary.getId(), onShard.getId())) {
+			DoctorDeletions.Progress progress = deletions.recent().stream().filter(p -> p.getDoctorId().equals(id)).findFirst().orElseThrow();
+			assertEquals(DoctorDeletions.State.DONE, progress.getState());
+			assertEquals(5, progress.getAppointmentsDeleted());
+			assertEquals(5, progress.getPrescriptionsDeleted());
+			assertEquals(0, progress.getPendingBatches());
+		}
+		assertEquals(before - 10, prescriptionRepository.count());
+	}
+
+	private long count(int shard, Long doctorId) {
+		return new JdbcTemplate(routing.shard(shard))
+				.queryForObject("SELECT COUNT(*) FROM appointment WHERE doctor_id = ?", Long.class, doctorId);
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Doctor signup against an embedded database: a taken email is refused by the unique
+ * constraint, in the INSERT itself.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DoctorServiceTest {
+
+	@Autowired
+	DoctorRepository doctorRepository;
+
+	@Test
+	void aTakenEmailIsAConflict() {
+		EntityVersions versions = new EntityVersions();
+		// saving a doctor touches only the repository and the directory version
+		DoctorService service = new DoctorService(doctorRepository, null, versions, null, null, null, null, null);
+		assertEquals(1, service.saveDoctor(doctor("doctor.one@doctors.test", "5550000001")));
+		long directory = versions.current(EntityVersions.DOCTORS);
+
+		assertEquals(-1, service.saveDoctor(doctor("doctor.one@doctors.test", "5550000002")));
+		assertEquals(directory, versions.current(EntityVersions.DOCTORS));
+		assertEquals(1, service.saveDoctor(doctor("doctor.two@doctors.test", "5550000002")));
+	}
+
+	private static Doctor doctor(String email, String phone) {
+		Doctor d = new Doctor();
+		d.setName("Doctor Twin");
+		d.setEmail(email);
+		d.setPassword("secret");
+		d.setPhone(phone);
+		d.setSpecialty("Cardiology");
+		d.setAvailableTimes(new ArrayList<>(List.of("09:00-10:00")));
+		return d;
+	}
+
+}
@@ -0,0 +1,141 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.ScheduleOverride;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.ScheduleOverrideRepository;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Schedules compiled into slot bitmaps, over mocked repositories: dated exceptions before
+ * weekday rules before availableTimes, AM/PM periods, and recompiling once the doctor's
+ * schedule version moves.
+ */
+class DoctorSlotsTest {
+
+	/** A Monday. */
+	private static final LocalDate DAY = LocalDate.of(2030, 1, 7);
+
+	private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+	private final ScheduleOverrideRepository overrideRepository = mock(ScheduleOverrideRepository.class);
+	private final EntityVersions versions = new EntityVersions();
+	private final DoctorSlots slots = new DoctorSlots(doctorRepository, overrideRepository, versions);
+
+	@Test
+	void datedExceptionsAndWeekdayRulesDecideEachDaysSlots() {
+		Doctor doctor = doctor(1L, "09:00-10:00", "10:00-11:00", "14:00-15:00");
+		when(overrideRepository.findByDoctorId(1L)).thenReturn(List.of(
+				new ScheduleOverride(1L, null, DAY, ""),
+				new ScheduleOverride(1L, DAY.plusDays(1).getDayOfWeek(), null, "08:00-09:00"),
+				new ScheduleOverride(1L, null, DAY.plusDays(2), "14:00-15:00")));
+
+		DoctorSlots.Schedule schedule = slots.get(doctor.getId());
+		// day off
+		assertEquals(0, schedule.slotsOn(DAY));
+		assertFalse(schedule.offers(DAY.atTime(9, 0)));
+		// weekday rule, the dated exception, and the everyday slots a week later
+		assertEquals(List.of("08:00-09:00"), labels(schedule, schedule.slotsOn(DAY.plusDays(1))));
+		assertEquals(List.of("14:00-15:00"), labels(schedule, schedule.slotsOn(DAY.plusDays(2))));
+		assertEquals(List.of("08:00-09:00"), labels(schedule, schedule.slotsOn(DAY.plusDays(8))));
+		assertEquals(List.of("09:00-10:00", "10:00-11:00", "14:00-15:00"), labels(schedule, schedule.slotsOn(DAY.plusDays(7))));
+		assertTrue(schedule.offers(DAY.plusDays(7).atTime(9, 0)));
+		assertFalse(schedule.offers(DAY.plusDays(7).atTime(9, 30)));
+		// the weekly bits ignore dated exceptions
+		assertEquals(List.of("08:00-09:00", "09:00-10:00", "10:00-11:00", "14:00-15:00"), labels(schedule, schedule.weekly()));
+		// the summary carries no credentials
+		assertEquals("Doctor 1", schedule.getDoctor().getName());
+		assertNull(schedule.getDoctor().getPassword());
+	}
+
+	@Test
+	void slotsAreStartOrderedBitsAndKnowTheirLength() {
+		doctor(1L, "16:00-17:30", "09:00-10:00", "23:00-00:30", "9am");
+		when(overrideRepository.findByDoctorId(1L)).thenReturn(List.of());
+
+		DoctorSlots.Schedule schedule = slots.get(1L);
+		assertEquals(List.of("09:00-10:00", "16:00-17:30", "23:00-00:30"), labels(schedule, schedule.weekly()));
+		assertEquals(0b111, schedule.weekly());
+		assertEquals(90, schedule.lengthOf(DAY.atTime(16, 0)));
+		// running past midnight
+		assertEquals(90, schedule.lengthOf(DAY.atTime(23, 0)));
+		// no such slot: an hour
+		assertEquals(60, schedule.lengthOf(DAY.atTime(12, 0)));
+		assertNull(DoctorSlots.parse("9am"));
+	}
+
+	@Test
+	void periodsSplitTheSlotsAtNoon() {
+		Doctor mornings = doctor(1L, "09:00-10:00", "14:00-15:00");
+		Doctor afternoons = doctor(2L, "09:00-10:00");
+		List<ScheduleOverride> weekly = new ArrayList<>();
+		for (DayOfWeek d : DayOfWeek.values()) weekly.add(new ScheduleOverride(2L, d, null, "14:00-15:00"));
+		when(overrideRepository.findByDoctorIdIn(anyList())).thenReturn(weekly);
+
+		Map<Long, DoctorSlots.Schedule> schedules = slots.getAll(List.of(mornings, afternoons));
+		DoctorSlots.Schedule first = schedules.get(1L);
+		assertEquals(List.of("09:00-10:00"), labels(first, first.weekly() & first.period("AM")));
+		assertEquals(List.of("14:00-15:00"), labels(first, first.weekly() & first.period("pm")));
+		assertTrue(first.works("AM"));
+		assertTrue(first.works("PM"));
+		// availableTimes is overridden on every day of the week
+		assertFalse(schedules.get(2L).works("AM"));
+		assertTrue(schedules.get(2L).works("PM"));
+		// one query for the exceptions of all the doctors
+		verify(overrideRepository).findByDoctorIdIn(List.of(1L, 2L));
+	}
+
+	@Test
+	void aScheduleIsRecompiledOnceItsVersionMoves() {
+		doctor(1L, "09:00-10:00");
+		when(overrideRepository.findByDoctorId(1L)).thenReturn(List.of());
+		DoctorSlots.Schedule first = slots.get(1L);
+		assertSame(first, slots.get(1L));
+		verify(doctorRepository, times(1)).findById(1L);
+
+		when(overrideRepository.findByDoctorId(1L)).thenReturn(List.of(new ScheduleOverride(1L, null, DAY, "11:00-12:00")));
+		versions.bump(EntityVersions.doctorSchedule(1L));
+		DoctorSlots.Schedule second = slots.get(1L);
+		verify(doctorRepository, times(2)).findById(1L);
+		assertEquals(List.of("11:00-12:00"), labels(second, second.slotsOn(DAY)));
+		// already compiled: getAll does not query again
+		assertSame(second, slots.getAll(List.of(second.getDoctor())).get(1L));
+		verify(overrideRepository, times(0)).findByDoctorIdIn(anyList());
+
+		when(doctorRepository.findById(1L)).thenReturn(Optional.empty());
+		versions.bump(EntityVersions.DOCTORS);
+		assertNull(slots.get(1L));
+	}
+
+	private Doctor doctor(Long id, String... availableTimes) {
+		Doctor d = new Doctor();
+		d.setId(id);
+		d.setName("Doctor " + id);
+		d.setPassword("secret");
+		d.setSpecialty("Cardiology");
+		d.setAvailableTimes(new ArrayList<>(List.of(availableTimes)));
+		when(doctorRepository.findById(id)).thenReturn(Optional.of(d));
+		return d;
+	}
+
+	private static List<String> labels(DoctorSlots.Schedule schedule, long bits) {
+		return schedule.slots(bits).stream().map(DoctorSlots.Slot::label).toList();
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.project.back_end.DTO.DoctorSuggestion;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The suggestion trie over a mocked doctor directory: matches on any word of the name, the
+ * shortlist cap and the specialty fallback past it, and rebuilding once the directory changes.
+ */
+class DoctorSuggestIndexTest {
+
+	private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+	private final EntityVersions versions = new EntityVersions();
+	private final DoctorSuggestIndex index = new DoctorSuggestIndex(doctorRepository, versions);
+	private final List<Doctor> doctors = new ArrayList<>();
+
+	@Test
+	void namesMatchFromTheStartOfAnyWord() {
+		directory("John Smith", "Mary Smithers", "Ann Anders");
+		assertEquals(List.of("John Smith", "Mary Smithers"), names(index.suggest("smi", null, 10)));
+		assertEquals(List.of("John Smith"), names(index.suggest("John  Sm", null, 10)));
+		assertEquals(List.of("Mary Smithers"), names(index.suggest("SMITHE", null, 10)));
+		assertTrue(index.suggest("ers", null, 10).isEmpty());
+		assertTrue(index.suggest("  ", null, 10).isEmpty());
+	}
+
+	@Test
+	void aDoctorMatchingOnTwoWordsIsSuggestedOnce() {
+		directory("Ann Anders", "Andy Brown");
+		assertEquals(List.of("Andy Brown", "Ann Anders"), names(index.suggest("an", null, 10)));
+		assertEquals(List.of("Ann Anders"), names(index.suggest("ann", null, 10)));
+	}
+
+	@Test
+	void suggestionsAreCappedAndInNameOrder() {
+		List<String> all = new ArrayList<>();
+		for (int i = 30; i >= 1; i--) all.add(String.format("Doc %02d", i));
+		directory(all.toArray(String[]::new));
+		List<String> top = names(index.suggest("doc", null, 100));
+		assertEquals(DoctorSuggestIndex.MAX_SUGGESTIONS, top.size());
+		assertEquals("Doc 01", top.get(0));
+		assertEquals("Doc 20", top.get(top.size() - 1));
+		assertEquals(List.of("Doc 01", "Doc 02", "Doc 03"), names(index.suggest("doc", null, 3)));
+	}
+
+	@Test
+	void aSpecialtyBeyondTheShortlistIsFoundInTheSubtree() {
+		for (int i = 1; i <= 25; i++) {
+			doctors.add(doctor(i, String.format("Doc %02d", i), i <= 20 ? "Cardiology" : "Dermatology"));
+		}
+		when(doctorRepository.findAll()).thenReturn(doctors);
+		assertEquals(List.of("Doc 21", "Doc 22", "Doc 23"), names(index.suggest("doc", "dermatology", 3)));
+		assertEquals(List.of("Doc 01", "Doc 02"), names(index.suggest("doc", "Cardiology", 2)));
+		assertTrue(index.suggest("doc", "Neurology", 3).isEmpty());
+	}
+
+	@Test
+	void theTrieIsRebuiltOnceTheDirectoryVersionChanges() {
+		directory("John Smith");
+		assertTrue(index.suggest("zed", null, 5).isEmpty());
+		doctors.add(doctor(99, "Zed Zorro", "Cardiology"));
+		// same version: still the trie built before
+		assertTrue(index.suggest("zed", null, 5).isEmpty());
+		versions.bump(EntityVersions.DOCTORS);
+		assertEquals(List.of("Zed Zorro"), names(index.suggest("zed", null, 5)));
+		assertEquals(List.of("Zed Zorro"), names(index.suggest("zo", null, 5)));
+		verify(doctorRepository, times(2)).findAll();
+	}
+
+	private void directory(String... names) {
+		for (String name : names) doctors.add(doctor(doctors.size() + 1, name, "Cardiology"));
+		when(doctorRepository.findAll()).thenReturn(doctors);
+	}
+
+	private static Doctor doctor(long id, String name, String specialty) {
+		Doctor d = new Doctor();
+		d.setId(id);
+		d.setName(name);
+		d.setSpecialty(specialty);
+		return d;
+	}
+
+	private static List<String> names(List<DoctorSuggestion> suggestions) {
+		return suggestions.stream().map(DoctorSuggestion::getName).toList();
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Counters and the combined versions built from them: distinct states never share a combined
+ * version, neither do two instances, and a bump inside a transaction waits for the commit.
+ */
+class EntityVersionsTest {
+
+	@Test
+	void combinedVersionsTellCounterStatesApart() {
+		EntityVersions a = new EntityVersions();
+		EntityVersions b = new EntityVersions();
+		String one = EntityVersions.doctorAppointments(1L);
+		String two = EntityVersions.doctorAppointments(2L);
+
+		long initial = a.current(one, two);
+		assertEquals(initial, a.current(one, two));
+		assertNotEquals(initial, a.current(two, one));
+		// same counters, other instance (or a restart of this one)
+		assertNotEquals(initial, b.current(one, two));
+
+		a.bump(one);
+		long afterOne = a.current(one, two);
+		assertNotEquals(initial, afterOne);
+		assertEquals(1, a.current(one));
+		// counters (1, 0) read as (0, 1): a sum would call these equal
+		assertNotEquals(afterOne, a.current(two, one));
+		a.bump(two);
+		assertNotEquals(afterOne, a.current(one, two));
+	}
+
+	@Test
+	void stampsDependOnKeyVersionAndInstance() {
+		EntityVersions a = new EntityVersions();
+		assertEquals(a.stamp("doctors/all", 3), a.stamp("doctors/all", 3));
+		assertNotEquals(a.stamp("doctors/all", 3), a.stamp("doctors/all", 4));
+		assertNotEquals(a.stamp("doctors/all", 3), a.stamp("doctors/other", 3));
+		assertNotEquals(a.stamp("doctors/all", 3), new EntityVersions().stamp("doctors/all", 3));
+	}
+
+	@Test
+	void bumpsInsideATransactionWaitForTheCommit() {
+		EntityVersions versions = new EntityVersions();
+		List<String> seen = new ArrayList<>();
+		versions.addListener(seen::add);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			versions.bump(EntityVersions.DOCTORS);
+			assertEquals(0, versions.current(EntityVersions.DOCTORS));
+			for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) s.afterCommit();
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertEquals(1, versions.current(EntityVersions.DOCTORS));
+		assertEquals(List.of(EntityVersions.DOCTORS), seen);
+	}
+
+}
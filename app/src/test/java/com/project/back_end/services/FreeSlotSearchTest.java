@@ -0,0 +1,65 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.project.back_end.DTO.FreeSlot;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.InMemoryPrescriptionRepository;
+import com.project.back_end.repo.PatientRepository;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * The next-available search over a specialty's doctors, each possibly on another shard.
+ */
+@SpringBootTest
+@ActiveProfiles("shards")
+@Import(InMemoryPrescriptionRepository.Config.class)
+class FreeSlotSearchTest {
+
+	private static final AtomicInteger SEQ = new AtomicInteger();
+	private static final LocalDate DAY = LocalDate.now().plusDays(7);
+
+	@Autowired
+	DoctorRepository doctorRepository;
+
+	@Autowired
+	PatientRepository patientRepository;
+
+	@Autowired
+	AppointmentService appointmentService;
+
+	@Autowired
+	FreeSlotSearch freeSlotSearch;
+
+	@Test
+	void nextAvailableMergesTheSpecialtysDoctorsInTimeOrder() {
+		ClinicFixture clinic = new ClinicFixture(doctorRepository, patientRepository);
+		// a specialty of this test's own, so other doctors in the shared databases stay out
+		String specialty = "Nephrology " + SEQ.incrementAndGet();
+		Doctor busy = clinic.doctor(specialty);
+		Doctor free = clinic.doctor(specialty);
+		Appointment longOne = new Appointment(null, busy, clinic.patient(), DAY.atTime(9, 0), 0);
+		longOne.setDurationMinutes(120);
+		assertEquals(1, appointmentService.bookAppointment(longOne));
+
+		List<FreeSlot> slots = freeSlotSearch.nextAvailable(specialty, null, DAY, 3);
+		assertEquals(List.of(DAY.atTime(9, 0), DAY.atTime(10, 0), DAY.atTime(11, 0)), slots.stream().map(FreeSlot::getStart).toList());
+		assertEquals(free.getId(), slots.get(0).getDoctorId());
+		assertEquals(free.getId(), slots.get(1).getDoctorId());
+		assertEquals("11:00-12:00", slots.get(2).getSlot());
+
+		List<FreeSlot> afternoon = freeSlotSearch.nextAvailable(specialty, "PM", DAY, 4);
+		assertEquals(List.of(DAY.atTime(12, 0), DAY.atTime(12, 0), DAY.atTime(14, 0), DAY.atTime(14, 0)),
+				afternoon.stream().map(FreeSlot::getStart).toList());
+	}
+
+}
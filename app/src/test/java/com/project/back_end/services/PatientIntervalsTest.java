@@ -0,0 +1,93 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.InMemoryPrescriptionRepository;
+import com.project.back_end.repo.PatientRepository;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * The patient's side of the overlap checks, across doctors on different shards, and a
+ * reschedule never conflicting with the appointment it moves.
+ */
+@SpringBootTest
+@ActiveProfiles("shards")
+@Import(InMemoryPrescriptionRepository.Config.class)
+class PatientIntervalsTest {
+
+	private static final LocalDate DAY = LocalDate.now().plusDays(7);
+
+	@Autowired
+	DoctorRepository doctorRepository;
+
+	@Autowired
+	PatientRepository patientRepository;
+
+	@Autowired
+	AppointmentService appointmentService;
+
+	@Autowired
+	PatientIntervals patientIntervals;
+
+	@Test
+	void patientsCannotBeInTwoAppointmentsAtOnce() {
+		ClinicFixture clinic = new ClinicFixture(doctorRepository, patientRepository);
+		Patient patient = clinic.patient();
+		Doctor first = clinic.doctor();
+		Doctor second = clinic.doctor();
+		Appointment longOne = new Appointment(null, first, patient, DAY.atTime(9, 0), 0);
+		longOne.setDurationMinutes(90);
+		assertEquals(1, appointmentService.bookAppointment(longOne));
+
+		// other doctor, likely another shard: still overlapping for the patient
+		assertEquals(0, appointmentService.bookAppointment(new Appointment(null, second, patient, DAY.atTime(10, 0), 0)));
+		assertEquals(1, appointmentService.bookAppointment(new Appointment(null, second, clinic.patient(), DAY.atTime(10, 0), 0)));
+		Appointment later = new Appointment(null, second, patient, DAY.atTime(11, 0), 0);
+		assertEquals(1, appointmentService.bookAppointment(later));
+
+		assertEquals("You already have an appointment at that time", appointmentService.updateAppointment(later.getId(),
+				new Appointment(null, null, null, DAY.atTime(9, 0), 0), patient.getId()));
+		// moving it along within its own time does not conflict with itself
+		Appointment shorter = new Appointment(null, null, null, DAY.atTime(11, 0), 0);
+		shorter.setDurationMinutes(30);
+		assertEquals("OK", appointmentService.updateAppointment(later.getId(), shorter, patient.getId()));
+	}
+
+	@Test
+	void aRescheduleIsCheckedWithoutTheAppointmentItMoves() {
+		ClinicFixture clinic = new ClinicFixture(doctorRepository, patientRepository);
+		Patient patient = clinic.patient();
+		Doctor doctor = clinic.doctor();
+		Appointment booked = new Appointment(null, doctor, patient, DAY.atTime(11, 0), 0);
+		assertEquals(1, appointmentService.bookAppointment(booked));
+
+		assertTrue(patientIntervals.overlaps(patient.getId(), DAY.atTime(11, 30), DAY.atTime(13, 0), null));
+		assertFalse(patientIntervals.overlaps(patient.getId(), DAY.atTime(11, 30), DAY.atTime(13, 0), booked.getId()));
+		assertFalse(patientIntervals.overlaps(patient.getId(), DAY.atTime(12, 0), DAY.atTime(13, 0), null));
+
+		// a longer stay in the same slot overlaps only itself
+		Appointment longer = new Appointment(null, null, null, DAY.atTime(11, 0), 0);
+		longer.setDurationMinutes(120);
+		assertEquals("OK", appointmentService.updateAppointment(booked.getId(), longer, patient.getId()));
+		assertEquals(120, appointmentService.findAppointment(booked.getId()).orElseThrow().getDurationMinutes());
+		// with another appointment of the patient's in the way it is refused
+		Doctor other = clinic.doctor();
+		assertEquals(1, appointmentService.bookAppointment(new Appointment(null, other, patient, DAY.atTime(14, 0), 0)));
+		Appointment tooLong = new Appointment(null, null, null, DAY.atTime(11, 0), 0);
+		tooLong.setDurationMinutes(240);
+		assertEquals("You already have an appointment at that time",
+				appointmentService.updateAppointment(booked.getId(), tooLong, patient.getId()));
+	}
+
+}
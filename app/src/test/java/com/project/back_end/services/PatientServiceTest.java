@@ -0,0 +1,88 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.PatientRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Patient signup against an embedded database: duplicates are refused by the unique email and
+ * phone constraints alone, also between concurrent signups. Not run in a test transaction, so
+ * each insert commits (or fails) on its own as it does in the application.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PatientServiceTest {
+
+	private static final AtomicInteger SEQ = new AtomicInteger();
+
+	@Autowired
+	PatientRepository patientRepository;
+
+	private PatientService patientService() {
+		// signup touches nothing but the repository
+		return new PatientService(patientRepository, null, null, null, null, null);
+	}
+
+	@Test
+	void aTakenEmailOrPhoneIsAConflict() {
+		PatientService service = patientService();
+		Patient taken = patient(SEQ.incrementAndGet());
+		assertEquals(1, service.createPatient(taken));
+
+		Patient sameEmail = patient(SEQ.incrementAndGet());
+		sameEmail.setEmail(taken.getEmail());
+		assertEquals(-1, service.createPatient(sameEmail));
+
+		Patient samePhone = patient(SEQ.incrementAndGet());
+		samePhone.setPhone(taken.getPhone());
+		assertEquals(-1, service.createPatient(samePhone));
+	}
+
+	@Test
+	void concurrentSignupsWithOneEmailCreateOneAccount() throws Exception {
+		PatientService service = patientService();
+		int n = SEQ.incrementAndGet();
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Integer>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				Patient p = patient(SEQ.incrementAndGet());
+				p.setEmail("rush" + n + "@patients.test");
+				results.add(pool.submit(() -> service.createPatient(p)));
+			}
+			int created = 0;
+			for (Future<Integer> r : results) {
+				int res = r.get();
+				assertTrue(res == 1 || res == -1);
+				if (res == 1) created++;
+			}
+			assertEquals(1, created);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static Patient patient(int n) {
+		Patient p = new Patient();
+		p.setName("Patient " + n);
+		p.setEmail("patient" + n + "@patients.test");
+		p.setPassword("secret" + n);
+		p.setPhone(String.format("9%09d", n));
+		p.setAddress(n + " Main Street");
+		return p;
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.project.back_end.DTO.AuthTokens;
+import com.project.back_end.repo.AdminRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Access tokens carry their role and are checked without a repository lookup; refresh tokens
+ * work once and only for accounts that still exist; revocation covers one token or an account.
+ * Header-based endpoints read the token from "Authorization: Bearer ...".
+ */
+class TokenServiceTest {
+
+	private DoctorRepository doctorRepository;
+	private TokenService tokenService;
+
+	@BeforeEach
+	void setUp() {
+		doctorRepository = mock(DoctorRepository.class);
+		tokenService = new TokenService(mock(AdminRepository.class), doctorRepository, mock(PatientRepository.class), 15, 7);
+		ReflectionTestUtils.setField(tokenService, "jwtSecret", "a-test-secret-that-is-long-enough-for-hmac-sha-256");
+	}
+
+	@Test
+	void accessTokensCarryTheirRoleAndNeedNoLookup() {
+		AuthTokens login = tokenService.issue("DOCTOR", 7L, "doctor@tokens.test");
+		assertTrue(tokenService.validateToken(login.getToken(), "doctor"));
+		assertFalse(tokenService.validateToken(login.getToken(), "patient"));
+		// a refresh token is not an access token
+		assertFalse(tokenService.validateToken(login.getRefreshToken(), "doctor"));
+		assertFalse(tokenService.validateToken("not-a-token", "doctor"));
+		assertEquals("doctor@tokens.test", tokenService.extractIdentifier(login.getToken()));
+		verify(doctorRepository, never()).existsById(ArgumentMatchers.any());
+	}
+
+	@Test
+	void refreshTokensWorkOnceAndOnlyForExistingAccounts() {
+		when(doctorRepository.existsById(7L)).thenReturn(true);
+		AuthTokens login = tokenService.issue("doctor", 7L, "doctor@tokens.test");
+		AuthTokens refreshed = tokenService.refresh(login.getRefreshToken());
+		assertTrue(tokenService.validateToken(refreshed.getToken(), "doctor"));
+		assertNull(tokenService.refresh(login.getRefreshToken()));
+		// an access token cannot be traded in
+		assertNull(tokenService.refresh(refreshed.getToken()));
+
+		when(doctorRepository.existsById(7L)).thenReturn(false);
+		assertNull(tokenService.refresh(refreshed.getRefreshToken()));
+	}
+
+	@Test
+	void tokensAreTakenFromTheAuthorizationHeader() {
+		assertEquals("abc.def.ghi", TokenService.fromAuthorizationHeader("Bearer abc.def.ghi"));
+		assertEquals("abc.def.ghi", TokenService.fromAuthorizationHeader("  bearer   abc.def.ghi "));
+		// a bare token is accepted as is
+		assertEquals("abc.def.ghi", TokenService.fromAuthorizationHeader("abc.def.ghi"));
+		assertNull(TokenService.fromAuthorizationHeader(null));
+		assertNull(TokenService.fromAuthorizationHeader("   "));
+	}
+
+	@Test
+	void revokingATokenOrAnAccount() {
+		when(doctorRepository.existsById(7L)).thenReturn(true);
+		AuthTokens first = tokenService.issue("doctor", 7L, "doctor@tokens.test");
+		AuthTokens second = tokenService.issue("doctor", 7L, "doctor@tokens.test");
+		AuthTokens other = tokenService.issue("doctor", 8L, "other@tokens.test");
+
+		assertTrue(tokenService.revoke(first.getToken()));
+		assertFalse(tokenService.validateToken(first.getToken(), "doctor"));
+		assertTrue(tokenService.validateToken(second.getToken(), "doctor"));
+		assertFalse(tokenService.revoke("not-a-token"));
+
+		tokenService.revokeAll("doctor", 7L);
+		assertFalse(tokenService.validateToken(second.getToken(), "doctor"));
+		assertNull(tokenService.refresh(second.getRefreshToken()));
+		assertTrue(tokenService.validateToken(other.getToken(), "doctor"));
+	}
+
+}